@@ -26,6 +26,7 @@ import de.tudarmstadt.ukp.jwktl.api.IWiktionaryCollection;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
 import de.tudarmstadt.ukp.jwktl.api.entry.BerkeleyDBWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.entry.ShardedWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryCollection;
 import de.tudarmstadt.ukp.jwktl.parser.IWritableWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.parser.WiktionaryArticleParser;
@@ -75,9 +76,21 @@ public class JWKTL {
 	 *  @throws WiktionaryException in case of any JWKTL-related error. */
 	public static IWiktionaryCollection openCollection(
 			final Long cacheSize, final File... parsedDumps) {
+		return openCollection(cacheSize, false, parsedDumps);
+	}
+	
+	/** Opens the parsed Wiktionary language edition stored at the given 
+	 *  locations and aggregated them in a {@link IWiktionaryCollection}. 
+	 *  If <code>sharedCache</code> is set, all editions use a single 
+	 *  Berkeley DB cache of the given size, which is distributed among the
+	 *  editions according to their use. Otherwise, each edition uses its 
+	 *  own cache of the given size.
+	 *  @throws WiktionaryException in case of any JWKTL-related error. */
+	public static IWiktionaryCollection openCollection(
+			final Long cacheSize, boolean sharedCache, final File... parsedDumps) {
 		IWiktionaryCollection result = new WiktionaryCollection();
 		for (File parsedDump : parsedDumps)
-			result.addEdition(openEdition(parsedDump, cacheSize));
+			result.addEdition(openEdition(parsedDump, cacheSize, sharedCache));
 		return result;
 	}
 	
@@ -91,13 +104,29 @@ public class JWKTL {
 	
 	/** Opens the parsed Wiktionary language edition stored at the given 
 	 *  location. This method uses the given cache size for connecting 
-	 *  to the Berkeley DB.
+	 *  to the Berkeley DB. Sharded editions (see 
+	 *  {@link ShardedWiktionaryEdition}) distribute the cache size among 
+	 *  their shards.
 	 *  @throws WiktionaryException in case of any JWKTL-related error. */
 	public static IWiktionaryEdition openEdition(final File parsedDump,
 			final Long cacheSize) {
+		if (ShardedWiktionaryEdition.isShardedEdition(parsedDump))
+			return new ShardedWiktionaryEdition(parsedDump, cacheSize);
 		return new BerkeleyDBWiktionaryEdition(parsedDump, cacheSize);
 	}
 	
+	/** Opens the parsed Wiktionary language edition stored at the given 
+	 *  location. This method uses the given cache size for connecting 
+	 *  to the Berkeley DB. If <code>sharedCache</code> is set, the cache 
+	 *  is shared with the other editions opened with a shared cache.
+	 *  @throws WiktionaryException in case of any JWKTL-related error. */
+	public static IWiktionaryEdition openEdition(final File parsedDump,
+			final Long cacheSize, boolean sharedCache) {
+		if (ShardedWiktionaryEdition.isShardedEdition(parsedDump))
+			return new ShardedWiktionaryEdition(parsedDump, cacheSize, sharedCache);
+		return new BerkeleyDBWiktionaryEdition(parsedDump, cacheSize, sharedCache);
+	}
+	
 	
 	// -- Parse dump files --
 	
@@ -123,7 +152,8 @@ public class JWKTL {
 	 *  method is equivalent to {@link WiktionaryDumpParser#parse(File)} using
 	 *  a registered {@link WiktionaryArticleParser}. Optionally, information 
 	 *  from Wikisaurus is added to the parsed database using the 
-	 *  {@link WikisaurusArticleParser}.
+	 *  {@link WikisaurusArticleParser}, which merges the Wikisaurus entries
+	 *  into the parsed pages in a single sorted pass after the import.
 	 *  @param dumpFile file name of the Wiktionary dump in XML format.
 	 * 	@param targetDirectory directory for storing the parsed data. 
 	 * 	@param overwriteExisting if <code>true</code>, previously parsed 
@@ -139,7 +169,7 @@ public class JWKTL {
 		WiktionaryDumpParser parser = new WiktionaryDumpParser();
 		parser.register(new WiktionaryArticleParser(wiktionaryDB));
 		if (parseWikiSaurus)
-			parser.register(new WikisaurusArticleParser(wiktionaryDB));
+			parser.register(new WikisaurusArticleParser(wiktionaryDB, true));
 		parser.parse(dumpFile);
 	}
 	
@@ -344,6 +344,36 @@ public interface IWiktionary extends Closeable {
 			final IWiktionarySenseFilter filter,
 			final boolean sortByTitle, final boolean normalize);
 
+	
+	// -- Partitions --
+
+	/** Returns up to the given number of iterators that together 
+	 *  traverse all {@link IWiktionaryPage}s accepted by the given 
+	 *  {@link IWiktionaryPageFilter}. The iterators cover disjoint sets of 
+	 *  pages and can thus be consumed by different threads at the same 
+	 *  time (see {@link de.tudarmstadt.ukp.jwktl.api.util.WiktionaryPartitionScanner}).
+	 *  Each iterator may be used by one thread only. All iterators need to 
+	 *  be closed if they are not traversed completely. The order of the
+	 *  pages within an iterator is unspecified.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public List<IWiktionaryIterator<IWiktionaryPage>> getPagePartitions(
+			final IWiktionaryPageFilter filter, int partitionCount);
+
+	/** Returns up to the given number of iterators that together 
+	 *  traverse all {@link IWiktionaryEntry}s accepted by the given 
+	 *  {@link IWiktionaryEntryFilter}. 
+	 *  @see #getPagePartitions(IWiktionaryPageFilter, int) */
+	public List<IWiktionaryIterator<IWiktionaryEntry>> getEntryPartitions(
+			final IWiktionaryEntryFilter filter, int partitionCount);
+
+	/** Returns up to the given number of iterators that together 
+	 *  traverse all {@link IWiktionarySense}s accepted by the given 
+	 *  {@link IWiktionarySenseFilter}. 
+	 *  @see #getPagePartitions(IWiktionaryPageFilter, int) */
+	public List<IWiktionaryIterator<IWiktionarySense>> getSensePartitions(
+			final IWiktionarySenseFilter filter, int partitionCount);
+
 	// -- Close --
 	
 	/** Disconnects from the database. This is necessary to ensure the 
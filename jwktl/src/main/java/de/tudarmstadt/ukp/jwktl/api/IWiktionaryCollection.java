@@ -18,9 +18,12 @@
 package de.tudarmstadt.ukp.jwktl.api;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryPageFilter;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 
 /**
  * Models a list of multiple Wiktionary language editions (e.g., the 
@@ -46,6 +49,20 @@ public interface IWiktionaryCollection extends IWiktionary {
 	 *  call additionally the {@link IWiktionaryEdition#close()} method. */
 	public void removeEdition(final IWiktionaryEdition edition);
 
+	/** Sets the executor used for querying the editions concurrently, 
+	 *  such that the latency of a lookup is determined by the slowest 
+	 *  edition rather than the sum over all editions. The results are 
+	 *  still returned in the order of the editions. Use <code>null</code>
+	 *  (the default) to query the editions sequentially. The executor is 
+	 *  not shut down when closing the collection. */
+	public void setExecutor(final ExecutorService executor);
+
+	/** Sets the maximum time to wait for the result of an edition if the
+	 *  editions are queried concurrently. Editions that do not respond in 
+	 *  time are omitted from the result. Use zero (the default) to wait 
+	 *  without a time limit. */
+	public void setEditionTimeout(long timeout, final TimeUnit unit);
+
 	
 	// -- Pages --
 	
@@ -78,6 +95,19 @@ public interface IWiktionaryCollection extends IWiktionary {
 	public List<IWiktionaryPage> getPagesForWord(final String word, 
 			final IWiktionaryPageFilter filter);
 
+	/** Returns an iterator over the pages of all editions sorted by their
+	 *  title, whereby the pages of different editions having the same 
+	 *  title are grouped together. Each group contains at most one page 
+	 *  per edition (or multiple if <code>normalize</code> is 
+	 *  <code>true</code>) in the order the editions have been added. 
+	 *  The editions are merged while iterating, such that only the 
+	 *  current page of each edition is held in memory. Using the given 
+	 *  {@link IWiktionaryPageFilter}, unwanted pages can be ignored. 
+	 *  @param normalize if <code>true</code> sort and group case 
+	 *    insensitive; otherwise case sensitive. */
+	public IWiktionaryIterator<List<IWiktionaryPage>> getPageGroups(
+			final IWiktionaryPageFilter filter, boolean normalize);
+
 	
 	// -- Entries --
 
@@ -87,6 +117,20 @@ public interface IWiktionaryCollection extends IWiktionary {
 	
 //	public IWiktionaryEntry getEntryForId(long pageId, int entryIdx); --
 
+	/** Returns the entry with the given (edition-specific) unique key. 
+	 *  Note that this key is only stable over the same XML dump and JWKTL 
+	 *  version.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public IWiktionaryEntry getEntryForKey(final String key, final ILanguage language);
+
+	/** Returns all entries of all editions having the given inflected 
+	 *  word form.
+	 *  @see IWiktionaryEdition#getEntriesForWordForm(String)
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public List<IWiktionaryEntry> getEntriesForWordForm(final String wordForm);
+
 //	public IWiktionaryEntry getEntryForWord(final String word,
 //			int entryIdx); --
 		
@@ -106,6 +150,14 @@ public interface IWiktionaryCollection extends IWiktionary {
 	 *  @throws WiktionaryException upon database errors. */
 	public IWiktionarySense getSenseForKey(final String key, final ILanguage language);
 
+	/** Returns all {@link IWiktionarySense}s of all editions having a 
+	 *  translation into the given language that matches the given word.
+	 *  @see IWiktionaryEdition#getSensesForTranslation(ILanguage, String)
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public List<IWiktionarySense> getSensesForTranslation(
+			final ILanguage language, final String translation);
+
 //	public List<IWiktionarySense> getSensesForKey(final String id);
 
 //	public IWiktionarySense getSenseForId(long entryId, int senseIdx); --
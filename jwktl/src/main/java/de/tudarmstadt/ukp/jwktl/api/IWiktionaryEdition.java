@@ -18,9 +18,13 @@
 package de.tudarmstadt.ukp.jwktl.api;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFacet;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 
 /**
  * Models a single Wiktionary language edition (e.g., the English Wiktionary)
@@ -68,6 +72,41 @@ public interface IWiktionaryEdition extends IWiktionary {
 	 *  @throws WiktionaryException upon database errors. */
 	public IWiktionaryEntry getEntryForId(long pageId, int entryIdx);
 
+	/** Returns the {@link IWiktionaryEntry} with the given unique key as
+	 *  returned by {@link IWiktionaryEntry#getKey()}. The key is resolved
+	 *  without an additional index lookup. Returns <code>null</code> if 
+	 *  the key is malformed or there is no such entry. Note that this key 
+	 *  is only stable over the same XML dump and JWKTL version.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public IWiktionaryEntry getEntryForKey(final String key);
+
+	/** Returns all {@link IWiktionaryEntry}s having each of the given 
+	 *  facets, e.g., all English adjectives having a German translation. 
+	 *  If no facet is given, all entries are returned. Implementations 
+	 *  may use a facet index to avoid loading the non-matching entries.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public IWiktionaryIterator<IWiktionaryEntry> getEntriesWithFacets(
+			final WiktionaryEntryFacet... facets);
+
+	/** Returns all {@link IWiktionaryEntry}s having the given inflected 
+	 *  word form (see {@link IWiktionaryEntry#getWordForms()}), e.g., the 
+	 *  entry "house" for the word form "houses". The word form needs to 
+	 *  match exactly. Implementations may use a word form index to avoid 
+	 *  scanning all entries.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public List<IWiktionaryEntry> getEntriesForWordForm(final String wordForm);
+
+	/** Batch version of {@link #getEntriesForWordForm(String)}. Returns 
+	 *  a map from each of the given word forms to the list of entries 
+	 *  having this word form. The list is empty if there is no such entry.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public Map<String, List<IWiktionaryEntry>> getEntriesForWordForms(
+			final Collection<String> wordForms);
+
 	/** Returns the {@link IWiktionaryEntry} encoded on a page with 
 	 *  the given title and being part of an entry with the specified entry
 	 *  index. The method only returns the entries if the page title 
@@ -118,4 +157,16 @@ public interface IWiktionaryEdition extends IWiktionary {
 	public IWiktionarySense getSensesForWord(final String word,
 			int entryIdx, int senseIdx);
 
+	/** Returns all {@link IWiktionarySense}s having a translation into 
+	 *  the given language that matches the given word, i.e., a reverse 
+	 *  translation lookup. The translations are compared in lower case 
+	 *  and without the diacritics of Latin, Greek, and Cyrillic letters (see 
+	 *  {@link de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTranslation#normalizeTranslation(String)}). 
+	 *  Implementations may use a translation index to avoid scanning all 
+	 *  senses.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public List<IWiktionarySense> getSensesForTranslation(
+			final ILanguage language, final String translation);
+
 }
@@ -17,41 +17,86 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.jwktl.api.entry;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintWriter;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import com.sleepycat.je.CursorConfig;
+import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.EnvironmentStats;
+import com.sleepycat.je.PreloadConfig;
+import com.sleepycat.je.PreloadStats;
+import com.sleepycat.je.StatsConfig;
 import com.sleepycat.persist.EntityCursor;
 import com.sleepycat.persist.EntityStore;
+import com.sleepycat.persist.IndexNotAvailableException;
 import com.sleepycat.persist.PrimaryIndex;
 import com.sleepycat.persist.SecondaryIndex;
 import com.sleepycat.persist.StoreConfig;
 import com.sleepycat.persist.model.Entity;
+import com.sleepycat.persist.model.KeyField;
+import com.sleepycat.persist.model.Persistent;
 import com.sleepycat.persist.model.PrimaryKey;
 import com.sleepycat.persist.model.Relationship;
 import com.sleepycat.persist.model.SecondaryKey;
 
+import de.tudarmstadt.ukp.jwktl.api.IPronunciation;
+import de.tudarmstadt.ukp.jwktl.api.IPronunciation.PronunciationType;
+import de.tudarmstadt.ukp.jwktl.api.IQuotation;
+import de.tudarmstadt.ukp.jwktl.api.IWikiString;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionarySense;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryTranslation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryWordForm;
+import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
 import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
 import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryPageFilter;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFacet;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFilter;
+import de.tudarmstadt.ukp.jwktl.api.util.CompositeKey;
+import de.tudarmstadt.ukp.jwktl.api.util.DictionaryCompressor;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalAspect;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalCase;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalDegree;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalMood;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalNumber;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalPerson;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalTense;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.NonFiniteForm;
 import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryIterator;
 
 /**
@@ -64,7 +109,10 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 
 	/**
 	 * Proxy object for referencing to a {@link IWiktionaryEntry}. The proxy 
-	 * objects serve as a secondary database index. 
+	 * objects serve as a secondary database index. They are only required
+	 * for resolving entry IDs that have not been assigned in alphabetical
+	 * order; entry keys are resolved by parsing them (see 
+	 * {@link CompositeKey}). 
 	 * @author Christian M. Meyer
 	 */
 	@Entity
@@ -116,7 +164,9 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 	
 	/**
 	 * Proxy object for referencing to a {@link IWiktionarySense}. The proxy 
-	 * objects serve as a secondary database index. 
+	 * objects serve as a secondary database index. Sense keys are now 
+	 * resolved by parsing them (see {@link CompositeKey}), such that the 
+	 * proxies are only kept for compatibility with previous versions. 
 	 * @author Christian M. Meyer
 	 */
 	@Entity
@@ -164,6 +214,651 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 		
 	}
 
+	/**
+	 * Maps a page to the ID of its first {@link IWiktionaryEntry} if the
+	 * entry IDs are assigned in alphabetical order of the page titles. 
+	 * The IDs of the remaining entries of the page are consecutive, such 
+	 * that only one small record per page needs to be written when 
+	 * renumbering the entries instead of rewriting the whole page.
+	 */
+	@Entity
+	public static class WiktionaryEntryIdOffset {
+
+		@PrimaryKey
+		protected long pageId;
+
+		@SecondaryKey(relate = Relationship.ONE_TO_ONE)
+		protected Long firstEntryId;
+
+		protected int entryCount;
+
+		/** Instanciates an empty offset record. This constructor should not
+		 *  be called directly; it is solely used by the database API. */
+		public WiktionaryEntryIdOffset() {}
+
+		/** Instanciates an offset record for the given page. The ID of the
+		 *  first entry remains unassigned until the renumbering pass. */
+		public WiktionaryEntryIdOffset(long pageId, int entryCount) {
+			this.pageId = pageId;
+			this.entryCount = entryCount;
+		}
+
+		/** Return the ID of the referenced {@link IWiktionaryPage}. */
+		public long getPageId() {
+			return pageId;
+		}
+
+		/** Return the ID of the first entry of the page or <code>null</code>
+		 *  if no ID has been assigned yet. */
+		public Long getFirstEntryId() {
+			return firstEntryId;
+		}
+
+		/** Assign the ID of the first entry of the page. */
+		public void setFirstEntryId(final Long firstEntryId) {
+			this.firstEntryId = firstEntryId;
+		}
+
+		/** Return the number of entries of the page. */
+		public int getEntryCount() {
+			return entryCount;
+		}
+
+	}
+
+	/**
+	 * Key of a {@link WiktionaryTranslationProxy} consisting of the 
+	 * target language, the normalized translation, and the packed key of 
+	 * the translated sense. All senses having the same translation are 
+	 * thus stored adjacently and can be retrieved using a range query.
+	 */
+	@Persistent
+	public static class TranslationProxyKey {
+
+		@KeyField(1)
+		protected String language;
+
+		@KeyField(2)
+		protected String translation;
+
+		@KeyField(3)
+		protected long senseKey;
+
+		/** Instanciates an empty key. This constructor should not be called
+		 *  directly; it is solely used by the database API. */
+		public TranslationProxyKey() {}
+
+		/** Instanciates the key for the given language code, normalized 
+		 *  translation, and packed sense key. */
+		public TranslationProxyKey(final String language, 
+				final String translation, long senseKey) {
+			this.language = language;
+			this.translation = translation;
+			this.senseKey = senseKey;
+		}
+
+		/** Return the code of the target language. */
+		public String getLanguage() {
+			return language;
+		}
+
+		/** Return the normalized translation. */
+		public String getTranslation() {
+			return translation;
+		}
+
+		/** Return the packed key of the translated sense. 
+		 *  @see CompositeKey */
+		public long getSenseKey() {
+			return senseKey;
+		}
+
+	}
+
+	/**
+	 * Proxy object referencing a {@link IWiktionarySense} from one of its 
+	 * translations. The proxy objects serve as a reverse translation index.
+	 */
+	@Entity
+	public static class WiktionaryTranslationProxy {
+
+		@PrimaryKey
+		protected TranslationProxyKey key;
+
+		/** Instanciates an empty proxy. This constructor should not be 
+		 *  called directly; it is solely used by the database API. */
+		public WiktionaryTranslationProxy() {}
+
+		/** Instanciates a proxy for the given key. */
+		public WiktionaryTranslationProxy(final TranslationProxyKey key) {
+			this.key = key;
+		}
+
+		/** Return the key of this proxy. */
+		public TranslationProxyKey getKey() {
+			return key;
+		}
+
+	}
+
+	/**
+	 * Key of a {@link WiktionaryWordFormProxy} consisting of the inflected 
+	 * word form, the packed key of the entry, and the index of the word 
+	 * form within the entry. All entries having the same word form are 
+	 * thus stored adjacently and can be retrieved using a range query.
+	 */
+	@Persistent
+	public static class WordFormProxyKey {
+
+		@KeyField(1)
+		protected String wordForm;
+
+		@KeyField(2)
+		protected long entryKey;
+
+		@KeyField(3)
+		protected int index;
+
+		/** Instanciates an empty key. This constructor should not be called
+		 *  directly; it is solely used by the database API. */
+		public WordFormProxyKey() {}
+
+		/** Instanciates the key for the given word form, packed entry key, 
+		 *  and word form index. */
+		public WordFormProxyKey(final String wordForm, long entryKey, int index) {
+			this.wordForm = wordForm;
+			this.entryKey = entryKey;
+			this.index = index;
+		}
+
+		/** Return the inflected word form. */
+		public String getWordForm() {
+			return wordForm;
+		}
+
+		/** Return the packed key of the entry. 
+		 *  @see CompositeKey */
+		public long getEntryKey() {
+			return entryKey;
+		}
+
+		/** Return the index of the word form within the list of word forms 
+		 *  of the entry. */
+		public int getIndex() {
+			return index;
+		}
+
+	}
+
+	/**
+	 * Proxy object referencing a {@link IWiktionaryEntry} from one of its 
+	 * inflected word forms. The proxy objects serve as a word form index 
+	 * for lemmatization. Each proxy contains a copy of the grammatical 
+	 * features of the word form, such that these can be obtained without 
+	 * loading the entry.
+	 */
+	@Entity
+	public static class WiktionaryWordFormProxy {
+
+		@PrimaryKey
+		protected WordFormProxyKey key;
+		
+		protected IWiktionaryWordForm wordForm;
+
+		/** Instanciates an empty proxy. This constructor should not be 
+		 *  called directly; it is solely used by the database API. */
+		public WiktionaryWordFormProxy() {}
+
+		/** Instanciates a proxy for the given key and word form. */
+		public WiktionaryWordFormProxy(final WordFormProxyKey key,
+				final IWiktionaryWordForm wordForm) {
+			this.key = key;
+			this.wordForm = wordForm;
+		}
+
+		/** Return the key of this proxy. */
+		public WordFormProxyKey getKey() {
+			return key;
+		}
+
+		/** Return the unique key of the entry as returned by 
+		 *  {@link IWiktionaryEntry#getKey()}. */
+		public String getEntryKey() {
+			return CompositeKey.toEntryKey(key.getEntryKey());
+		}
+
+		/** Return the word form including its grammatical features. */
+		public IWiktionaryWordForm getWordForm() {
+			return wordForm;
+		}
+
+	}
+
+	/**
+	 * Rarely used parts of a page, i.e., the pronunciations and word forms
+	 * of its entries and the quotations, references, and translations of
+	 * its senses. These details are stored separately from the page 
+	 * record, which then only contains the frequently used information, 
+	 * such as the parts of speech and the glosses. The page records are 
+	 * thus smaller, and more of them fit into the database cache. The
+	 * details are loaded upon the first access to one of them. Optionally,
+	 * the details can be stored as a single byte array compressed using a 
+	 * dictionary that is shared by all records of the edition (see 
+	 * {@link #compress(DictionaryCompressor)}).
+	 */
+	@Entity
+	public static class WiktionaryPageDetails {
+
+		@PrimaryKey
+		protected long pageId;
+
+		protected List<WiktionaryEntryDetails> entries;
+		protected byte[] data;
+
+		/** Instanciates empty details. This constructor should not be 
+		 *  called directly; it is solely used by the database API. */
+		public WiktionaryPageDetails() {}
+
+		/** Moves the details of the given page into a new instance, such
+		 *  that the page contains only the remaining information. */
+		public static WiktionaryPageDetails detach(final WiktionaryPage page) {
+			page.loadDetails();
+			WiktionaryPageDetails result = new WiktionaryPageDetails();
+			result.pageId = page.getId();
+			result.entries = new ArrayList<WiktionaryEntryDetails>(page.getEntryCount());
+			for (WiktionaryEntry entry : page.entries()) {
+				WiktionaryEntryDetails details = new WiktionaryEntryDetails();
+				details.pronunciations = entry.pronunciations;
+				details.wordForms = entry.wordForms;
+				entry.pronunciations = null;
+				entry.wordForms = null;
+				details.senses = new ArrayList<WiktionarySenseDetails>(entry.senses.size());
+				for (WiktionarySense sense : entry.senses) {
+					WiktionarySenseDetails senseDetails = new WiktionarySenseDetails();
+					senseDetails.quotations = sense.quotations;
+					senseDetails.references = sense.references;
+					senseDetails.translations = sense.translations;
+					sense.quotations = null;
+					sense.references = null;
+					sense.translations = null;
+					details.senses.add(senseDetails);
+				}
+				result.entries.add(details);
+			}
+			return result;
+		}
+
+		/** Creates details from the given compressed data (see 
+		 *  {@link #compress(DictionaryCompressor)}). */
+		public static WiktionaryPageDetails compressed(long pageId, 
+				final byte[] data) {
+			WiktionaryPageDetails result = new WiktionaryPageDetails();
+			result.pageId = pageId;
+			result.data = data;
+			return result;
+		}
+
+		/** Moves the details back into the given page. 
+		 *  @throws IllegalStateException if the details are compressed. */
+		public void attach(final WiktionaryPage page) {
+			if (entries == null)
+				throw new IllegalStateException("Page details are compressed");
+			int entryCount = Math.min(entries.size(), page.getEntryCount());
+			for (int i = 0; i < entryCount; i++) {
+				WiktionaryEntry entry = page.entries().get(i);
+				WiktionaryEntryDetails details = entries.get(i);
+				entry.pronunciations = details.pronunciations;
+				entry.wordForms = details.wordForms;
+				int senseCount = Math.min(details.senses.size(), entry.senses.size());
+				for (int j = 0; j < senseCount; j++) {
+					WiktionarySense sense = entry.senses.get(j);
+					WiktionarySenseDetails senseDetails = details.senses.get(j);
+					sense.quotations = senseDetails.quotations;
+					sense.references = senseDetails.references;
+					sense.translations = senseDetails.translations;
+				}
+			}
+		}
+
+		/** Returns the ID of the page. */
+		public long getPageId() {
+			return pageId;
+		}
+
+		/** Returns true if none of the entries and senses has any details. */
+		public boolean isEmpty() {
+			if (entries == null)
+				return (data == null);
+			for (WiktionaryEntryDetails details : entries) {
+				if (details.pronunciations != null || details.wordForms != null)
+					return false;
+				for (WiktionarySenseDetails senseDetails : details.senses)
+					if (senseDetails.quotations != null || senseDetails.references != null
+							|| senseDetails.translations != null)
+						return false;
+			}
+			return true;
+		}
+
+		/** Returns true if the details are stored in compressed form. */
+		public boolean isCompressed() {
+			return (data != null);
+		}
+
+		/** Replaces the details by their serialized form compressed using
+		 *  the given compressor. */
+		public void compress(final DictionaryCompressor compressor) {
+			if (data == null) {
+				data = compressor.compress(toByteArray());
+				entries = null;
+			}
+		}
+
+		/** Restores compressed details using the given compressor, which
+		 *  needs to use the dictionary that the details have been
+		 *  compressed with. */
+		public void decompress(final DictionaryCompressor compressor) {
+			if (data != null) {
+				entries = readEntries(compressor.decompress(data));
+				data = null;
+			}
+		}
+
+		/** Returns the serialized form of the details, which is used for
+		 *  compressing them. */
+		public byte[] toByteArray() {
+			if (entries == null)
+				throw new IllegalStateException("Page details are compressed");
+			try {
+				ByteArrayOutputStream result = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(result);
+				writeEntries(out, entries);
+				out.flush();
+				return result.toByteArray();
+			} catch (IOException e) {
+				throw new WiktionaryException("Unable to serialize page details", e);
+			}
+		}
+
+
+		// -- Serialization --
+
+		/** Version of the serialized form, which is stored as its first 
+		 *  byte. Increment upon changing the format, since the enum values 
+		 *  are stored by their ordinal. */
+		public static final int FORMAT_VERSION = 1;
+
+		protected static void writeEntries(final DataOutputStream out,
+				final List<WiktionaryEntryDetails> entries) throws IOException {
+			out.writeByte(FORMAT_VERSION);
+			out.writeInt(entries.size());
+			for (WiktionaryEntryDetails details : entries) {
+				if (writeSize(out, details.pronunciations))
+					for (IPronunciation pronunciation : details.pronunciations) {
+						writeEnum(out, pronunciation.getType());
+						writeString(out, pronunciation.getText());
+						writeString(out, pronunciation.getNote());
+					}
+				if (writeSize(out, details.wordForms))
+					for (IWiktionaryWordForm wordForm : details.wordForms) {
+						writeString(out, wordForm.getWordForm());
+						writeEnum(out, wordForm.getNumber());
+						writeEnum(out, wordForm.getCase());
+						writeEnum(out, wordForm.getPerson());
+						writeEnum(out, wordForm.getTense());
+						writeEnum(out, wordForm.getMood());
+						writeEnum(out, wordForm.getDegree());
+						writeEnum(out, wordForm.getAspect());
+						writeEnum(out, wordForm.getNonFiniteForm());
+					}
+				out.writeInt(details.senses.size());
+				for (WiktionarySenseDetails senseDetails : details.senses) {
+					if (writeSize(out, senseDetails.quotations))
+						for (IQuotation quotation : senseDetails.quotations) {
+							writeWikiString(out, quotation.getSource());
+							if (writeSize(out, quotation.getLines()))
+								for (IWikiString line : quotation.getLines())
+									writeWikiString(out, line);
+						}
+					if (writeSize(out, senseDetails.references))
+						for (IWikiString reference : senseDetails.references)
+							writeWikiString(out, reference);
+					if (writeSize(out, senseDetails.translations))
+						for (IWiktionaryTranslation translation : senseDetails.translations) {
+							writeString(out, translation.getLanguage() == null
+									? null : translation.getLanguage().getCode());
+							writeString(out, translation.getTranslation());
+							writeString(out, translation.getTransliteration());
+							writeString(out, translation.getAdditionalInformation());
+						}
+				}
+			}
+		}
+
+		protected static List<WiktionaryEntryDetails> readEntries(final byte[] data) {
+			try {
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+				int version = in.readByte();
+				if (version != FORMAT_VERSION)
+					throw new WiktionaryException("Unsupported page details format version "
+							+ version + "; the edition needs to be parsed again");
+				int entryCount = in.readInt();
+				List<WiktionaryEntryDetails> result = new ArrayList<WiktionaryEntryDetails>(entryCount);
+				for (int i = 0; i < entryCount; i++) {
+					WiktionaryEntryDetails details = new WiktionaryEntryDetails();
+					int count = in.readInt();
+					if (count >= 0) {
+						details.pronunciations = new ArrayList<IPronunciation>(count);
+						for (int j = 0; j < count; j++) {
+							PronunciationType type = readEnum(in, PronunciationType.values());
+							String text = readString(in);
+							details.pronunciations.add(new Pronunciation(type, text, readString(in)));
+						}
+					}
+					count = in.readInt();
+					if (count >= 0) {
+						details.wordForms = new ArrayList<IWiktionaryWordForm>(count);
+						for (int j = 0; j < count; j++) {
+							WiktionaryWordForm wordForm = new WiktionaryWordForm(readString(in));
+							wordForm.setNumber(readEnum(in, GrammaticalNumber.values()));
+							wordForm.setCase(readEnum(in, GrammaticalCase.values()));
+							wordForm.setPerson(readEnum(in, GrammaticalPerson.values()));
+							wordForm.setTense(readEnum(in, GrammaticalTense.values()));
+							wordForm.setMood(readEnum(in, GrammaticalMood.values()));
+							wordForm.setDegree(readEnum(in, GrammaticalDegree.values()));
+							wordForm.setAspect(readEnum(in, GrammaticalAspect.values()));
+							wordForm.setNonFiniteForm(readEnum(in, NonFiniteForm.values()));
+							details.wordForms.add(wordForm);
+						}
+					}
+					int senseCount = in.readInt();
+					details.senses = new ArrayList<WiktionarySenseDetails>(senseCount);
+					for (int j = 0; j < senseCount; j++) {
+						WiktionarySenseDetails senseDetails = new WiktionarySenseDetails();
+						count = in.readInt();
+						if (count >= 0) {
+							senseDetails.quotations = new ArrayList<IQuotation>(count);
+							for (int k = 0; k < count; k++) {
+								Quotation quotation = new Quotation();
+								quotation.setSource(readWikiString(in));
+								int lineCount = in.readInt();
+								for (int l = 0; l < lineCount; l++)
+									quotation.addLine(readWikiString(in));
+								senseDetails.quotations.add(quotation);
+							}
+						}
+						count = in.readInt();
+						if (count >= 0) {
+							senseDetails.references = new ArrayList<IWikiString>(count);
+							for (int k = 0; k < count; k++)
+								senseDetails.references.add(readWikiString(in));
+						}
+						count = in.readInt();
+						if (count >= 0) {
+							senseDetails.translations = new ArrayList<IWiktionaryTranslation>(count);
+							for (int k = 0; k < count; k++) {
+								String languageCode = readString(in);
+								WiktionaryTranslation translation = new WiktionaryTranslation(
+										Language.get(languageCode), readString(in));
+								translation.setTransliteration(readString(in));
+								translation.setAdditionalInformation(readString(in));
+								senseDetails.translations.add(translation);
+							}
+						}
+						details.senses.add(senseDetails);
+					}
+					result.add(details);
+				}
+				return result;
+			} catch (IOException e) {
+				throw new WiktionaryException("Unable to deserialize page details", e);
+			}
+		}
+
+		protected static boolean writeSize(final DataOutputStream out,
+				final List<?> list) throws IOException {
+			out.writeInt(list == null ? -1 : list.size());
+			return (list != null);
+		}
+
+		protected static void writeEnum(final DataOutputStream out,
+				final Enum<?> value) throws IOException {
+			out.writeByte(value == null ? -1 : value.ordinal());
+		}
+
+		protected static <T> T readEnum(final DataInputStream in,
+				final T[] values) throws IOException {
+			int ordinal = in.readByte();
+			return (ordinal < 0 ? null : values[ordinal]);
+		}
+
+		// Unlike DataOutput.writeUTF, the string length is not limited.
+		protected static void writeString(final DataOutputStream out,
+				final String value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+			byte[] bytes = value.getBytes("UTF-8");
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		protected static String readString(final DataInputStream in)
+				throws IOException {
+			int length = in.readInt();
+			if (length < 0)
+				return null;
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return new String(bytes, "UTF-8");
+		}
+
+		protected static void writeWikiString(final DataOutputStream out,
+				final IWikiString value) throws IOException {
+			writeString(out, value == null ? null : value.getText());
+		}
+
+		protected static IWikiString readWikiString(final DataInputStream in)
+				throws IOException {
+			String text = readString(in);
+			return (text == null ? null : new WikiString(text));
+		}
+
+	}
+
+	/** Details of an entry (see {@link WiktionaryPageDetails}). */
+	@Persistent
+	public static class WiktionaryEntryDetails {
+
+		protected List<IPronunciation> pronunciations;
+		protected List<IWiktionaryWordForm> wordForms;
+		protected List<WiktionarySenseDetails> senses;
+
+	}
+
+	/** Details of a sense (see {@link WiktionaryPageDetails}). */
+	@Persistent
+	public static class WiktionarySenseDetails {
+
+		protected List<IQuotation> quotations;
+		protected List<IWikiString> references;
+		protected List<IWiktionaryTranslation> translations;
+
+	}
+
+	/**
+	 * Compact summary of the word languages and parts of speech of the 
+	 * entries of a page. Each word language and part of speech is mapped
+	 * to one bit of a 64 bit mask. Different languages or parts of speech 
+	 * may share a bit, such that a set bit only indicates that the page 
+	 * might contain a corresponding entry, whereas an unset bit allows for
+	 * skipping the page without loading it.
+	 */
+	@Entity
+	public static class WiktionaryPageSummary {
+
+		@PrimaryKey
+		protected long pageId;
+
+		protected long wordLanguages;
+		protected long partsOfSpeech;
+
+		/** Instanciates an empty summary. This constructor should not be 
+		 *  called directly; it is solely used by the database API. */
+		public WiktionaryPageSummary() {}
+
+		/** Instanciates the summary of the given page. */
+		public WiktionaryPageSummary(final IWiktionaryPage page) {
+			pageId = page.getId();
+			for (IWiktionaryEntry entry : page.getEntries()) {
+				wordLanguages |= getLanguageBit(entry.getWordLanguage());
+				partsOfSpeech |= getPartOfSpeechBit(entry.getPartOfSpeech());
+			}
+		}
+
+		/** Return the ID of the summarized {@link IWiktionaryPage}. */
+		public long getPageId() {
+			return pageId;
+		}
+
+		/** Return the bit mask of the word languages of the page's entries. */
+		public long getWordLanguages() {
+			return wordLanguages;
+		}
+
+		/** Return the bit mask of the parts of speech of the page's entries. */
+		public long getPartsOfSpeech() {
+			return partsOfSpeech;
+		}
+
+		/** Returns true if the page might contain an entry having one of 
+		 *  the word languages and one of the parts of speech encoded by the 
+		 *  given masks. A mask of zero denotes no restriction. */
+		public boolean mayContain(long wordLanguageMask, long partOfSpeechMask) {
+			if (wordLanguageMask != 0 && (wordLanguages & wordLanguageMask) == 0)
+				return false;
+			if (partOfSpeechMask != 0 && (partsOfSpeech & partOfSpeechMask) == 0)
+				return false;
+			return true;
+		}
+
+		/** Returns the bit representing the given language. */
+		public static long getLanguageBit(final ILanguage language) {
+			if (language == null)
+				return 0;
+			return 1L << (language.getCode().hashCode() & 63);
+		}
+
+		/** Returns the bit representing the given part of speech. */
+		public static long getPartOfSpeechBit(final PartOfSpeech partOfSpeech) {
+			if (partOfSpeech == null)
+				return 0;
+			return 1L << (partOfSpeech.ordinal() & 63);
+		}
+
+	}
+
 	
 	private static final Logger logger = Logger.getLogger(BerkeleyDBWiktionaryEdition.class.getName());
 		
@@ -171,6 +866,37 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 	public static final String DATABASE_NAME = "WIKTIONARY";
 	/** The name of the property file containing info about the parsed DB. */
 	public static final String PROPERTY_FILE_NAME = "wiktionary.properties";
+	/** The property denoting how the entry IDs have been assigned. */
+	public static final String ENTRY_IDS_PROPERTY = "database.entry_ids";
+	/** Value of {@link #ENTRY_IDS_PROPERTY} for entry IDs assigned in 
+	 *  alphabetical order of the page titles. */
+	public static final String ENTRY_IDS_BY_TITLE = "title";
+	/** The property denoting if the entry and sense proxies have been
+	 *  saved. */
+	public static final String PROXIES_PROPERTY = "database.proxies";
+	/** The property denoting if the word form index has been saved. */
+	public static final String WORD_FORM_INDEX_PROPERTY = "database.word_form_index";
+	/** The property denoting if the translation index has been saved. */
+	public static final String TRANSLATION_INDEX_PROPERTY = "database.translation_index";
+	/** The property denoting if the page details have been stored 
+	 *  separately from the pages. */
+	public static final String PAGE_DETAILS_PROPERTY = "database.page_details";
+	/** The property denoting if a page summary has been saved for each
+	 *  page, which is not the case if a database of a previous version 
+	 *  has been updated. */
+	public static final String PAGE_SUMMARIES_PROPERTY = "database.page_summaries";
+	/** The name of the file containing the dictionary used for compressing
+	 *  the page details. */
+	public static final String PAGE_DETAILS_DICTIONARY_FILE_NAME = "wiktionary.dict";
+	/** The name of the file containing the last checkpoint of an import
+	 *  in progress. */
+	public static final String CHECKPOINT_FILE_NAME = "wiktionary.checkpoint";
+	/** The property denoting the order in which the pages have been 
+	 *  written to the database. */
+	public static final String PAGE_LAYOUT_PROPERTY = "database.page_layout";
+	/** Value of {@link #PAGE_LAYOUT_PROPERTY} for pages written in 
+	 *  alphabetical order of their titles. */
+	public static final String PAGE_LAYOUT_BY_TITLE = "title";
 
 	protected Environment env;
 	protected EntityStore store;
@@ -184,7 +910,29 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 	protected PrimaryIndex<String, WiktionaryEntryProxy> entryByKey;
 	protected SecondaryIndex<Long, String, WiktionaryEntryProxy> entryById;
 	protected PrimaryIndex<String, WiktionarySenseProxy> senseByKey;
+	protected PrimaryIndex<Long, WiktionaryEntryIdOffset> entryIdOffsetByPage;
+	protected SecondaryIndex<Long, Long, WiktionaryEntryIdOffset> entryIdOffsetByFirstId;
+	protected boolean entryIdsByTitle;
+	protected boolean hasEntryIdOffsets;
+	protected boolean layoutByTitle;
+	protected PrimaryIndex<Long, WiktionaryPageSummary> pageSummaryById;
+	protected boolean hasPageSummaries;
+	protected PrimaryIndex<Long, WiktionaryPageDetails> pageDetailsById;
+	protected WiktionaryPage.IDetailsLoader detailsLoader;
+	protected DictionaryCompressor detailsCompressor;
+	protected WiktionaryFacetIndex facetIndex;
+	protected WiktionaryRelationGraph relationGraph;
+	protected WiktionaryTitleIndex titleIndex;
+	protected WiktionaryTitleFilter titleFilter;
+	protected WiktionaryTitleHash titleHash;
+	protected AtomicLong titleFilterRejections;
+	protected AtomicLong titleFilterFalsePositives;
+	protected PrimaryIndex<TranslationProxyKey, WiktionaryTranslationProxy> translationIndex;
+	protected PrimaryIndex<WordFormProxyKey, WiktionaryWordFormProxy> wordFormIndex;
 	protected Set<EntityCursor<?>> openCursors;
+	protected boolean sharedCache;
+	protected ConcurrentMap<String, AtomicLong> hotTitles;
+	protected int maxHotTitles;
 		
 	/** Connects to the parsed Wiktionary contained in the specified directory.
 	 * 	@param dbPath the path of the database files. 
@@ -204,6 +952,22 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 	public BerkeleyDBWiktionaryEdition(final File dbPath, Long cacheSize) {
 		this(dbPath, true, false, false, cacheSize);
 	}
+
+	/** Connects to the parsed Wiktionary contained in the specified directory.
+	 * 	@param dbPath the path of the database files. 
+	 * 	@param cacheSize the memory (in Bytes) that is used as database
+	 *     cache, which can be used to speed up the DB access. Use
+	 *     null as a default value.
+	 * 	@param sharedCache if true, the database cache is shared with all
+	 *     other editions opened with a shared cache. The shared cache is 
+	 *     sized by the first of these editions and assigned to the 
+	 *     editions according to their access patterns.
+	 *  @throws WiktionaryException if the connection could not 
+	 *  	be established. */
+	public BerkeleyDBWiktionaryEdition(final File dbPath, Long cacheSize,
+			boolean sharedCache) {
+		this(dbPath, true, false, false, cacheSize, sharedCache);
+	}
 	
 	/** Configures the database adapter and connects to the DB files at the 
 	 *  specified path.
@@ -219,7 +983,17 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 	protected BerkeleyDBWiktionaryEdition(final File parsedWiktionaryDump,
 			boolean isReadOnly, boolean allowCreateNew, boolean overwriteExisting,
 			Long cacheSize) {
+		this(parsedWiktionaryDump, isReadOnly, allowCreateNew, 
+				overwriteExisting, cacheSize, false);
+	}
+
+	/** Configures the database adapter and connects to the DB files at the 
+	 *  specified path, optionally using the shared database cache. */
+	protected BerkeleyDBWiktionaryEdition(final File parsedWiktionaryDump,
+			boolean isReadOnly, boolean allowCreateNew, boolean overwriteExisting,
+			Long cacheSize, boolean sharedCache) {
 		this.dbPath = parsedWiktionaryDump;
+		this.sharedCache = sharedCache;
 		try {
 			connect(isReadOnly, allowCreateNew, overwriteExisting, cacheSize);
 		} catch (DatabaseException e) {
@@ -238,6 +1012,7 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 		envConfig.setTransactional(false);
 		if (cacheSize != null)
 			envConfig.setCacheSize(cacheSize);
+		envConfig.setSharedCache(sharedCache);
 		env = new Environment(dbPath, envConfig);
 
 		// Configure store.
@@ -277,7 +1052,114 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 		entryById = store.getSecondaryIndex(entryByKey, Long.class, "entryId");
 		senseByKey = store.getPrimaryIndex(String.class, WiktionarySenseProxy.class);
 
-		openCursors = new HashSet<EntityCursor<?>>();
+		entryIdOffsetByPage = getOptionalPrimaryIndex(Long.class, WiktionaryEntryIdOffset.class);
+		if (entryIdOffsetByPage != null)
+			entryIdOffsetByFirstId = store.getSecondaryIndex(entryIdOffsetByPage, Long.class, "firstEntryId");
+		pageSummaryById = getOptionalPrimaryIndex(Long.class, WiktionaryPageSummary.class);
+		hasPageSummaries = (pageSummaryById != null 
+				&& Boolean.parseBoolean(properties.getProperty(PAGE_SUMMARIES_PROPERTY)));
+		if (!isReadOnly || Boolean.parseBoolean(properties.getProperty(PAGE_DETAILS_PROPERTY)))
+			pageDetailsById = getOptionalPrimaryIndex(Long.class, WiktionaryPageDetails.class);
+		else
+			pageDetailsById = null;
+		File dictionaryFile = new File(dbPath, PAGE_DETAILS_DICTIONARY_FILE_NAME);
+		if (pageDetailsById != null && dictionaryFile.exists())
+			detailsCompressor = loadDetailsCompressor(dictionaryFile);
+		else
+			detailsCompressor = null;
+		detailsLoader = (pageDetailsById == null ? null : new WiktionaryPage.IDetailsLoader() {
+			public void loadDetails(final WiktionaryPage page) {
+				ensureOpen();
+				try {
+					WiktionaryPageDetails details = pageDetailsById.get(page.getId());
+					if (details == null)
+						return;
+					if (details.isCompressed()) {
+						if (detailsCompressor == null)
+							throw new WiktionaryException("Missing page details dictionary");
+						details.decompress(detailsCompressor);
+					}
+					details.attach(page);
+				} catch (DatabaseException e) {
+					throw new WiktionaryException(e);
+				}
+			}
+		});
+		if (!isReadOnly || Boolean.parseBoolean(properties.getProperty(TRANSLATION_INDEX_PROPERTY)))
+			translationIndex = getOptionalPrimaryIndex(TranslationProxyKey.class, WiktionaryTranslationProxy.class);
+		else
+			translationIndex = null;
+		if (!isReadOnly || Boolean.parseBoolean(properties.getProperty(WORD_FORM_INDEX_PROPERTY)))
+			wordFormIndex = getOptionalPrimaryIndex(WordFormProxyKey.class, WiktionaryWordFormProxy.class);
+		else
+			wordFormIndex = null;
+		entryIdsByTitle = (entryIdOffsetByPage != null 
+				&& ENTRY_IDS_BY_TITLE.equals(properties.getProperty(ENTRY_IDS_PROPERTY)));
+		hasEntryIdOffsets = (entryIdsByTitle && !isEmpty(entryIdOffsetByPage));
+		layoutByTitle = PAGE_LAYOUT_BY_TITLE.equals(properties.getProperty(PAGE_LAYOUT_PROPERTY));
+
+		// The title filter and hash are only used for read-only databases,
+		// since they do not reflect pages added afterwards.
+		File filterFile = new File(dbPath, WiktionaryTitleFilter.FILE_NAME);
+		if (isReadOnly && filterFile.exists())
+			titleFilter = WiktionaryTitleFilter.load(filterFile);
+		else
+			titleFilter = null;
+		File hashFile = new File(dbPath, WiktionaryTitleHash.FILE_NAME);
+		if (isReadOnly && hashFile.exists())
+			titleHash = WiktionaryTitleHash.map(hashFile);
+		else
+			titleHash = null;
+		titleFilterRejections = new AtomicLong();
+		titleFilterFalsePositives = new AtomicLong();
+
+		// Partitions may be consumed and closed by different threads.
+		openCursors = Collections.synchronizedSet(new HashSet<EntityCursor<?>>());
+	}
+
+	/** Returns the primary index for the given entity class or null if the
+	 *  index is not available. This is the case if a database created by
+	 *  a previous version is opened in read-only mode. */
+	protected <K, E> PrimaryIndex<K, E> getOptionalPrimaryIndex(
+			final Class<K> keyClass, final Class<E> entityClass) 
+			throws DatabaseException {
+		try {
+			return store.getPrimaryIndex(keyClass, entityClass);
+		} catch (IndexNotAvailableException e) {
+			return null;
+		}
+	}
+
+	/** Returns true if the given index contains no records. */
+	protected static boolean isEmpty(final PrimaryIndex<?, ?> index) 
+			throws DatabaseException {
+		EntityCursor<?> cursor = index.keys();
+		try {
+			return (cursor.next() == null);
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/** Loads the dictionary used for compressing the page details. */
+	protected static DictionaryCompressor loadDetailsCompressor(final File file) {
+		try {
+			DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				return DictionaryCompressor.read(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to load page details dictionary", e);
+		}
+	}
+
+	/** Returns the dictionary used for compressing the page details or
+	 *  <code>null</code> if the page details are not compressed. */
+	public DictionaryCompressor getDetailsCompressor() {
+		return detailsCompressor;
 	}
 
 	/** Creates the given target dictionary if necessary. Removes a previously
@@ -311,7 +1193,21 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 					return true;
 				if (name.equals("je.lck"))
 					return true;
-				if (name.equals("wiktionary.properties"))
+				if (name.equals(PROPERTY_FILE_NAME))
+					return true;
+				if (name.equals(WiktionaryFacetIndex.FILE_NAME))
+					return true;
+				if (name.equals(WiktionaryRelationGraph.FILE_NAME))
+					return true;
+				if (name.equals(WiktionaryTitleIndex.FILE_NAME))
+					return true;
+				if (name.equals(WiktionaryTitleFilter.FILE_NAME))
+					return true;
+				if (name.equals(WiktionaryTitleHash.FILE_NAME))
+					return true;
+				if (name.equals(PAGE_DETAILS_DICTIONARY_FILE_NAME))
+					return true;
+				if (name.startsWith(CHECKPOINT_FILE_NAME))
 					return true;
 
 				return false;
@@ -344,7 +1240,13 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 				return loadPage(pageByNormalizedTitle.get(
 						WiktionaryPage.normalizeTitle(word)), null);
 			else*/
-			return loadPage(pageByTitle.get(word), null);
+			if (!mightContainTitle(word, false))
+				return null;
+			
+			WiktionaryPage page = getPageByTitle(word);
+			if (page == null && titleFilter != null)
+				titleFilterFalsePositives.incrementAndGet();
+			return loadPage(page, null);
 		} catch (DatabaseException e) {
 			throw new WiktionaryException(e);
 		}
@@ -360,18 +1262,31 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 			List<IWiktionaryPage> result = new ArrayList<IWiktionaryPage>();
 			if (normalize) {
 				String t = WiktionaryPage.normalizeTitle(word);
+				if (!mightContainTitle(t, true))
+					return result;
+				
+				boolean found = false;
 				EntityCursor<WiktionaryPage> cursor = pageByNormalizedTitle
 						.entities(null, t, true, t, true, CursorConfig.DEFAULT);
 				while (cursor.next() != null) {
+					found = true;
 					IWiktionaryPage page = loadPage(cursor.current(), filter);
 					if (page != null)
 						result.add(page);
 				}
 				cursor.close();
+				if (!found && titleFilter != null)
+					titleFilterFalsePositives.incrementAndGet();
 			} else {
-				IWiktionaryPage page = loadPage(pageByTitle.get(word), filter);
-				if (page != null)
-					result.add(page); // can be only one result!
+				if (!mightContainTitle(word, false))
+					return result;
+				
+				WiktionaryPage page = getPageByTitle(word);
+				if (page == null && titleFilter != null)
+					titleFilterFalsePositives.incrementAndGet();
+				IWiktionaryPage loaded = loadPage(page, filter);
+				if (loaded != null)
+					result.add(loaded); // can be only one result!
 			}
 			return result;
 		} catch (DatabaseException e) {
@@ -379,6 +1294,71 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 		}
 	}
 	
+	/** Returns the (unloaded) page with the given title or 
+	 *  <code>null</code> if there is no such page. If there is a title hash,
+	 *  the page ID is obtained from the hash, which avoids the lookup in
+	 *  the title index. The lookup is counted if hot titles are tracked
+	 *  (see {@link #setHotTitleTracking(int)}). */
+	protected WiktionaryPage getPageByTitle(final String title) 
+			throws DatabaseException {
+		if (hotTitles != null)
+			countHotTitle(title);
+		return findPageByTitle(title);
+	}
+	
+	protected WiktionaryPage findPageByTitle(final String title) 
+			throws DatabaseException {
+		if (titleHash == null)
+			return pageByTitle.get(title);
+		
+		long pageId = titleHash.getPageId(title);
+		if (pageId < 0)
+			return null;
+		
+		WiktionaryPage result = pageById.get(pageId);
+		return (result != null && title.equals(result.getTitle()) ? result : null);
+	}
+	
+	/** Returns the title hash of this edition or <code>null</code> if 
+	 *  there is none. The hash is mapped when connecting to a read-only 
+	 *  database and released when closing the edition. */
+	public WiktionaryTitleHash getTitleHash() {
+		return titleHash;
+	}
+	
+	/** Consults the title filter and returns <code>false</code> if there 
+	 *  is definitely no page with the given (normalized) title. */
+	protected boolean mightContainTitle(final String title, boolean normalized) {
+		if (titleFilter == null)
+			return true;
+		
+		boolean result = (normalized 
+				? titleFilter.mightContainNormalizedTitle(title)
+				: titleFilter.mightContainTitle(title));
+		if (!result)
+			titleFilterRejections.incrementAndGet();
+		return result;
+	}
+	
+	/** Returns the title filter of this edition or <code>null</code> if 
+	 *  there is none. The filter is loaded when connecting to a read-only 
+	 *  database. */
+	public WiktionaryTitleFilter getTitleFilter() {
+		return titleFilter;
+	}
+	
+	/** Returns the number of title lookups that have been answered by the
+	 *  title filter without accessing the database. */
+	public long getTitleFilterRejections() {
+		return titleFilterRejections.get();
+	}
+	
+	/** Returns the number of title lookups that passed the title filter,
+	 *  but for which there was no page in the database. */
+	public long getTitleFilterFalsePositives() {
+		return titleFilterFalsePositives.get();
+	}
+	
 	public WiktionaryIterator<IWiktionaryPage> getAllPages(
 			final IWiktionaryPageFilter filter, boolean sortByTitle, 
 			boolean normalize) {
@@ -406,10 +1386,258 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 		}
 	}
 
+	/** Splits the range between the smallest and the largest page ID into
+	 *  the given number of subranges of equal size. Each partition opens 
+	 *  its own cursor upon its first access. Since the page IDs are not 
+	 *  evenly distributed, it is advisable to request more partitions 
+	 *  than there are threads. If the pages are stored in title order
+	 *  (see {@link #isLayoutByTitle()}), the pages are instead split into
+	 *  ranges of titles with about the same number of pages, such that 
+	 *  each partition reads its pages sequentially. */
+	@Override
+	public List<IWiktionaryIterator<IWiktionaryPage>> getPagePartitions(
+			final IWiktionaryPageFilter filter, int partitionCount) {
+		ensureOpen();
+		if (partitionCount < 1)
+			throw new IllegalArgumentException("Partition count must be positive");
+		
+		List<IWiktionaryIterator<IWiktionaryPage>> result 
+				= new ArrayList<IWiktionaryIterator<IWiktionaryPage>>(partitionCount);
+		try {
+			if (layoutByTitle) {
+				String from = null;
+				for (String to : getTitleBoundaries(partitionCount)) {
+					result.add(new TitlePartitionIterator(from, to, filter));
+					from = to;
+				}
+				result.add(new TitlePartitionIterator(from, null, filter));
+				return result;
+			}
+			
+			Long firstId;
+			Long lastId;
+			EntityCursor<Long> keys = pageById.keys();
+			try {
+				firstId = keys.first();
+				lastId = keys.last();
+			} finally {
+				keys.close();
+			}
+			if (firstId == null) {
+				// Still open the cursor in the consuming thread.
+				result.add(new PagePartitionIterator(null, null, filter));
+				return result;
+			}
+			
+			long span = lastId - firstId + 1;
+			int count = (int) Math.min(partitionCount, span);
+			long from = firstId;
+			for (int i = 0; i < count; i++) {
+				long to = from + span / count + (i < span % count ? 1 : 0) - 1;
+				result.add(new PagePartitionIterator(from, to, filter));
+				from = to + 1;
+			}
+			return result;
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+	}
+
+	/** Returns the titles splitting the pages into the given number of 
+	 *  title ranges of about the same size. Only the titles are read. */
+	protected List<String> getTitleBoundaries(int partitionCount)
+			throws DatabaseException {
+		List<String> result = new ArrayList<String>(partitionCount - 1);
+		long step = (pageById.count() + partitionCount - 1) / partitionCount;
+		if (step == 0)
+			return result;
+		
+		EntityCursor<String> titles = pageByTitle.keys();
+		try {
+			long count = 0;
+			String title;
+			while ((title = titles.next()) != null && result.size() < partitionCount - 1) {
+				if (count > 0 && count % step == 0)
+					result.add(title);
+				count++;
+			}
+		} finally {
+			titles.close();
+		}
+		return result;
+	}
+
+	/** Iterator over the pages of a partition. The cursor is opened upon 
+	 *  fetching the first page, since non-transactional cursors may only 
+	 *  be used by the thread that created them. */
+	protected abstract class PartitionIterator extends WiktionaryIterator<IWiktionaryPage> {
+
+		protected IWiktionaryPageFilter filter;
+		protected EntityCursor<WiktionaryPage> cursor;
+
+		public PartitionIterator(final IWiktionaryPageFilter filter) {
+			this.filter = filter;
+		}
+
+		/** Opens the cursor over the pages of the partition. */
+		protected abstract EntityCursor<WiktionaryPage> openCursor()
+				throws DatabaseException;
+
+		@Override
+		protected IWiktionaryPage fetchNext() {
+			try {
+				if (cursor == null) {
+					cursor = openCursor();
+					openCursors.add(cursor);
+				}
+				
+				WiktionaryPage page;
+				while ((page = cursor.next()) != null) {
+					IWiktionaryPage result = loadPage(page, filter);
+					if (result != null)
+						return result;
+				}
+				return null;
+			} catch (DatabaseException e) {
+				throw new WiktionaryException(e);
+			}
+		}
+
+		@Override
+		protected void doClose() {
+			if (cursor == null)
+				return;
+			
+			try {
+				cursor.close();
+				openCursors.remove(cursor);
+			} catch (DatabaseException e) {
+				throw new WiktionaryException(e);
+			}
+		}
+
+	}
+
+	/** Iterator over the pages within a range of page IDs. The range 
+	 *  includes both IDs; <code>null</code> denotes an open end. */
+	protected class PagePartitionIterator extends PartitionIterator {
+
+		protected Long fromId;
+		protected Long toId;
+
+		public PagePartitionIterator(final Long fromId, final Long toId,
+				final IWiktionaryPageFilter filter) {
+			super(filter);
+			this.fromId = fromId;
+			this.toId = toId;
+		}
+
+		@Override
+		protected EntityCursor<WiktionaryPage> openCursor() throws DatabaseException {
+			return pageById.entities(fromId, true, toId, true);
+		}
+
+	}
+
+	/** Iterator over the pages within a range of titles. The range 
+	 *  includes the first title and excludes the last one; 
+	 *  <code>null</code> denotes an open end. */
+	protected class TitlePartitionIterator extends PartitionIterator {
+
+		protected String fromTitle;
+		protected String toTitle;
+
+		public TitlePartitionIterator(final String fromTitle, 
+				final String toTitle, final IWiktionaryPageFilter filter) {
+			super(filter);
+			this.fromTitle = fromTitle;
+			this.toTitle = toTitle;
+		}
+
+		@Override
+		protected EntityCursor<WiktionaryPage> openCursor() throws DatabaseException {
+			return pageByTitle.entities(fromTitle, true, toTitle, false);
+		}
+
+	}
+
+	@Override
+	protected IWiktionaryIterator<IWiktionaryPage> getCandidatePages(
+			final WiktionaryEntryFilter filter, boolean sortByTitle, 
+			boolean normalize) {
+		// Title-sorted cursors read each page anyway, which leaves nothing 
+		// to save by checking its summary first. The summaries can only 
+		// be used if they have been saved for every page.
+		if (filter == null || !hasPageSummaries || sortByTitle)
+			return super.getCandidatePages(filter, sortByTitle, normalize);
+		
+		long languageMask = 0;
+		for (ILanguage wordLanguage : filter.getAllowedWordLanguages())
+			languageMask |= WiktionaryPageSummary.getLanguageBit(wordLanguage);
+		long posMask = 0;
+		for (PartOfSpeech partOfSpeech : filter.getAllowedPartsOfSpeech())
+			posMask |= WiktionaryPageSummary.getPartOfSpeechBit(partOfSpeech);
+		if (languageMask == 0 && posMask == 0)
+			return super.getCandidatePages(filter, sortByTitle, normalize);
+		
+		// Iterate the summaries, which are stored for each page in the 
+		// order of the page IDs, and load only the candidate pages.
+		final long wordLanguageMask = languageMask;
+		final long partOfSpeechMask = posMask;
+		try {
+			final EntityCursor<WiktionaryPageSummary> cursor = pageSummaryById.entities();
+			openCursors.add(cursor);
+			
+			return new WiktionaryIterator<IWiktionaryPage>() {
+
+				@Override
+				protected IWiktionaryPage fetchNext() {
+					try {
+						WiktionaryPageSummary summary;
+						while ((summary = cursor.next()) != null) {
+							if (!summary.mayContain(wordLanguageMask, partOfSpeechMask))
+								continue;
+							
+							IWiktionaryPage result = loadPage(pageById.get(summary.getPageId()), null);
+							if (result != null)
+								return result;
+						}
+						return null;
+					} catch (DatabaseException e) {
+						throw new WiktionaryException(e);
+					}
+				}
+
+				@Override
+				protected void doClose() {
+					try {
+						cursor.close();
+						openCursors.remove(cursor);
+					} catch (DatabaseException e) {
+						throw new WiktionaryException(e);
+					}
+				}
+				
+			};
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+	}
+
 	protected WiktionaryPage loadPage(final WiktionaryPage page,
 			final IWiktionaryPageFilter filter) {
 		if (page != null && (filter == null || filter.accept(page))) {
+			// Editions without offset records are spared the lookup.
+			if (hasEntryIdOffsets && page.getEntryCount() > 0) {
+				WiktionaryEntryIdOffset offset = entryIdOffsetByPage.get(page.getId());
+				if (offset != null && offset.getFirstEntryId() != null) {
+					long entryId = offset.getFirstEntryId();
+					for (WiktionaryEntry entry : page.entries())
+						entry.setId(entryId++);
+				}
+			}
 			page.init();
+			page.setDetailsLoader(detailsLoader);
 			return page;
 		} else
 			return null;
@@ -420,17 +1648,251 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 
 	public IWiktionaryEntry getEntryForId(long entryId) {
 		ensureOpen();
+		if (entryIdsByTitle)
+			return getEntryForTitleId(entryId);
+		
 		WiktionaryEntryProxy entry = entryById.get(entryId);
-		return getEntryForId(entry.getPageId(), entry.getEntryIndex());
+		return (entry == null ? null 
+				: getEntryForId(entry.getPageId(), entry.getEntryIndex()));
+	}
+
+	/** Returns the entry for the given ID if the IDs have been assigned in
+	 *  alphabetical order. The page is found using the offset record with 
+	 *  the largest first entry ID not exceeding the given ID. */
+	protected IWiktionaryEntry getEntryForTitleId(long entryId) {
+		try {
+			EntityCursor<WiktionaryEntryIdOffset> cursor = entryIdOffsetByFirstId
+					.entities(null, false, entryId, true);
+			try {
+				WiktionaryEntryIdOffset offset = cursor.last();
+				if (offset == null || entryId - offset.getFirstEntryId() >= offset.getEntryCount())
+					return null;
+				
+				return getEntryForId(offset.getPageId(), 
+						(int) (entryId - offset.getFirstEntryId()));
+			} finally {
+				cursor.close();
+			}
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+	}
+
+
+	
+	@Override
+	public IWiktionaryIterator<IWiktionaryEntry> getEntriesWithFacets(
+			final WiktionaryEntryFacet... facets) {
+		ensureOpen();
+		final WiktionaryFacetIndex index = getFacetIndex();
+		if (index == null || facets.length == 0)
+			return super.getEntriesWithFacets(facets);
+		
+		final int[] ordinals = index.query(facets).toArray();
+		return new WiktionaryIterator<IWiktionaryEntry>() {
+
+			protected int pos;
+			protected IWiktionaryPage page;
+			
+			@Override
+			protected IWiktionaryEntry fetchNext() {
+				while (pos < ordinals.length) {
+					long key = index.getEntryKey(ordinals[pos++]);
+					long pageId = CompositeKey.getPageId(key);
+					if (page == null || page.getId() != pageId)
+						page = getPageForId(pageId);
+					
+					int entryIdx = CompositeKey.getEntryIndex(key);
+					if (page != null && entryIdx < page.getEntryCount())
+						return page.getEntries().get(entryIdx);
+				}
+				return null;
+			}
+
+			@Override
+			protected void doClose() {}
+			
+		};
+	}
+
+	@Override
+	public Map<String, List<IWiktionaryEntry>> getEntriesForWordForms(
+			final Collection<String> wordForms) {
+		ensureOpen();
+		if (wordFormIndex == null)
+			return super.getEntriesForWordForms(wordForms);
+		
+		Map<String, List<IWiktionaryEntry>> result = new LinkedHashMap<String, List<IWiktionaryEntry>>();
+		for (String wordForm : wordForms)
+			if (wordForm != null)
+				result.put(wordForm, new ArrayList<IWiktionaryEntry>());
+		
+		// Look up the word forms in index order and share the loaded 
+		// pages among the word forms of the batch.
+		Map<Long, IWiktionaryPage> pages = new HashMap<Long, IWiktionaryPage>();
+		for (String wordForm : new TreeSet<String>(result.keySet())) {
+			List<IWiktionaryEntry> entries = result.get(wordForm);
+			long lastEntryKey = -1;
+			for (WordFormProxyKey key : getWordFormKeys(wordForm)) {
+				if (key.getEntryKey() == lastEntryKey)
+					continue;
+				
+				lastEntryKey = key.getEntryKey();
+				long pageId = CompositeKey.getPageId(lastEntryKey);
+				IWiktionaryPage page = pages.get(pageId);
+				if (page == null && !pages.containsKey(pageId)) {
+					page = getPageForId(pageId);
+					pages.put(pageId, page);
+				}
+				int entryIdx = CompositeKey.getEntryIndex(lastEntryKey);
+				if (page != null && entryIdx < page.getEntryCount())
+					entries.add(page.getEntries().get(entryIdx));
+			}
+		}
+		return result;
+	}
+	
+	/** Returns the {@link WiktionaryWordFormProxy}s of the given inflected 
+	 *  word form, which provide the keys of the corresponding entries and 
+	 *  the grammatical features of the word form without loading the 
+	 *  entries. Returns <code>null</code> if there is no word form index.
+	 *  @throws IllegalStateException if the connection has already been closed.
+	 *  @throws WiktionaryException upon database errors. */
+	public List<WiktionaryWordFormProxy> getWordFormProxies(final String wordForm) {
+		ensureOpen();
+		if (wordFormIndex == null)
+			return null;
+		
+		List<WiktionaryWordFormProxy> result = new ArrayList<WiktionaryWordFormProxy>();
+		if (wordForm == null)
+			return result;
+		
+		try {
+			EntityCursor<WiktionaryWordFormProxy> cursor = wordFormIndex.entities(
+					new WordFormProxyKey(wordForm, Long.MIN_VALUE, Integer.MIN_VALUE), true,
+					new WordFormProxyKey(wordForm, Long.MAX_VALUE, Integer.MAX_VALUE), true);
+			try {
+				WiktionaryWordFormProxy proxy;
+				while ((proxy = cursor.next()) != null)
+					result.add(proxy);
+			} finally {
+				cursor.close();
+			}
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+		return result;
+	}
+	
+	protected List<WordFormProxyKey> getWordFormKeys(final String wordForm) {
+		List<WordFormProxyKey> result = new ArrayList<WordFormProxyKey>();
+		try {
+			EntityCursor<WordFormProxyKey> cursor = wordFormIndex.keys(
+					new WordFormProxyKey(wordForm, Long.MIN_VALUE, Integer.MIN_VALUE), true,
+					new WordFormProxyKey(wordForm, Long.MAX_VALUE, Integer.MAX_VALUE), true);
+			try {
+				WordFormProxyKey key;
+				while ((key = cursor.next()) != null)
+					result.add(key);
+			} finally {
+				cursor.close();
+			}
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+		return result;
+	}
+
+	/** Returns the in-memory index of the page titles of this edition,
+	 *  which allows for prefix queries without accessing the database. The 
+	 *  index is loaded upon the first call. If it has not been created 
+	 *  during the import, it is built from all pages, which requires a 
+	 *  full pass over the database. */
+	public WiktionaryTitleIndex getTitleIndex() {
+		ensureOpen();
+		if (titleIndex == null) {
+			File indexFile = new File(dbPath, WiktionaryTitleIndex.FILE_NAME);
+			if (indexFile.exists())
+				titleIndex = WiktionaryTitleIndex.load(indexFile);
+			else
+				titleIndex = WiktionaryTitleIndex.build(this);
+		}
+		return titleIndex;
+	}
+
+	/** Returns the facet index of this edition or <code>null</code> if 
+	 *  there is none. The index is loaded upon the first call. */
+	protected WiktionaryFacetIndex getFacetIndex() {
+		if (facetIndex == null) {
+			File indexFile = new File(dbPath, WiktionaryFacetIndex.FILE_NAME);
+			if (indexFile.exists())
+				facetIndex = WiktionaryFacetIndex.load(indexFile);
+		}
+		return facetIndex;
+	}
+
+	/** Returns the graph of the relations encoded in this edition. The
+	 *  nodes of the graph are page titles, i.e., the relations of all 
+	 *  entries of a page are merged (see {@link WiktionaryRelationGraph}).
+	 *  The graph is loaded upon the first call. If it has not been created 
+	 *  during the import, it is built from all pages, which requires a 
+	 *  full pass over the database. */
+	public WiktionaryRelationGraph getRelationGraph() {
+		ensureOpen();
+		if (relationGraph == null) {
+			File graphFile = new File(dbPath, WiktionaryRelationGraph.FILE_NAME);
+			if (graphFile.exists())
+				relationGraph = WiktionaryRelationGraph.load(graphFile);
+			else
+				relationGraph = WiktionaryRelationGraph.build(this);
+		}
+		return relationGraph;
 	}
 
 	
 	// -- Senses --
 
-	public IWiktionarySense getSenseForKey(final String key) {
+	@Override
+	public List<IWiktionarySense> getSensesForTranslation(
+			final ILanguage language, final String translation) {
 		ensureOpen();
-		WiktionarySenseProxy sense = senseByKey.get(key);
-		return getSenseForId(sense.getPageId(), sense.getEntryIndex(), sense.getSenseIndex());
+		if (translationIndex == null)
+			return super.getSensesForTranslation(language, translation);
+		
+		List<IWiktionarySense> result = new ArrayList<IWiktionarySense>();
+		String normalized = WiktionaryTranslation.normalizeTranslation(translation);
+		if (language == null || normalized == null || normalized.length() == 0)
+			return result;
+		
+		try {
+			EntityCursor<TranslationProxyKey> cursor = translationIndex.keys(
+					new TranslationProxyKey(language.getCode(), normalized, Long.MIN_VALUE), true,
+					new TranslationProxyKey(language.getCode(), normalized, Long.MAX_VALUE), true);
+			try {
+				IWiktionaryPage page = null;
+				TranslationProxyKey key;
+				while ((key = cursor.next()) != null) {
+					long pageId = CompositeKey.getPageId(key.getSenseKey());
+					if (page == null || page.getId() != pageId)
+						page = getPageForId(pageId);
+					if (page == null)
+						continue;
+					
+					int entryIdx = CompositeKey.getEntryIndex(key.getSenseKey());
+					int senseIdx = CompositeKey.getSenseIndex(key.getSenseKey());
+					if (entryIdx < page.getEntryCount()) {
+						IWiktionaryEntry entry = page.getEntries().get(entryIdx);
+						if (senseIdx <= entry.getSenseCount())
+							result.add(entry.getSense(senseIdx));
+					}
+				}
+			} finally {
+				cursor.close();
+			}
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+		return result;
 	}
 
 	
@@ -449,6 +1911,210 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 		return language;
 	}
 
+	/** Returns if this edition uses the database cache shared with other
+	 *  editions. */
+	public boolean isSharedCache() {
+		return sharedCache;
+	}
+
+	/** Returns the value of the given key within the property file of 
+	 *  the parsed database (e.g., "jwktl.version") or <code>null</code> 
+	 *  if there is no such key. */
+	public String getProperty(final String key) {
+		return properties.getProperty(key);
+	}
+
+	/** Returns true if the page records have been written in alphabetical
+	 *  order of their titles, in which case iterating the pages sorted by 
+	 *  title reads the database files sequentially. */
+	public boolean isLayoutByTitle() {
+		return layoutByTitle;
+	}
+
+	/** Returns the statistics of the database environment of this edition,
+	 *  including the number of cache misses. If the cache is shared, 
+	 *  {@link EnvironmentStats#getCacheTotalBytes()} is the part of the 
+	 *  shared cache occupied by this edition and 
+	 *  {@link EnvironmentStats#getSharedCacheTotalBytes()} is the size 
+	 *  occupied by all editions.
+	 *  @param clear if true, the counters are reset after being read. */
+	public EnvironmentStats getEnvironmentStats(boolean clear) {
+		ensureOpen();
+		try {
+			StatsConfig config = new StatsConfig();
+			config.setClear(clear);
+			return env.getStats(config);
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+	}
+
+
+	// -- Warmup --
+
+	/** Loads the internal nodes of the page index, the title indexes, and
+	 *  the page summaries into the database cache, such that subsequent 
+	 *  lookups only need to read the records themselves. Preloading stops
+	 *  if the cache is full or the given time is exceeded. 
+	 *  @param maxMillis the maximum preload time in milliseconds or 0 
+	 *    for no limit. */
+	public PreloadStats preload(long maxMillis) {
+		ensureOpen();
+		try {
+			List<Database> databases = new ArrayList<Database>();
+			databases.add(pageById.getDatabase());
+			databases.add(pageByTitle.getDatabase());
+			databases.add(pageByNormalizedTitle.getDatabase());
+			if (pageSummaryById != null)
+				databases.add(pageSummaryById.getDatabase());
+			PreloadConfig config = new PreloadConfig();
+			config.setLoadLNs(false);
+			config.setMaxMillisecs(maxMillis);
+			return env.preload(databases.toArray(new Database[databases.size()]), config);
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+	}
+
+	/** Looks up the pages (and their details) for the titles listed in 
+	 *  the given file, one title per line, which loads their records into
+	 *  the database cache. The lookups are not counted as hot titles.
+	 *  @param maxMillis the maximum time in milliseconds or 0 for no 
+	 *    limit. 
+	 *  @return the number of pages found. */
+	public int loadHotTitles(final File file, long maxMillis) {
+		ensureOpen();
+		long deadline = (maxMillis > 0 ? System.currentTimeMillis() + maxMillis : Long.MAX_VALUE);
+		int result = 0;
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					new FileInputStream(file), "UTF-8"));
+			try {
+				String title;
+				while ((title = reader.readLine()) != null
+						&& System.currentTimeMillis() < deadline) {
+					if (title.length() == 0)
+						continue;
+					
+					WiktionaryPage page = findPageByTitle(title);
+					if (page == null)
+						continue;
+					
+					if (pageDetailsById != null)
+						pageDetailsById.get(page.getId());
+					result++;
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to read hot titles", e);
+		} catch (DatabaseException e) {
+			throw new WiktionaryException(e);
+		}
+		return result;
+	}
+
+	/** Preloads the internal nodes (see {@link #preload(long)}) and looks 
+	 *  up the given hot titles (see {@link #loadHotTitles(File, long)}) 
+	 *  within the given time. The warmup time and the resulting cache 
+	 *  usage are logged.
+	 *  @param hotTitleFile the file of hot titles or <code>null</code>
+	 *    if only the internal nodes should be preloaded.
+	 *  @param maxMillis the maximum warmup time in milliseconds or 0 for
+	 *    no limit. 
+	 *  @return the warmup time in milliseconds. */
+	public long warmup(final File hotTitleFile, long maxMillis) {
+		long time = System.currentTimeMillis();
+		PreloadStats stats = preload(maxMillis);
+		int pageCount = 0;
+		if (hotTitleFile != null && hotTitleFile.exists()) {
+			long remaining = (maxMillis > 0 
+					? maxMillis - (System.currentTimeMillis() - time) : 0);
+			if (maxMillis == 0 || remaining > 0)
+				pageCount = loadHotTitles(hotTitleFile, remaining);
+		}
+		time = System.currentTimeMillis() - time;
+		logger.info("Warmed up " + dbPath + " in " + time + " ms: loaded " 
+				+ (stats.getNINsLoaded() + stats.getNBINsLoaded()) 
+				+ " internal nodes and " + pageCount + " hot pages; cache usage " 
+				+ (getCacheUsage() / 1024) + " of " 
+				+ (env.getConfig().getCacheSize() / 1024) + " KB");
+		return time;
+	}
+
+	/** Returns the number of bytes used by the database cache. If the 
+	 *  cache is shared, the bytes used by all editions are returned. */
+	public long getCacheUsage() {
+		EnvironmentStats stats = getEnvironmentStats(false);
+		return (sharedCache ? stats.getSharedCacheTotalBytes() : stats.getCacheTotalBytes());
+	}
+
+	/** Enables counting the exact title lookups of the pages, such that 
+	 *  the most frequently requested titles can be saved (see 
+	 *  {@link #saveHotTitles(File, int)}) and looked up upon the next 
+	 *  start (see {@link #warmup(File, long)}).
+	 *  @param maxTitles the maximum number of distinct titles to count; 
+	 *    further titles are ignored once the limit is reached. Setting 
+	 *    0 disables the tracking. */
+	public void setHotTitleTracking(int maxTitles) {
+		if (maxTitles < 0)
+			throw new IllegalArgumentException("Invalid number of titles: " + maxTitles);
+		this.maxHotTitles = maxTitles;
+		hotTitles = (maxTitles > 0 ? new ConcurrentHashMap<String, AtomicLong>() : null);
+	}
+
+	protected void countHotTitle(final String title) {
+		AtomicLong count = hotTitles.get(title);
+		if (count == null) {
+			if (hotTitles.size() >= maxHotTitles)
+				return;
+			AtomicLong existing = hotTitles.putIfAbsent(title, count = new AtomicLong());
+			if (existing != null)
+				count = existing;
+		}
+		count.incrementAndGet();
+	}
+
+	/** Returns the given number of most frequently requested titles in
+	 *  decreasing order of their frequency. */
+	public List<String> getHotTitles(int count) {
+		List<String> result = new ArrayList<String>();
+		if (hotTitles == null)
+			return result;
+		
+		final Map<String, Long> counts = new HashMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : hotTitles.entrySet())
+			counts.put(entry.getKey(), entry.getValue().get());
+		result.addAll(counts.keySet());
+		Collections.sort(result, new Comparator<String>() {
+			public int compare(final String title1, final String title2) {
+				long count1 = counts.get(title1);
+				long count2 = counts.get(title2);
+				if (count1 != count2)
+					return (count1 > count2 ? -1 : 1);
+				return title1.compareTo(title2);
+			}
+		});
+		return (result.size() > count ? new ArrayList<String>(result.subList(0, count)) : result);
+	}
+
+	/** Saves the given number of most frequently requested titles to the
+	 *  given file, one title per line. */
+	public void saveHotTitles(final File file, int count) {
+		try {
+			PrintWriter writer = new PrintWriter(file, "UTF-8");
+			try {
+				for (String title : getHotTitles(count))
+					writer.println(title);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save hot titles", e);
+		}
+	}
+
 	
 	// -- Close --
 	
@@ -459,9 +2125,11 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 			return; // DB already closed.
 				
 		try {
-			for (EntityCursor<?> cursor : openCursors)
-				cursor.close();
-			openCursors.clear();
+			synchronized (openCursors) {
+				for (EntityCursor<?> cursor : openCursors)
+					cursor.close();
+				openCursors.clear();
+			}
 
 			store.close();
 			env.close();
@@ -470,6 +2138,10 @@ public class BerkeleyDBWiktionaryEdition extends WiktionaryEdition {
 			store = null;
 		} catch (DatabaseException e) {
 			throw new WiktionaryException("Unable to close database", e);
+		} finally {
+			if (titleHash != null)
+				titleHash.close();
+			titleHash = null;
 		}
 	}
 
@@ -0,0 +1,523 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.entry;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionarySense;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryEntryFilter;
+import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryPageFilter;
+import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionarySenseFilter;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFacet;
+import de.tudarmstadt.ukp.jwktl.api.util.HierarchicalWiktionaryIterator;
+import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
+import de.tudarmstadt.ukp.jwktl.api.util.MergingWiktionaryIterator;
+
+/**
+ * Wiktionary edition whose pages are distributed over multiple 
+ * independent {@link BerkeleyDBWiktionaryEdition}s (the shards), which 
+ * may reside on different disks. Each page is stored in the shard 
+ * determined by the hash of its normalized title (see 
+ * {@link #getShardIndex(String)}), such that lookups by title are 
+ * answered by a single shard. If the entry IDs are assigned by title,
+ * each shard assigns a disjoint range of entry IDs starting with its 
+ * entry ID base, such that the entry IDs are unique and lookups by 
+ * entry ID are answered by a single shard. Lookups by page ID or entry 
+ * and sense key ask the shards in turn. Iterators sorted by title merge the 
+ * sorted iterators of the shards; the partitions are obtained from 
+ * the shards, which allows for scanning the shards in parallel. The 
+ * shard paths are listed in the {@link #SHARDS_FILE_NAME} file of the 
+ * edition's directory, which is written by the 
+ * {@link de.tudarmstadt.ukp.jwktl.parser.WritableShardedWiktionaryEdition}.
+ * {@link de.tudarmstadt.ukp.jwktl.JWKTL#openEdition(File)} opens a 
+ * sharded edition if this file exists.
+ */
+public class ShardedWiktionaryEdition extends WiktionaryEdition {
+
+	/** Name of the file listing the shard paths. */
+	public static final String SHARDS_FILE_NAME = "wiktionary.shards";
+	
+	protected static final String SHARD_COUNT_PROPERTY = "shard.count";
+	protected static final String SHARD_PATH_PROPERTY = "shard.";
+	protected static final String ENTRY_ID_BASE_PROPERTY = ".entryIdBase";
+
+	protected File dbPath;
+	protected List<IWiktionaryEdition> shards;
+	protected long[] entryIdBases;
+
+	/** Connects to the sharded Wiktionary contained in the specified 
+	 *  directory using a default cache size for each shard.
+	 *  @throws WiktionaryException if the connection could not 
+	 *  	be established. */
+	public ShardedWiktionaryEdition(final File dbPath) {
+		this(dbPath, (Long) null);
+	}
+
+	/** Connects to the sharded Wiktionary contained in the specified 
+	 *  directory. Each shard uses its own cache of an equal share of the 
+	 *  given cache size (in Bytes). Use null as a default value.
+	 *  @throws WiktionaryException if the connection could not 
+	 *  	be established. */
+	public ShardedWiktionaryEdition(final File dbPath, final Long cacheSize) {
+		this(dbPath, loadShardProperties(dbPath), cacheSize, false);
+	}
+
+	/** Connects to the sharded Wiktionary contained in the specified 
+	 *  directory. If <code>sharedCache</code> is set, the shards use the 
+	 *  shared database cache of the given size (see 
+	 *  {@link BerkeleyDBWiktionaryEdition#BerkeleyDBWiktionaryEdition(File, Long, boolean)}),
+	 *  which is assigned to the shards according to their use. 
+	 *  @throws WiktionaryException if the connection could not 
+	 *  	be established. */
+	public ShardedWiktionaryEdition(final File dbPath, final Long cacheSize,
+			boolean sharedCache) {
+		this(dbPath, loadShardProperties(dbPath), cacheSize, sharedCache);
+	}
+
+	protected ShardedWiktionaryEdition(final File dbPath, 
+			final Properties properties, final Long cacheSize, 
+			boolean sharedCache) {
+		this(dbPath, openShards(getShardPaths(dbPath, properties), 
+				cacheSize, sharedCache));
+		entryIdBases = getEntryIdBases(properties, shards.size());
+	}
+
+	/** Initializes the edition for the given shards. The order of the 
+	 *  shards determines the shard of each page. */
+	protected ShardedWiktionaryEdition(final File dbPath,
+			final List<? extends IWiktionaryEdition> shards) {
+		if (shards.isEmpty())
+			throw new IllegalArgumentException("Sharded edition requires at least one shard");
+		this.dbPath = dbPath;
+		this.shards = new ArrayList<IWiktionaryEdition>(shards);
+	}
+
+	protected static List<IWiktionaryEdition> openShards(
+			final List<File> shardPaths, final Long cacheSize, boolean sharedCache) {
+		Long shardCacheSize = cacheSize;
+		if (cacheSize != null && !sharedCache)
+			shardCacheSize = cacheSize / shardPaths.size();
+		List<IWiktionaryEdition> result = new ArrayList<IWiktionaryEdition>(shardPaths.size());
+		try {
+			for (File shardPath : shardPaths)
+				result.add(new BerkeleyDBWiktionaryEdition(shardPath, shardCacheSize, sharedCache));
+		} catch (RuntimeException e) {
+			for (IWiktionaryEdition shard : result)
+				shard.close();
+			throw e;
+		}
+		return result;
+	}
+
+	/** Returns true if the given directory contains a sharded Wiktionary 
+	 *  edition, i.e., a {@link #SHARDS_FILE_NAME} file. */
+	public static boolean isShardedEdition(final File dbPath) {
+		return new File(dbPath, SHARDS_FILE_NAME).exists();
+	}
+
+	/** Returns the shard paths listed in the {@link #SHARDS_FILE_NAME} 
+	 *  file of the given directory. Relative paths are resolved against 
+	 *  the given directory.
+	 *  @throws WiktionaryException if there is no such file. */
+	public static List<File> loadShardPaths(final File dbPath) {
+		return getShardPaths(dbPath, loadShardProperties(dbPath));
+	}
+
+	protected static Properties loadShardProperties(final File dbPath) {
+		Properties properties = new Properties();
+		try {
+			InputStream stream = new FileInputStream(new File(dbPath, SHARDS_FILE_NAME));
+			try {
+				properties.load(stream);
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to load shards of " + dbPath, e);
+		}
+		return properties;
+	}
+
+	protected static List<File> getShardPaths(final File dbPath,
+			final Properties properties) {
+		int shardCount = Integer.parseInt(properties.getProperty(SHARD_COUNT_PROPERTY, "0"));
+		List<File> result = new ArrayList<File>(shardCount);
+		for (int i = 0; i < shardCount; i++) {
+			String path = properties.getProperty(SHARD_PATH_PROPERTY + i);
+			if (path == null)
+				throw new WiktionaryException("Missing path of shard " + i + " of " + dbPath);
+			File shardPath = new File(path);
+			result.add(shardPath.isAbsolute() ? shardPath : new File(dbPath, path));
+		}
+		return result;
+	}
+
+	/** Returns the entry ID bases of the shards or <code>null</code> if 
+	 *  the entry IDs have not been assigned by title. */
+	protected static long[] getEntryIdBases(final Properties properties,
+			int shardCount) {
+		long[] result = new long[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			String base = properties.getProperty(SHARD_PATH_PROPERTY + i + ENTRY_ID_BASE_PROPERTY);
+			if (base == null)
+				return null;
+			result[i] = Long.parseLong(base);
+		}
+		return result;
+	}
+
+	/** Returns the shards of this edition. */
+	public List<IWiktionaryEdition> getShards() {
+		return Collections.unmodifiableList(shards);
+	}
+
+	/** Returns the number of shards. */
+	public int getShardCount() {
+		return shards.size();
+	}
+
+	/** Returns the index of the shard storing the page with the given 
+	 *  title. The shard is determined by the hash code of the normalized 
+	 *  title (see {@link WiktionaryPage#normalizeTitle(String)}), which 
+	 *  is the same for all JVMs. Thus, the pages found by a normalized 
+	 *  title lookup are also stored in a single shard. */
+	public int getShardIndex(final String title) {
+		String normalized = WiktionaryPage.normalizeTitle(title);
+		if (normalized == null)
+			return 0;
+		return (normalized.hashCode() & Integer.MAX_VALUE) % shards.size();
+	}
+
+	public ILanguage getLanguage() {
+		return shards.get(0).getLanguage();
+	}
+
+	public File getDBPath() {
+		return dbPath;
+	}
+
+
+	// -- Shard partitions --
+
+	/** Source of the partitions of a single shard. */
+	protected interface IShardPartitioner<Type> {
+		
+		public List<IWiktionaryIterator<Type>> getPartitions(
+				final IWiktionaryEdition shard, int partitionCount);
+		
+		public IWiktionaryIterator<Type> getAll(final IWiktionaryEdition shard);
+		
+	}
+
+	/** Returns up to the given number of partitions. The partition count 
+	 *  is distributed evenly among the shards. If there are fewer 
+	 *  partitions than shards, each partition traverses multiple 
+	 *  shards one after the other. */
+	protected <Type> List<IWiktionaryIterator<Type>> partitionShards(
+			int partitionCount, final IShardPartitioner<Type> partitioner) {
+		ensureOpen();
+		if (partitionCount < 1)
+			throw new IllegalArgumentException("Partition count must be positive");
+		
+		List<IWiktionaryIterator<Type>> result = new ArrayList<IWiktionaryIterator<Type>>();
+		int shardCount = shards.size();
+		if (partitionCount >= shardCount) {
+			for (int i = 0; i < shardCount; i++) {
+				int count = partitionCount / shardCount 
+						+ (i < partitionCount % shardCount ? 1 : 0);
+				result.addAll(partitioner.getPartitions(shards.get(i), count));
+			}
+			return result;
+		}
+		
+		for (int i = 0; i < partitionCount; i++) {
+			List<IWiktionaryEdition> group = new ArrayList<IWiktionaryEdition>();
+			for (int j = i; j < shardCount; j += partitionCount)
+				group.add(shards.get(j));
+			result.add(new HierarchicalWiktionaryIterator<Type, IWiktionaryEdition>(group.iterator()) {
+				protected IWiktionaryIterator<Type> getInnerIterator(
+						final IWiktionaryEdition shard) {
+					return partitioner.getAll(shard);
+				}
+			});
+		}
+		return result;
+	}
+
+
+	// -- Pages --
+
+	public IWiktionaryPage getPageForId(long id) {
+		ensureOpen();
+		for (IWiktionaryEdition shard : shards) {
+			IWiktionaryPage page = shard.getPageForId(id);
+			if (page != null)
+				return page;
+		}
+		return null;
+	}
+
+	public IWiktionaryPage getPageForWord(final String word) {
+		ensureOpen();
+		if (word == null)
+			return null;
+		
+		return shards.get(getShardIndex(word)).getPageForWord(word);
+	}
+
+	public List<IWiktionaryPage> getPagesForWord(final String word,
+			final IWiktionaryPageFilter filter, boolean normalize) {
+		ensureOpen();
+		if (word == null)
+			return null;
+		
+		return shards.get(getShardIndex(word)).getPagesForWord(word, filter, normalize);
+	}
+
+	/** Returns the pages of all shards. If sorted by title, the sorted 
+	 *  iterators of the shards are merged. */
+	public IWiktionaryIterator<IWiktionaryPage> getAllPages(
+			final IWiktionaryPageFilter filter, final boolean sortByTitle, 
+			final boolean normalize) {
+		ensureOpen();
+		if (sortByTitle && shards.size() > 1) {
+			List<IWiktionaryIterator<IWiktionaryPage>> sources 
+					= new ArrayList<IWiktionaryIterator<IWiktionaryPage>>();
+			for (IWiktionaryEdition shard : shards)
+				sources.add(shard.getAllPages(filter, true, normalize));
+			return new MergingWiktionaryIterator<IWiktionaryPage>(sources) {
+				@Override
+				protected String getSortKey(final IWiktionaryPage page) {
+					return WiktionaryCollection.getTitleKey(page, normalize);
+				}
+			};
+		}
+		
+		return new HierarchicalWiktionaryIterator<IWiktionaryPage, IWiktionaryEdition>(shards.iterator()){
+			protected IWiktionaryIterator<IWiktionaryPage> getInnerIterator(
+					final IWiktionaryEdition shard) {
+				return shard.getAllPages(filter, sortByTitle, normalize);
+			}
+		};
+	}
+
+	@Override
+	public List<IWiktionaryIterator<IWiktionaryPage>> getPagePartitions(
+			final IWiktionaryPageFilter filter, int partitionCount) {
+		return partitionShards(partitionCount, new IShardPartitioner<IWiktionaryPage>() {
+			public List<IWiktionaryIterator<IWiktionaryPage>> getPartitions(
+					final IWiktionaryEdition shard, int count) {
+				return shard.getPagePartitions(filter, count);
+			}
+
+			public IWiktionaryIterator<IWiktionaryPage> getAll(
+					final IWiktionaryEdition shard) {
+				return shard.getAllPages(filter);
+			}
+		});
+	}
+
+
+	// -- Entries --
+
+	/** Returns the entry with the given ID. If the entry IDs have been 
+	 *  assigned by title, the entry is looked up in the shard whose 
+	 *  range of entry IDs contains the given ID. Otherwise, the entry 
+	 *  IDs are not unique, and the entry is taken from the first shard 
+	 *  containing such an entry; use {@link #getEntryForKey(String)} 
+	 *  instead. */
+	public IWiktionaryEntry getEntryForId(long entryId) {
+		ensureOpen();
+		if (entryIdBases != null) {
+			int shardIdx = getShardIndexForEntryId(entryId);
+			return (shardIdx < 0 ? null : shards.get(shardIdx).getEntryForId(entryId));
+		}
+		
+		for (IWiktionaryEdition shard : shards) {
+			IWiktionaryEntry entry = shard.getEntryForId(entryId);
+			if (entry != null)
+				return entry;
+		}
+		return null;
+	}
+
+	/** Returns the index of the shard whose range of entry IDs contains 
+	 *  the given ID, i.e., the last shard whose entry ID base does not 
+	 *  exceed the ID, or -1 if the ID is smaller than all bases. */
+	protected int getShardIndexForEntryId(long entryId) {
+		for (int i = entryIdBases.length - 1; i >= 0; i--)
+			if (entryIdBases[i] <= entryId)
+				return i;
+		return -1;
+	}
+
+	@Override
+	public IWiktionaryIterator<IWiktionaryEntry> getEntriesWithFacets(
+			final WiktionaryEntryFacet... facets) {
+		ensureOpen();
+		return new HierarchicalWiktionaryIterator<IWiktionaryEntry, IWiktionaryEdition>(shards.iterator()){
+			protected IWiktionaryIterator<IWiktionaryEntry> getInnerIterator(
+					final IWiktionaryEdition shard) {
+				return shard.getEntriesWithFacets(facets);
+			}
+		};
+	}
+
+	@Override
+	public Map<String, List<IWiktionaryEntry>> getEntriesForWordForms(
+			final Collection<String> wordForms) {
+		ensureOpen();
+		Map<String, List<IWiktionaryEntry>> result = new LinkedHashMap<String, List<IWiktionaryEntry>>();
+		for (String wordForm : wordForms)
+			if (wordForm != null)
+				result.put(wordForm, new ArrayList<IWiktionaryEntry>());
+		if (result.isEmpty())
+			return result;
+		
+		for (IWiktionaryEdition shard : shards)
+			for (Map.Entry<String, List<IWiktionaryEntry>> entries 
+					: shard.getEntriesForWordForms(result.keySet()).entrySet())
+				result.get(entries.getKey()).addAll(entries.getValue());
+		return result;
+	}
+
+	/** Returns the entries of all shards. If sorted by title, the sorted 
+	 *  iterators of the shards are merged. */
+	@Override
+	public IWiktionaryIterator<IWiktionaryEntry> getAllEntries(
+			final IWiktionaryEntryFilter filter, 
+			final boolean sortByTitle, final boolean normalize) {
+		ensureOpen();
+		if (sortByTitle && shards.size() > 1) {
+			List<IWiktionaryIterator<IWiktionaryEntry>> sources 
+					= new ArrayList<IWiktionaryIterator<IWiktionaryEntry>>();
+			for (IWiktionaryEdition shard : shards)
+				sources.add(shard.getAllEntries(filter, true, normalize));
+			return new MergingWiktionaryIterator<IWiktionaryEntry>(sources) {
+				@Override
+				protected String getSortKey(final IWiktionaryEntry entry) {
+					return WiktionaryCollection.getTitleKey(entry.getPage(), normalize);
+				}
+			};
+		}
+		
+		return new HierarchicalWiktionaryIterator<IWiktionaryEntry, IWiktionaryEdition>(shards.iterator()){
+			protected IWiktionaryIterator<IWiktionaryEntry> getInnerIterator(
+					final IWiktionaryEdition shard) {
+				return shard.getAllEntries(filter, sortByTitle, normalize);
+			}
+		};
+	}
+
+	@Override
+	public List<IWiktionaryIterator<IWiktionaryEntry>> getEntryPartitions(
+			final IWiktionaryEntryFilter filter, int partitionCount) {
+		return partitionShards(partitionCount, new IShardPartitioner<IWiktionaryEntry>() {
+			public List<IWiktionaryIterator<IWiktionaryEntry>> getPartitions(
+					final IWiktionaryEdition shard, int count) {
+				return shard.getEntryPartitions(filter, count);
+			}
+
+			public IWiktionaryIterator<IWiktionaryEntry> getAll(
+					final IWiktionaryEdition shard) {
+				return shard.getAllEntries(filter);
+			}
+		});
+	}
+
+
+	// -- Senses --
+
+	@Override
+	public List<IWiktionarySense> getSensesForTranslation(
+			final ILanguage language, final String translation) {
+		ensureOpen();
+		List<IWiktionarySense> result = new ArrayList<IWiktionarySense>();
+		for (IWiktionaryEdition shard : shards)
+			result.addAll(shard.getSensesForTranslation(language, translation));
+		return result;
+	}
+
+	/** Returns the senses of all shards. If sorted by title, the sorted 
+	 *  iterators of the shards are merged. */
+	@Override
+	public IWiktionaryIterator<IWiktionarySense> getAllSenses(
+			final IWiktionarySenseFilter filter, final boolean sortByTitle, 
+			final boolean normalize) {
+		ensureOpen();
+		if (sortByTitle && shards.size() > 1) {
+			List<IWiktionaryIterator<IWiktionarySense>> sources 
+					= new ArrayList<IWiktionaryIterator<IWiktionarySense>>();
+			for (IWiktionaryEdition shard : shards)
+				sources.add(shard.getAllSenses(filter, true, normalize));
+			return new MergingWiktionaryIterator<IWiktionarySense>(sources) {
+				@Override
+				protected String getSortKey(final IWiktionarySense sense) {
+					return WiktionaryCollection.getTitleKey(sense.getEntry().getPage(), normalize);
+				}
+			};
+		}
+		
+		return new HierarchicalWiktionaryIterator<IWiktionarySense, IWiktionaryEdition>(shards.iterator()){
+			protected IWiktionaryIterator<IWiktionarySense> getInnerIterator(
+					final IWiktionaryEdition shard) {
+				return shard.getAllSenses(filter, sortByTitle, normalize);
+			}
+		};
+	}
+
+	@Override
+	public List<IWiktionaryIterator<IWiktionarySense>> getSensePartitions(
+			final IWiktionarySenseFilter filter, int partitionCount) {
+		return partitionShards(partitionCount, new IShardPartitioner<IWiktionarySense>() {
+			public List<IWiktionaryIterator<IWiktionarySense>> getPartitions(
+					final IWiktionaryEdition shard, int count) {
+				return shard.getSensePartitions(filter, count);
+			}
+
+			public IWiktionaryIterator<IWiktionarySense> getAll(
+					final IWiktionaryEdition shard) {
+				return shard.getAllSenses(filter);
+			}
+		});
+	}
+
+
+	// -- Close --
+
+	protected void doClose() {
+		for (IWiktionaryEdition shard : shards)
+			shard.close();
+	}
+
+}
@@ -18,14 +18,23 @@
 package de.tudarmstadt.ukp.jwktl.api.entry;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
 
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryCollection;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionarySense;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
 import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryEntryFilter;
 import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryPageFilter;
 import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionarySenseFilter;
@@ -33,6 +42,7 @@ import de.tudarmstadt.ukp.jwktl.api.util.HierarchicalWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
 import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.MergingWiktionaryIterator;
 
 /**
  * Default implementation of the {@link IWiktionaryCollection} interface. The 
@@ -44,7 +54,11 @@ import de.tudarmstadt.ukp.jwktl.api.util.Language;
 public class WiktionaryCollection extends AbstractWiktionary 
 		implements IWiktionaryCollection {
 	
+	private static final Logger logger = Logger.getLogger(WiktionaryCollection.class.getName());
+
 	protected List<IWiktionaryEdition> editions;
+	protected ExecutorService executor;
+	protected long editionTimeout;
 
 	/** Initializes the Wiktionary collection. */
 	public WiktionaryCollection() {
@@ -65,6 +79,82 @@ public class WiktionaryCollection extends AbstractWiktionary
 		editions.remove(edition);
 	}
 
+	public void setExecutor(final ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public void setEditionTimeout(long timeout, final TimeUnit unit) {
+		editionTimeout = unit.toMillis(timeout);
+	}
+
+
+	// -- Concurrent queries --
+
+	/** Query that is run on a single edition. */
+	protected interface IEditionQuery<Type> {
+		
+		public List<Type> query(final IWiktionaryEdition edition);
+		
+	}
+
+	/** Runs the given query on all editions and returns the concatenation
+	 *  of their results in the order of the editions. If an executor has 
+	 *  been set, the editions are queried concurrently. Editions exceeding
+	 *  the edition timeout do not contribute to the result.
+	 *  @throws WiktionaryException if the query fails for one of the 
+	 *    editions. */
+	protected <Type> List<Type> queryEditions(final IEditionQuery<Type> query) {
+		List<Type> result = new ArrayList<Type>();
+		if (executor == null || editions.size() < 2) {
+			for (IWiktionaryEdition edition : editions)
+				result.addAll(query.query(edition));
+			return result;
+		}
+		
+		List<IWiktionaryEdition> queried = new ArrayList<IWiktionaryEdition>(editions);
+		List<Future<List<Type>>> futures = new ArrayList<Future<List<Type>>>(queried.size());
+		for (final IWiktionaryEdition edition : queried)
+			futures.add(executor.submit(new Callable<List<Type>>() {
+				public List<Type> call() {
+					return query.query(edition);
+				}
+			}));
+		
+		// All editions are queried at the same time, so they share the
+		// deadline.
+		long deadline = System.currentTimeMillis() + editionTimeout;
+		RuntimeException error = null;
+		for (int i = 0; i < futures.size(); i++) {
+			Future<List<Type>> future = futures.get(i);
+			try {
+				if (editionTimeout > 0)
+					result.addAll(future.get(Math.max(deadline 
+							- System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS));
+				else
+					result.addAll(future.get());
+			} catch (TimeoutException e) {
+				// Do not interrupt the query, since Berkeley DB invalidates
+				// the environment upon interrupts during I/O.
+				future.cancel(false);
+				logger.warning("Query of edition " + queried.get(i).getLanguage()
+						+ " exceeded the timeout of " + editionTimeout + " ms");
+			} catch (ExecutionException e) {
+				if (error == null)
+					error = (e.getCause() instanceof RuntimeException
+							? (RuntimeException) e.getCause()
+							: new WiktionaryException(e.getCause()));
+			} catch (InterruptedException e) {
+				for (Future<List<Type>> f : futures)
+					f.cancel(false);
+				Thread.currentThread().interrupt();
+				throw new WiktionaryException("Interrupted while querying editions", e);
+			}
+		}
+		if (error != null)
+			throw error;
+		return result;
+	}
+
 	
 	// -- Pages --
 	
@@ -92,26 +182,35 @@ public class WiktionaryCollection extends AbstractWiktionary
 	
 	public List<IWiktionaryPage> getPagesForWord(final String word,
 			final IWiktionaryPageFilter filter) {
-		List<IWiktionaryPage> result = new ArrayList<IWiktionaryPage>();
-		for (IWiktionaryEdition edition : editions) {
-			IWiktionaryPage page = edition.getPageForWord(word);
-			if (page != null && (filter == null || filter.accept(page)))
-				result.add(page);
-		}
-		return result;
+		return queryEditions(new IEditionQuery<IWiktionaryPage>() {
+			public List<IWiktionaryPage> query(final IWiktionaryEdition edition) {
+				IWiktionaryPage page = edition.getPageForWord(word);
+				if (page != null && (filter == null || filter.accept(page)))
+					return Collections.singletonList(page);
+				else
+					return Collections.emptyList();
+			}
+		});
 	}
 	
 	public List<IWiktionaryPage> getPagesForWord(final String word,
-			final IWiktionaryPageFilter filter, boolean normalize) {
-		List<IWiktionaryPage> result = new ArrayList<IWiktionaryPage>();
-		for (IWiktionaryEdition edition : editions)
-			result.addAll(edition.getPagesForWord(word, filter, normalize));
-		return result;
+			final IWiktionaryPageFilter filter, final boolean normalize) {
+		return queryEditions(new IEditionQuery<IWiktionaryPage>() {
+			public List<IWiktionaryPage> query(final IWiktionaryEdition edition) {
+				return edition.getPagesForWord(word, filter, normalize);
+			}
+		});
 	}
 	
+	/** Returns the pages of all editions. If sorted by title, the sorted 
+	 *  iterators of the editions are merged, such that the pages are in 
+	 *  title order across all editions. */
 	public IWiktionaryIterator<IWiktionaryPage> getAllPages(
 			final IWiktionaryPageFilter filter, final boolean sortByTitle, 
 			final boolean normalize) {
+		if (sortByTitle && editions.size() > 1)
+			return mergePages(filter, normalize);
+		
 		return new HierarchicalWiktionaryIterator<IWiktionaryPage, IWiktionaryEdition>(editions.iterator()){
 			protected IWiktionaryIterator<IWiktionaryPage> getInnerIterator(
 					final IWiktionaryEdition edition) {
@@ -121,19 +220,65 @@ public class WiktionaryCollection extends AbstractWiktionary
 	}
 
 	
+	public IWiktionaryIterator<List<IWiktionaryPage>> getPageGroups(
+			final IWiktionaryPageFilter filter, final boolean normalize) {
+		return mergePages(filter, normalize).groups();
+	}
+
+	protected MergingWiktionaryIterator<IWiktionaryPage> mergePages(
+			final IWiktionaryPageFilter filter, final boolean normalize) {
+		List<IWiktionaryIterator<IWiktionaryPage>> sources 
+				= new ArrayList<IWiktionaryIterator<IWiktionaryPage>>();
+		for (IWiktionaryEdition edition : editions)
+			sources.add(edition.getAllPages(filter, true, normalize));
+		return new MergingWiktionaryIterator<IWiktionaryPage>(sources) {
+			@Override
+			protected String getSortKey(final IWiktionaryPage page) {
+				return getTitleKey(page, normalize);
+			}
+		};
+	}
+
+	/** Returns the key used for merging the title-sorted iterators of the
+	 *  editions, which corresponds to the title index of the editions. */
+	protected static String getTitleKey(final IWiktionaryPage page,
+			boolean normalize) {
+		return (normalize 
+				? WiktionaryPage.normalizeTitle(page.getTitle()) 
+				: page.getTitle());
+	}
+
+	
 	// -- Entries --
 
 	public List<IWiktionaryEntry> getEntriesForWord(final String word,
-			final IWiktionaryEntryFilter filter, boolean normalize) {
-		List<IWiktionaryEntry> result = new ArrayList<IWiktionaryEntry>();
-		for (IWiktionaryEdition edition : editions)
-			result.addAll(edition.getEntriesForWord(word, filter, normalize));
-		return result;
+			final IWiktionaryEntryFilter filter, final boolean normalize) {
+		return queryEditions(new IEditionQuery<IWiktionaryEntry>() {
+			public List<IWiktionaryEntry> query(final IWiktionaryEdition edition) {
+				return edition.getEntriesForWord(word, filter, normalize);
+			}
+		});
 	}
 	
+	/** Returns the entries of all editions. If sorted by title, the sorted 
+	 *  iterators of the editions are merged, such that the entries are in 
+	 *  title order across all editions. */
 	public IWiktionaryIterator<IWiktionaryEntry> getAllEntries(
 			final IWiktionaryEntryFilter filter, 
 			final boolean sortByTitle, final boolean normalize) {
+		if (sortByTitle && editions.size() > 1) {
+			List<IWiktionaryIterator<IWiktionaryEntry>> sources 
+					= new ArrayList<IWiktionaryIterator<IWiktionaryEntry>>();
+			for (IWiktionaryEdition edition : editions)
+				sources.add(edition.getAllEntries(filter, true, normalize));
+			return new MergingWiktionaryIterator<IWiktionaryEntry>(sources) {
+				@Override
+				protected String getSortKey(final IWiktionaryEntry entry) {
+					return getTitleKey(entry.getPage(), normalize);
+				}
+			};
+		}
+		
 		return new HierarchicalWiktionaryIterator<IWiktionaryEntry, IWiktionaryEdition>(editions.iterator()){
 			protected IWiktionaryIterator<IWiktionaryEntry> getInnerIterator(
 					final IWiktionaryEdition edition) {
@@ -143,6 +288,23 @@ public class WiktionaryCollection extends AbstractWiktionary
 	}
 
 	
+	public IWiktionaryEntry getEntryForKey(final String key, 
+			final ILanguage language) {
+		for (IWiktionaryEdition edition : editions)
+			if (Language.equals(edition.getLanguage(), language))
+				return edition.getEntryForKey(key);
+		return null;
+	}
+
+	public List<IWiktionaryEntry> getEntriesForWordForm(final String wordForm) {
+		return queryEditions(new IEditionQuery<IWiktionaryEntry>() {
+			public List<IWiktionaryEntry> query(final IWiktionaryEdition edition) {
+				return edition.getEntriesForWordForm(wordForm);
+			}
+		});
+	}
+
+	
 	// -- Senses --
 
 	public IWiktionarySense getSenseForKey(final String key, 
@@ -154,16 +316,42 @@ public class WiktionaryCollection extends AbstractWiktionary
 	}
 
 	public List<IWiktionarySense> getSensesForWord(final String word,
-			final IWiktionarySenseFilter filter, boolean normalize) {
-		List<IWiktionarySense> result = new ArrayList<IWiktionarySense>();
-		for (IWiktionaryEdition edition : editions)
-			result.addAll(edition.getSensesForWord(word, filter, normalize));
-		return result;
+			final IWiktionarySenseFilter filter, final boolean normalize) {
+		return queryEditions(new IEditionQuery<IWiktionarySense>() {
+			public List<IWiktionarySense> query(final IWiktionaryEdition edition) {
+				return edition.getSensesForWord(word, filter, normalize);
+			}
+		});
+	}
+
+	public List<IWiktionarySense> getSensesForTranslation(
+			final ILanguage language, final String translation) {
+		return queryEditions(new IEditionQuery<IWiktionarySense>() {
+			public List<IWiktionarySense> query(final IWiktionaryEdition edition) {
+				return edition.getSensesForTranslation(language, translation);
+			}
+		});
 	}
 	
+	/** Returns the senses of all editions. If sorted by title, the sorted 
+	 *  iterators of the editions are merged, such that the senses are in 
+	 *  title order across all editions. */
 	public IWiktionaryIterator<IWiktionarySense> getAllSenses(
 			final IWiktionarySenseFilter filter, final boolean sortByTitle, 
 			final boolean normalize) {
+		if (sortByTitle && editions.size() > 1) {
+			List<IWiktionaryIterator<IWiktionarySense>> sources 
+					= new ArrayList<IWiktionaryIterator<IWiktionarySense>>();
+			for (IWiktionaryEdition edition : editions)
+				sources.add(edition.getAllSenses(filter, true, normalize));
+			return new MergingWiktionaryIterator<IWiktionarySense>(sources) {
+				@Override
+				protected String getSortKey(final IWiktionarySense sense) {
+					return getTitleKey(sense.getEntry().getPage(), normalize);
+				}
+			};
+		}
+		
 		return new HierarchicalWiktionaryIterator<IWiktionarySense, IWiktionaryEdition>(editions.iterator()){
 			protected IWiktionaryIterator<IWiktionarySense> getInnerIterator(
 					final IWiktionaryEdition edition) {
@@ -173,6 +361,42 @@ public class WiktionaryCollection extends AbstractWiktionary
 	}
 
 
+	// -- Partitions --
+
+	/** Returns the partitions of all editions, i.e., up to the given 
+	 *  number of partitions per edition. */
+	public List<IWiktionaryIterator<IWiktionaryPage>> getPagePartitions(
+			final IWiktionaryPageFilter filter, int partitionCount) {
+		List<IWiktionaryIterator<IWiktionaryPage>> result 
+				= new ArrayList<IWiktionaryIterator<IWiktionaryPage>>();
+		for (IWiktionaryEdition edition : editions)
+			result.addAll(edition.getPagePartitions(filter, partitionCount));
+		return result;
+	}
+
+	/** Returns the partitions of all editions, i.e., up to the given 
+	 *  number of partitions per edition. */
+	public List<IWiktionaryIterator<IWiktionaryEntry>> getEntryPartitions(
+			final IWiktionaryEntryFilter filter, int partitionCount) {
+		List<IWiktionaryIterator<IWiktionaryEntry>> result 
+				= new ArrayList<IWiktionaryIterator<IWiktionaryEntry>>();
+		for (IWiktionaryEdition edition : editions)
+			result.addAll(edition.getEntryPartitions(filter, partitionCount));
+		return result;
+	}
+
+	/** Returns the partitions of all editions, i.e., up to the given 
+	 *  number of partitions per edition. */
+	public List<IWiktionaryIterator<IWiktionarySense>> getSensePartitions(
+			final IWiktionarySenseFilter filter, int partitionCount) {
+		List<IWiktionaryIterator<IWiktionarySense>> result 
+				= new ArrayList<IWiktionaryIterator<IWiktionarySense>>();
+		for (IWiktionaryEdition edition : editions)
+			result.addAll(edition.getSensePartitions(filter, partitionCount));
+		return result;
+	}
+
+
 	// -- Close --
 	
 	public void close() {
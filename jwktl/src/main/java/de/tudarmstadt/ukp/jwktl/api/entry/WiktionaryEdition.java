@@ -18,15 +18,27 @@
 package de.tudarmstadt.ukp.jwktl.api.entry;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionarySense;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryTranslation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryWordForm;
 import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryEntryFilter;
+import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryPageFilter;
 import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionarySenseFilter;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFacet;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFilter;
+import de.tudarmstadt.ukp.jwktl.api.util.CompositeKey;
+import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
 import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryIterator;
 
@@ -52,6 +64,74 @@ public abstract class WiktionaryEdition extends AbstractWiktionary
 		return (page == null ? null : page.getEntries().get(entryIdx));
 	}
 
+	public IWiktionaryEntry getEntryForKey(final String key) {
+		ensureOpen();
+		long packedKey = CompositeKey.parseEntryKey(key);
+		return (packedKey == CompositeKey.INVALID ? null : getEntryForKey(packedKey));
+	}
+
+	/** Returns the entry referenced by the given packed key or 
+	 *  <code>null</code> if there is no such entry. 
+	 *  @see CompositeKey */
+	protected IWiktionaryEntry getEntryForKey(long packedKey) {
+		IWiktionaryPage page = getPageForId(CompositeKey.getPageId(packedKey));
+		int entryIdx = CompositeKey.getEntryIndex(packedKey);
+		if (page == null || entryIdx >= page.getEntryCount())
+			return null;
+		return page.getEntries().get(entryIdx);
+	}
+
+	public IWiktionaryIterator<IWiktionaryEntry> getEntriesWithFacets(
+			final WiktionaryEntryFacet... facets) {
+		ensureOpen();
+		return getAllEntries(new IWiktionaryEntryFilter() {
+			public boolean accept(final IWiktionaryEntry entry) {
+				Set<String> keys = WiktionaryEntryFacet.getFacetKeys(entry);
+				for (WiktionaryEntryFacet facet : facets)
+					if (!keys.contains(facet.getKey()))
+						return false;
+				return true;
+			}
+		});
+	}
+
+	public List<IWiktionaryEntry> getEntriesForWordForm(final String wordForm) {
+		List<IWiktionaryEntry> result = null;
+		if (wordForm != null)
+			result = getEntriesForWordForms(Collections.singleton(wordForm)).get(wordForm);
+		return (result == null ? new ArrayList<IWiktionaryEntry>() : result);
+	}
+
+	public Map<String, List<IWiktionaryEntry>> getEntriesForWordForms(
+			final Collection<String> wordForms) {
+		ensureOpen();
+		Map<String, List<IWiktionaryEntry>> result = new LinkedHashMap<String, List<IWiktionaryEntry>>();
+		for (String wordForm : wordForms)
+			if (wordForm != null)
+				result.put(wordForm, new ArrayList<IWiktionaryEntry>());
+		if (result.isEmpty())
+			return result;
+		
+		// Full scan answering all word forms of the batch at once.
+		IWiktionaryIterator<IWiktionaryEntry> entries = getAllEntries(null);
+		try {
+			while (entries.hasNext()) {
+				IWiktionaryEntry entry = entries.next();
+				if (entry.getWordForms() == null)
+					continue;
+				
+				for (IWiktionaryWordForm wordForm : entry.getWordForms()) {
+					List<IWiktionaryEntry> list = result.get(wordForm.getWordForm());
+					if (list != null && (list.isEmpty() || list.get(list.size() - 1) != entry))
+						list.add(entry);
+				}
+			}
+		} finally {
+			entries.close();
+		}
+		return result;
+	}
+
 	public IWiktionaryEntry getEntryForWord(final String word,
 			int entryIdx) {
 		IWiktionaryPage page = getPageForWord(word); 
@@ -78,10 +158,19 @@ public abstract class WiktionaryEdition extends AbstractWiktionary
 			final IWiktionaryEntryFilter filter, 
 			final boolean sortByTitle, final boolean normalize) {
 		ensureOpen();
+		return iterateEntries(getCandidatePages(getPushdownFilter(filter), 
+				sortByTitle, normalize), filter);
+	}
+
+	/** Returns an iterator over all entries of the given pages that are
+	 *  accepted by the given filter. The page iterator is closed along 
+	 *  with the returned iterator. */
+	protected IWiktionaryIterator<IWiktionaryEntry> iterateEntries(
+			final IWiktionaryIterator<IWiktionaryPage> pages,
+			final IWiktionaryEntryFilter filter) {
 		return new WiktionaryIterator<IWiktionaryEntry>() {
 			
-			protected IWiktionaryIterator<IWiktionaryPage> allPages
-					= getAllPages(null, sortByTitle, normalize);
+			protected IWiktionaryIterator<IWiktionaryPage> allPages = pages;
 			protected Iterator<? extends IWiktionaryEntry> entries;
 			
 			protected IWiktionaryEntry fetchNext() {
@@ -99,7 +188,7 @@ public abstract class WiktionaryEdition extends AbstractWiktionary
 					}
 				} while (true);
 			}
-			
+
 			protected IWiktionaryPage fetchNextPage() {
 				if (!allPages.hasNext())
 					return null;
@@ -116,9 +205,50 @@ public abstract class WiktionaryEdition extends AbstractWiktionary
 		};
 	}
 
+	/** Hotspot for iterating over the pages whose entries are to be 
+	 *  checked using the given entry filter. Implementations that store 
+	 *  summary information about the pages may skip pages that cannot 
+	 *  contain any entry with one of the filter's allowed word languages 
+	 *  and parts of speech. The default implementation returns all pages.
+	 *  The entries of the returned pages still need to be checked using
+	 *  the filter.
+	 *  @param filter the filter restricting the entries or 
+	 *    <code>null</code> if no restrictions can be derived. */
+	protected IWiktionaryIterator<IWiktionaryPage> getCandidatePages(
+			final WiktionaryEntryFilter filter, boolean sortByTitle, 
+			boolean normalize) {
+		return getAllPages(null, sortByTitle, normalize);
+	}
+
+	/** Returns the given filter if its restrictions may be used to skip
+	 *  pages or <code>null</code> otherwise. */
+	protected static WiktionaryEntryFilter getPushdownFilter(final Object filter) {
+		if (filter instanceof WiktionaryEntryFilter)
+			return (WiktionaryEntryFilter) filter;
+		else
+			return null;
+	}
+
 	
 	// -- Senses --
 
+	public IWiktionarySense getSenseForKey(final String key) {
+		ensureOpen();
+		long packedKey = CompositeKey.parseSenseKey(key);
+		return (packedKey == CompositeKey.INVALID ? null : getSenseForKey(packedKey));
+	}
+
+	/** Returns the sense referenced by the given packed key or 
+	 *  <code>null</code> if there is no such sense. 
+	 *  @see CompositeKey */
+	protected IWiktionarySense getSenseForKey(long packedKey) {
+		IWiktionaryEntry entry = getEntryForKey(packedKey);
+		int senseIdx = CompositeKey.getSenseIndex(packedKey);
+		if (entry == null || senseIdx > entry.getSenseCount())
+			return null;
+		return entry.getSense(senseIdx);
+	}
+
 	public IWiktionarySense getSenseForId(long entryId, int senseIdx) {
 		ensureOpen();
 		IWiktionaryEntry entry = getEntryForId(entryId);
@@ -166,14 +296,55 @@ public abstract class WiktionaryEdition extends AbstractWiktionary
 		return result;
 	}
 		
+	public List<IWiktionarySense> getSensesForTranslation(
+			final ILanguage language, final String translation) {
+		ensureOpen();
+		List<IWiktionarySense> result = new ArrayList<IWiktionarySense>();
+		String normalized = WiktionaryTranslation.normalizeTranslation(translation);
+		if (language == null || normalized == null || normalized.length() == 0)
+			return result;
+		
+		// Full scan including the unassigned senses.
+		IWiktionaryIterator<IWiktionaryEntry> entries = getAllEntries(null);
+		try {
+			while (entries.hasNext()) {
+				IWiktionaryEntry entry = entries.next();
+				for (int i = 0; i <= entry.getSenseCount(); i++)
+					if (hasTranslation(entry.getSense(i), language, normalized))
+						result.add(entry.getSense(i));
+			}
+		} finally {
+			entries.close();
+		}
+		return result;
+	}
+
+	protected static boolean hasTranslation(final IWiktionarySense sense,
+			final ILanguage language, final String normalized) {
+		for (IWiktionaryTranslation translation : sense.getTranslations(language))
+			if (normalized.equals(WiktionaryTranslation.normalizeTranslation(
+					translation.getTranslation())))
+				return true;
+		return false;
+	}
+		
 	public IWiktionaryIterator<IWiktionarySense> getAllSenses(
 			final IWiktionarySenseFilter filter, 
 			final boolean sortByTitle, final boolean normalize) {
 		ensureOpen();
+		return iterateSenses(iterateEntries(getCandidatePages(
+				getPushdownFilter(filter), sortByTitle, normalize), null), filter);
+	}
+
+	/** Returns an iterator over all senses of the given entries that are
+	 *  accepted by the given filter. The entry iterator is closed along 
+	 *  with the returned iterator. */
+	protected IWiktionaryIterator<IWiktionarySense> iterateSenses(
+			final IWiktionaryIterator<IWiktionaryEntry> entries,
+			final IWiktionarySenseFilter filter) {
 		return new WiktionaryIterator<IWiktionarySense>() {
 			
-			protected IWiktionaryIterator<IWiktionaryEntry> allEntries
-					= getAllEntries(sortByTitle, normalize);
+			protected IWiktionaryIterator<IWiktionaryEntry> allEntries = entries;
 			protected Iterator<? extends IWiktionarySense> senses;
 			
 			protected IWiktionarySense fetchNext() {
@@ -207,6 +378,41 @@ public abstract class WiktionaryEdition extends AbstractWiktionary
 	}
 	
 	
+	// -- Partitions --
+
+	/** Returns a single iterator over all pages. Implementations that
+	 *  are able to split their page ID space should override this method. */
+	public List<IWiktionaryIterator<IWiktionaryPage>> getPagePartitions(
+			final IWiktionaryPageFilter filter, int partitionCount) {
+		ensureOpen();
+		if (partitionCount < 1)
+			throw new IllegalArgumentException("Partition count must be positive");
+		
+		List<IWiktionaryIterator<IWiktionaryPage>> result 
+				= new ArrayList<IWiktionaryIterator<IWiktionaryPage>>(1);
+		result.add(getAllPages(filter));
+		return result;
+	}
+
+	public List<IWiktionaryIterator<IWiktionaryEntry>> getEntryPartitions(
+			final IWiktionaryEntryFilter filter, int partitionCount) {
+		List<IWiktionaryIterator<IWiktionaryEntry>> result 
+				= new ArrayList<IWiktionaryIterator<IWiktionaryEntry>>();
+		for (IWiktionaryIterator<IWiktionaryPage> pages : getPagePartitions(null, partitionCount))
+			result.add(iterateEntries(pages, filter));
+		return result;
+	}
+
+	public List<IWiktionaryIterator<IWiktionarySense>> getSensePartitions(
+			final IWiktionarySenseFilter filter, int partitionCount) {
+		List<IWiktionaryIterator<IWiktionarySense>> result 
+				= new ArrayList<IWiktionaryIterator<IWiktionarySense>>();
+		for (IWiktionaryIterator<IWiktionaryPage> pages : getPagePartitions(null, partitionCount))
+			result.add(iterateSenses(iterateEntries(pages, null), filter));
+		return result;
+	}
+	
+	
 	// -- Close --
 
 	/** Disconnects from the database. This is necessary to ensure the 
@@ -194,26 +194,36 @@ public class WiktionaryEntry implements IWiktionaryEntry {
 
 	/** Adds the given pronunciation. */
 	public void addPronunciation(final IPronunciation pronunciation) {
+		loadDetails();
 		if (pronunciations == null)
 			pronunciations = new ArrayList<IPronunciation>();
 		pronunciations.add(pronunciation);
 	}
 
 	public List<IPronunciation> getPronunciations() {
+		loadDetails();
 		return pronunciations;
 	}
 
 	/** Adds the given word form. */
 	public void addWordForm(final IWiktionaryWordForm wordForm) {
+		loadDetails();
 		if (wordForms == null)
 			wordForms = new ArrayList<IWiktionaryWordForm>();
 		wordForms.add(wordForm);
 	}
 	
 	public List<IWiktionaryWordForm> getWordForms() {
+		loadDetails();
 		return wordForms;
 	}
 
+	/** Loads the details of the page if they are stored separately. */
+	protected void loadDetails() {
+		if (page instanceof WiktionaryPage)
+			((WiktionaryPage) page).loadDetails();
+	}
+
 	
 	// -- Senses --
 
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.entry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFacet;
+import de.tudarmstadt.ukp.jwktl.api.util.CompositeKey;
+import de.tudarmstadt.ukp.jwktl.api.util.CompressedBitmap;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
+
+/**
+ * Index of the {@link WiktionaryEntryFacet}s of all entries of a 
+ * Wiktionary edition. Each entry is assigned a dense ordinal number in 
+ * the order of the page IDs. For each facet, a {@link CompressedBitmap} 
+ * of the ordinals of the entries having this facet is stored. Queries 
+ * combining multiple facets are answered by intersecting the bitmaps, 
+ * such that only the matching entries need to be loaded.
+ */
+public class WiktionaryFacetIndex {
+
+	private static final Logger logger = Logger.getLogger(WiktionaryFacetIndex.class.getName());
+
+	/** The name of the file containing the facet index. */
+	public static final String FILE_NAME = "wiktionary.facets";
+
+	protected static final int FORMAT_VERSION = 1;
+
+	protected long[] entryKeys;
+	protected int entryCount;
+	protected Map<String, CompressedBitmap> bitmaps;
+
+	/** Instanciates an empty facet index. */
+	public WiktionaryFacetIndex() {
+		entryKeys = new long[1024];
+		bitmaps = new TreeMap<String, CompressedBitmap>();
+	}
+
+	/** Creates the facet index for all entries of the given edition. */
+	public static WiktionaryFacetIndex build(final IWiktionaryEdition edition) {
+		WiktionaryFacetIndex result = new WiktionaryFacetIndex();
+		IWiktionaryIterator<IWiktionaryPage> pages = edition.getAllPages();
+		try {
+			while (pages.hasNext())
+				for (IWiktionaryEntry entry : pages.next().getEntries())
+					result.addEntry(entry);
+		} finally {
+			pages.close();
+		}
+		logger.info("Indexed facets of " + result.entryCount + " entries");
+		return result;
+	}
+
+	/** Adds the given entry to the index. The entries are required to be 
+	 *  added in the order of their page IDs and entry indices. */
+	public void addEntry(final IWiktionaryEntry entry) {
+		if (entryCount == entryKeys.length)
+			entryKeys = Arrays.copyOf(entryKeys, entryCount * 2);
+		int ordinal = entryCount++;
+		entryKeys[ordinal] = CompositeKey.pack(entry.getPageId(), entry.getIndex());
+		for (String key : WiktionaryEntryFacet.getFacetKeys(entry)) {
+			CompressedBitmap bitmap = bitmaps.get(key);
+			if (bitmap == null) {
+				bitmap = new CompressedBitmap();
+				bitmaps.put(key, bitmap);
+			}
+			bitmap.add(ordinal);
+		}
+	}
+
+	/** Returns the number of indexed entries. */
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	/** Returns the packed key of the entry with the given ordinal number.
+	 *  @see CompositeKey */
+	public long getEntryKey(int ordinal) {
+		return entryKeys[ordinal];
+	}
+
+	/** Returns the ordinal numbers of the entries having all of the given
+	 *  facets. If no facet is given, an empty bitmap is returned. */
+	public CompressedBitmap query(final WiktionaryEntryFacet... facets) {
+		CompressedBitmap result = null;
+		for (WiktionaryEntryFacet facet : facets) {
+			CompressedBitmap bitmap = bitmaps.get(facet.getKey());
+			if (bitmap == null)
+				return new CompressedBitmap();
+			
+			result = (result == null ? bitmap : result.and(bitmap));
+			if (result.isEmpty())
+				break;
+		}
+		return (result == null ? new CompressedBitmap() : result);
+	}
+
+	/** Returns the number of entries having all of the given facets. */
+	public int count(final WiktionaryEntryFacet... facets) {
+		return query(facets).getCardinality();
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the index to the given file. */
+	public void save(final File file) {
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(entryCount);
+				for (int i = 0; i < entryCount; i++)
+					out.writeLong(entryKeys[i]);
+				out.writeInt(bitmaps.size());
+				for (Entry<String, CompressedBitmap> bitmap : bitmaps.entrySet()) {
+					out.writeUTF(bitmap.getKey());
+					bitmap.getValue().write(out);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save facet index", e);
+		}
+	}
+
+	/** Reads the index from the given file. */
+	public static WiktionaryFacetIndex load(final File file) {
+		try {
+			DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != FORMAT_VERSION)
+					throw new WiktionaryException("Unsupported facet index format: " + file);
+
+				WiktionaryFacetIndex result = new WiktionaryFacetIndex();
+				result.entryCount = in.readInt();
+				result.entryKeys = new long[Math.max(result.entryCount, 1)];
+				for (int i = 0; i < result.entryCount; i++)
+					result.entryKeys[i] = in.readLong();
+				int bitmapCount = in.readInt();
+				for (int i = 0; i < bitmapCount; i++) {
+					String key = in.readUTF();
+					result.bitmaps.put(key, CompressedBitmap.read(in));
+				}
+				return result;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to load facet index", e);
+		}
+	}
+
+}
@@ -44,6 +44,19 @@ import de.tudarmstadt.ukp.jwktl.api.util.Language;
 @Entity
 public class WiktionaryPage implements IWiktionaryPage {
 	
+	/** Loader for the details of a page that are stored separately from 
+	 *  the page record, i.e., the pronunciations and word forms of the 
+	 *  entries and the quotations, references, and translations of the 
+	 *  senses. */
+	public interface IDetailsLoader {
+		
+		/** Adds the stored details to the given page. 
+		 *  @throws IllegalStateException if the edition storing the 
+		 *    details has been closed. */
+		public void loadDetails(final WiktionaryPage page);
+		
+	}
+	
 	@PrimaryKey
 	protected long id;
 
@@ -62,6 +75,7 @@ public class WiktionaryPage implements IWiktionaryPage {
 	protected String redirectTarget;
 	
 	protected List<WiktionaryEntry> entries;
+	protected transient IDetailsLoader detailsLoader;
 
 	/** Instanciates a new, empty page. */
 	public WiktionaryPage() {
@@ -206,6 +220,24 @@ public class WiktionaryPage implements IWiktionaryPage {
 	public List<WiktionaryEntry> entries()  {
 		return entries;
 	}
+
+	/** Sets the loader that is invoked upon the first access to the
+	 *  details of this page. Use <code>null</code> if the page is 
+	 *  complete. */
+	public void setDetailsLoader(final IDetailsLoader detailsLoader) {
+		this.detailsLoader = detailsLoader;
+	}
+
+	/** Loads the details of this page unless they have been loaded
+	 *  before. If loading fails, the loader is retained, such that
+	 *  the next access tries again. */
+	public void loadDetails() {
+		if (detailsLoader == null)
+			return;
+		
+		detailsLoader.loadDetails(this);
+		detailsLoader = null;
+	}
 	
 	@Override
 	public String toString() {
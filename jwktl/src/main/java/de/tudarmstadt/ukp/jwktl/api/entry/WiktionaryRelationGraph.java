@@ -0,0 +1,478 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.entry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
+import de.tudarmstadt.ukp.jwktl.api.RelationType;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
+
+/**
+ * In-memory graph of the {@link IWiktionaryRelation}s of a Wiktionary 
+ * edition. Each page title and each relation target is a node of the 
+ * graph identified by a dense integer ID in alphabetical order of the 
+ * titles. Since the relation targets are words rather than entries or 
+ * senses, the nodes are titles as well: the relations of all entries 
+ * and senses of a page (e.g., of the English noun and the French verb
+ * on the same page) are merged into the edges of a single node. Use 
+ * {@link IWiktionaryEntry#getRelations()} for distinguishing them. For each {@link RelationType}, the edges are stored as 
+ * compressed forward and reverse adjacency arrays (i.e., an offset array
+ * indexed by the node ID and an array of neighbor IDs), which allows for
+ * finding the targets and the sources of a relation as well as for 
+ * traversing the graph without any database lookup and with only a few 
+ * object allocations.
+ */
+public class WiktionaryRelationGraph {
+
+	private static final Logger logger = Logger.getLogger(WiktionaryRelationGraph.class.getName());
+
+	/** The name of the file containing the relation graph. */
+	public static final String FILE_NAME = "wiktionary.relations";
+
+	protected static final int FORMAT_VERSION = 1;
+	protected static final int[] NO_NODES = new int[0];
+
+	protected String[] titles;
+	protected long[] pageIds;
+	protected int[][] forwardOffsets;
+	protected int[][] forwardTargets;
+	protected int[][] reverseOffsets;
+	protected int[][] reverseTargets;
+
+	/** Instanciates an empty relation graph. Use {@link #build(IWiktionaryEdition)}
+	 *  or {@link #load(File)} to obtain a graph. */
+	protected WiktionaryRelationGraph() {
+		int typeCount = RelationType.values().length;
+		titles = new String[0];
+		pageIds = new long[0];
+		forwardOffsets = new int[typeCount][];
+		forwardTargets = new int[typeCount][];
+		reverseOffsets = new int[typeCount][];
+		reverseTargets = new int[typeCount][];
+	}
+
+	/** Creates the relation graph for all pages of the given edition. */
+	public static WiktionaryRelationGraph build(final IWiktionaryEdition edition) {
+		int typeCount = RelationType.values().length;
+		Map<String, Integer> nodes = new HashMap<String, Integer>();
+		GrowableLongArray nodePageIds = new GrowableLongArray();
+		GrowableLongArray[] edges = new GrowableLongArray[typeCount];
+		for (int i = 0; i < typeCount; i++)
+			edges[i] = new GrowableLongArray();
+
+		// Collect the nodes in the order of their first occurrence.
+		IWiktionaryIterator<IWiktionaryPage> pages = edition.getAllPages();
+		try {
+			while (pages.hasNext()) {
+				IWiktionaryPage page = pages.next();
+				int source = getOrAddNode(nodes, nodePageIds, page.getTitle());
+				nodePageIds.set(source, page.getId());
+				for (IWiktionaryEntry entry : page.getEntries())
+					for (IWiktionaryRelation relation : entry.getRelations()) {
+						if (relation.getTarget() == null || relation.getRelationType() == null)
+							continue;
+						
+						int target = getOrAddNode(nodes, nodePageIds, relation.getTarget());
+						edges[relation.getRelationType().ordinal()].add(
+								((long) source << 32) | target);
+					}
+			}
+		} finally {
+			pages.close();
+		}
+
+		// Renumber the nodes in alphabetical order.
+		WiktionaryRelationGraph result = new WiktionaryRelationGraph();
+		int nodeCount = nodes.size();
+		result.titles = nodes.keySet().toArray(new String[nodeCount]);
+		Arrays.sort(result.titles);
+		int[] newIds = new int[nodeCount];
+		result.pageIds = new long[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			int oldId = nodes.get(result.titles[i]);
+			newIds[oldId] = i;
+			result.pageIds[i] = nodePageIds.get(oldId);
+		}
+
+		int edgeCount = 0;
+		for (int type = 0; type < typeCount; type++) {
+			long[] typeEdges = edges[type].toArray();
+			for (int i = 0; i < typeEdges.length; i++) {
+				int source = newIds[(int) (typeEdges[i] >>> 32)];
+				int target = newIds[(int) typeEdges[i]];
+				typeEdges[i] = ((long) source << 32) | target;
+			}
+			edges[type] = null;
+			result.setEdges(type, typeEdges, nodeCount);
+			edgeCount += result.getEdgeCount(RelationType.values()[type]);
+		}
+		logger.info("Created relation graph with " + nodeCount + " nodes and " 
+				+ edgeCount + " edges");
+		return result;
+	}
+
+	protected static int getOrAddNode(final Map<String, Integer> nodes,
+			final GrowableLongArray nodePageIds, final String title) {
+		Integer result = nodes.get(title);
+		if (result == null) {
+			result = nodes.size();
+			nodes.put(title, result);
+			nodePageIds.add(-1);
+		}
+		return result;
+	}
+
+	/** Creates the forward and reverse adjacency arrays of the given 
+	 *  relation type from the given packed (source, target) edges. 
+	 *  Duplicate edges are removed. */
+	protected void setEdges(int type, final long[] edges, int nodeCount) {
+		Arrays.sort(edges);
+		int edgeCount = 0;
+		for (int i = 0; i < edges.length; i++)
+			if (i == 0 || edges[i] != edges[i - 1])
+				edges[edgeCount++] = edges[i];
+
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			sources[i] = (int) (edges[i] >>> 32);
+			targets[i] = (int) edges[i];
+		}
+		forwardOffsets[type] = new int[nodeCount + 1];
+		forwardTargets[type] = new int[edgeCount];
+		fillAdjacency(sources, targets, forwardOffsets[type], forwardTargets[type]);
+		reverseOffsets[type] = new int[nodeCount + 1];
+		reverseTargets[type] = new int[edgeCount];
+		fillAdjacency(targets, sources, reverseOffsets[type], reverseTargets[type]);
+	}
+
+	/** Fills the given offset and neighbor arrays using a counting sort 
+	 *  of the given edges by their source node. Since the edges are 
+	 *  processed in order, the neighbors of each node remain sorted if 
+	 *  the edges are sorted by their target node. */
+	protected static void fillAdjacency(final int[] sources, final int[] targets,
+			final int[] offsets, final int[] neighbors) {
+		for (int source : sources)
+			offsets[source + 1]++;
+		for (int i = 1; i < offsets.length; i++)
+			offsets[i] += offsets[i - 1];
+		int[] position = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int i = 0; i < sources.length; i++)
+			neighbors[position[sources[i]]++] = targets[i];
+	}
+
+
+	// -- Nodes --
+
+	/** Returns the number of nodes of the graph. */
+	public int getNodeCount() {
+		return titles.length;
+	}
+
+	/** Returns the ID of the node with the given title or -1 if there is 
+	 *  no such node. */
+	public int getNode(final String title) {
+		if (title == null)
+			return -1;
+		int result = Arrays.binarySearch(titles, title);
+		return (result < 0 ? -1 : result);
+	}
+
+	/** Returns the title of the node with the given ID. */
+	public String getTitle(int node) {
+		return titles[node];
+	}
+
+	/** Returns the ID of the page of the node with the given ID or -1 if 
+	 *  the node only occurs as a relation target. */
+	public long getPageId(int node) {
+		return pageIds[node];
+	}
+
+
+	// -- Edges --
+
+	/** Returns the number of edges of the given relation type. */
+	public int getEdgeCount(final RelationType relationType) {
+		return forwardTargets[relationType.ordinal()].length;
+	}
+
+	/** Returns the number of targets of the given relation type for the 
+	 *  node with the given ID. */
+	public int getTargetCount(int node, final RelationType relationType) {
+		int[] offsets = forwardOffsets[relationType.ordinal()];
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/** Returns the <code>index</code>-th target of the given relation type
+	 *  for the node with the given ID. Together with 
+	 *  {@link #getTargetCount(int, RelationType)}, this allows for 
+	 *  iterating the targets without allocating an array. */
+	public int getTarget(int node, final RelationType relationType, int index) {
+		return forwardTargets[relationType.ordinal()][
+				forwardOffsets[relationType.ordinal()][node] + index];
+	}
+
+	/** Returns the IDs of the nodes that are targets of the given 
+	 *  relation type for the node with the given ID, i.e., the nodes 
+	 *  listed by the page of this node. */
+	public int[] getTargets(int node, final RelationType relationType) {
+		int type = relationType.ordinal();
+		return Arrays.copyOfRange(forwardTargets[type], 
+				forwardOffsets[type][node], forwardOffsets[type][node + 1]);
+	}
+
+	/** Returns the number of sources of the given relation type for the 
+	 *  node with the given ID. */
+	public int getSourceCount(int node, final RelationType relationType) {
+		int[] offsets = reverseOffsets[relationType.ordinal()];
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/** Returns the <code>index</code>-th source of the given relation type
+	 *  for the node with the given ID. */
+	public int getSource(int node, final RelationType relationType, int index) {
+		return reverseTargets[relationType.ordinal()][
+				reverseOffsets[relationType.ordinal()][node] + index];
+	}
+
+	/** Returns the IDs of the nodes whose pages list the node with the 
+	 *  given ID as a target of the given relation type (i.e., the inbound
+	 *  edges). */
+	public int[] getSources(int node, final RelationType relationType) {
+		int type = relationType.ordinal();
+		return Arrays.copyOfRange(reverseTargets[type], 
+				reverseOffsets[type][node], reverseOffsets[type][node + 1]);
+	}
+
+
+	// -- Traversal --
+
+	/** Returns the IDs of all nodes reachable from the node with the given
+	 *  ID by following at most <code>maxDepth</code> edges of the given 
+	 *  relation type in breadth-first order. The start node is not part of 
+	 *  the result unless it is reachable through a cycle. 
+	 *  @param inbound if set to <code>true</code>, the edges are followed
+	 *    in reverse direction (e.g., from a hypernym to its hyponyms).
+	 *  @param maxDepth the maximum number of hops or a negative number 
+	 *    for computing the transitive closure. */
+	public int[] traverse(int node, final RelationType relationType,
+			boolean inbound, int maxDepth) {
+		int type = relationType.ordinal();
+		int[] offsets = (inbound ? reverseOffsets[type] : forwardOffsets[type]);
+		int[] neighbors = (inbound ? reverseTargets[type] : forwardTargets[type]);
+		if (maxDepth == 0 || offsets[node] == offsets[node + 1])
+			return NO_NODES;
+
+		// The queue contains the result; the visited nodes are kept in a 
+		// hash set that grows with the number of reached nodes rather 
+		// than with the size of the graph.
+		NodeSet visited = new NodeSet();
+		int[] queue = new int[16];
+		int head = 0;
+		int tail = 0;
+		int depth = 0;
+		int depthEnd = 0;
+		int current = node;
+		while (true) {
+			for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+				int neighbor = neighbors[i];
+				if (!visited.add(neighbor))
+					continue;
+
+				if (tail == queue.length)
+					queue = Arrays.copyOf(queue, tail * 2);
+				queue[tail++] = neighbor;
+			}
+			if (head == depthEnd) {
+				depth++;
+				depthEnd = tail;
+				if (depth == maxDepth)
+					break;
+			}
+			if (head == tail)
+				break;
+			current = queue[head++];
+		}
+		return Arrays.copyOf(queue, tail);
+	}
+
+	/** Returns the IDs of all nodes reachable from the node with the given
+	 *  ID by following edges of the given relation type, e.g., all direct 
+	 *  and indirect hypernyms. */
+	public int[] getTransitiveClosure(int node, final RelationType relationType) {
+		return traverse(node, relationType, false, -1);
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the graph to the given file. */
+	public void save(final File file) {
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(titles.length);
+				for (int i = 0; i < titles.length; i++) {
+					out.writeUTF(titles[i]);
+					out.writeLong(pageIds[i]);
+				}
+				out.writeInt(forwardTargets.length);
+				for (int type = 0; type < forwardTargets.length; type++) {
+					int[] offsets = forwardOffsets[type];
+					int[] targets = forwardTargets[type];
+					out.writeInt(targets.length);
+					for (int node = 0; node < titles.length; node++)
+						for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+							out.writeInt(node);
+							out.writeInt(targets[i]);
+						}
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save relation graph", e);
+		}
+	}
+
+	/** Reads the graph from the given file. */
+	public static WiktionaryRelationGraph load(final File file) {
+		try {
+			DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != FORMAT_VERSION)
+					throw new WiktionaryException("Unsupported relation graph format: " + file);
+
+				WiktionaryRelationGraph result = new WiktionaryRelationGraph();
+				int nodeCount = in.readInt();
+				result.titles = new String[nodeCount];
+				result.pageIds = new long[nodeCount];
+				for (int i = 0; i < nodeCount; i++) {
+					result.titles[i] = in.readUTF();
+					result.pageIds[i] = in.readLong();
+				}
+				int typeCount = in.readInt();
+				if (typeCount != result.forwardTargets.length)
+					throw new WiktionaryException("Unsupported relation types: " + file);
+				
+				for (int type = 0; type < typeCount; type++) {
+					long[] edges = new long[in.readInt()];
+					for (int i = 0; i < edges.length; i++)
+						edges[i] = ((long) in.readInt() << 32) | in.readInt();
+					result.setEdges(type, edges, nodeCount);
+				}
+				return result;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to load relation graph", e);
+		}
+	}
+
+
+	// -- Utilities --
+
+	/** Set of node IDs using open addressing with linear probing. */
+	protected static class NodeSet {
+
+		protected int[] table = new int[32];
+		protected int size;
+
+		/** Adds the given node ID and returns true if it has not been 
+		 *  contained before. */
+		public boolean add(int node) {
+			if (2 * (size + 1) > table.length)
+				rehash(table.length * 2);
+			if (!insert(table, node))
+				return false;
+			size++;
+			return true;
+		}
+
+		/** Inserts the given node ID into the given table. The slots 
+		 *  store the ID plus one, such that 0 denotes an empty slot. */
+		protected static boolean insert(final int[] target, int node) {
+			int mask = target.length - 1;
+			int hash = node * 0x9E3779B9;
+			int slot = (hash ^ (hash >>> 16)) & mask;
+			while (target[slot] != 0) {
+				if (target[slot] == node + 1)
+					return false;
+				slot = (slot + 1) & mask;
+			}
+			target[slot] = node + 1;
+			return true;
+		}
+
+		protected void rehash(int capacity) {
+			int[] newTable = new int[capacity];
+			for (int value : table)
+				if (value != 0)
+					insert(newTable, value - 1);
+			table = newTable;
+		}
+
+	}
+
+	protected static class GrowableLongArray {
+
+		protected long[] values = new long[1024];
+		protected int size;
+
+		public void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		public long get(int index) {
+			return values[index];
+		}
+
+		public void set(int index, long value) {
+			values[index] = value;
+		}
+
+		public long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+	}
+
+}
@@ -131,23 +131,27 @@ public class WiktionarySense implements IWiktionarySense {
 	
 	/** Add the given quotation to this sense. */
 	public void addQuotation(final IQuotation quotation) {
+		loadDetails();
 		if (quotations == null)
 			quotations = new ArrayList<IQuotation>();
 		quotations.add(quotation);
 	}
 
 	public List<IQuotation> getQuotations() {
+		loadDetails();
 		return quotations;
 	}
 	
 	/** Add the given reference to this sense. */
 	public void addReference(final IWikiString reference) {
+		loadDetails();
 		if (references == null)
 			references = new ArrayList<IWikiString>();
 		references.add(reference);
 	}
 	
 	public List<IWikiString> getReferences() {
+		loadDetails();
 		return references;
 	}
 	
@@ -173,12 +177,14 @@ public class WiktionarySense implements IWiktionarySense {
 	
 	/** Add the given translation to this sense. */
 	public void addTranslation(final IWiktionaryTranslation translation) {
+		loadDetails();
 		if (translations == null)
 			translations = new ArrayList<IWiktionaryTranslation>();
 		translations.add(translation);
 	}
 	
 	public List<IWiktionaryTranslation> getTranslations(final ILanguage language) {		
+		loadDetails();
 		List<IWiktionaryTranslation> result = new ArrayList<IWiktionaryTranslation>();
 		if (translations != null)
 			for (IWiktionaryTranslation trans : translations)
@@ -189,9 +195,16 @@ public class WiktionarySense implements IWiktionarySense {
 	}
 	
 	public List<IWiktionaryTranslation> getTranslations() {
+		loadDetails();
 		return translations;
 	}
 
+	/** Loads the details of the page if they are stored separately. */
+	protected void loadDetails() {
+		if (entry != null)
+			entry.loadDetails();
+	}
+
 	
 	// -- Subsenses --
 	
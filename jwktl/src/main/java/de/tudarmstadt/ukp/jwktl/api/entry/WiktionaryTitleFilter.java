@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.entry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.util.BloomFilter;
+
+/**
+ * Approximate membership filter for the page titles and normalized page 
+ * titles of a Wiktionary edition. The filter is consulted before 
+ * accessing the database, such that lookups for words that are not 
+ * encoded in Wiktionary only cost a few hash computations. The filter 
+ * never rejects an existing title, but it accepts a non-existing title 
+ * with a small probability.
+ * @see BloomFilter
+ */
+public class WiktionaryTitleFilter {
+
+	/** The name of the file containing the title filter. */
+	public static final String FILE_NAME = "wiktionary.filter";
+	/** The default false positive probability. */
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+	protected static final int FORMAT_VERSION = 1;
+
+	protected BloomFilter titles;
+	protected BloomFilter normalizedTitles;
+
+	/** Instanciates an empty filter for the given number of titles using
+	 *  the default false positive probability. */
+	public WiktionaryTitleFilter(long titleCount) {
+		this(titleCount, DEFAULT_FALSE_POSITIVE_RATE);
+	}
+
+	/** Instanciates an empty filter for the given number of titles and the
+	 *  given false positive probability. */
+	public WiktionaryTitleFilter(long titleCount, double falsePositiveRate) {
+		titles = new BloomFilter(titleCount, falsePositiveRate);
+		normalizedTitles = new BloomFilter(titleCount, falsePositiveRate);
+	}
+
+	protected WiktionaryTitleFilter() {}
+
+	/** Adds the given page title and its normalized form to the filter. */
+	public void addTitle(final String title) {
+		titles.add(title);
+		normalizedTitles.add(WiktionaryPage.normalizeTitle(title));
+	}
+
+	/** Returns <code>false</code> if there is definitely no page with the
+	 *  given title. */
+	public boolean mightContainTitle(final String title) {
+		return titles.mightContain(title);
+	}
+
+	/** Returns <code>false</code> if there is definitely no page whose 
+	 *  normalized title equals the given normalized title. */
+	public boolean mightContainNormalizedTitle(final String normalizedTitle) {
+		return normalizedTitles.mightContain(normalizedTitle);
+	}
+
+	/** Returns the number of bytes used by the filter. */
+	public long getSizeInBytes() {
+		return titles.getSizeInBytes() + normalizedTitles.getSizeInBytes();
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the filter to the given file. */
+	public void save(final File file) {
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				out.writeInt(FORMAT_VERSION);
+				titles.write(out);
+				normalizedTitles.write(out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save title filter", e);
+		}
+	}
+
+	/** Reads the filter from the given file. */
+	public static WiktionaryTitleFilter load(final File file) {
+		try {
+			DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != FORMAT_VERSION)
+					throw new WiktionaryException("Unsupported title filter format: " + file);
+
+				WiktionaryTitleFilter result = new WiktionaryTitleFilter();
+				result.titles = BloomFilter.read(in);
+				result.normalizedTitles = BloomFilter.read(in);
+				return result;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to load title filter", e);
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.entry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.util.BloomFilter;
+import de.tudarmstadt.ukp.jwktl.api.util.MinimalPerfectHash;
+import de.tudarmstadt.ukp.jwktl.api.util.SortedStringTable;
+
+/**
+ * Map from the page titles of a Wiktionary edition to their page IDs 
+ * based on a {@link MinimalPerfectHash}. For each title, a 32-bit 
+ * fingerprint is stored in order to reject titles that are not part of
+ * the edition. A title is thus resolved without descending the title 
+ * index of the database, and only the page itself needs to be loaded. 
+ * The map is memory-mapped from its file, such that it does not need to
+ * be read upon opening the edition. The mapping is released by 
+ * {@link #close()}.
+ */
+public class WiktionaryTitleHash {
+
+	private static final Logger logger = Logger.getLogger(WiktionaryTitleHash.class.getName());
+
+	/** The name of the file containing the title hash. */
+	public static final String FILE_NAME = "wiktionary.mph";
+
+	protected static final int FORMAT_VERSION = 2;
+
+	protected ByteBuffer buffer;
+	protected MinimalPerfectHash hash;
+	protected int fingerprintsPosition;
+	protected int pageIdsPosition;
+
+	protected WiktionaryTitleHash() {}
+
+	/** Creates the title hash for the titles of the given title index. */
+	public static WiktionaryTitleHash build(final WiktionaryTitleIndex index) {
+		List<String> titles = new ArrayList<String>(index.getTitleCount());
+		SortedStringTable.Reader reader = index.titles.new Reader();
+		while (reader.next())
+			titles.add(reader.toString());
+		
+		MinimalPerfectHash hash = MinimalPerfectHash.build(titles);
+		int[] fingerprints = new int[titles.size()];
+		long[] pageIds = new long[titles.size()];
+		for (int i = 0; i < titles.size(); i++) {
+			int idx = hash.get(titles.get(i));
+			fingerprints[idx] = getFingerprint(titles.get(i));
+			pageIds[idx] = index.getPageId(i);
+		}
+		
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(FORMAT_VERSION);
+			hash.write(out);
+			for (int fingerprint : fingerprints)
+				out.writeInt(fingerprint);
+			for (long pageId : pageIds)
+				out.writeLong(pageId);
+			out.close();
+			WiktionaryTitleHash result = read(ByteBuffer.wrap(bytes.toByteArray()));
+			logger.info("Created title hash for " + titles.size() + " titles using "
+					+ hash.getSizeInBytes() + " bytes for the hash function");
+			return result;
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to create title hash", e);
+		}
+	}
+
+	/** Returns the ID of the page with the given title or -1 if there is 
+	 *  no such page. With a very small probability, the ID of another page
+	 *  is returned for a non-existing title, so the title of the page 
+	 *  should be checked after loading it. */
+	public long getPageId(final String title) {
+		if (buffer == null)
+			throw new IllegalStateException("Title hash has been closed");
+		if (title == null)
+			return -1;
+		
+		int idx = hash.get(title);
+		if (idx < 0 || idx >= hash.size())
+			return -1;
+		if (buffer.getInt(fingerprintsPosition + 4 * idx) != getFingerprint(title))
+			return -1;
+		return buffer.getLong(pageIdsPosition + 8 * idx);
+	}
+
+	/** Returns the number of titles. */
+	public int size() {
+		return hash.size();
+	}
+
+	protected static int getFingerprint(final String title) {
+		return (int) (BloomFilter.hash(title) >>> 32);
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the title hash to the given file. */
+	public void save(final File file) {
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				for (int i = 0; i < buffer.limit(); i++)
+					out.writeByte(buffer.get(i));
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save title hash", e);
+		}
+	}
+
+	/** Memory-maps the title hash from the given file. */
+	public static WiktionaryTitleHash map(final File file) {
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			} finally {
+				raf.close(); // The mapping remains valid.
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to map title hash", e);
+		}
+	}
+
+	/** Releases the memory mapping of the title hash. The title hash 
+	 *  cannot be used afterwards, and it must not be closed while other 
+	 *  threads are still using it. */
+	public void close() {
+		if (buffer instanceof MappedByteBuffer)
+			unmap((MappedByteBuffer) buffer);
+		buffer = null;
+		hash = null;
+	}
+
+	/** Releases the given mapping immediately instead of waiting for the
+	 *  garbage collector, which would keep the file open (and, on some
+	 *  platforms, locked) until then. The JDK offers no public API for 
+	 *  this; if the internal one is not accessible, the mapping is left 
+	 *  to the garbage collector. */
+	protected static void unmap(final MappedByteBuffer buffer) {
+		try {
+			// Java 9 and later.
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			return;
+		} catch (NoSuchMethodException e) {
+			// Java 8 and earlier; see below.
+		} catch (Exception e) {
+			logger.log(Level.FINE, "Unable to unmap title hash", e);
+			return;
+		}
+		
+		try {
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer);
+			if (cleaner != null)
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+		} catch (Exception e) {
+			logger.log(Level.FINE, "Unable to unmap title hash", e);
+		}
+	}
+
+	protected static WiktionaryTitleHash read(final ByteBuffer buffer) {
+		if (buffer.getInt(0) != FORMAT_VERSION)
+			throw new WiktionaryException("Unsupported title hash format");
+		
+		WiktionaryTitleHash result = new WiktionaryTitleHash();
+		result.buffer = buffer;
+		buffer.position(4);
+		result.hash = MinimalPerfectHash.read(buffer);
+		result.fingerprintsPosition = buffer.position();
+		result.pageIdsPosition = result.fingerprintsPosition + 4 * result.hash.size();
+		return result;
+	}
+
+}
@@ -0,0 +1,465 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.entry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
+import de.tudarmstadt.ukp.jwktl.api.util.SortedStringTable;
+
+/**
+ * In-memory dictionary of the page titles of a Wiktionary edition. The 
+ * titles and the normalized titles (see 
+ * {@link WiktionaryPage#normalizeTitle(String)}) are kept in front-coded
+ * {@link SortedStringTable}s, which map each title to a dense ordinal 
+ * number in alphabetical order. For each ordinal, the page ID and the 
+ * number of entries of the page are stored. This allows for exact and
+ * prefix lookups (e.g., for autocompletion) without accessing the 
+ * database until a page is actually requested.
+ */
+public class WiktionaryTitleIndex {
+
+	private static final Logger logger = Logger.getLogger(WiktionaryTitleIndex.class.getName());
+
+	/** The name of the file containing the title index. */
+	public static final String FILE_NAME = "wiktionary.titles";
+
+	protected static final int FORMAT_VERSION = 1;
+
+	protected SortedStringTable titles;
+	protected long[] pageIds;
+	protected int[] entryCounts;
+	protected SortedStringTable normalizedTitles;
+	protected int[] normalizedTitleOrdinals;
+
+	/** Instanciates an empty title index. Use {@link #build(IWiktionaryEdition)}
+	 *  or {@link #load(File)} to obtain an index. */
+	protected WiktionaryTitleIndex() {
+		titles = new SortedStringTable();
+		pageIds = new long[0];
+		entryCounts = new int[0];
+		normalizedTitles = new SortedStringTable();
+		normalizedTitleOrdinals = new int[0];
+	}
+
+	/** Creates the title index for all pages of the given edition. */
+	public static WiktionaryTitleIndex build(final IWiktionaryEdition edition) {
+		List<String> titleList = new ArrayList<String>();
+		List<Long> pageIdList = new ArrayList<Long>();
+		List<Integer> entryCountList = new ArrayList<Integer>();
+		IWiktionaryIterator<IWiktionaryPage> pages = edition.getAllPages();
+		try {
+			while (pages.hasNext()) {
+				IWiktionaryPage page = pages.next();
+				if (page.getTitle() == null)
+					continue;
+				
+				titleList.add(page.getTitle());
+				pageIdList.add(page.getId());
+				entryCountList.add(page.getEntryCount());
+			}
+		} finally {
+			pages.close();
+		}
+		return create(titleList, pageIdList, entryCountList);
+	}
+
+	/** Creates the title index for the given titles and the corresponding 
+	 *  page IDs and entry counts. */
+	protected static WiktionaryTitleIndex create(final List<String> titleList,
+			final List<Long> pageIdList, final List<Integer> entryCountList) {
+		// Sort by title.
+		Integer[] order = new Integer[titleList.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(final Integer i1, final Integer i2) {
+				return titleList.get(i1).compareTo(titleList.get(i2));
+			}
+		});
+		WiktionaryTitleIndex result = new WiktionaryTitleIndex();
+		result.pageIds = new long[order.length];
+		result.entryCounts = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result.titles.add(titleList.get(order[i]));
+			result.pageIds[i] = pageIdList.get(order[i]);
+			result.entryCounts[i] = entryCountList.get(order[i]);
+		}
+
+		// Sort by normalized title and, for equal normalized titles, by title.
+		final String[] normalized = new String[order.length];
+		for (int i = 0; i < order.length; i++) {
+			normalized[i] = WiktionaryPage.normalizeTitle(titleList.get(order[i]));
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(final Integer i1, final Integer i2) {
+				int result = normalized[i1].compareTo(normalized[i2]);
+				return (result != 0 ? result : i1 - i2);
+			}
+		});
+		result.normalizedTitleOrdinals = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result.normalizedTitles.add(normalized[order[i]]);
+			result.normalizedTitleOrdinals[i] = order[i];
+		}
+		logger.info("Indexed " + order.length + " titles using " 
+				+ (result.titles.getSizeInBytes() + result.normalizedTitles.getSizeInBytes()) 
+				+ " bytes");
+		return result;
+	}
+
+
+	// -- Titles --
+
+	/** Returns the number of indexed titles. */
+	public int getTitleCount() {
+		return titles.size();
+	}
+
+	/** Returns the title with the given ordinal number. */
+	public String getTitle(int ordinal) {
+		return titles.get(ordinal);
+	}
+
+	/** Returns the ID of the page with the given ordinal number. */
+	public long getPageId(int ordinal) {
+		return pageIds[ordinal];
+	}
+
+	/** Returns the number of entries of the page with the given ordinal 
+	 *  number. */
+	public int getEntryCount(int ordinal) {
+		return entryCounts[ordinal];
+	}
+
+	/** Returns the ordinal number of the given title or -1 if there is 
+	 *  no page with this title. */
+	public int findTitle(final String title) {
+		if (title == null)
+			return -1;
+		return titles.indexOf(title);
+	}
+
+	/** Returns the ordinal numbers of all pages whose title matches the 
+	 *  given word. If <code>normalize</code> is set, the normalized titles 
+	 *  are compared (cf. {@link IWiktionaryEdition#getPagesForWord(String, 
+	 *  boolean)}). */
+	public int[] findTitles(final String word, boolean normalize) {
+		if (word == null)
+			return new int[0];
+		if (!normalize) {
+			int ordinal = findTitle(word);
+			return (ordinal < 0 ? new int[0] : new int[]{ordinal});
+		}
+		
+		String normalized = WiktionaryPage.normalizeTitle(word);
+		int from = normalizedTitles.lowerBound(normalized);
+		int to = from;
+		SortedStringTable.Reader reader = normalizedTitles.new Reader();
+		reader.seek(from);
+		while (reader.next() && reader.length() == normalized.length() 
+				&& reader.startsWith(normalized))
+			to++;
+		return getOrdinals(from, to, true, Integer.MAX_VALUE);
+	}
+
+
+	// -- Prefix queries --
+
+	/** Returns the ordinal numbers of the titles starting with the given 
+	 *  prefix in alphabetical order. At most <code>limit</code> ordinal 
+	 *  numbers are returned. If <code>normalize</code> is set, the 
+	 *  normalized titles are compared with the normalized prefix. */
+	public int[] findPrefix(final String prefix, boolean normalize, int limit) {
+		SortedStringTable table = getTable(normalize);
+		String key = (normalize ? WiktionaryPage.normalizeTitle(prefix) : prefix);
+		return getOrdinals(table.lowerBound(key), table.prefixEnd(key), normalize, limit);
+	}
+
+	/** Returns the ordinal numbers of at most <code>k</code> titles 
+	 *  starting with the given prefix. The titles are ranked by the number 
+	 *  of entries of their pages and, for equal numbers, alphabetically. 
+	 *  If <code>normalize</code> is set, the normalized titles are compared 
+	 *  with the normalized prefix. */
+	public int[] findTopPrefix(final String prefix, boolean normalize, int k) {
+		SortedStringTable table = getTable(normalize);
+		String key = (normalize ? WiktionaryPage.normalizeTitle(prefix) : prefix);
+		int from = table.lowerBound(key);
+		int to = table.prefixEnd(key);
+		if (k <= 0 || from >= to)
+			return new int[0];
+		
+		// Keep the best k titles in a heap whose head is the worst one.
+		Comparator<Integer> ranking = getRanking();
+		PriorityQueue<Integer> heap = new PriorityQueue<Integer>(
+				Math.min(k, to - from) + 1, Collections.reverseOrder(ranking));
+		for (int i = from; i < to; i++) {
+			int ordinal = (normalize ? normalizedTitleOrdinals[i] : i);
+			if (heap.size() < k)
+				heap.add(ordinal);
+			else if (ranking.compare(ordinal, heap.peek()) < 0) {
+				heap.poll();
+				heap.add(ordinal);
+			}
+		}
+		int[] result = new int[heap.size()];
+		for (int i = result.length - 1; i >= 0; i--)
+			result[i] = heap.poll();
+		return result;
+	}
+
+	/** Returns the titles starting with the given prefix in alphabetical 
+	 *  order. At most <code>limit</code> titles are returned.
+	 *  @see #findPrefix(String, boolean, int) */
+	public List<String> getTitlesWithPrefix(final String prefix, 
+			boolean normalize, int limit) {
+		List<String> result = new ArrayList<String>();
+		for (int ordinal : findPrefix(prefix, normalize, limit))
+			result.add(getTitle(ordinal));
+		return result;
+	}
+
+
+	// -- Fuzzy queries --
+
+	/** Returns the ordinal numbers of at most <code>limit</code> titles 
+	 *  whose edit distance to the given word is at most 
+	 *  <code>maxDistance</code>, e.g., "receive" for the misspelled word 
+	 *  "recieve". The edit distance is the number of inserted, deleted, or
+	 *  substituted characters and swapped adjacent characters (i.e., the 
+	 *  optimal string alignment distance). The titles are ranked by their 
+	 *  distance, the number of entries of their pages, and alphabetically.
+	 *  If <code>normalize</code> is set, the normalized titles are compared
+	 *  with the normalized word. <br>
+	 *  The search traverses the sorted titles like a trie: the rows of the
+	 *  distance matrix are shared among titles with a common prefix, and 
+	 *  all titles starting with a prefix are skipped as soon as its row 
+	 *  exceeds the maximum distance. */
+	public int[] findSimilar(final String word, int maxDistance, 
+			boolean normalize, int limit) {
+		if (word == null || maxDistance < 0 || limit <= 0)
+			return new int[0];
+		
+		final String key = (normalize ? WiktionaryPage.normalizeTitle(word) : word);
+		SortedStringTable table = getTable(normalize);
+		int n = key.length();
+		int[][] rows = new int[64][];
+		char[] chars = new char[64];
+		rows[0] = new int[n + 1];
+		for (int j = 0; j <= n; j++)
+			rows[0][j] = j;
+		int validChars = 0;
+		
+		final List<int[]> matches = new ArrayList<int[]>();
+		SortedStringTable.Reader reader = table.new Reader();
+		while (reader.next()) {
+			int length = reader.length();
+			int k = 0;
+			int maxShared = Math.min(validChars, length);
+			while (k < maxShared && chars[k] == reader.charAt(k))
+				k++;
+			
+			boolean pruned = false;
+			while (k < length) {
+				if (k + 1 >= rows.length) {
+					rows = Arrays.copyOf(rows, rows.length * 2);
+					chars = Arrays.copyOf(chars, chars.length * 2);
+				}
+				char c = reader.charAt(k);
+				chars[k] = c;
+				int[] row = rows[k + 1];
+				if (row == null)
+					row = rows[k + 1] = new int[n + 1];
+				int[] previous = rows[k];
+				row[0] = k + 1;
+				int min = row[0];
+				for (int j = 1; j <= n; j++) {
+					int cost = (key.charAt(j - 1) == c ? 0 : 1);
+					int value = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), 
+							previous[j - 1] + cost);
+					if (k > 0 && j > 1 && c == key.charAt(j - 2) 
+							&& chars[k - 1] == key.charAt(j - 1))
+						value = Math.min(value, rows[k - 1][j - 2] + 1);
+					row[j] = value;
+					if (value < min)
+						min = value;
+				}
+				k++;
+				if (min > maxDistance) {
+					// Skip all titles starting with the current prefix.
+					validChars = k;
+					reader.seek(table.prefixEnd(new String(chars, 0, k)));
+					pruned = true;
+					break;
+				}
+			}
+			if (pruned)
+				continue;
+			
+			validChars = length;
+			int distance = rows[length][n];
+			if (distance <= maxDistance) {
+				int index = reader.getIndex();
+				matches.add(new int[]{(normalize ? normalizedTitleOrdinals[index] : index), distance});
+			}
+		}
+		
+		final Comparator<Integer> ranking = getRanking();
+		Collections.sort(matches, new Comparator<int[]>() {
+			public int compare(final int[] m1, final int[] m2) {
+				int result = m1[1] - m2[1];
+				return (result != 0 ? result : ranking.compare(m1[0], m2[0]));
+			}
+		});
+		int[] result = new int[Math.min(limit, matches.size())];
+		for (int i = 0; i < result.length; i++)
+			result[i] = matches.get(i)[0];
+		return result;
+	}
+
+	/** Returns at most <code>limit</code> titles whose edit distance to 
+	 *  the given word is at most <code>maxDistance</code>.
+	 *  @see #findSimilar(String, int, boolean, int) */
+	public List<String> getSimilarTitles(final String word, int maxDistance,
+			boolean normalize, int limit) {
+		List<String> result = new ArrayList<String>();
+		for (int ordinal : findSimilar(word, maxDistance, normalize, limit))
+			result.add(getTitle(ordinal));
+		return result;
+	}
+
+	/** Returns the optimal string alignment distance between the given 
+	 *  strings as used by {@link #findSimilar(String, int, boolean, int)}. */
+	public static int getEditDistance(final String s1, final String s2) {
+		int m = s1.length();
+		int n = s2.length();
+		int[][] d = new int[m + 1][n + 1];
+		for (int i = 0; i <= m; i++)
+			d[i][0] = i;
+		for (int j = 0; j <= n; j++)
+			d[0][j] = j;
+		for (int i = 1; i <= m; i++)
+			for (int j = 1; j <= n; j++) {
+				int cost = (s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1);
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), 
+						d[i - 1][j - 1] + cost);
+				if (i > 1 && j > 1 && s1.charAt(i - 1) == s2.charAt(j - 2) 
+						&& s1.charAt(i - 2) == s2.charAt(j - 1))
+					d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+			}
+		return d[m][n];
+	}
+
+	/** Returns a comparator ranking title ordinals by the number of 
+	 *  entries of their pages (descending) and alphabetically. */
+	protected Comparator<Integer> getRanking() {
+		return new Comparator<Integer>() {
+			public int compare(final Integer o1, final Integer o2) {
+				int result = entryCounts[o2] - entryCounts[o1];
+				return (result != 0 ? result : o1 - o2);
+			}
+		};
+	}
+
+	protected SortedStringTable getTable(boolean normalize) {
+		return (normalize ? normalizedTitles : titles);
+	}
+
+	protected int[] getOrdinals(int from, int to, boolean normalize, int limit) {
+		int[] result = new int[Math.max(0, Math.min(to - from, limit))];
+		for (int i = 0; i < result.length; i++)
+			result[i] = (normalize ? normalizedTitleOrdinals[from + i] : from + i);
+		return result;
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the index to the given file. */
+	public void save(final File file) {
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				out.writeInt(FORMAT_VERSION);
+				titles.write(out);
+				for (int i = 0; i < pageIds.length; i++) {
+					out.writeLong(pageIds[i]);
+					out.writeInt(entryCounts[i]);
+				}
+				normalizedTitles.write(out);
+				for (int i = 0; i < normalizedTitleOrdinals.length; i++)
+					out.writeInt(normalizedTitleOrdinals[i]);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save title index", e);
+		}
+	}
+
+	/** Reads the index from the given file. */
+	public static WiktionaryTitleIndex load(final File file) {
+		try {
+			DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != FORMAT_VERSION)
+					throw new WiktionaryException("Unsupported title index format: " + file);
+
+				WiktionaryTitleIndex result = new WiktionaryTitleIndex();
+				result.titles = SortedStringTable.read(in);
+				int titleCount = result.titles.size();
+				result.pageIds = new long[titleCount];
+				result.entryCounts = new int[titleCount];
+				for (int i = 0; i < titleCount; i++) {
+					result.pageIds[i] = in.readLong();
+					result.entryCounts[i] = in.readInt();
+				}
+				result.normalizedTitles = SortedStringTable.read(in);
+				result.normalizedTitleOrdinals = new int[titleCount];
+				for (int i = 0; i < titleCount; i++)
+					result.normalizedTitleOrdinals[i] = in.readInt();
+				return result;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to load title index", e);
+		}
+	}
+
+}
@@ -17,6 +17,10 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.jwktl.api.entry;
 
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+import java.util.Locale;
+
 import com.sleepycat.persist.model.Persistent;
 
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryTranslation;
@@ -91,4 +95,56 @@ public class WiktionaryTranslation implements IWiktionaryTranslation {
 		return languageStr + ":" + translation;
 	}
 
+	/** Returns a normalized form of the given translation for lookups. 
+	 *  The normalized form is lower case, and the diacritics of Latin, 
+	 *  Greek, and Cyrillic letters are removed (e.g., "Röntgen" becomes 
+	 *  "rontgen"). Unlike {@link WiktionaryPage#normalizeTitle(String)}, 
+	 *  non-ASCII letters are preserved, since translations are often 
+	 *  written in other scripts. The combining marks of other scripts 
+	 *  (e.g., Japanese dakuten, Indic vowel signs, or Hebrew and Arabic 
+	 *  vowel points) are kept, since they distinguish different words. */
+	public static String normalizeTranslation(final String translation) {
+		if (translation == null)
+			return null;
+		
+		String decomposed = Normalizer.normalize(translation.trim(), Form.NFD);
+		StringBuilder result = new StringBuilder(decomposed.length());
+		boolean stripMarks = false;
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			if (isCombiningMark(c)) {
+				if (!stripMarks)
+					result.append(c);
+			} else {
+				stripMarks = isLatinGreekOrCyrillic(c);
+				result.append(c);
+			}
+		}
+		return Normalizer.normalize(result, Form.NFC).toLowerCase(Locale.US);
+	}
+
+	protected static boolean isCombiningMark(char c) {
+		switch (Character.getType(c)) {
+			case Character.NON_SPACING_MARK:
+			case Character.COMBINING_SPACING_MARK:
+			case Character.ENCLOSING_MARK:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	protected static boolean isLatinGreekOrCyrillic(char c) {
+		Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+		return block == Character.UnicodeBlock.BASIC_LATIN
+				|| block == Character.UnicodeBlock.LATIN_1_SUPPLEMENT
+				|| block == Character.UnicodeBlock.LATIN_EXTENDED_A
+				|| block == Character.UnicodeBlock.LATIN_EXTENDED_B
+				|| block == Character.UnicodeBlock.LATIN_EXTENDED_ADDITIONAL
+				|| block == Character.UnicodeBlock.GREEK
+				|| block == Character.UnicodeBlock.GREEK_EXTENDED
+				|| block == Character.UnicodeBlock.CYRILLIC
+				|| block == Character.UnicodeBlock.CYRILLIC_SUPPLEMENTARY;
+	}
+
 }
@@ -22,7 +22,10 @@ import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
 /**
  * Interface for implementing a filter for {@link IWiktionaryEntry}s.
  * That is, a possibility for selecting which entries are to be processed
- * (i.e., accepted) or skipped (i.e., filtered out).
+ * (i.e., accepted) or skipped (i.e., filtered out). Wiktionary editions
+ * call {@link #accept(IWiktionaryEntry)} for every entry of the pages 
+ * they iterate. Only the restrictions of a {@link WiktionaryEntryFilter} 
+ * are also used to skip entire pages (see there).
  * @author Christian M. Meyer
  */
 public interface IWiktionaryEntryFilter {
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.filter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.tudarmstadt.ukp.jwktl.api.IPronunciation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryTranslation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryWordForm;
+import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
+import de.tudarmstadt.ukp.jwktl.api.RelationType;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalGender;
+import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+
+/**
+ * A single attribute of an {@link IWiktionaryEntry} that can be used for
+ * faceted entry queries, for example, the word language, the part of 
+ * speech, or the presence of a translation into a certain language. 
+ * Each facet is identified by a unique key, which is used for indexing 
+ * the entries having the facet. A query combining multiple facets 
+ * returns the entries having all of them.
+ */
+public class WiktionaryEntryFacet implements IWiktionaryEntryFilter {
+
+	protected static final String WORD_LANGUAGE = "language:";
+	protected static final String PART_OF_SPEECH = "pos:";
+	protected static final String GENDER = "gender:";
+	protected static final String TRANSLATION = "translation:";
+	protected static final String RELATION = "relation:";
+	
+	/** Facet of the entries having at least one pronunciation. */
+	public static final WiktionaryEntryFacet HAS_PRONUNCIATION = new WiktionaryEntryFacet("pronunciation");
+	/** Facet of the entries having an etymology. */
+	public static final WiktionaryEntryFacet HAS_ETYMOLOGY = new WiktionaryEntryFacet("etymology");
+	/** Facet of the entries having at least one word form. */
+	public static final WiktionaryEntryFacet HAS_WORD_FORMS = new WiktionaryEntryFacet("wordforms");
+	
+	protected String key;
+
+	protected WiktionaryEntryFacet(final String key) {
+		this.key = key;
+	}
+	
+	/** Returns the facet of the entries having the given word language. */
+	public static WiktionaryEntryFacet wordLanguage(final ILanguage language) {
+		return new WiktionaryEntryFacet(WORD_LANGUAGE + language.getCode());
+	}
+
+	/** Returns the facet of the entries having the given part of speech. */
+	public static WiktionaryEntryFacet partOfSpeech(final PartOfSpeech partOfSpeech) {
+		return new WiktionaryEntryFacet(PART_OF_SPEECH + partOfSpeech.name());
+	}
+
+	/** Returns the facet of the entries having the given grammatical 
+	 *  gender. */
+	public static WiktionaryEntryFacet gender(final GrammaticalGender gender) {
+		return new WiktionaryEntryFacet(GENDER + gender.name());
+	}
+
+	/** Returns the facet of the entries having at least one translation
+	 *  into the given language. */
+	public static WiktionaryEntryFacet translation(final ILanguage language) {
+		return new WiktionaryEntryFacet(TRANSLATION + language.getCode());
+	}
+
+	/** Returns the facet of the entries having at least one relation of 
+	 *  the given type. */
+	public static WiktionaryEntryFacet relation(final RelationType relationType) {
+		return new WiktionaryEntryFacet(RELATION + relationType.name());
+	}
+
+	/** Returns the unique key of this facet. */
+	public String getKey() {
+		return key;
+	}
+
+	/** Returns true if the given entry has this facet. */
+	public boolean accept(final IWiktionaryEntry entry) {
+		return getFacetKeys(entry).contains(key);
+	}
+
+	/** Returns the keys of all facets of the given entry. */
+	public static Set<String> getFacetKeys(final IWiktionaryEntry entry) {
+		Set<String> result = new LinkedHashSet<String>();
+		if (entry.getWordLanguage() != null)
+			result.add(WORD_LANGUAGE + entry.getWordLanguage().getCode());
+		List<PartOfSpeech> partsOfSpeech = entry.getPartsOfSpeech();
+		if (partsOfSpeech != null)
+			for (PartOfSpeech partOfSpeech : partsOfSpeech)
+				if (partOfSpeech != null)
+					result.add(PART_OF_SPEECH + partOfSpeech.name());
+		if (entry.getGender() != null)
+			result.add(GENDER + entry.getGender().name());
+		for (IWiktionaryTranslation translation : entry.getTranslations())
+			if (translation.getLanguage() != null)
+				result.add(TRANSLATION + translation.getLanguage().getCode());
+		for (IWiktionaryRelation relation : entry.getRelations())
+			if (relation.getRelationType() != null)
+				result.add(RELATION + relation.getRelationType().name());
+		List<IPronunciation> pronunciations = entry.getPronunciations();
+		if (pronunciations != null && pronunciations.size() > 0)
+			result.add(HAS_PRONUNCIATION.getKey());
+		if (entry.getWordEtymology() != null)
+			result.add(HAS_ETYMOLOGY.getKey());
+		List<IWiktionaryWordForm> wordForms = entry.getWordForms();
+		if (wordForms != null && wordForms.size() > 0)
+			result.add(HAS_WORD_FORMS.getKey());
+		return result;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		return (other instanceof WiktionaryEntryFacet
+				&& key.equals(((WiktionaryEntryFacet) other).key));
+	}
+
+	@Override
+	public int hashCode() {
+		return key.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return key;
+	}
+
+}
@@ -29,7 +29,12 @@ import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
  * Default implementation of the {@link IWiktionaryEntryFilter} interface
  * which inherits all filter options of the {@link WiktionaryPageFilter}
  * and additionally provides the possibility of filtering entries by word
- * language and part of speech.
+ * language and part of speech. Wiktionary editions may use the allowed
+ * word languages and parts of speech to skip pages that do not contain 
+ * any matching entry without calling {@link #accept(IWiktionaryEntry)}.
+ * Subclasses may restrict the accepted entries further, but they must 
+ * not accept entries with other word languages or parts of speech, 
+ * since such entries might never be passed to the filter.
  * @author Christian M. Meyer
  */
 public class WiktionaryEntryFilter extends WiktionaryPageFilter 
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Approximate membership filter for strings. A Bloom filter answers 
+ * whether a string might be contained in a set using a few hash 
+ * computations and a bit array of a few bits per element. If the filter
+ * returns <code>false</code>, the string is definitely not contained, 
+ * whereas <code>true</code> may be a false positive with the probability
+ * specified upon creation. The bit positions are derived from a 64-bit 
+ * hash of the string using double hashing.
+ */
+public class BloomFilter {
+
+	protected long[] bits;
+	protected long bitCount;
+	protected int hashCount;
+	protected long elementCount;
+
+	/** Instanciates an empty filter for the given number of elements and 
+	 *  the given false positive probability.
+	 *  @throws IllegalArgumentException if the probability is not between
+	 *    0 and 1. */
+	public BloomFilter(long expectedElements, double falsePositiveRate) {
+		if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0)
+			throw new IllegalArgumentException("Invalid false positive rate: " + falsePositiveRate);
+		
+		// m = -n ln(p) / ln(2)^2 and k = m/n ln(2).
+		long n = Math.max(expectedElements, 1);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		m = Math.max(64, (m + 63) / 64 * 64);
+		bitCount = m;
+		bits = new long[(int) (m / 64)];
+		hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+	}
+
+	protected BloomFilter() {}
+
+	/** Adds the given string to the filter. */
+	public void add(final String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+		elementCount++;
+	}
+
+	/** Returns <code>false</code> if the given string has definitely not
+	 *  been added to the filter and <code>true</code> if it might have 
+	 *  been added. */
+	public boolean mightContain(final String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/** Returns the number of strings added to the filter. */
+	public long getElementCount() {
+		return elementCount;
+	}
+
+	/** Returns the number of hash functions. */
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	/** Returns the number of bytes used by the bit array. */
+	public long getSizeInBytes() {
+		return 8L * bits.length;
+	}
+
+	/** Returns a 64-bit hash of the given string (FNV-1a over the UTF-16 
+	 *  code units followed by a final mixing step). */
+	public static long hash(final String value) {
+		return hash(value, 0);
+	}
+
+	/** Returns a 64-bit hash of the given string using the given seed. 
+	 *  Different seeds yield independent hash functions; the seed 0 
+	 *  corresponds to {@link #hash(String)}. */
+	public static long hash(final String value, long seed) {
+		long result = 0xcbf29ce484222325L ^ seed;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			result = (result ^ (c & 0xff)) * 0x100000001b3L;
+			result = (result ^ (c >>> 8)) * 0x100000001b3L;
+		}
+		result ^= result >>> 33;
+		result *= 0xff51afd7ed558ccdL;
+		result ^= result >>> 33;
+		result *= 0xc4ceb9fe1a85ec53L;
+		result ^= result >>> 33;
+		return result;
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the filter to the given output. */
+	public void write(final DataOutput out) throws IOException {
+		out.writeLong(bitCount);
+		out.writeInt(hashCount);
+		out.writeLong(elementCount);
+		for (int i = 0; i < bits.length; i++)
+			out.writeLong(bits[i]);
+	}
+
+	/** Reads a filter previously written using {@link #write(DataOutput)}. */
+	public static BloomFilter read(final DataInput in) throws IOException {
+		BloomFilter result = new BloomFilter();
+		result.bitCount = in.readLong();
+		result.hashCount = in.readInt();
+		result.elementCount = in.readLong();
+		result.bits = new long[(int) (result.bitCount / 64)];
+		for (int i = 0; i < result.bits.length; i++)
+			result.bits[i] = in.readLong();
+		return result;
+	}
+
+}
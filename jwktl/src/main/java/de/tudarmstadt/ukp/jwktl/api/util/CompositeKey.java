@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+/**
+ * Set of static methods for packing the page ID, entry index, and sense
+ * index of an entry or a sense into a single primitive <code>long</code>
+ * value. The packed keys can be derived from the textual keys returned by
+ * <code>IWiktionaryEntry.getKey()</code> (i.e., "pageId:entryIndex") and
+ * <code>IWiktionarySense.getKey()</code> (i.e.,
+ * "pageId:entryIndex:senseIndex") without any database lookup. The
+ * packed keys are ordered by page ID, entry index, and sense index, which
+ * makes them suitable as primary or secondary keys of a database index.
+ */
+public /*static*/ final class CompositeKey {
+
+	/** The number of bits used for the entry index. */
+	public static final int ENTRY_INDEX_BITS = 12;
+	/** The number of bits used for the sense index. */
+	public static final int SENSE_INDEX_BITS = 12;
+	/** The largest page ID that can be packed. */
+	public static final long MAX_PAGE_ID = (1L << (63 - ENTRY_INDEX_BITS - SENSE_INDEX_BITS)) - 1;
+	/** The largest entry index that can be packed. */
+	public static final int MAX_ENTRY_INDEX = (1 << ENTRY_INDEX_BITS) - 1;
+	/** The largest sense index that can be packed. */
+	public static final int MAX_SENSE_INDEX = (1 << SENSE_INDEX_BITS) - 1;
+	/** Value returned for malformed textual keys. */
+	public static final long INVALID = -1L;
+
+	// Avoid instanciation.
+	private CompositeKey() {}
+
+	/** Packs the given page ID and entry index into a single key. The
+	 *  sense index of the resulting key is zero.
+	 *  @throws IllegalArgumentException if one of the values exceeds
+	 *    the range of the packed representation. */
+	public static long pack(long pageId, int entryIndex) {
+		return pack(pageId, entryIndex, 0);
+	}
+
+	/** Packs the given page ID, entry index, and sense index into a single
+	 *  key.
+	 *  @throws IllegalArgumentException if one of the values exceeds
+	 *    the range of the packed representation. */
+	public static long pack(long pageId, int entryIndex, int senseIndex) {
+		if (pageId < 0 || pageId > MAX_PAGE_ID)
+			throw new IllegalArgumentException("Page ID out of range: " + pageId);
+		if (entryIndex < 0 || entryIndex > MAX_ENTRY_INDEX)
+			throw new IllegalArgumentException("Entry index out of range: " + entryIndex);
+		if (senseIndex < 0 || senseIndex > MAX_SENSE_INDEX)
+			throw new IllegalArgumentException("Sense index out of range: " + senseIndex);
+
+		return (pageId << (ENTRY_INDEX_BITS + SENSE_INDEX_BITS))
+				| ((long) entryIndex << SENSE_INDEX_BITS)
+				| senseIndex;
+	}
+
+	/** Returns the page ID of the given packed key. */
+	public static long getPageId(long key) {
+		return key >>> (ENTRY_INDEX_BITS + SENSE_INDEX_BITS);
+	}
+
+	/** Returns the entry index of the given packed key. */
+	public static int getEntryIndex(long key) {
+		return (int) (key >>> SENSE_INDEX_BITS) & MAX_ENTRY_INDEX;
+	}
+
+	/** Returns the sense index of the given packed key. */
+	public static int getSenseIndex(long key) {
+		return (int) key & MAX_SENSE_INDEX;
+	}
+
+	/** Parses the given entry key of the form "pageId:entryIndex".
+	 *  @return the packed key or {@link #INVALID} if the key is malformed
+	 *    or exceeds the range of the packed representation. */
+	public static long parseEntryKey(final String key) {
+		return parse(key, 2);
+	}
+
+	/** Parses the given sense key of the form
+	 *  "pageId:entryIndex:senseIndex".
+	 *  @return the packed key or {@link #INVALID} if the key is malformed
+	 *    or exceeds the range of the packed representation. */
+	public static long parseSenseKey(final String key) {
+		return parse(key, 3);
+	}
+
+	/** Returns the textual entry key of the given packed key. */
+	public static String toEntryKey(long key) {
+		return getPageId(key) + ":" + getEntryIndex(key);
+	}
+
+	/** Returns the textual sense key of the given packed key. */
+	public static String toSenseKey(long key) {
+		return getPageId(key) + ":" + getEntryIndex(key) + ":" + getSenseIndex(key);
+	}
+
+	protected static long parse(final String key, int fieldCount) {
+		if (key == null)
+			return INVALID;
+
+		long[] fields = new long[fieldCount];
+		int field = 0;
+		int digits = 0;
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c >= '0' && c <= '9') {
+				fields[field] = fields[field] * 10 + (c - '0');
+				if (fields[field] > MAX_PAGE_ID)
+					return INVALID;
+				digits++;
+			} else if (c == ':' && digits > 0 && field < fieldCount - 1) {
+				field++;
+				digits = 0;
+			} else
+				return INVALID;
+		}
+		if (digits == 0 || field != fieldCount - 1)
+			return INVALID;
+
+		if (fields[1] > MAX_ENTRY_INDEX)
+			return INVALID;
+		if (fieldCount > 2 && fields[2] > MAX_SENSE_INDEX)
+			return INVALID;
+		return pack(fields[0], (int) fields[1],
+				(fieldCount > 2 ? (int) fields[2] : 0));
+	}
+
+}
@@ -0,0 +1,460 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compressed set of non-negative integers. The integers are partitioned
+ * by their upper 16 bits into chunks. A chunk with few elements is stored
+ * as a sorted array of the lower 16 bits, whereas a dense chunk is stored
+ * as a bitmap of 65536 bits. This keeps both sparse and dense sets small
+ * and allows for fast intersections and unions. The bitmap is designed
+ * for being filled in ascending order, although arbitrary insertion
+ * orders are supported.
+ */
+public class CompressedBitmap {
+
+	// Chunks having more elements are converted into a bitmap.
+	protected static final int ARRAY_LIMIT = 4096;
+	protected static final int BITMAP_WORDS = 1 << 10;
+
+	protected char[] keys;
+	protected Chunk[] chunks;
+	protected int size;
+
+	/** Instanciates an empty bitmap. */
+	public CompressedBitmap() {
+		keys = new char[4];
+		chunks = new Chunk[4];
+	}
+
+	/** Adds the given value to the set.
+	 *  @throws IllegalArgumentException if the value is negative. */
+	public void add(int value) {
+		if (value < 0)
+			throw new IllegalArgumentException("Negative value: " + value);
+
+		char key = (char) (value >>> 16);
+		int idx;
+		if (size > 0 && keys[size - 1] == key)
+			idx = size - 1; // Fast path for appending.
+		else {
+			idx = Arrays.binarySearch(keys, 0, size, key);
+			if (idx < 0) {
+				idx = -idx - 1;
+				insertChunk(idx, key, new ArrayChunk());
+			}
+		}
+		chunks[idx] = chunks[idx].add((char) value);
+	}
+
+	/** Returns true if the given value is contained in the set. */
+	public boolean contains(int value) {
+		if (value < 0)
+			return false;
+
+		int idx = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+		return (idx >= 0 && chunks[idx].contains((char) value));
+	}
+
+	/** Returns the number of values contained in the set. */
+	public int getCardinality() {
+		int result = 0;
+		for (int i = 0; i < size; i++)
+			result += chunks[i].getCardinality();
+		return result;
+	}
+
+	/** Returns true if the set contains no values. */
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	/** Returns a new bitmap containing the values that are contained in
+	 *  this and the given bitmap. */
+	public CompressedBitmap and(final CompressedBitmap other) {
+		CompressedBitmap result = new CompressedBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j])
+				i++;
+			else if (keys[i] > other.keys[j])
+				j++;
+			else {
+				Chunk chunk = chunks[i].and(other.chunks[j]);
+				if (chunk.getCardinality() > 0)
+					result.insertChunk(result.size, keys[i], chunk);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/** Returns a new bitmap containing the values that are contained in
+	 *  this or the given bitmap. */
+	public CompressedBitmap or(final CompressedBitmap other) {
+		CompressedBitmap result = new CompressedBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size || j < other.size) {
+			if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+				result.insertChunk(result.size, keys[i], chunks[i].copy());
+				i++;
+			} else if (i >= size || keys[i] > other.keys[j]) {
+				result.insertChunk(result.size, other.keys[j], other.chunks[j].copy());
+				j++;
+			} else {
+				result.insertChunk(result.size, keys[i], chunks[i].or(other.chunks[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/** Returns the values of this set in ascending order. */
+	public int[] toArray() {
+		int[] result = new int[getCardinality()];
+		int pos = 0;
+		for (int i = 0; i < size; i++)
+			pos = chunks[i].copyTo(result, pos, keys[i] << 16);
+		return result;
+	}
+
+	/** Returns the number of bytes used by the chunks of this bitmap. */
+	public long getSizeInBytes() {
+		long result = size * 2L;
+		for (int i = 0; i < size; i++)
+			result += chunks[i].getSizeInBytes();
+		return result;
+	}
+
+	protected void insertChunk(int idx, char key, final Chunk chunk) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			chunks = Arrays.copyOf(chunks, size * 2);
+		}
+		System.arraycopy(keys, idx, keys, idx + 1, size - idx);
+		System.arraycopy(chunks, idx, chunks, idx + 1, size - idx);
+		keys[idx] = key;
+		chunks[idx] = chunk;
+		size++;
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the bitmap to the given output. */
+	public void write(final DataOutput out) throws IOException {
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeChar(keys[i]);
+			chunks[i].write(out);
+		}
+	}
+
+	/** Reads a bitmap previously written using {@link #write(DataOutput)}. */
+	public static CompressedBitmap read(final DataInput in) throws IOException {
+		CompressedBitmap result = new CompressedBitmap();
+		int chunkCount = in.readInt();
+		for (int i = 0; i < chunkCount; i++) {
+			char key = in.readChar();
+			result.insertChunk(i, key, Chunk.read(in));
+		}
+		return result;
+	}
+
+
+	// -- Chunks --
+
+	protected static abstract class Chunk {
+
+		/** Adds the given value and returns the resulting chunk, which
+		 *  might be a new instance of another chunk type. */
+		public abstract Chunk add(char value);
+
+		public abstract boolean contains(char value);
+
+		public abstract int getCardinality();
+
+		public abstract Chunk and(final Chunk other);
+
+		public abstract Chunk or(final Chunk other);
+
+		public abstract Chunk copy();
+
+		/** Copies the values of this chunk to the given array and returns
+		 *  the next array position. */
+		public abstract int copyTo(final int[] array, int pos, int high);
+
+		public abstract long getSizeInBytes();
+
+		public abstract void write(final DataOutput out) throws IOException;
+
+		public static Chunk read(final DataInput in) throws IOException {
+			int cardinality = in.readChar() + 1;
+			if (cardinality <= ARRAY_LIMIT) {
+				ArrayChunk result = new ArrayChunk(cardinality);
+				for (int i = 0; i < cardinality; i++)
+					result.values[i] = in.readChar();
+				result.cardinality = cardinality;
+				return result;
+			} else {
+				BitmapChunk result = new BitmapChunk();
+				for (int i = 0; i < BITMAP_WORDS; i++)
+					result.words[i] = in.readLong();
+				result.cardinality = cardinality;
+				return result;
+			}
+		}
+
+	}
+
+	protected static class ArrayChunk extends Chunk {
+
+		protected char[] values;
+		protected int cardinality;
+
+		public ArrayChunk() {
+			this(4);
+		}
+
+		public ArrayChunk(int capacity) {
+			values = new char[capacity];
+		}
+
+		@Override
+		public Chunk add(char value) {
+			int idx;
+			if (cardinality == 0 || values[cardinality - 1] < value)
+				idx = cardinality; // Fast path for appending.
+			else {
+				idx = Arrays.binarySearch(values, 0, cardinality, value);
+				if (idx >= 0)
+					return this;
+				idx = -idx - 1;
+			}
+
+			if (cardinality == ARRAY_LIMIT)
+				return toBitmap().add(value);
+
+			if (cardinality == values.length)
+				values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_LIMIT));
+			System.arraycopy(values, idx, values, idx + 1, cardinality - idx);
+			values[idx] = value;
+			cardinality++;
+			return this;
+		}
+
+		@Override
+		public boolean contains(char value) {
+			return (Arrays.binarySearch(values, 0, cardinality, value) >= 0);
+		}
+
+		@Override
+		public int getCardinality() {
+			return cardinality;
+		}
+
+		@Override
+		public Chunk and(final Chunk other) {
+			ArrayChunk result = new ArrayChunk(Math.max(cardinality, 1));
+			if (other instanceof ArrayChunk) {
+				ArrayChunk array = (ArrayChunk) other;
+				int i = 0;
+				int j = 0;
+				while (i < cardinality && j < array.cardinality) {
+					if (values[i] < array.values[j])
+						i++;
+					else if (values[i] > array.values[j])
+						j++;
+					else {
+						result.values[result.cardinality++] = values[i];
+						i++;
+						j++;
+					}
+				}
+			} else {
+				for (int i = 0; i < cardinality; i++)
+					if (other.contains(values[i]))
+						result.values[result.cardinality++] = values[i];
+			}
+			return result;
+		}
+
+		@Override
+		public Chunk or(final Chunk other) {
+			Chunk result = other.copy();
+			for (int i = 0; i < cardinality; i++)
+				result = result.add(values[i]);
+			return result;
+		}
+
+		@Override
+		public Chunk copy() {
+			ArrayChunk result = new ArrayChunk(Math.max(cardinality, 1));
+			System.arraycopy(values, 0, result.values, 0, cardinality);
+			result.cardinality = cardinality;
+			return result;
+		}
+
+		@Override
+		public int copyTo(final int[] array, int pos, int high) {
+			for (int i = 0; i < cardinality; i++)
+				array[pos++] = high | values[i];
+			return pos;
+		}
+
+		@Override
+		public long getSizeInBytes() {
+			return cardinality * 2L;
+		}
+
+		@Override
+		public void write(final DataOutput out) throws IOException {
+			out.writeChar(cardinality - 1);
+			for (int i = 0; i < cardinality; i++)
+				out.writeChar(values[i]);
+		}
+
+		protected BitmapChunk toBitmap() {
+			BitmapChunk result = new BitmapChunk();
+			for (int i = 0; i < cardinality; i++)
+				result.add(values[i]);
+			return result;
+		}
+
+	}
+
+	protected static class BitmapChunk extends Chunk {
+
+		protected long[] words;
+		protected int cardinality;
+
+		public BitmapChunk() {
+			words = new long[BITMAP_WORDS];
+		}
+
+		@Override
+		public Chunk add(char value) {
+			long bit = 1L << value;
+			int idx = value >>> 6;
+			if ((words[idx] & bit) == 0) {
+				words[idx] |= bit;
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		public boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		public int getCardinality() {
+			return cardinality;
+		}
+
+		@Override
+		public Chunk and(final Chunk other) {
+			if (other instanceof ArrayChunk)
+				return other.and(this);
+
+			BitmapChunk bitmap = (BitmapChunk) other;
+			BitmapChunk result = new BitmapChunk();
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				result.words[i] = words[i] & bitmap.words[i];
+				result.cardinality += Long.bitCount(result.words[i]);
+			}
+			return result.compact();
+		}
+
+		@Override
+		public Chunk or(final Chunk other) {
+			if (other instanceof ArrayChunk)
+				return other.or(this);
+
+			BitmapChunk bitmap = (BitmapChunk) other;
+			BitmapChunk result = new BitmapChunk();
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				result.words[i] = words[i] | bitmap.words[i];
+				result.cardinality += Long.bitCount(result.words[i]);
+			}
+			return result;
+		}
+
+		@Override
+		public Chunk copy() {
+			BitmapChunk result = new BitmapChunk();
+			System.arraycopy(words, 0, result.words, 0, BITMAP_WORDS);
+			result.cardinality = cardinality;
+			return result;
+		}
+
+		@Override
+		public int copyTo(final int[] array, int pos, int high) {
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					array[pos++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			return pos;
+		}
+
+		@Override
+		public long getSizeInBytes() {
+			return BITMAP_WORDS * 8L;
+		}
+
+		@Override
+		public void write(final DataOutput out) throws IOException {
+			if (cardinality <= ARRAY_LIMIT) {
+				compact().write(out); // The chunk type is derived from the cardinality.
+				return;
+			}
+			
+			out.writeChar(cardinality - 1);
+			for (int i = 0; i < BITMAP_WORDS; i++)
+				out.writeLong(words[i]);
+		}
+
+		/** Returns an equivalent array chunk if this chunk became sparse. */
+		protected Chunk compact() {
+			if (cardinality > ARRAY_LIMIT)
+				return this;
+
+			ArrayChunk result = new ArrayChunk(Math.max(cardinality, 1));
+			int[] values = new int[cardinality];
+			copyTo(values, 0, 0);
+			for (int value : values)
+				result.values[result.cardinality++] = (char) value;
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses small records using the deflate algorithm with a preset 
+ * dictionary. Short records compress poorly on their own, since there is
+ * no previous data to refer to. A dictionary of byte sequences that are 
+ * common to many records (e.g., language names, template remnants, or 
+ * recurring quotation sources) allows each record to refer to these
+ * sequences, while every record is still compressed and decompressed 
+ * independently of all others. <br>
+ * The dictionary can be trained from a sample of records using 
+ * {@link #train(List, int)}: the sequences of eight bytes occurring in 
+ * most of the samples are counted, and the sample segments covering the
+ * most frequent sequences not yet covered are selected greedily. The 
+ * best segments are placed at the end of the dictionary, since deflate
+ * encodes shorter distances more compactly.
+ */
+public class DictionaryCompressor {
+
+	/** The maximum size of a dictionary, which corresponds to the window
+	 *  size of the deflate algorithm. */
+	public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+	/** The length of the segments selected from the samples. */
+	public static final int SEGMENT_LENGTH = 64;
+
+	protected static final int GRAM_LENGTH = 8;
+
+	protected byte[] dictionary;
+	protected int level;
+
+	/** Instanciates the compressor for the given dictionary using the 
+	 *  default compression level. */
+	public DictionaryCompressor(final byte[] dictionary) {
+		this(dictionary, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/** Instanciates the compressor for the given dictionary and 
+	 *  compression level (see {@link Deflater}). */
+	public DictionaryCompressor(final byte[] dictionary, int level) {
+		if (dictionary.length > MAX_DICTIONARY_SIZE)
+			throw new IllegalArgumentException("Dictionary too large: " + dictionary.length);
+		this.dictionary = dictionary;
+		this.level = level;
+	}
+
+	/** Returns the preset dictionary. */
+	public byte[] getDictionary() {
+		return dictionary;
+	}
+
+	/** Compresses the given record. The result starts with the length of 
+	 *  the uncompressed record, followed by the raw deflate stream. */
+	public byte[] compress(final byte[] data) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			if (dictionary.length > 0)
+				deflater.setDictionary(dictionary);
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 2 + 16);
+			writeLength(result, data.length);
+			byte[] buffer = new byte[Math.max(64, data.length)];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				result.write(buffer, 0, count);
+			}
+			return result.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/** Decompresses the given record created by {@link #compress(byte[])}.
+	 *  The record needs to be compressed using the same dictionary; since
+	 *  the raw deflate stream contains no checksum, a different dictionary
+	 *  is not necessarily detected.
+	 *  @throws IllegalArgumentException if the record is corrupt. */
+	public byte[] decompress(final byte[] data) {
+		int length = 0;
+		int shift = 0;
+		int offset = 0;
+		byte b;
+		do {
+			if (offset >= data.length)
+				throw new IllegalArgumentException("Truncated record");
+			b = data[offset++];
+			length |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		Inflater inflater = new Inflater(true);
+		try {
+			if (dictionary.length > 0)
+				inflater.setDictionary(dictionary);
+			inflater.setInput(data, offset, data.length - offset);
+			byte[] result = new byte[length];
+			int count = 0;
+			while (count < length) {
+				int n = inflater.inflate(result, count, length - count);
+				if (n == 0 && (inflater.finished() || inflater.needsInput()))
+					throw new IllegalArgumentException("Truncated record");
+				count += n;
+			}
+			return result;
+		} catch (DataFormatException e) {
+			throw new IllegalArgumentException("Corrupt record", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/** Writes the compression level and the dictionary to the given 
+	 *  output. */
+	public void write(final DataOutput out) throws IOException {
+		out.writeInt(level);
+		out.writeInt(dictionary.length);
+		out.write(dictionary);
+	}
+
+	/** Reads a compressor written by {@link #write(DataOutput)}. */
+	public static DictionaryCompressor read(final DataInput in) throws IOException {
+		int level = in.readInt();
+		byte[] dictionary = new byte[in.readInt()];
+		in.readFully(dictionary);
+		return new DictionaryCompressor(dictionary, level);
+	}
+
+	protected static void writeLength(final ByteArrayOutputStream out, int length) {
+		while ((length & ~0x7F) != 0) {
+			out.write((length & 0x7F) | 0x80);
+			length >>>= 7;
+		}
+		out.write(length);
+	}
+
+
+	// -- Training --
+
+	/** Trains a dictionary of at most the given size from the given 
+	 *  sample records. The samples should be representative of the 
+	 *  records to be compressed; a few hundred kilobytes of samples 
+	 *  usually suffice. An empty dictionary is returned if the samples 
+	 *  have no sequences in common. */
+	public static byte[] train(final List<byte[]> samples, int maxSize) {
+		if (maxSize < 0 || maxSize > MAX_DICTIONARY_SIZE)
+			throw new IllegalArgumentException("Invalid dictionary size: " + maxSize);
+
+		// Count the number of samples containing each sequence.
+		final Map<Long, Integer> gramCounts = new HashMap<Long, Integer>();
+		for (byte[] sample : samples) {
+			Set<Long> grams = new HashSet<Long>();
+			for (int i = 0; i + GRAM_LENGTH <= sample.length; i++)
+				grams.add(gram(sample, i));
+			for (Long gram : grams) {
+				Integer count = gramCounts.get(gram);
+				gramCounts.put(gram, count == null ? 1 : count + 1);
+			}
+		}
+
+		// Select the segments greedily. Scores only decrease as more
+		// sequences become covered, so a segment whose updated score is
+		// still the best one can be selected without rescoring the others.
+		PriorityQueue<Segment> queue = new PriorityQueue<Segment>(11, new Comparator<Segment>() {
+			public int compare(final Segment s1, final Segment s2) {
+				return (s1.score < s2.score ? 1 : (s1.score > s2.score ? -1 : 0));
+			}
+		});
+		for (byte[] sample : samples)
+			for (int offset = 0; offset + GRAM_LENGTH <= sample.length; offset += SEGMENT_LENGTH / 2) {
+				Segment segment = new Segment(sample, offset,
+						Math.min(SEGMENT_LENGTH, sample.length - offset));
+				segment.score = segment.score(gramCounts);
+				if (segment.score > 0)
+					queue.add(segment);
+			}
+
+		List<Segment> selected = new ArrayList<Segment>();
+		int size = 0;
+		while (size < maxSize && !queue.isEmpty()) {
+			Segment segment = queue.poll();
+			long score = segment.score(gramCounts);
+			if (score <= 0)
+				continue;
+			if (score < segment.score && !queue.isEmpty() && score < queue.peek().score) {
+				segment.score = score;
+				queue.add(segment);
+				continue;
+			}
+
+			segment.cover(gramCounts);
+			if (segment.length > maxSize - size)
+				segment.length = maxSize - size;
+			selected.add(segment);
+			size += segment.length;
+		}
+
+		// Place the best segments at the end of the dictionary.
+		Collections.reverse(selected);
+		byte[] result = new byte[size];
+		int offset = 0;
+		for (Segment segment : selected) {
+			System.arraycopy(segment.sample, segment.offset, result, offset, segment.length);
+			offset += segment.length;
+		}
+		return result;
+	}
+
+	protected static long gram(final byte[] data, int offset) {
+		long result = 0;
+		for (int i = 0; i < GRAM_LENGTH; i++)
+			result = (result << 8) | (data[offset + i] & 0xFF);
+		return result;
+	}
+
+	protected static class Segment {
+
+		protected byte[] sample;
+		protected int offset;
+		protected int length;
+		protected long score;
+
+		public Segment(final byte[] sample, int offset, int length) {
+			this.sample = sample;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		/** Returns the number of samples, besides the sample of the 
+		 *  segment, that could refer to the uncovered sequences of this 
+		 *  segment. */
+		public long score(final Map<Long, Integer> gramCounts) {
+			long result = 0;
+			for (int i = offset; i + GRAM_LENGTH <= offset + length; i++) {
+				Integer count = gramCounts.get(gram(sample, i));
+				if (count != null && count > 1)
+					result += count - 1;
+			}
+			return result;
+		}
+
+		/** Marks the sequences of this segment as covered. */
+		public void cover(final Map<Long, Integer> gramCounts) {
+			for (int i = offset; i + GRAM_LENGTH <= offset + length; i++)
+				gramCounts.remove(gram(sample, i));
+		}
+
+	}
+
+}
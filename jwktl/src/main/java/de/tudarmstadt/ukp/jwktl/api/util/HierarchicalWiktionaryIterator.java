@@ -43,17 +43,17 @@ public abstract class HierarchicalWiktionaryIterator<IterableType, OuterType>
 	}
 	
 	protected IterableType fetchNext() {
-		if (innerIterator != null && innerIterator.hasNext())
-			return innerIterator.next();
-		if (!outerIterator.hasNext())
-			return null;
-		
-		OuterType outer = outerIterator.next();
-		innerIterator = getInnerIterator(outer);
-		if (innerIterator != null && innerIterator.hasNext())
-			return innerIterator.next();
-		else
-			return null;
+		// Skip empty inner iterators, e.g., of an empty edition.
+		while (innerIterator == null || !innerIterator.hasNext()) {
+			if (innerIterator != null)
+				innerIterator.close();
+			if (!outerIterator.hasNext())
+				return null;
+			
+			OuterType outer = outerIterator.next();
+			innerIterator = getInnerIterator(outer);
+		}
+		return innerIterator.next();
 	}
 	
 	protected abstract IWiktionaryIterator<IterableType> getInnerIterator(
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Iterator merging multiple sorted iterators into a single sorted 
+ * iteration. The elements are ordered by a sort key that is determined 
+ * once per element using {@link #getSortKey(Object)}. A priority queue 
+ * holds the current element of each source iterator, such that only one 
+ * element per source is kept in memory. Elements having the same sort
+ * key are returned in the order of the source iterators. Using 
+ * {@link #groups()}, elements having the same sort key can be 
+ * retrieved together. Each source iterator needs to be sorted by the 
+ * same key (using <code>String.compareTo</code>). All source iterators
+ * are closed along with this iterator.
+ * @param <Type> the type of the merged elements.
+ */
+public abstract class MergingWiktionaryIterator<Type> 
+		extends WiktionaryIterator<Type> {
+
+	protected List<? extends IWiktionaryIterator<? extends Type>> sources;
+	protected PriorityQueue<Head> queue;
+
+	/** Initializes the iterator for the given sorted source iterators. */
+	public MergingWiktionaryIterator(
+			final List<? extends IWiktionaryIterator<? extends Type>> sources) {
+		this.sources = sources;
+	}
+
+	/** Hotspot for determining the sort key of the given element. */
+	protected abstract String getSortKey(final Type element);
+
+	@Override
+	protected Type fetchNext() {
+		Head head = pollHead();
+		if (head == null)
+			return null;
+		
+		Type result = head.element;
+		advance(head);
+		return result;
+	}
+
+	/** Returns an iterator over the lists of consecutive elements that 
+	 *  have the same sort key, e.g., the pages of multiple Wiktionary 
+	 *  editions having the same title. The elements of a group are ordered
+	 *  by their source iterator. The merging iterator must not be used 
+	 *  directly after calling this method. Closing the returned iterator 
+	 *  closes all source iterators. */
+	public IWiktionaryIterator<List<Type>> groups() {
+		return new WiktionaryIterator<List<Type>>() {
+
+			@Override
+			protected List<Type> fetchNext() {
+				Head head = pollHead();
+				if (head == null)
+					return null;
+				
+				List<Type> result = new ArrayList<Type>();
+				String key = head.key;
+				result.add(head.element);
+				advance(head);
+				while (!queue.isEmpty() && queue.peek().key.equals(key)) {
+					head = queue.poll();
+					result.add(head.element);
+					advance(head);
+				}
+				return result;
+			}
+
+			@Override
+			protected void doClose() {
+				MergingWiktionaryIterator.this.close();
+			}
+			
+		};
+	}
+
+	protected Head pollHead() {
+		if (queue == null) {
+			queue = new PriorityQueue<Head>(Math.max(sources.size(), 1), 
+					new Comparator<Head>() {
+				public int compare(final Head h1, final Head h2) {
+					int result = h1.key.compareTo(h2.key);
+					if (result == 0)
+						result = h1.sourceIndex - h2.sourceIndex;
+					return result;
+				}
+			});
+			for (int i = 0; i < sources.size(); i++)
+				advance(new Head(i));
+		}
+		return queue.poll();
+	}
+
+	/** Moves the given head to the next element of its source and adds it
+	 *  to the queue unless the source is exhausted. */
+	protected void advance(final Head head) {
+		IWiktionaryIterator<? extends Type> source = sources.get(head.sourceIndex);
+		if (source.hasNext()) {
+			head.element = source.next();
+			head.key = getSortKey(head.element);
+			queue.add(head);
+		} else {
+			head.element = null;
+			head.key = null;
+		}
+	}
+
+	@Override
+	protected void doClose() {
+		for (IWiktionaryIterator<? extends Type> source : sources)
+			source.close();
+		if (queue != null)
+			queue.clear();
+	}
+
+
+	protected class Head {
+
+		protected int sourceIndex;
+		protected Type element;
+		protected String key;
+
+		public Head(int sourceIndex) {
+			this.sourceIndex = sourceIndex;
+		}
+
+	}
+
+}
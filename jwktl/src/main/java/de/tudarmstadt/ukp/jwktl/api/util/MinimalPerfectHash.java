@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Minimal perfect hash function mapping each string of a fixed key set 
+ * to a distinct number between 0 and the number of keys - 1. The function
+ * is built level by level: each remaining key is hashed into a bit array 
+ * of twice the number of remaining keys; the keys that do not collide 
+ * with another key set their bit, and the colliding keys are passed to 
+ * the next level. The number of a key is the rank of its bit among all 
+ * bits, which is computed using precomputed counts per 64-bit word. The 
+ * function requires about four bits per key. The keys are hashed to 
+ * 64 bits using a seed; should two distinct keys yield the same hash, 
+ * the function is rebuilt using another seed. <br>
+ * For strings that are not part of the key set, an arbitrary number or 
+ * -1 is returned, so membership needs to be checked separately (e.g., 
+ * using a fingerprint). The function operates on a {@link ByteBuffer}, 
+ * which allows for memory-mapping its serialized form.
+ */
+public class MinimalPerfectHash {
+
+	protected static final int MAX_LEVELS = 32;
+	protected static final double GAMMA = 2.0;
+	protected static final int MAX_SEEDS = 16;
+
+	protected ByteBuffer buffer;
+	protected int keyCount;
+	protected long seed;
+	protected int levelCount;
+	protected long[] levelOffsets;
+	protected long[] levelSizes;
+	protected int wordsPosition;
+	protected int ranksPosition;
+	protected int rankedCount;
+	protected long[] fallbackHashes;
+
+	protected MinimalPerfectHash() {}
+
+	/** Creates a minimal perfect hash function for the given keys. 
+	 *  @throws IllegalArgumentException if the keys contain duplicates. */
+	public static MinimalPerfectHash build(final Collection<String> keys) {
+		for (int attempt = 0; attempt < MAX_SEEDS; attempt++) {
+			long seed = attempt * 0x9e3779b97f4a7c15L;
+			long[] hashes = new long[keys.size()];
+			int idx = 0;
+			for (String key : keys)
+				hashes[idx++] = BloomFilter.hash(key, seed);
+			if (!hasEqualHashes(hashes))
+				return build(keys.size(), hashes, seed);
+			
+			// Equal hashes are caused either by duplicate keys or by a
+			// collision of two distinct keys, which is resolved by 
+			// choosing another seed.
+			if (new HashSet<String>(keys).size() < keys.size())
+				throw new IllegalArgumentException("Duplicate keys");
+		}
+		throw new IllegalStateException("Unable to find a seed without "
+				+ "hash collisions for " + keys.size() + " keys");
+	}
+
+	protected static boolean hasEqualHashes(final long[] hashes) {
+		long[] sorted = Arrays.copyOf(hashes, hashes.length);
+		Arrays.sort(sorted);
+		for (int i = 1; i < sorted.length; i++)
+			if (sorted[i] == sorted[i - 1])
+				return true;
+		return false;
+	}
+
+	/** Creates the function for the given pairwise distinct hashes. */
+	protected static MinimalPerfectHash build(int keyCount, 
+			final long[] remaining, long seed) {
+		int remainingCount = remaining.length;
+		List<long[]> levels = new ArrayList<long[]>();
+		List<Long> sizes = new ArrayList<Long>();
+		for (int level = 0; level < MAX_LEVELS && remainingCount > 0; level++) {
+			long size = Math.max(64, ((long) Math.ceil(remainingCount * GAMMA) + 63) / 64 * 64);
+			long[] bits = new long[(int) (size / 64)];
+			long[] collisions = new long[bits.length];
+			for (int i = 0; i < remainingCount; i++) {
+				long position = getPosition(remaining[i], level, size);
+				int word = (int) (position >>> 6);
+				if ((bits[word] & (1L << position)) != 0)
+					collisions[word] |= 1L << position;
+				else
+					bits[word] |= 1L << position;
+			}
+			for (int i = 0; i < bits.length; i++)
+				bits[i] &= ~collisions[i];
+
+			int next = 0;
+			for (int i = 0; i < remainingCount; i++) {
+				long position = getPosition(remaining[i], level, size);
+				if ((collisions[(int) (position >>> 6)] & (1L << position)) != 0)
+					remaining[next++] = remaining[i];
+			}
+			remainingCount = next;
+			levels.add(bits);
+			sizes.add(size);
+		}
+
+		// Keys that still collide after the last level (which is very 
+		// unlikely) are stored explicitly by their hash.
+		long[] fallback = Arrays.copyOf(remaining, remainingCount);
+		Arrays.sort(fallback);
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(keyCount);
+			out.writeLong(seed);
+			out.writeInt(levels.size());
+			long offset = 0;
+			for (int i = 0; i < levels.size(); i++) {
+				out.writeLong(offset);
+				out.writeLong(sizes.get(i));
+				offset += sizes.get(i);
+			}
+			out.writeInt(fallback.length);
+			for (long hash : fallback)
+				out.writeLong(hash);
+			int rank = 0;
+			for (long[] bits : levels)
+				for (long word : bits)
+					out.writeLong(word);
+			for (long[] bits : levels)
+				for (long word : bits) {
+					out.writeInt(rank);
+					rank += Long.bitCount(word);
+				}
+			out.close();
+			return read(ByteBuffer.wrap(bytes.toByteArray()));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Returns the number of the given key or -1 if the key is definitely 
+	 *  not part of the key set. For other strings, an arbitrary number 
+	 *  may be returned. */
+	public int get(final String key) {
+		long hash = BloomFilter.hash(key, seed);
+		for (int level = 0; level < levelCount; level++) {
+			long position = levelOffsets[level] 
+					+ getPosition(hash, level, levelSizes[level]);
+			int word = (int) (position >>> 6);
+			long bits = buffer.getLong(wordsPosition + 8 * word);
+			if ((bits & (1L << position)) != 0)
+				return buffer.getInt(ranksPosition + 4 * word)
+						+ Long.bitCount(bits & ((1L << position) - 1));
+		}
+		int idx = Arrays.binarySearch(fallbackHashes, hash);
+		return (idx < 0 ? -1 : rankedCount + idx);
+	}
+
+	/** Returns the number of keys. */
+	public int size() {
+		return keyCount;
+	}
+
+	/** Returns the number of bytes used by the function. */
+	public int getSizeInBytes() {
+		return buffer.limit();
+	}
+
+	protected static long getPosition(long hash, int level, long size) {
+		long result = hash + (level + 1) * 0x9e3779b97f4a7c15L;
+		result ^= result >>> 31;
+		result *= 0x7fb5d329728ea185L;
+		result ^= result >>> 27;
+		return (result & Long.MAX_VALUE) % size;
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the function to the given output. */
+	public void write(final DataOutput out) throws IOException {
+		for (int i = 0; i < buffer.limit(); i++)
+			out.writeByte(buffer.get(i));
+	}
+
+	/** Reads a function from the given buffer starting at its current 
+	 *  position. The buffer is used directly (i.e., not copied), such 
+	 *  that a memory-mapped file can be used. The position of the buffer
+	 *  is set to the end of the function. */
+	public static MinimalPerfectHash read(final ByteBuffer buffer) {
+		ByteBuffer data = buffer.slice();
+		MinimalPerfectHash result = new MinimalPerfectHash();
+		result.keyCount = data.getInt();
+		result.seed = data.getLong();
+		result.levelCount = data.getInt();
+		result.levelOffsets = new long[result.levelCount];
+		result.levelSizes = new long[result.levelCount];
+		long bitCount = 0;
+		for (int i = 0; i < result.levelCount; i++) {
+			result.levelOffsets[i] = data.getLong();
+			result.levelSizes[i] = data.getLong();
+			bitCount += result.levelSizes[i];
+		}
+		result.fallbackHashes = new long[data.getInt()];
+		for (int i = 0; i < result.fallbackHashes.length; i++)
+			result.fallbackHashes[i] = data.getLong();
+		result.rankedCount = result.keyCount - result.fallbackHashes.length;
+		int wordCount = (int) (bitCount / 64);
+		result.wordsPosition = data.position();
+		result.ranksPosition = result.wordsPosition + 8 * wordCount;
+		data.limit(result.ranksPosition + 4 * wordCount);
+		result.buffer = data;
+		buffer.position(buffer.position() + data.limit());
+		return result;
+	}
+
+}
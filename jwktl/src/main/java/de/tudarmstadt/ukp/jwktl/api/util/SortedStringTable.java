@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compact, immutable table of strings sorted by {@link String#compareTo}.
+ * The strings are front coded in blocks of {@value #BLOCK_SIZE}, i.e., 
+ * each string only stores the suffix that differs from its predecessor,
+ * and the first string of each block is stored completely. A string is 
+ * found by a binary search over the first strings of the blocks followed 
+ * by decoding a single block. Since the strings are kept as 
+ * <code>char</code> values in a single array, the table requires far 
+ * less memory than an array of {@link String} objects. Use 
+ * {@link Reader} to enumerate consecutive strings without allocating 
+ * objects.
+ */
+public class SortedStringTable {
+
+	protected static final int BLOCK_SIZE = 16;
+
+	protected int size;
+	protected char[] data;
+	protected int dataLength;
+	protected int[] blockOffsets;
+	protected String last;
+
+	/** Instanciates an empty table. */
+	public SortedStringTable() {
+		data = new char[1024];
+		blockOffsets = new int[16];
+	}
+
+	/** Appends the given string to the table. The strings are required to 
+	 *  be added in ascending order; duplicate strings are allowed.
+	 *  @throws IllegalArgumentException if the string is smaller than the 
+	 *    previously added string or longer than 65535 characters. */
+	public void add(final String value) {
+		if (value.length() > Character.MAX_VALUE)
+			throw new IllegalArgumentException("String too long: " + value.length());
+		if (last != null && last.compareTo(value) > 0)
+			throw new IllegalArgumentException("Strings not sorted: " + value);
+
+		int prefix = 0;
+		if (size % BLOCK_SIZE == 0) {
+			int block = size / BLOCK_SIZE;
+			if (block == blockOffsets.length)
+				blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+			blockOffsets[block] = dataLength;
+		} else {
+			int maxPrefix = Math.min(last.length(), value.length());
+			while (prefix < maxPrefix && last.charAt(prefix) == value.charAt(prefix))
+				prefix++;
+		}
+		int suffix = value.length() - prefix;
+		if (dataLength + suffix + 2 > data.length)
+			data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + suffix + 2));
+		data[dataLength++] = (char) prefix;
+		data[dataLength++] = (char) suffix;
+		value.getChars(prefix, value.length(), data, dataLength);
+		dataLength += suffix;
+		last = value;
+		size++;
+	}
+
+	/** Returns the number of strings in the table. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the number of bytes used by the table (approximately). */
+	public long getSizeInBytes() {
+		return 2L * dataLength + 4L * ((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+	}
+
+	/** Returns the string at the given position. 
+	 *  @throws IndexOutOfBoundsException if there is no such position. */
+	public String get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		
+		Reader reader = new Reader();
+		reader.seek(index);
+		reader.next();
+		return reader.toString();
+	}
+
+	/** Returns the position of the first string that is greater than or 
+	 *  equal to the given key or {@link #size()} if there is none. */
+	public int lowerBound(final String key) {
+		// Find the last block whose first string is smaller than the key.
+		int low = 0;
+		int high = (size + BLOCK_SIZE - 1) / BLOCK_SIZE - 1;
+		int block = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int offset = blockOffsets[mid];
+			if (compare(data, offset + 2, data[offset + 1], key) < 0) {
+				block = mid;
+				low = mid + 1;
+			} else
+				high = mid - 1;
+		}
+		if (block < 0)
+			return 0;
+
+		Reader reader = new Reader();
+		reader.seek(block * BLOCK_SIZE);
+		while (reader.next())
+			if (compare(reader.buffer, 0, reader.length, key) >= 0)
+				return reader.index;
+		return size;
+	}
+
+	/** Returns the position of the given string or -1 if the table does 
+	 *  not contain it. If the string occurs multiple times, the first 
+	 *  position is returned. */
+	public int indexOf(final String key) {
+		int result = lowerBound(key);
+		if (result < size && get(result).equals(key))
+			return result;
+		return -1;
+	}
+
+	/** Returns the position after the last string starting with the given 
+	 *  prefix. Together with {@link #lowerBound(String)}, this yields the 
+	 *  range of all strings starting with the prefix. */
+	public int prefixEnd(final String prefix) {
+		// Increment the last character that is not the maximum value.
+		for (int i = prefix.length() - 1; i >= 0; i--) {
+			char c = prefix.charAt(i);
+			if (c != Character.MAX_VALUE)
+				return lowerBound(prefix.substring(0, i) + (char) (c + 1));
+		}
+		return size;
+	}
+
+	protected static int compare(final char[] chars, int offset, int length,
+			final String key) {
+		int n = Math.min(length, key.length());
+		for (int i = 0; i < n; i++) {
+			char c1 = chars[offset + i];
+			char c2 = key.charAt(i);
+			if (c1 != c2)
+				return c1 - c2;
+		}
+		return length - key.length();
+	}
+
+
+	// -- Reader --
+
+	/**
+	 * Sequential reader of the strings of the table. The current string 
+	 * is decoded into a reusable character buffer. 
+	 */
+	public class Reader {
+
+		protected char[] buffer;
+		protected int length;
+		protected int index;
+		protected int position;
+
+		/** Instanciates a reader positioned before the first string. */
+		public Reader() {
+			buffer = new char[64];
+			index = -1;
+		}
+
+		/** Positions the reader such that the next call of {@link #next()} 
+		 *  returns the string at the given position. */
+		public void seek(int index) {
+			int block = index / BLOCK_SIZE;
+			this.index = block * BLOCK_SIZE - 1;
+			position = (block * BLOCK_SIZE < size ? blockOffsets[block] : dataLength);
+			length = 0;
+			while (this.index < index - 1)
+				next();
+		}
+
+		/** Advances to the next string and returns <code>false</code> if 
+		 *  there is no string left. */
+		public boolean next() {
+			if (index + 1 >= size)
+				return false;
+
+			index++;
+			int prefix = data[position++];
+			int suffix = data[position++];
+			if (prefix + suffix > buffer.length)
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, prefix + suffix));
+			System.arraycopy(data, position, buffer, prefix, suffix);
+			position += suffix;
+			length = prefix + suffix;
+			return true;
+		}
+
+		/** Returns the position of the current string. */
+		public int getIndex() {
+			return index;
+		}
+
+		/** Returns the length of the current string. */
+		public int length() {
+			return length;
+		}
+
+		/** Returns the character at the given position of the current 
+		 *  string. */
+		public char charAt(int index) {
+			return buffer[index];
+		}
+
+		/** Returns <code>true</code> if the current string starts with the
+		 *  given prefix. */
+		public boolean startsWith(final String prefix) {
+			if (prefix.length() > length)
+				return false;
+			for (int i = 0; i < prefix.length(); i++)
+				if (buffer[i] != prefix.charAt(i))
+					return false;
+			return true;
+		}
+
+		/** Returns the current string. */
+		@Override
+		public String toString() {
+			return new String(buffer, 0, length);
+		}
+
+	}
+
+
+	// -- Serialization --
+
+	/** Writes the table to the given output. */
+	public void write(final DataOutput out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(dataLength);
+		for (int i = 0; i < dataLength; i++)
+			out.writeChar(data[i]);
+		int blockCount = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		for (int i = 0; i < blockCount; i++)
+			out.writeInt(blockOffsets[i]);
+	}
+
+	/** Reads a table previously written using {@link #write(DataOutput)}. */
+	public static SortedStringTable read(final DataInput in) throws IOException {
+		SortedStringTable result = new SortedStringTable();
+		result.size = in.readInt();
+		result.dataLength = in.readInt();
+		result.data = new char[Math.max(result.dataLength, 1)];
+		for (int i = 0; i < result.dataLength; i++)
+			result.data[i] = in.readChar();
+		int blockCount = (result.size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		result.blockOffsets = new int[Math.max(blockCount, 1)];
+		for (int i = 0; i < blockCount; i++)
+			result.blockOffsets[i] = in.readInt();
+		if (result.size > 0)
+			result.last = result.get(result.size - 1);
+		return result;
+	}
+
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+
+/**
+ * Traverses the partitions of a Wiktionary edition or collection (e.g., 
+ * those returned by <code>IWiktionary.getEntryPartitions(...)</code>) 
+ * using multiple threads. Each partition is consumed by a single thread
+ * and passed element by element to an {@link IElementHandler}. Every 
+ * partition is closed after its traversal, upon an error, and if it 
+ * has not been traversed at all because another partition failed, 
+ * such that no database cursor remains open after {@link #scan} returns.
+ * Example: <pre>
+ *   WiktionaryPartitionScanner scanner = new WiktionaryPartitionScanner(8);
+ *   try {
+ *     scanner.scan(wkt.getSensePartitions(null, 32), handler);
+ *   } finally {
+ *     scanner.close();
+ *   }</pre>
+ */
+public class WiktionaryPartitionScanner {
+
+	/** Callback for processing the elements of the partitions. The 
+	 *  handler is invoked concurrently by multiple threads, so 
+	 *  implementations need to be thread-safe. */
+	public interface IElementHandler<Type> {
+		
+		/** Processes the given element. Runtime exceptions abort the 
+		 *  traversal of all partitions. */
+		public void handle(final Type element);
+		
+	}
+
+	protected ExecutorService executor;
+	protected boolean ownsExecutor;
+
+	/** Instanciates the scanner using a new thread pool of the given 
+	 *  size, which is shut down by {@link #close()}. */
+	public WiktionaryPartitionScanner(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("Thread count must be positive");
+		executor = Executors.newFixedThreadPool(threadCount);
+		ownsExecutor = true;
+	}
+
+	/** Instanciates the scanner using the given executor. The executor is
+	 *  not shut down by {@link #close()}. */
+	public WiktionaryPartitionScanner(final ExecutorService executor) {
+		this.executor = executor;
+		ownsExecutor = false;
+	}
+
+	/** Traverses all given partitions and passes their elements to the 
+	 *  given handler. The method returns after all partitions have been
+	 *  traversed and closed. 
+	 *  @return the number of elements passed to the handler.
+	 *  @throws RuntimeException the first exception thrown by the handler
+	 *    or by one of the partitions. */
+	public <Type> long scan(
+			final List<? extends IWiktionaryIterator<? extends Type>> partitions,
+			final IElementHandler<? super Type> handler) {
+		final AtomicBoolean aborted = new AtomicBoolean();
+		List<Future<Long>> futures = new ArrayList<Future<Long>>(partitions.size());
+		RuntimeException error = null;
+		try {
+			for (final IWiktionaryIterator<? extends Type> partition : partitions)
+				futures.add(executor.submit(new Callable<Long>() {
+					public Long call() {
+						long count = 0;
+						try {
+							while (!aborted.get() && partition.hasNext()) {
+								handler.handle(partition.next());
+								count++;
+							}
+							return count;
+						} catch (RuntimeException e) {
+							aborted.set(true);
+							throw e;
+						} catch (Error e) {
+							aborted.set(true);
+							throw e;
+						} finally {
+							partition.close();
+						}
+					}
+				}));
+		} catch (RejectedExecutionException e) {
+			aborted.set(true);
+			error = new WiktionaryException("Unable to schedule partition", e);
+			for (int i = futures.size(); i < partitions.size(); i++)
+				partitions.get(i).close();
+		}
+		
+		long result = 0;
+		for (Future<Long> future : futures) {
+			try {
+				result += future.get();
+			} catch (ExecutionException e) {
+				if (error == null)
+					error = toRuntimeException(e.getCause());
+			} catch (InterruptedException e) {
+				// The workers stop after their current element and close 
+				// their partitions themselves.
+				aborted.set(true);
+				Thread.currentThread().interrupt();
+				if (error == null)
+					error = new WiktionaryException("Interrupted while scanning partitions", e);
+				break;
+			}
+		}
+		if (error != null)
+			throw error;
+		return result;
+	}
+
+	/** Shuts down the thread pool if it has been created by the scanner. */
+	public void close() {
+		if (ownsExecutor)
+			executor.shutdown();
+	}
+
+	protected static RuntimeException toRuntimeException(final Throwable cause) {
+		if (cause instanceof RuntimeException)
+			return (RuntimeException) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		return new WiktionaryException(cause);
+	}
+
+}
@@ -48,6 +48,11 @@ public interface IWritableWiktionaryEdition extends IWiktionaryEdition {
 	/** Force a database commit of the pages saved so far. */
 	public void commit();
 	
+	/** Returns the ID of the last page saved before the import has been 
+	 *  aborted, if the import is resumed, or -1 otherwise. The parsers 
+	 *  skip the pages up to this ID. */
+	public long getResumePageId();
+	
 	/** Assigns the given language to the Wiktionary edition. */
 	public void setLanguage(final ILanguage language);
 
@@ -41,4 +41,18 @@ public interface MultistreamFilter {
 			return pageNames.contains(pageTitle);
 		}
 	}
+
+	/** A filter which includes only pages following the given page ID, e.g. for resuming an import */
+	public static class AfterPageId implements MultistreamFilter {
+		private final long pageId;
+
+		public AfterPageId(long pageId) {
+			this.pageId = pageId;
+		}
+
+		@Override
+		public boolean accept(long pageId, String pageTitle) {
+			return pageId > this.pageId;
+		}
+	}
 }
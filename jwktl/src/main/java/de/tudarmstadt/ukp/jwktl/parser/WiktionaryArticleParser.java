@@ -17,19 +17,29 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.jwktl.parser;
 
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Logger;
 
 import com.sleepycat.je.DatabaseException;
 
+import de.tudarmstadt.ukp.jwktl.JWKTL;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation.LinkType;
 import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.entry.BerkeleyDBWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryEntry;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionarySense;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
 import de.tudarmstadt.ukp.jwktl.api.util.Language;
 import de.tudarmstadt.ukp.jwktl.parser.de.DEWiktionaryEntryParser;
 import de.tudarmstadt.ukp.jwktl.parser.en.ENWiktionaryEntryParser;
 import de.tudarmstadt.ukp.jwktl.parser.ru.RUWiktionaryEntryParser;
 import de.tudarmstadt.ukp.jwktl.parser.util.IDumpInfo;
+import de.tudarmstadt.ukp.jwktl.parser.util.WiktionaryTextStore;
 
 /**
  * Parses a Wiktionary XML dump and stores the parsed information as a 
@@ -49,6 +59,14 @@ public class WiktionaryArticleParser extends WiktionaryPageParser<WiktionaryPage
 	
 	protected IWritableWiktionaryEdition wiktionaryDB;
 	protected IWiktionaryEntryParser entryParser;
+	protected BerkeleyDBWiktionaryEdition previousEdition;
+	protected boolean reusePages;
+	protected long reusedPageCount;
+	protected File textStoreFile;
+	protected WiktionaryTextStore.Writer textStore;
+	protected int commitInterval;
+	protected long resumePageId;
+	protected boolean resumedPageSeen;
 	
 	/** Creates a caching article parser that saves the parsed Wiktionary
 	 *  data into a Berkeley DB within the given target directory. A 
@@ -74,6 +92,55 @@ public class WiktionaryArticleParser extends WiktionaryPageParser<WiktionaryPage
 			throws WiktionaryException {
 		this.wiktionaryDB = wiktionaryDB;
 		this.entryParser = entryParser;
+		commitInterval = 25000;
+		resumePageId = -1;
+	}
+	
+	/** Commits the database after the given number of pages, which also 
+	 *  writes a checkpoint for resuming an aborted import (see 
+	 *  {@link WritableBerkeleyDBWiktionaryEdition#openForResume(File)}). 
+	 *  The default is 25,000 pages. */
+	public void setCommitInterval(int commitInterval) {
+		if (commitInterval < 1)
+			throw new IllegalArgumentException("Commit interval must be positive");
+		this.commitInterval = commitInterval;
+	}
+	
+	/** Reuses the pages of the given, previously parsed edition instead
+	 *  of parsing a page's text if the page has the same ID, title, and 
+	 *  revision in the dump. Since most pages remain unchanged between 
+	 *  two dumps, this avoids the major part of the parsing time when 
+	 *  rebuilding the database from a new dump. The pages are only 
+	 *  reused if the previous edition has been parsed from a dump of the 
+	 *  same language by the same JWKTL version using the same page 
+	 *  parsers (see the "jwktl.version" and "jwktl.parser_N" properties).
+	 *  Relations added from Wikisaurus pages are removed from the reused 
+	 *  pages, since they are merged again by the 
+	 *  {@link de.tudarmstadt.ukp.jwktl.parser.wikisaurus.WikisaurusArticleParser}. 
+	 *  The previous edition needs to be stored in another directory and 
+	 *  is not closed by the parser. */
+	public void setPreviousEdition(final BerkeleyDBWiktionaryEdition previousEdition) {
+		this.previousEdition = previousEdition;
+	}
+	
+	/** Additionally writes the raw text of each article page to a 
+	 *  {@link WiktionaryTextStore} at the given file, such that the pages 
+	 *  can later be parsed again by a {@link WiktionaryTextStoreParser} 
+	 *  without reading the dump file. A typical location is the file 
+	 *  {@link WiktionaryTextStore#FILE_NAME} next to the parsed database. 
+	 *  The texts of pages reused from a previous edition are stored as 
+	 *  well. When resuming an aborted import, the text store is written 
+	 *  again from the beginning of the dump, so the pages before the 
+	 *  checkpoint must not be skipped (e.g., using a 
+	 *  {@link MultistreamFilter.AfterPageId}). */
+	public void setTextStore(final File textStoreFile) {
+		this.textStoreFile = textStoreFile;
+	}
+	
+	/** Returns the number of pages copied from the previous edition
+	 *  without parsing their text. */
+	public long getReusedPageCount() {
+		return reusedPageCount;
 	}
 	
 	@Override
@@ -82,22 +149,36 @@ public class WiktionaryArticleParser extends WiktionaryPageParser<WiktionaryPage
 		ILanguage language = dumpInfo.getDumpLanguage();
 		if (wiktionaryDB != null)
 			wiktionaryDB.setLanguage(language);
+		reusePages = (previousEdition != null && isReusable(previousEdition, dumpInfo));
+		if (wiktionaryDB != null) {
+			resumePageId = wiktionaryDB.getResumePageId();
+			if (resumePageId >= 0)
+				logger.info("Skipping pages up to page " + resumePageId);
+		}
+		if (textStoreFile != null)
+			textStore = new WiktionaryTextStore.Writer(textStoreFile, language);
 		
 		if (entryParser != null)
 			return;
+		entryParser = createEntryParser(language);
+		logger.info("Automatically determined dump format: " + language);
+	}
+	
+	/** Creates the entry parser for a dump of the given language.
+	 *  @throws WiktionaryException if the language is not supported. */
+	protected static IWiktionaryEntryParser createEntryParser(
+			final ILanguage language) {
 		if (Language.ENGLISH.equals(language)) {
-			entryParser = new ENWiktionaryEntryParser();
+			return new ENWiktionaryEntryParser();
 		} else
 		if (Language.GERMAN.equals(language)) {
-			entryParser = new DEWiktionaryEntryParser();
+			return new DEWiktionaryEntryParser();
 		} else
 		if (Language.RUSSIAN.equals(language)) {
-			entryParser = new RUWiktionaryEntryParser();
+			return new RUWiktionaryEntryParser();
 		} else 	
 			throw new WiktionaryException("Language " + language 
 					+ " is not supported");
-		
-		logger.info("Automatically determined dump format: " + language);
 	}
 	
 	@Override
@@ -109,9 +190,15 @@ public class WiktionaryArticleParser extends WiktionaryPageParser<WiktionaryPage
 	@Override
 	public void onClose(final IDumpInfo dumpInfo) {
 		super.onClose(dumpInfo);
+		if (textStore != null) {
+			textStore.close();
+			textStore = null;
+		}
 		if (wiktionaryDB == null)
 			return;
 		
+		if (reusePages)
+			logger.info("Reused " + reusedPageCount + " pages of the previous edition");
 		wiktionaryDB.saveProperties(dumpInfo);
 		
 		// It is important to close the Berkeley DB handler to avoid data loss.
@@ -129,8 +216,32 @@ public class WiktionaryArticleParser extends WiktionaryPageParser<WiktionaryPage
 	@Override
 	public void setText(String text) {
 //		long time = System.nanoTime();
-		if (isAllowed(page))
-			entryParser.parse(page, text);
+		if (!isAllowed(page))
+			return;
+		
+		// The text store is written from scratch, so it requires the 
+		// texts of the pages saved before the checkpoint.
+		if (isResumed(page)) {
+			resumedPageSeen = true;
+			if (textStore != null)
+				textStore.add(new WiktionaryTextStore.Record(page, text));
+			return;
+		}
+		if (textStore != null && resumePageId >= 0 && !resumedPageSeen)
+			throw new WiktionaryException("Unable to resume the text store: "
+					+ "the pages up to page " + resumePageId + " have been skipped");
+		
+		if (textStore != null)
+			textStore.add(new WiktionaryTextStore.Record(page, text));
+		if (reusePages) {
+			WiktionaryPage previousPage = findReusablePage(page);
+			if (previousPage != null) {
+				page = previousPage;
+				reusedPageCount++;
+				return;
+			}
+		}
+		entryParser.parse(page, text);
 //		time = System.nanoTime() - time;
 //		System.out.println("parse " + (time / 1000) + "ms");
 	}
@@ -141,7 +252,7 @@ public class WiktionaryArticleParser extends WiktionaryPageParser<WiktionaryPage
 			return;
 		}
 		
-		if (wiktionaryDB == null)
+		if (wiktionaryDB == null || isResumed(page))
 			return;
 		
 		try {
@@ -150,13 +261,78 @@ public class WiktionaryArticleParser extends WiktionaryPageParser<WiktionaryPage
 //			time = System.nanoTime() - time;
 //			System.out.println("saveWiktionaryPage " + (time / 1000) + "ms");
 			
-			if (dumpInfo.getProcessedPages() % 25000 == 0)
+			if (dumpInfo.getProcessedPages() % commitInterval == 0)
 				wiktionaryDB.commit();
 		} catch (DatabaseException e) {
 			throw new WiktionaryException("Unable to save page " + page.getTitle(), e);
 		}
 	}
 
+	/** Returns true if the pages of the given previous edition have been
+	 *  parsed in the same way as the pages of the current dump. */
+	protected boolean isReusable(final BerkeleyDBWiktionaryEdition previous,
+			final IDumpInfo dumpInfo) {
+		String reason = null;
+		if (!Language.equals(previous.getLanguage(), dumpInfo.getDumpLanguage()))
+			reason = "language " + previous.getLanguage();
+		else
+		if (!JWKTL.getVersion().equals(previous.getProperty("jwktl.version")))
+			reason = "JWKTL version " + previous.getProperty("jwktl.version");
+		else {
+			int i = 1;
+			for (IWiktionaryPageParser pageParser : dumpInfo.getParser().getPageParsers()) {
+				String parser = previous.getProperty("jwktl.parser_" + i);
+				if (!pageParser.getClass().getName().equals(parser))
+					reason = "parser " + parser;
+				i++;
+			}
+			if (previous.getProperty("jwktl.parser_" + i) != null)
+				reason = "parser " + previous.getProperty("jwktl.parser_" + i);
+		}
+		
+		if (reason != null)
+			logger.info("Not reusing the pages of the previous edition "
+					+ "parsed with a different " + reason);
+		return (reason == null);
+	}
+	
+	/** Returns the page of the previous edition having the same ID, 
+	 *  title, and revision as the given page, or <code>null</code> if 
+	 *  the page needs to be parsed. */
+	protected WiktionaryPage findReusablePage(final WiktionaryPage page) {
+		if (page.getRevision() <= 0)
+			return null;
+		
+		WiktionaryPage result = previousEdition.getPageForId(page.getId());
+		if (result == null || result.getRevision() != page.getRevision()
+				|| !page.getTitle().equals(result.getTitle()))
+			return null;
+		
+		// Entry IDs are reassigned by the target database, and relations
+		// from Wikisaurus pages are merged again.
+		result.loadDetails();
+		for (WiktionaryEntry entry : result.entries()) {
+			entry.setId(entry.getIndex());
+			for (WiktionarySense sense : entry.senses()) {
+				List<IWiktionaryRelation> relations = sense.getRelations();
+				if (relations == null)
+					continue;
+				
+				Iterator<IWiktionaryRelation> iter = relations.iterator();
+				while (iter.hasNext())
+					if (iter.next().getLinkType() == LinkType.WIKISAURUS)
+						iter.remove();
+			}
+		}
+		return result;
+	}
+	
+	/** Returns true if the given page has already been saved before 
+	 *  the resumed import has been aborted. */
+	protected boolean isResumed(final IWiktionaryPage page) {
+		return (page.getId() <= resumePageId);
+	}
+	
 	protected boolean isAllowed(final IWiktionaryPage page) {
 		return (currentNamespace == null);
 	}
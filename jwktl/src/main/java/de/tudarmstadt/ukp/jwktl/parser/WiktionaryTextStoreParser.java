@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.parser;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.sleepycat.je.DatabaseException;
+
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryPartitionScanner;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryPartitionScanner.IElementHandler;
+import de.tudarmstadt.ukp.jwktl.parser.util.DumpInfo;
+import de.tudarmstadt.ukp.jwktl.parser.util.WiktionaryTextStore;
+
+/**
+ * Parses the article texts of a {@link WiktionaryTextStore} using
+ * multiple threads. Each thread uses its own instance of the entry
+ * parser, which is either created based on the language of the text
+ * store or instanciated from a given class. Since the texts do not need
+ * to be decompressed from the XML dump, this allows for quickly testing
+ * an improved entry parser on all pages of a dump. Example: <pre>
+ *   WiktionaryTextStoreParser parser = new WiktionaryTextStoreParser(8);
+ *   parser.parse(new File(parsedDir, WiktionaryTextStore.FILE_NAME),
+ *       new WritableBerkeleyDBWiktionaryEdition(targetDir, true));</pre>
+ */
+public class WiktionaryTextStoreParser {
+
+	private static final Logger logger = Logger.getLogger(WiktionaryTextStoreParser.class.getName());
+
+	protected int threadCount;
+	protected Class<? extends IWiktionaryEntryParser> entryParserClass;
+
+	/** Instanciates the parser using the given number of threads and the
+	 *  default entry parser for the language of the text store. */
+	public WiktionaryTextStoreParser(int threadCount) {
+		this(threadCount, null);
+	}
+
+	/** Instanciates the parser using the given number of threads. An
+	 *  instance of the given entry parser class is created for each
+	 *  thread using its default constructor. */
+	public WiktionaryTextStoreParser(int threadCount,
+			final Class<? extends IWiktionaryEntryParser> entryParserClass) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("Thread count must be positive");
+		this.threadCount = threadCount;
+		this.entryParserClass = entryParserClass;
+	}
+
+	/** Parses all texts of the given text store and passes the resulting
+	 *  pages to the given handler. The handler is invoked concurrently by
+	 *  multiple threads and the pages are not passed in a certain order.
+	 *  @return the number of parsed pages. */
+	public long parse(final File textStoreFile,
+			final IElementHandler<? super WiktionaryPage> handler) {
+		final WiktionaryTextStore textStore = WiktionaryTextStore.open(textStoreFile);
+		WiktionaryPartitionScanner scanner = new WiktionaryPartitionScanner(threadCount);
+		try {
+			final ILanguage language = textStore.getLanguage();
+			final ThreadLocal<IWiktionaryEntryParser> entryParser
+					= new ThreadLocal<IWiktionaryEntryParser>() {
+				@Override
+				protected IWiktionaryEntryParser initialValue() {
+					return createEntryParser(language);
+				}
+			};
+			final AtomicLong pageCount = new AtomicLong();
+			long time = System.currentTimeMillis();
+			scanner.scan(textStore.getPartitions(threadCount * 4),
+					new IElementHandler<WiktionaryTextStore.Record>() {
+				public void handle(final WiktionaryTextStore.Record record) {
+					WiktionaryPage page = record.createPage(language);
+					entryParser.get().parse(page, record.getText());
+					handler.handle(page);
+					if (pageCount.incrementAndGet() % 25000 == 0)
+						logger.info("Parsed " + pageCount.get() + " pages");
+				}
+			});
+			logger.info("Parsed " + pageCount.get() + " pages using "
+					+ threadCount + " threads in "
+					+ (System.currentTimeMillis() - time) + " ms");
+			return pageCount.get();
+		} finally {
+			scanner.close();
+			textStore.close();
+		}
+	}
+
+	/** Parses all texts of the given text store and saves the resulting
+	 *  pages to the given database, which is closed afterwards. The
+	 *  pages are saved one at a time while the texts are parsed
+	 *  concurrently. The property file of the database lists the
+	 *  {@link WiktionaryArticleParser}, since the pages correspond to
+	 *  those obtained by parsing the dump. */
+	public void parse(final File textStoreFile,
+			final IWritableWiktionaryEdition wiktionaryDB) {
+		WiktionaryTextStore textStore = WiktionaryTextStore.open(textStoreFile);
+		ILanguage language = textStore.getLanguage();
+		textStore.close();
+		wiktionaryDB.setLanguage(language);
+
+		parse(textStoreFile, new IElementHandler<WiktionaryPage>() {
+			protected long pageCount;
+
+			public void handle(final WiktionaryPage page) {
+				synchronized (wiktionaryDB) {
+					try {
+						wiktionaryDB.savePage(page);
+						if (++pageCount % 25000 == 0)
+							wiktionaryDB.commit();
+					} catch (DatabaseException e) {
+						throw new WiktionaryException("Unable to save page " + page.getTitle(), e);
+					}
+				}
+			}
+		});
+
+		DumpInfo dumpInfo = new DumpInfo(textStoreFile,
+				new WiktionaryDumpParser(new WiktionaryArticleParser(wiktionaryDB)));
+		dumpInfo.setDumpLanguage(language);
+		wiktionaryDB.saveProperties(dumpInfo);
+		try {
+			wiktionaryDB.close();
+		} catch (DatabaseException e) {
+			throw new WiktionaryException("Unable to close Wiktionary DB", e);
+		}
+	}
+
+	/** Creates the entry parser used by the current thread. */
+	protected IWiktionaryEntryParser createEntryParser(final ILanguage language) {
+		if (entryParserClass == null)
+			return WiktionaryArticleParser.createEntryParser(language);
+
+		try {
+			return entryParserClass.newInstance();
+		} catch (InstantiationException e) {
+			throw new WiktionaryException("Unable to create entry parser", e);
+		} catch (IllegalAccessException e) {
+			throw new WiktionaryException("Unable to create entry parser", e);
+		}
+	}
+
+}
@@ -17,27 +17,49 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.jwktl.parser;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.logging.Logger;
 
+import com.sleepycat.je.CheckpointConfig;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.persist.EntityCursor;
 
 import de.tudarmstadt.ukp.jwktl.JWKTL;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryTranslation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryWordForm;
 import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
 import de.tudarmstadt.ukp.jwktl.api.entry.BerkeleyDBWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryFacetIndex;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryRelationGraph;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionarySense;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTitleFilter;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTitleHash;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTitleIndex;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTranslation;
+import de.tudarmstadt.ukp.jwktl.api.util.CompositeKey;
+import de.tudarmstadt.ukp.jwktl.api.util.DictionaryCompressor;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
 import de.tudarmstadt.ukp.jwktl.parser.util.IDumpInfo;
+import de.tudarmstadt.ukp.jwktl.parser.wikisaurus.WikisaurusArticleParser;
 
 /**
  * Extends the Berkeley DB implementation by providing the possibility for 
@@ -48,13 +70,80 @@ import de.tudarmstadt.ukp.jwktl.parser.util.IDumpInfo;
 public class WritableBerkeleyDBWiktionaryEdition extends BerkeleyDBWiktionaryEdition
 		implements IWritableWiktionaryEdition {
 
+	private static final Logger logger = Logger.getLogger(WritableBerkeleyDBWiktionaryEdition.class.getName());
+
 	protected long pageCount;
 	protected long entryCount;
 	protected long senseCount;
 	
-	// default = false; old behaviour of before 0.15.1; this needs significantly longer time!
+	// default = false; old behaviour of before 0.15.1.
 	protected boolean entryIndexByTitle;
 	
+	// default = 0; the first entry ID assigned by title (see 
+	// WritableShardedWiktionaryEdition).
+	protected long entryIdBase;
+	
+	// default = false; the proxies are only required for entry IDs that 
+	// are not assigned by title.
+	protected boolean saveProxies;
+	
+	// default = false; requires an additional pass over all pages.
+	protected boolean buildFacetIndex;
+	
+	// default = false; requires an additional pass over all pages.
+	protected boolean buildRelationGraph;
+	
+	// default = false; requires an additional pass over all pages.
+	protected boolean buildTitleIndex;
+	
+	// default = false; requires a pass over the title index.
+	protected boolean buildTitleFilter;
+	
+	// default = false; requires the title index.
+	protected boolean buildTitleHash;
+	
+	// default = false; one record per word form.
+	protected boolean saveWordFormIndex;
+	
+	// default = false; one record per translation.
+	protected boolean saveTranslationIndex;
+	
+	// default = false; one additional record per page.
+	protected boolean savePageDetails;
+	
+	// default = false; requires rewriting all pages and cleaning the log.
+	protected boolean pageLayoutByTitle;
+	
+	// default = false; requires training a dictionary on the first pages.
+	protected boolean compressPageDetails;
+	protected Map<Long, byte[]> detailsSamples;
+	
+	/** The number of pages whose details are used for training the 
+	 *  dictionary for compressing the page details. */
+	public static final int DETAILS_SAMPLE_COUNT = 2000;
+	
+	// true if a page summary is saved for each page, i.e., unless an 
+	// existing database without summaries is updated.
+	protected boolean pageSummariesComplete;
+	
+	// true if an existing database is updated (see openForUpdate).
+	protected boolean updateExisting;
+	protected long updatedPageCount;
+	protected long skippedPageCount;
+	
+	// The last page ID of the checkpoint an import is resumed from (see
+	// openForResume) and the largest page ID saved so far.
+	protected long resumePageId;
+	protected long lastPageId;
+	
+	protected static final String CHECKPOINT_PAGE_ID_PROPERTY = "checkpoint.page_id";
+	protected static final String PAGE_DETAILS_COMPRESSION_PROPERTY = "database.page_details_compression";
+	protected static final String FACET_INDEX_PROPERTY = "database.facet_index";
+	protected static final String RELATION_GRAPH_PROPERTY = "database.relation_graph";
+	protected static final String TITLE_INDEX_PROPERTY = "database.title_index";
+	protected static final String TITLE_FILTER_PROPERTY = "database.title_filter";
+	protected static final String TITLE_HASH_PROPERTY = "database.title_hash";
+	
 	/** Shorthand for {@link #WritableBerkeleyDBWiktionaryEdition(File, 
 	 *  boolean, Long)} with a cacheSize set to half the size of the the +
 	 *  current JWM max memory. */
@@ -78,6 +167,212 @@ public class WritableBerkeleyDBWiktionaryEdition extends BerkeleyDBWiktionaryEdi
 		pageCount = 0;
 		entryCount = 0;
 		senseCount = 0;
+		resumePageId = -1;
+		lastPageId = -1;
+		pageSummariesComplete = true;
+	}
+	
+	/** Connects to the existing parsed Wiktionary database at the given 
+	 *  path for updating it (see {@link #openForUpdate(File, Long)}). */
+	protected WritableBerkeleyDBWiktionaryEdition(final File dbPath,
+			final Long cacheSize) {
+		super(dbPath, false, false, false, cacheSize);
+		updateExisting = true;
+		resumePageId = -1;
+		lastPageId = -1;
+		pageCount = getLongProperty("database.pages");
+		entryCount = getLongProperty("database.entries");
+		senseCount = getLongProperty("database.sense");
+		entryIndexByTitle = entryIdsByTitle;
+		saveProxies = getSaveProxiesProperty();
+		buildFacetIndex = Boolean.parseBoolean(properties.getProperty(FACET_INDEX_PROPERTY));
+		buildRelationGraph = Boolean.parseBoolean(properties.getProperty(RELATION_GRAPH_PROPERTY));
+		buildTitleIndex = Boolean.parseBoolean(properties.getProperty(TITLE_INDEX_PROPERTY));
+		buildTitleFilter = Boolean.parseBoolean(properties.getProperty(TITLE_FILTER_PROPERTY));
+		buildTitleHash = Boolean.parseBoolean(properties.getProperty(TITLE_HASH_PROPERTY));
+		saveWordFormIndex = getBooleanProperty(WORD_FORM_INDEX_PROPERTY);
+		saveTranslationIndex = getBooleanProperty(TRANSLATION_INDEX_PROPERTY);
+		savePageDetails = getBooleanProperty(PAGE_DETAILS_PROPERTY);
+		pageSummariesComplete = getBooleanProperty(PAGE_SUMMARIES_PROPERTY);
+		compressPageDetails = (detailsCompressor != null);
+	}
+	
+	/** Shorthand for {@link #openForUpdate(File, Long)} with a cacheSize 
+	 *  set to half the size of the current JVM max memory. */
+	public static WritableBerkeleyDBWiktionaryEdition openForUpdate(
+			final File dbPath) {
+		return openForUpdate(dbPath, Runtime.getRuntime().maxMemory() / 2);
+	}
+	
+	/** Opens the existing parsed Wiktionary database at the given path 
+	 *  for applying a dump containing added and changed pages, such as 
+	 *  the daily adds/changes dumps of the Wikimedia foundation. Each 
+	 *  saved page replaces the stored page with the same ID including its
+	 *  proxies and index records, unless the stored page has a newer
+	 *  revision. Pages not contained in the dump remain unchanged. The 
+	 *  settings of the database (e.g., the entry IDs by title or the 
+	 *  saved indexes) are taken from its property file, and those of the
+	 *  title index, title filter, title hash, facet index, and relation 
+	 *  graph that have been created by the import are rebuilt upon 
+	 *  {@link #saveProperties(IDumpInfo)}. Indexes that are not recorded
+	 *  in the property file (e.g., of databases created by previous 
+	 *  versions) are not extended, since they would only cover the 
+	 *  updated pages; likewise, the page summaries are only used for 
+	 *  filtered iteration if they have been saved for all pages. Since a 
+	 *  rename changes the title order, the pages are no longer stored 
+	 *  in title order (see {@link #setPageLayoutByTitle(boolean)}) 
+	 *  after an update. 
+	 *  @throws WiktionaryException if there is no database at the given 
+	 *    path. */
+	public static WritableBerkeleyDBWiktionaryEdition openForUpdate(
+			final File dbPath, final Long cacheSize) {
+		if (!new File(dbPath, PROPERTY_FILE_NAME).exists())
+			throw new WiktionaryException("No parsed Wiktionary found in " + dbPath);
+		return new WritableBerkeleyDBWiktionaryEdition(dbPath, cacheSize);
+	}
+	
+	/** Connects to the partially parsed Wiktionary database at the given 
+	 *  path for resuming its import from the given checkpoint (see 
+	 *  {@link #openForResume(File, Long)}). */
+	protected WritableBerkeleyDBWiktionaryEdition(final File dbPath,
+			final Long cacheSize, final Properties checkpoint) {
+		super(dbPath, false, false, false, cacheSize);
+		properties.putAll(checkpoint);
+		resumePageId = getLongProperty(CHECKPOINT_PAGE_ID_PROPERTY);
+		lastPageId = resumePageId;
+		pageCount = getLongProperty("database.pages");
+		entryCount = getLongProperty("database.entries");
+		senseCount = getLongProperty("database.sense");
+		entryIndexByTitle = ENTRY_IDS_BY_TITLE.equals(properties.getProperty(ENTRY_IDS_PROPERTY));
+		saveProxies = getSaveProxiesProperty();
+		buildFacetIndex = Boolean.parseBoolean(properties.getProperty(FACET_INDEX_PROPERTY));
+		buildRelationGraph = Boolean.parseBoolean(properties.getProperty(RELATION_GRAPH_PROPERTY));
+		buildTitleIndex = Boolean.parseBoolean(properties.getProperty(TITLE_INDEX_PROPERTY));
+		buildTitleFilter = Boolean.parseBoolean(properties.getProperty(TITLE_FILTER_PROPERTY));
+		buildTitleHash = Boolean.parseBoolean(properties.getProperty(TITLE_HASH_PROPERTY));
+		saveWordFormIndex = getBooleanProperty(WORD_FORM_INDEX_PROPERTY);
+		saveTranslationIndex = getBooleanProperty(TRANSLATION_INDEX_PROPERTY);
+		savePageDetails = getBooleanProperty(PAGE_DETAILS_PROPERTY);
+		pageSummariesComplete = getBooleanProperty(PAGE_SUMMARIES_PROPERTY);
+		compressPageDetails = Boolean.parseBoolean(properties.getProperty(PAGE_DETAILS_COMPRESSION_PROPERTY));
+		pageLayoutByTitle = PAGE_LAYOUT_BY_TITLE.equals(properties.getProperty(PAGE_LAYOUT_PROPERTY));
+		try {
+			rollbackToCheckpoint();
+		} catch (DatabaseException e) {
+			throw new WiktionaryException("Unable to resume import", e);
+		}
+	}
+	
+	/** Shorthand for {@link #openForResume(File, Long)} with a cacheSize 
+	 *  set to half the size of the current JVM max memory. */
+	public static WritableBerkeleyDBWiktionaryEdition openForResume(
+			final File dbPath) {
+		return openForResume(dbPath, Runtime.getRuntime().maxMemory() / 2);
+	}
+	
+	/** Opens the partially parsed Wiktionary database at the given path 
+	 *  for resuming an aborted import of a dump. Upon each 
+	 *  {@link #commit()}, a checkpoint file is written that contains the 
+	 *  largest page ID saved so far, the page, entry, and sense counts, 
+	 *  and the settings of the database. When resuming, the pages saved 
+	 *  after the last checkpoint are removed, and the settings and counts 
+	 *  are restored from the checkpoint. The 
+	 *  {@link WiktionaryArticleParser} then skips all pages up to the 
+	 *  checkpoint's page ID (see {@link #getResumePageId()}), such that 
+	 *  the same dump file can be parsed again. For multistream dumps, the 
+	 *  streams before the checkpoint can be skipped using a 
+	 *  {@link MultistreamFilter.AfterPageId} filter, unless a 
+	 *  {@link WikisaurusArticleParser} or a text store (see 
+	 *  {@link WiktionaryArticleParser#setTextStore(File)}) is used: both 
+	 *  require reading the pages before the checkpoint again and fail if 
+	 *  these pages are skipped. The Wikisaurus entries of these pages are 
+	 *  merged again without duplicating the relations. The checkpoint 
+	 *  file is removed once the import has been completed. 
+	 *  @throws WiktionaryException if there is no checkpoint at the given 
+	 *    path. */
+	public static WritableBerkeleyDBWiktionaryEdition openForResume(
+			final File dbPath, final Long cacheSize) {
+		File checkpointFile = new File(dbPath, CHECKPOINT_FILE_NAME);
+		if (!checkpointFile.exists())
+			throw new WiktionaryException("No import checkpoint found in " + dbPath);
+		
+		Properties checkpoint = new Properties();
+		try {
+			InputStream stream = new FileInputStream(checkpointFile);
+			try {
+				checkpoint.load(stream);
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to load import checkpoint", e);
+		}
+		logger.info("Resuming import after page " 
+				+ checkpoint.getProperty(CHECKPOINT_PAGE_ID_PROPERTY));
+		return new WritableBerkeleyDBWiktionaryEdition(dbPath, cacheSize, checkpoint);
+	}
+	
+	/** Returns the page ID of the checkpoint the import is resumed from 
+	 *  or -1 if the import has not been resumed. Pages up to this ID
+	 *  have already been saved. */
+	public long getResumePageId() {
+		return resumePageId;
+	}
+	
+	/** Removes the pages saved after the checkpoint, which might have been
+	 *  stored partially before the import has been aborted and which are
+	 *  not included in the counts of the checkpoint. */
+	protected void rollbackToCheckpoint() throws DatabaseException {
+		List<Long> pageIds = new ArrayList<Long>();
+		EntityCursor<Long> cursor = pageById.keys(resumePageId, false, null, false);
+		try {
+			Long pageId;
+			while ((pageId = cursor.next()) != null)
+				pageIds.add(pageId);
+		} finally {
+			cursor.close();
+		}
+		
+		for (Long pageId : pageIds)
+			deletePage(loadPage(pageById.get(pageId), null));
+		if (pageIds.size() > 0)
+			logger.info("Removed " + pageIds.size() + " pages saved after the checkpoint");
+	}
+	
+	/** Returns true if an existing database is updated. */
+	public boolean isUpdate() {
+		return updateExisting;
+	}
+	
+	/** Returns the number of stored pages that have been replaced by a 
+	 *  newer revision in update mode. */
+	public long getUpdatedPageCount() {
+		return updatedPageCount;
+	}
+	
+	/** Returns the number of pages that have been skipped in update mode,
+	 *  since the stored page has a newer revision. */
+	public long getSkippedPageCount() {
+		return skippedPageCount;
+	}
+	
+	protected long getLongProperty(final String key) {
+		String value = properties.getProperty(key);
+		return (value == null ? 0 : Long.parseLong(value));
+	}
+	
+	// Settings not saved by previous versions default to false, since 
+	// the records of the corresponding index are missing for the pages 
+	// saved by these versions; updating only the changed pages would 
+	// yield an incomplete index.
+	protected boolean getBooleanProperty(final String key) {
+		return Boolean.parseBoolean(properties.getProperty(key));
+	}
+	
+	// Previous versions saved the proxies for all pages.
+	protected boolean getSaveProxiesProperty() {
+		String value = properties.getProperty(PROXIES_PROPERTY);
+		return (value == null || Boolean.parseBoolean(value));
 	}
 
 	@Override
@@ -98,6 +393,184 @@ public class WritableBerkeleyDBWiktionaryEdition extends BerkeleyDBWiktionaryEdi
 		this.entryIndexByTitle = entryIndexByTitle;
 	}
 
+	/** Returns the first entry ID assigned in alphabetical order. */
+	public long getEntryIdBase() {
+		return entryIdBase;
+	}
+	
+	/** Sets the first entry ID assigned in alphabetical order (see 
+	 *  {@link #setEntryIndexByTitle(boolean)}), which allows for 
+	 *  assigning disjoint ranges of entry IDs to multiple databases. */
+	public void setEntryIdBase(long entryIdBase) {
+		this.entryIdBase = entryIdBase;
+	}
+
+	/** Returns the setting if the {@link WiktionaryEntryProxy} and 
+	 *  {@link WiktionarySenseProxy} objects are saved. */
+	public boolean getSaveProxies() {
+		return saveProxies;
+	}
+	
+	/** Controls if the {@link WiktionaryEntryProxy} and 
+	 *  {@link WiktionarySenseProxy} objects are saved for each entry and 
+	 *  sense. Entry and sense keys are resolved without the proxies; they 
+	 *  are only used by {@link #getEntryForId(long)} if the entry IDs are
+	 *  not assigned by title. Skipping them considerably reduces the 
+	 *  number of database writes during the import. The proxies are not
+	 *  saved by default; without them, {@link #getEntryForId(long)} 
+	 *  requires the entry IDs to be assigned by title (see 
+	 *  {@link #setEntryIndexByTitle(boolean)}). */
+	public void setSaveProxies(boolean saveProxies) {
+		this.saveProxies = saveProxies;
+	}
+
+	/** Returns the setting if a {@link WiktionaryFacetIndex} is created
+	 *  after the import. */
+	public boolean getBuildFacetIndex() {
+		return buildFacetIndex;
+	}
+	
+	/** Controls if a {@link WiktionaryFacetIndex} is created after the 
+	 *  import, which allows for answering faceted entry queries without
+	 *  scanning all entries. Creating the index requires an additional 
+	 *  pass over all pages. */
+	public void setBuildFacetIndex(boolean buildFacetIndex) {
+		this.buildFacetIndex = buildFacetIndex;
+	}
+
+	/** Returns the setting if a {@link WiktionaryRelationGraph} is created
+	 *  after the import. */
+	public boolean getBuildRelationGraph() {
+		return buildRelationGraph;
+	}
+	
+	/** Controls if a {@link WiktionaryRelationGraph} is created after the 
+	 *  import and saved along with the database. Otherwise, the graph is 
+	 *  built upon the first call of {@link #getRelationGraph()}. */
+	public void setBuildRelationGraph(boolean buildRelationGraph) {
+		this.buildRelationGraph = buildRelationGraph;
+	}
+
+	/** Returns the setting if a {@link WiktionaryTitleIndex} is created
+	 *  after the import. */
+	public boolean getBuildTitleIndex() {
+		return buildTitleIndex;
+	}
+	
+	/** Controls if a {@link WiktionaryTitleIndex} is created after the 
+	 *  import and saved along with the database. Otherwise, the index is 
+	 *  built upon the first call of {@link #getTitleIndex()}. */
+	public void setBuildTitleIndex(boolean buildTitleIndex) {
+		this.buildTitleIndex = buildTitleIndex;
+	}
+
+	/** Returns the setting if a {@link WiktionaryTitleFilter} is created
+	 *  after the import. */
+	public boolean getBuildTitleFilter() {
+		return buildTitleFilter;
+	}
+	
+	/** Controls if a {@link WiktionaryTitleFilter} is created after the 
+	 *  import, which allows for rejecting lookups of non-existing titles 
+	 *  without accessing the database. */
+	public void setBuildTitleFilter(boolean buildTitleFilter) {
+		this.buildTitleFilter = buildTitleFilter;
+	}
+
+	/** Returns the setting if a {@link WiktionaryTitleHash} is created
+	 *  after the import. */
+	public boolean getBuildTitleHash() {
+		return buildTitleHash;
+	}
+	
+	/** Controls if a {@link WiktionaryTitleHash} is created after the 
+	 *  import, which allows read-only editions to resolve titles without 
+	 *  the lookup in the title index. */
+	public void setBuildTitleHash(boolean buildTitleHash) {
+		this.buildTitleHash = buildTitleHash;
+	}
+
+	/** Returns the setting if the {@link WiktionaryWordFormProxy} 
+	 *  objects are saved. */
+	public boolean getSaveWordFormIndex() {
+		return saveWordFormIndex;
+	}
+	
+	/** Controls if a {@link WiktionaryWordFormProxy} is saved for each
+	 *  inflected word form of an entry, which allows for looking up the 
+	 *  entries of a word form without scanning all entries (see 
+	 *  {@link #getEntriesForWordForm(String)}). */
+	public void setSaveWordFormIndex(boolean saveWordFormIndex) {
+		this.saveWordFormIndex = saveWordFormIndex;
+	}
+
+	/** Returns the setting if the details of a page are stored in a 
+	 *  separate {@link WiktionaryPageDetails} record. */
+	public boolean getSavePageDetails() {
+		return savePageDetails;
+	}
+	
+	/** Controls if the rarely used details of a page (pronunciations, 
+	 *  word forms, quotations, references, and translations) are stored 
+	 *  in a separate {@link WiktionaryPageDetails} record, which is only 
+	 *  loaded upon accessing one of these details. Accessing details 
+	 *  that have not been loaded before the edition is closed results 
+	 *  in an {@link IllegalStateException}; use 
+	 *  {@link WiktionaryPage#loadDetails()} to load them beforehand. 
+	 *  By default, the details are stored within the page records, such
+	 *  that the pages remain complete after closing the edition. */
+	public void setSavePageDetails(boolean savePageDetails) {
+		this.savePageDetails = savePageDetails;
+	}
+
+	/** Returns the setting if the pages are rewritten in alphabetical
+	 *  order of their titles. */
+	public boolean getPageLayoutByTitle() {
+		return pageLayoutByTitle;
+	}
+	
+	/** Controls if the pages are rewritten in alphabetical order of their
+	 *  titles after parsing. The Berkeley DB appends each record to its 
+	 *  log files, so the records are physically ordered by the time they
+	 *  were written, i.e., by the order of the pages in the dump. Once 
+	 *  rewritten, iterating the pages sorted by title and the title ranges
+	 *  returned by {@link #getPagePartitions(IWiktionaryPageFilter, int)}
+	 *  read the log files sequentially instead of randomly. The log is 
+	 *  cleaned afterwards to remove the obsolete records. */
+	public void setPageLayoutByTitle(boolean pageLayoutByTitle) {
+		this.pageLayoutByTitle = pageLayoutByTitle;
+	}
+	
+	/** Returns the setting if the page details are compressed. */
+	public boolean getCompressPageDetails() {
+		return compressPageDetails;
+	}
+	
+	/** Controls if the {@link WiktionaryPageDetails} records are 
+	 *  compressed using a dictionary trained on the details of the first 
+	 *  {@link #DETAILS_SAMPLE_COUNT} pages. The dictionary is stored along
+	 *  with the database, and each record is compressed separately, such 
+	 *  that loading the details of a page only requires decompressing a 
+	 *  single record. Has no effect unless the page details are saved 
+	 *  (see {@link #setSavePageDetails(boolean)}). */
+	public void setCompressPageDetails(boolean compressPageDetails) {
+		this.compressPageDetails = compressPageDetails;
+	}
+
+	/** Returns the setting if the {@link WiktionaryTranslationProxy} 
+	 *  objects are saved. */
+	public boolean getSaveTranslationIndex() {
+		return saveTranslationIndex;
+	}
+	
+	/** Controls if a {@link WiktionaryTranslationProxy} is saved for each
+	 *  translation of a sense, which allows for reverse translation 
+	 *  lookups without scanning all senses (see 
+	 *  {@link #getSensesForTranslation(ILanguage, String)}). */
+	public void setSaveTranslationIndex(boolean saveTranslationIndex) {
+		this.saveTranslationIndex = saveTranslationIndex;
+	}
+
 	public void setLanguage(final ILanguage language) {
 		this.language = language;
 	}
@@ -108,6 +581,54 @@ public class WritableBerkeleyDBWiktionaryEdition extends BerkeleyDBWiktionaryEdi
 		//env.sync();
 		doClose();
 		connect(isReadOnly, false, false, cacheSize);
+		if (!updateExisting && lastPageId >= 0)
+			saveCheckpoint();
+	}
+	
+	/** Writes the checkpoint file for resuming the import after the 
+	 *  pages committed so far (see {@link #openForResume(File, Long)}). 
+	 *  The file is replaced atomically where supported by the file 
+	 *  system. */
+	protected void saveCheckpoint() {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty(CHECKPOINT_PAGE_ID_PROPERTY, Long.toString(lastPageId));
+		checkpoint.setProperty("database.pages", Long.toString(pageCount));
+		checkpoint.setProperty("database.entries", Long.toString(entryCount));
+		checkpoint.setProperty("database.sense", Long.toString(senseCount));
+		if (entryIndexByTitle)
+			checkpoint.setProperty(ENTRY_IDS_PROPERTY, ENTRY_IDS_BY_TITLE);
+		checkpoint.setProperty(PROXIES_PROPERTY, Boolean.toString(saveProxies));
+		checkpoint.setProperty(FACET_INDEX_PROPERTY, Boolean.toString(buildFacetIndex));
+		checkpoint.setProperty(RELATION_GRAPH_PROPERTY, Boolean.toString(buildRelationGraph));
+		checkpoint.setProperty(TITLE_INDEX_PROPERTY, Boolean.toString(buildTitleIndex));
+		checkpoint.setProperty(TITLE_FILTER_PROPERTY, Boolean.toString(buildTitleFilter));
+		checkpoint.setProperty(TITLE_HASH_PROPERTY, Boolean.toString(buildTitleHash));
+		checkpoint.setProperty(WORD_FORM_INDEX_PROPERTY, Boolean.toString(saveWordFormIndex));
+		checkpoint.setProperty(TRANSLATION_INDEX_PROPERTY, Boolean.toString(saveTranslationIndex));
+		checkpoint.setProperty(PAGE_DETAILS_PROPERTY, Boolean.toString(savePageDetails));
+		checkpoint.setProperty(PAGE_SUMMARIES_PROPERTY, Boolean.toString(pageSummariesComplete));
+		checkpoint.setProperty(PAGE_DETAILS_COMPRESSION_PROPERTY, Boolean.toString(compressPageDetails));
+		if (pageLayoutByTitle)
+			checkpoint.setProperty(PAGE_LAYOUT_PROPERTY, PAGE_LAYOUT_BY_TITLE);
+		
+		File checkpointFile = new File(dbPath, CHECKPOINT_FILE_NAME);
+		File tempFile = new File(dbPath, CHECKPOINT_FILE_NAME + ".tmp");
+		try {
+			OutputStream stream = new FileOutputStream(tempFile);
+			try {
+				checkpoint.store(stream, "JWKTL import checkpoint");
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save import checkpoint", e);
+		}
+		if (!tempFile.renameTo(checkpointFile)) {
+			checkpointFile.delete();
+			if (!tempFile.renameTo(checkpointFile))
+				throw new WiktionaryException("Unable to save import checkpoint");
+		}
+		logger.fine("Saved checkpoint after page " + lastPageId);
 	}
 	
 //	public void saveProperties(final WiktionaryArticleParser parser)
@@ -116,46 +637,73 @@ public class WritableBerkeleyDBWiktionaryEdition extends BerkeleyDBWiktionaryEdi
 		// Assign numeric id's to the WiktionaryEntry:s in alphabetical
 		// order. This used to be the case in old versions and thus
 		// is done for compatibility reasons.
-		if (entryIndexByTitle) {
-			long pageId = 0;
-			long entryId = 0;
-			entryById = null;
-			EntityCursor<WiktionaryPage> pageCursor = pageByTitle.entities();
-			while (pageCursor.next() != null) {
-				WiktionaryPage page = pageCursor.current();
-				if (page.getEntryCount() > 0) {
-					for (WiktionaryEntry entry : page.entries())
-						entry.setId(entryId++);
-					//pageCursor.update(page);
-					//pageById.put(page); // Save
-					pageById.putNoReturn(page);
-				}
-
-				pageId++;
-				if (pageId % 100000 == 0) {
-					String lastKey = page.getTitle();
-					pageCursor.close();
-					commit();
-					pageCursor = pageByTitle.entities(lastKey, false, null, false);
-					System.err.println("Indexed " + pageId + " pages");
-				}
-			}
-			pageCursor.close();
-			entryById = store.getSecondaryIndex(entryByKey, Long.class, "entryId");
+		if (updateExisting)
+			logger.info("Replaced " + updatedPageCount + " pages; skipped " 
+					+ skippedPageCount + " pages having a newer stored revision");
+		if (entryIndexByTitle)
+			assignEntryIdsByTitle();
+		if (detailsSamples != null)
+			trainDetailsDictionary();
+		if (pageLayoutByTitle)
+			rewritePagesByTitle();
+		
+		if (buildFacetIndex) {
+			facetIndex = WiktionaryFacetIndex.build(this);
+			facetIndex.save(new File(dbPath, WiktionaryFacetIndex.FILE_NAME));
+		}
+		if (buildRelationGraph) {
+			relationGraph = WiktionaryRelationGraph.build(this);
+			relationGraph.save(new File(dbPath, WiktionaryRelationGraph.FILE_NAME));
+		}
+		if (buildTitleIndex) {
+			titleIndex = WiktionaryTitleIndex.build(this);
+			titleIndex.save(new File(dbPath, WiktionaryTitleIndex.FILE_NAME));
+		}
+		if (buildTitleFilter)
+			buildTitleFilter().save(new File(dbPath, WiktionaryTitleFilter.FILE_NAME));
+		if (buildTitleHash) {
+			WiktionaryTitleIndex index = (titleIndex != null 
+					? titleIndex : WiktionaryTitleIndex.build(this));
+			WiktionaryTitleHash.build(index).save(
+					new File(dbPath, WiktionaryTitleHash.FILE_NAME));
 		}
 		
 		try {
 			// Saves a property file along with the database storage files that
 			// contains information about language and size of the parsed data.
 			Map<String, String> props = new LinkedHashMap<String, String>();
+			String now = new SimpleDateFormat("yyyy-MM-dd kk:mm").format(new Date());
 			props.put("wiktionary.language", language.getCode());
-			props.put("wiktionary.dumpfile", dumpInfo.getDumpFile().toString());
+			if (updateExisting) {
+				props.put("wiktionary.dumpfile", properties.getProperty(
+						"wiktionary.dumpfile", dumpInfo.getDumpFile().toString()));
+				props.put("wiktionary.update_dumpfile", dumpInfo.getDumpFile().toString());
+			} else
+				props.put("wiktionary.dumpfile", dumpInfo.getDumpFile().toString());
 			
-			props.put("database.creation", new SimpleDateFormat("yyyy-MM-dd kk:mm").format(new Date()));
+			props.put("database.creation", (updateExisting 
+					? properties.getProperty("database.creation", now) : now));
+			if (updateExisting)
+				props.put("database.update", now);
 			props.put("database.path", dbPath.toString());
 			props.put("database.pages", Long.toString(pageCount));
 			props.put("database.entries", Long.toString(entryCount));
 			props.put("database.sense", Long.toString(senseCount));
+			if (entryIndexByTitle)
+				props.put(ENTRY_IDS_PROPERTY, ENTRY_IDS_BY_TITLE);
+			props.put(PROXIES_PROPERTY, Boolean.toString(saveProxies));
+			props.put(FACET_INDEX_PROPERTY, Boolean.toString(buildFacetIndex));
+			props.put(RELATION_GRAPH_PROPERTY, Boolean.toString(buildRelationGraph));
+			props.put(TITLE_INDEX_PROPERTY, Boolean.toString(buildTitleIndex));
+			props.put(TITLE_FILTER_PROPERTY, Boolean.toString(buildTitleFilter));
+			props.put(TITLE_HASH_PROPERTY, Boolean.toString(buildTitleHash));
+			props.put(WORD_FORM_INDEX_PROPERTY, Boolean.toString(saveWordFormIndex));
+			props.put(TRANSLATION_INDEX_PROPERTY, Boolean.toString(saveTranslationIndex));
+			props.put(PAGE_DETAILS_PROPERTY, Boolean.toString(savePageDetails
+					|| Boolean.parseBoolean(properties.getProperty(PAGE_DETAILS_PROPERTY))));
+			props.put(PAGE_SUMMARIES_PROPERTY, Boolean.toString(pageSummariesComplete));
+			if (pageLayoutByTitle)
+				props.put(PAGE_LAYOUT_PROPERTY, PAGE_LAYOUT_BY_TITLE);
 			
 			props.put("jwktl.version", JWKTL.getVersion());
 			int i = 1;
@@ -210,24 +758,363 @@ public class WritableBerkeleyDBWiktionaryEdition extends BerkeleyDBWiktionaryEdi
 		} catch (IOException e) {
 			throw new WiktionaryException("Unable to save property file", e);
 		}
+		
+		hasPageSummaries = (pageSummaryById != null && pageSummariesComplete);
+		
+		// The import has been completed.
+		File checkpointFile = new File(dbPath, CHECKPOINT_FILE_NAME);
+		if (checkpointFile.exists() && !checkpointFile.delete())
+			logger.warning("Unable to delete file: " + checkpointFile);
+	}
+	
+	/** Creates a {@link WiktionaryTitleFilter} from the title index. Only
+	 *  the titles are read, which avoids loading the pages. */
+	protected WiktionaryTitleFilter buildTitleFilter() throws DatabaseException {
+		WiktionaryTitleFilter result = new WiktionaryTitleFilter(pageById.count());
+		EntityCursor<String> titles = pageByTitle.keys();
+		try {
+			String title;
+			while ((title = titles.next()) != null)
+				result.addTitle(title);
+		} finally {
+			titles.close();
+		}
+		logger.info("Created title filter using " + result.getSizeInBytes() + " bytes");
+		return result;
+	}
+	
+	/** Assigns the entry IDs in alphabetical order of the page titles, 
+	 *  starting with the entry ID base. Only the page IDs are read from the title index, and only the 
+	 *  offset records written by {@link #savePage(WiktionaryPage)} are 
+	 *  updated, which avoids rewriting the pages themselves. */
+	protected void assignEntryIdsByTitle() throws DatabaseException {
+		long pageIdx = 0;
+		long entryId = entryIdBase;
+		EntityCursor<Long> pageIds = pageByTitle.keysIndex().entities();
+		try {
+			Long pageId;
+			while ((pageId = pageIds.next()) != null) {
+				WiktionaryEntryIdOffset offset = entryIdOffsetByPage.get(pageId);
+				if (offset != null) {
+					offset.setFirstEntryId(entryId);
+					entryIdOffsetByPage.putNoReturn(offset);
+					entryId += offset.getEntryCount();
+				}
+				
+				pageIdx++;
+				if (pageIdx % 100000 == 0)
+					logger.info("Indexed " + pageIdx + " pages");
+			}
+		} finally {
+			pageIds.close();
+		}
+		entryIdsByTitle = true;
+		hasEntryIdOffsets = true;
+	}
+	
+	/** Rewrites the pages along with their summaries and details in 
+	 *  alphabetical order of their titles, such that their records are 
+	 *  appended to the log in this order. The records are copied without
+	 *  loading the pages' details. Afterwards, the log files containing
+	 *  mostly obsolete records are cleaned and removed. */
+	protected void rewritePagesByTitle() throws DatabaseException {
+		long pageIdx = 0;
+		EntityCursor<Long> pageIds = pageByTitle.keysIndex().entities();
+		try {
+			Long pageId;
+			while ((pageId = pageIds.next()) != null) {
+				WiktionaryPage page = pageById.get(pageId);
+				if (page == null)
+					continue;
+				
+				pageById.putNoReturn(page);
+				WiktionaryPageSummary summary = pageSummaryById.get(pageId);
+				if (summary != null)
+					pageSummaryById.putNoReturn(summary);
+				if (pageDetailsById != null) {
+					WiktionaryPageDetails details = pageDetailsById.get(pageId);
+					if (details != null)
+						pageDetailsById.putNoReturn(details);
+				}
+				
+				pageIdx++;
+				if (pageIdx % 100000 == 0)
+					logger.info("Rewrote " + pageIdx + " pages");
+			}
+		} finally {
+			pageIds.close();
+		}
+		
+		int fileCount = 0;
+		int cleaned;
+		while ((cleaned = env.cleanLog()) > 0)
+			fileCount += cleaned;
+		CheckpointConfig checkpoint = new CheckpointConfig();
+		checkpoint.setForce(true);
+		env.checkpoint(checkpoint);
+		layoutByTitle = true;
+		logger.info("Rewrote " + pageIdx + " pages in title order and cleaned " 
+				+ fileCount + " log files");
+	}
+	
+	/** Stores the given page details, which are compressed if a 
+	 *  dictionary is available. Otherwise, the details are kept as a 
+	 *  sample for training the dictionary if compression is enabled. */
+	protected void savePageDetails(final WiktionaryPageDetails details) 
+			throws DatabaseException {
+		if (compressPageDetails && detailsCompressor != null)
+			details.compress(detailsCompressor);
+		pageDetailsById.putNoReturn(details);
+		
+		if (compressPageDetails && detailsCompressor == null) {
+			if (detailsSamples == null)
+				detailsSamples = new LinkedHashMap<Long, byte[]>();
+			detailsSamples.put(details.getPageId(), details.toByteArray());
+			if (detailsSamples.size() >= DETAILS_SAMPLE_COUNT)
+				trainDetailsDictionary();
+		}
+	}
+	
+	/** Trains the dictionary for compressing the page details on the
+	 *  collected samples, saves it, and replaces the sample records by 
+	 *  their compressed form. */
+	protected void trainDetailsDictionary() throws DatabaseException {
+		List<byte[]> samples = new ArrayList<byte[]>(detailsSamples.values());
+		detailsCompressor = new DictionaryCompressor(DictionaryCompressor.train(
+				samples, DictionaryCompressor.MAX_DICTIONARY_SIZE));
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(new File(dbPath, PAGE_DETAILS_DICTIONARY_FILE_NAME))));
+			try {
+				detailsCompressor.write(out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save page details dictionary", e);
+		}
+		
+		for (Entry<Long, byte[]> sample : detailsSamples.entrySet())
+			pageDetailsById.putNoReturn(WiktionaryPageDetails.compressed(
+					sample.getKey(), detailsCompressor.compress(sample.getValue())));
+		logger.info("Trained page details dictionary of " 
+				+ detailsCompressor.getDictionary().length + " bytes on "
+				+ samples.size() + " pages");
+		detailsSamples = null;
+	}
+	
+	/** Removes the stored page with the ID of the given page along with
+	 *  its proxies, index records, and details, such that the given page 
+	 *  can be saved as a new page. Renamed pages are thus moved within the
+	 *  title indexes. Stored pages of the same revision are kept and 
+	 *  overwritten by {@link #savePage(WiktionaryPage)}. 
+	 *  @return false if the stored page has a newer revision than the 
+	 *    given page, which should then be skipped. */
+	protected boolean removeStoredPage(final WiktionaryPage page) 
+			throws DatabaseException {
+		WiktionaryPage stored = loadPage(pageById.get(page.getId()), null);
+		if (stored == null)
+			return true;
+		if (stored.getRevision() > page.getRevision()) {
+			skippedPageCount++;
+			return false;
+		}
+		
+		// Pages of the same revision are overwritten as before, which 
+		// keeps pages loaded from this database and saved again (e.g., 
+		// when adding the Wikisaurus relations) unchanged.
+		if (stored.getRevision() == page.getRevision())
+			return true;
+		
+		deletePage(stored);
+		for (WiktionaryEntry entry : stored.entries()) {
+			senseCount -= entry.senses().size();
+			entryCount--;
+		}
+		pageCount--;
+		updatedPageCount++;
+		return true;
+	}
+	
+	/** Removes the given stored page along with its proxies, index 
+	 *  records, and details. The counts are not changed. */
+	protected void deletePage(final WiktionaryPage stored) 
+			throws DatabaseException {
+		// The word forms and translations need to be read before the
+		// details are removed.
+		if (saveWordFormIndex)
+			removeWordForms(stored);
+		if (saveTranslationIndex)
+			removeTranslations(stored);
+		if (saveProxies)
+			for (WiktionaryEntry entry : stored.entries()) {
+				entryByKey.delete(entry.getKey());
+				for (WiktionarySense sense : entry.senses())
+					senseByKey.delete(sense.getKey());
+			}
+		if (entryIdOffsetByPage != null)
+			entryIdOffsetByPage.delete(stored.getId());
+		if (pageDetailsById != null)
+			pageDetailsById.delete(stored.getId());
+		if (detailsSamples != null)
+			detailsSamples.remove(stored.getId());
+		pageSummaryById.delete(stored.getId());
+		pageById.delete(stored.getId());
 	}
 	
 	/** Adds the given Wiktionary page to the database. 
 	 *  @throws DatabaseException if the page could not be stored, which is,
 	 *      i.e. the case if the DB is in read-only mode. */
 	public void savePage(final WiktionaryPage page) throws DatabaseException {
-		WiktionaryPage existing = pageById.put(page);
+		if (updateExisting && !removeStoredPage(page))
+			return;
+		
+		WiktionaryPage existing;
+		WiktionaryPageDetails details = null;
+		if (savePageDetails) {
+			details = WiktionaryPageDetails.detach(page);
+			try {
+				existing = pageById.put(page);
+			} finally {
+				details.attach(page);
+			}
+			if (!details.isEmpty())
+				savePageDetails(details);
+			else if (existing != null) {
+				pageDetailsById.delete(page.getId());
+				if (detailsSamples != null)
+					detailsSamples.remove(page.getId());
+			}
+		} else
+			existing = pageById.put(page);
+		pageSummaryById.putNoReturn(new WiktionaryPageSummary(page));
 		if (existing == null) {
 			for (WiktionaryEntry entry : page.entries()) {
-				entryByKey.put(new WiktionaryEntryProxy(entry));
+				if (saveProxies)
+					entryByKey.putNoReturn(new WiktionaryEntryProxy(entry));
 				for (WiktionarySense sense : entry.senses()) {
-					senseByKey.put(new WiktionarySenseProxy(sense));
+					if (saveProxies)
+						senseByKey.putNoReturn(new WiktionarySenseProxy(sense));
 					senseCount++;
 				}
 				entryCount++;
 			}
+			if (entryIndexByTitle && page.getEntryCount() > 0)
+				entryIdOffsetByPage.putNoReturn(new WiktionaryEntryIdOffset(
+						page.getId(), page.getEntryCount()));
 			pageCount++;
 		}
+		
+		// Translations are also indexed for existing pages, since they
+		// might have been extended; the proxies are idempotent.
+		if (saveWordFormIndex)
+			saveWordForms(page);
+		if (saveTranslationIndex)
+			saveTranslations(page);
+		if (page.getId() > lastPageId)
+			lastPageId = page.getId();
+	}
+	
+	/** Adds a {@link WiktionaryWordFormProxy} for each inflected word form
+	 *  of the entries of the given page. */
+	protected void saveWordForms(final WiktionaryPage page) 
+			throws DatabaseException {
+		for (WiktionaryEntry entry : page.entries()) {
+			if (entry.getIndex() > CompositeKey.MAX_ENTRY_INDEX)
+				break;
+			if (entry.getWordForms() == null)
+				continue;
+			
+			long entryKey = CompositeKey.pack(page.getId(), entry.getIndex());
+			int index = 0;
+			for (IWiktionaryWordForm wordForm : entry.getWordForms()) {
+				if (wordForm.getWordForm() != null && wordForm.getWordForm().length() > 0)
+					wordFormIndex.putNoReturn(new WiktionaryWordFormProxy(
+							new WordFormProxyKey(wordForm.getWordForm(), entryKey, index), 
+							wordForm));
+				index++;
+			}
+		}
+	}
+	
+	/** Removes the {@link WiktionaryWordFormProxy} objects of the given 
+	 *  stored page. */
+	protected void removeWordForms(final WiktionaryPage page) 
+			throws DatabaseException {
+		for (WiktionaryEntry entry : page.entries()) {
+			if (entry.getIndex() > CompositeKey.MAX_ENTRY_INDEX)
+				break;
+			if (entry.getWordForms() == null)
+				continue;
+			
+			long entryKey = CompositeKey.pack(page.getId(), entry.getIndex());
+			int index = 0;
+			for (IWiktionaryWordForm wordForm : entry.getWordForms()) {
+				if (wordForm.getWordForm() != null && wordForm.getWordForm().length() > 0)
+					wordFormIndex.delete(new WordFormProxyKey(
+							wordForm.getWordForm(), entryKey, index));
+				index++;
+			}
+		}
+	}
+	
+	/** Removes the {@link WiktionaryTranslationProxy} objects of the 
+	 *  given stored page. */
+	protected void removeTranslations(final WiktionaryPage page) 
+			throws DatabaseException {
+		for (WiktionaryEntry entry : page.entries()) {
+			if (entry.getIndex() > CompositeKey.MAX_ENTRY_INDEX)
+				break;
+			
+			for (WiktionarySense sense : entry.senses()) {
+				if (sense.getTranslations() == null 
+						|| sense.getIndex() > CompositeKey.MAX_SENSE_INDEX)
+					continue;
+				
+				long senseKey = CompositeKey.pack(page.getId(), 
+						entry.getIndex(), sense.getIndex());
+				for (IWiktionaryTranslation translation : sense.getTranslations()) {
+					String normalized = WiktionaryTranslation.normalizeTranslation(
+							translation.getTranslation());
+					if (translation.getLanguage() == null 
+							|| normalized == null || normalized.length() == 0)
+						continue;
+					
+					translationIndex.delete(new TranslationProxyKey(
+							translation.getLanguage().getCode(), normalized, senseKey));
+				}
+			}
+		}
+	}
+	
+	/** Adds a {@link WiktionaryTranslationProxy} for each translation of
+	 *  the senses of the given page (including the unassigned senses). */
+	protected void saveTranslations(final WiktionaryPage page) 
+			throws DatabaseException {
+		for (WiktionaryEntry entry : page.entries()) {
+			if (entry.getIndex() > CompositeKey.MAX_ENTRY_INDEX)
+				break;
+			
+			for (WiktionarySense sense : entry.senses()) {
+				if (sense.getTranslations() == null 
+						|| sense.getIndex() > CompositeKey.MAX_SENSE_INDEX)
+					continue;
+				
+				long senseKey = CompositeKey.pack(page.getId(), 
+						entry.getIndex(), sense.getIndex());
+				for (IWiktionaryTranslation translation : sense.getTranslations()) {
+					String normalized = WiktionaryTranslation.normalizeTranslation(
+							translation.getTranslation());
+					if (translation.getLanguage() == null 
+							|| normalized == null || normalized.length() == 0)
+						continue;
+					
+					translationIndex.putNoReturn(new WiktionaryTranslationProxy(
+							new TranslationProxyKey(translation.getLanguage().getCode(),
+									normalized, senseKey)));
+				}
+			}
+		}
 	}
 	
 }
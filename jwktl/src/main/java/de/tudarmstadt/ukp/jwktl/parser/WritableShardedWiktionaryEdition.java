@@ -0,0 +1,432 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.entry.ShardedWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryPageFilter;
+import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.parser.util.IDumpInfo;
+
+/**
+ * Writable Wiktionary edition that distributes the pages over multiple
+ * {@link WritableBerkeleyDBWiktionaryEdition}s (see 
+ * {@link ShardedWiktionaryEdition}). Each shard is written by its own 
+ * thread, such that the database writes of the shards run in parallel 
+ * while the parser continues with the next pages. The shards may be 
+ * located on different disks. Example: <pre>
+ *   IWritableWiktionaryEdition wiktionaryDB = new WritableShardedWiktionaryEdition(
+ *       targetDir, Arrays.asList(new File("/disk1/shard0"), new File("/disk2/shard1")),
+ *       true, cacheSize);
+ *   new WiktionaryDumpParser(new WiktionaryArticleParser(wiktionaryDB)).parse(dumpFile);</pre>
+ * The parsed edition can then be opened using 
+ * {@link de.tudarmstadt.ukp.jwktl.JWKTL#openEdition(File)}. Resuming an 
+ * aborted import (see 
+ * {@link WritableBerkeleyDBWiktionaryEdition#openForResume(File)}) is not 
+ * supported for sharded editions.
+ */
+public class WritableShardedWiktionaryEdition extends ShardedWiktionaryEdition
+		implements IWritableWiktionaryEdition {
+
+	private static final Logger logger = Logger.getLogger(WritableShardedWiktionaryEdition.class.getName());
+
+	/** The maximum number of pages per shard waiting to be written. */
+	public static final int WRITE_QUEUE_SIZE = 1000;
+
+	protected List<File> shardPaths;
+	protected List<WritableBerkeleyDBWiktionaryEdition> writableShards;
+	protected List<ExecutorService> writers;
+	protected List<Semaphore> writeQueues;
+	protected AtomicReference<RuntimeException> writeError;
+
+	/** Shorthand for {@link #WritableShardedWiktionaryEdition(File, List, 
+	 *  boolean, Long)} with the given number of shards in the 
+	 *  subdirectories <code>shard0</code>, <code>shard1</code>, etc. of 
+	 *  the given path and a total cacheSize set to half the size of the 
+	 *  current JVM max memory. */
+	public WritableShardedWiktionaryEdition(final File dbPath, int shardCount,
+			boolean overwriteExisting) {
+		this(dbPath, getDefaultShardPaths(dbPath, shardCount), overwriteExisting,
+				Runtime.getRuntime().maxMemory() / 2);
+	}
+
+	/** Instanciates the writable sharded Wiktionary database for the given
+	 *  database path, which contains the {@link #SHARDS_FILE_NAME} file 
+	 *  after the import. 
+	 *  @param shardPaths the paths of the shard databases.
+	 *  @param overwriteExisting if set to <code>false</code>, an exception
+	 *  	is thrown if one of the paths is not empty. Otherwise, existing 
+	 *  	parsed Wiktionary databases will be overwritten. 
+	 *  @param cacheSize denotes the total size of the caches (in Bytes) 
+	 *  	used by the shards. */
+	public WritableShardedWiktionaryEdition(final File dbPath, 
+			final List<File> shardPaths, boolean overwriteExisting, 
+			final Long cacheSize) {
+		this(dbPath, shardPaths, createShards(dbPath, shardPaths, 
+				overwriteExisting, cacheSize));
+	}
+
+	protected WritableShardedWiktionaryEdition(final File dbPath,
+			final List<File> shardPaths,
+			final List<WritableBerkeleyDBWiktionaryEdition> shards) {
+		super(dbPath, shards);
+		this.shardPaths = new ArrayList<File>(shardPaths);
+		writableShards = new ArrayList<WritableBerkeleyDBWiktionaryEdition>(shards);
+		writers = new ArrayList<ExecutorService>(shards.size());
+		writeQueues = new ArrayList<Semaphore>(shards.size());
+		for (int i = 0; i < shards.size(); i++) {
+			writers.add(Executors.newSingleThreadExecutor());
+			writeQueues.add(new Semaphore(WRITE_QUEUE_SIZE));
+		}
+		writeError = new AtomicReference<RuntimeException>();
+	}
+
+	protected static List<File> getDefaultShardPaths(final File dbPath,
+			int shardCount) {
+		if (shardCount < 1)
+			throw new IllegalArgumentException("Shard count must be positive");
+		List<File> result = new ArrayList<File>(shardCount);
+		for (int i = 0; i < shardCount; i++)
+			result.add(new File(dbPath, "shard" + i));
+		return result;
+	}
+
+	protected static List<WritableBerkeleyDBWiktionaryEdition> createShards(
+			final File dbPath, final List<File> shardPaths, 
+			boolean overwriteExisting, final Long cacheSize) {
+		if (shardPaths.isEmpty())
+			throw new IllegalArgumentException("Sharded edition requires at least one shard");
+		File shardsFile = new File(dbPath, SHARDS_FILE_NAME);
+		if (shardsFile.exists()) {
+			if (!overwriteExisting)
+				throw new WiktionaryException("Target directory is not empty");
+			if (!shardsFile.delete())
+				throw new WiktionaryException("Unable to remove " + shardsFile);
+		}
+		
+		Long shardCacheSize = (cacheSize == null ? null : cacheSize / shardPaths.size());
+		List<WritableBerkeleyDBWiktionaryEdition> result 
+				= new ArrayList<WritableBerkeleyDBWiktionaryEdition>(shardPaths.size());
+		try {
+			for (File shardPath : shardPaths)
+				result.add(new WritableBerkeleyDBWiktionaryEdition(shardPath, 
+						overwriteExisting, shardCacheSize));
+		} catch (RuntimeException e) {
+			for (WritableBerkeleyDBWiktionaryEdition shard : result)
+				shard.close();
+			throw e;
+		}
+		return result;
+	}
+
+	/** Returns the writable shards, e.g., for configuring the indexes 
+	 *  they build before parsing. */
+	public List<WritableBerkeleyDBWiktionaryEdition> getWritableShards() {
+		return writableShards;
+	}
+
+
+	// -- Shard writers --
+
+	/** Task that is run on a single shard by its writer thread. */
+	protected interface IShardTask {
+		
+		public void run(final WritableBerkeleyDBWiktionaryEdition shard);
+		
+	}
+
+	/** Runs the given task on all shards in parallel after their pending 
+	 *  pages have been written and waits for its completion.
+	 *  @throws RuntimeException the first exception thrown by the task. */
+	protected void runOnShards(final IShardTask task) {
+		List<Future<?>> futures = new ArrayList<Future<?>>(writableShards.size());
+		for (int i = 0; i < writableShards.size(); i++) {
+			final WritableBerkeleyDBWiktionaryEdition shard = writableShards.get(i);
+			futures.add(writers.get(i).submit(new Runnable() {
+				public void run() {
+					task.run(shard);
+				}
+			}));
+		}
+		
+		RuntimeException error = null;
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (error == null)
+					error = (e.getCause() instanceof RuntimeException
+							? (RuntimeException) e.getCause()
+							: new WiktionaryException(e.getCause()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new WiktionaryException("Interrupted while waiting for the shards", e);
+			}
+		}
+		if (error != null)
+			throw error;
+		checkWriteError();
+	}
+
+	/** Waits until all saved pages have been written to the shards.
+	 *  @throws WiktionaryException if one of the pages could not be 
+	 *    written. */
+	public void flush() {
+		for (int i = 0; i < writableShards.size(); i++)
+			flush(i);
+	}
+
+	/** Waits until the saved pages of the given shard have been written.
+	 *  A shard has pending pages if not all permits of its write queue 
+	 *  are available.
+	 *  @throws WiktionaryException if one of the pages could not be 
+	 *    written. */
+	protected void flush(int shardIdx) {
+		if (writeQueues.get(shardIdx).availablePermits() < WRITE_QUEUE_SIZE) {
+			try {
+				writers.get(shardIdx).submit(new Runnable() {
+					public void run() {}
+				}).get();
+			} catch (ExecutionException e) {
+				throw new WiktionaryException(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new WiktionaryException("Interrupted while waiting for shard " + shardIdx, e);
+			}
+		}
+		checkWriteError();
+	}
+
+	protected void checkWriteError() {
+		RuntimeException error = writeError.get();
+		if (error != null)
+			throw error;
+	}
+
+	/** Waits for the pending pages before each read, such that the 
+	 *  parsers find the pages they have saved before. Lookups by title 
+	 *  only wait for the shard storing the title. */
+	@Override
+	protected void ensureOpen() {
+		super.ensureOpen();
+		flush();
+	}
+
+
+	// -- Writable edition --
+
+	public WiktionaryPage getPageForId(long id) {
+		ensureOpen();
+		for (WritableBerkeleyDBWiktionaryEdition shard : writableShards) {
+			WiktionaryPage page = shard.getPageForId(id);
+			if (page != null)
+				return page;
+		}
+		return null;
+	}
+
+	public WiktionaryPage getPageForWord(final String word) {
+		super.ensureOpen();
+		if (word == null)
+			return null;
+		
+		int shardIdx = getShardIndex(word);
+		flush(shardIdx);
+		return writableShards.get(shardIdx).getPageForWord(word);
+	}
+
+	@Override
+	public List<IWiktionaryPage> getPagesForWord(final String word,
+			final IWiktionaryPageFilter filter, boolean normalize) {
+		super.ensureOpen();
+		if (word == null)
+			return null;
+		
+		int shardIdx = getShardIndex(word);
+		flush(shardIdx);
+		return writableShards.get(shardIdx).getPagesForWord(word, filter, normalize);
+	}
+
+	/** Adds the given page to the write queue of its shard. The method 
+	 *  blocks if there are {@link #WRITE_QUEUE_SIZE} pages waiting for 
+	 *  this shard. 
+	 *  @throws WiktionaryException if one of the previous pages could not 
+	 *    be written. */
+	public void savePage(final WiktionaryPage page) {
+		checkWriteError();
+		int shardIdx = getShardIndex(page.getTitle());
+		final WritableBerkeleyDBWiktionaryEdition shard = writableShards.get(shardIdx);
+		final Semaphore writeQueue = writeQueues.get(shardIdx);
+		try {
+			writeQueue.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WiktionaryException("Interrupted while saving page " + page.getTitle(), e);
+		}
+		
+		writers.get(shardIdx).execute(new Runnable() {
+			public void run() {
+				try {
+					if (writeError.get() == null)
+						shard.savePage(page);
+				} catch (RuntimeException e) {
+					writeError.compareAndSet(null, 
+							new WiktionaryException("Unable to save page " + page.getTitle(), e));
+				} finally {
+					writeQueue.release();
+				}
+			}
+		});
+	}
+
+	/** Commits all shards in parallel after their pending pages have 
+	 *  been written. */
+	public void commit() {
+		runOnShards(new IShardTask() {
+			public void run(final WritableBerkeleyDBWiktionaryEdition shard) {
+				shard.commit();
+			}
+		});
+	}
+
+	/** Saves the properties of all shards in parallel, which includes 
+	 *  building their indexes, and writes the {@link #SHARDS_FILE_NAME} 
+	 *  file listing the shard paths. */
+	public void saveProperties(final IDumpInfo dumpInfo)
+			throws WiktionaryException {
+		long time = System.currentTimeMillis();
+		flush();
+		assignEntryIdBases();
+		runOnShards(new IShardTask() {
+			public void run(final WritableBerkeleyDBWiktionaryEdition shard) {
+				shard.saveProperties(dumpInfo);
+			}
+		});
+		saveShardPaths();
+		logger.info("Saved " + writableShards.size() + " shards in "
+				+ (System.currentTimeMillis() - time) + " ms");
+	}
+
+	/** Assigns disjoint ranges of entry IDs to the shards if the entry 
+	 *  IDs are assigned by title. The entry ID base of each shard is the
+	 *  total number of entries of the previous shards. */
+	protected void assignEntryIdBases() {
+		if (!writableShards.get(0).getEntryIndexByTitle()) {
+			entryIdBases = null;
+			return;
+		}
+		
+		entryIdBases = new long[writableShards.size()];
+		long entryIdBase = 0;
+		for (int i = 0; i < writableShards.size(); i++) {
+			WritableBerkeleyDBWiktionaryEdition shard = writableShards.get(i);
+			shard.setEntryIdBase(entryIdBase);
+			entryIdBases[i] = entryIdBase;
+			entryIdBase += shard.entryCount;
+		}
+	}
+
+	/** Writes the {@link #SHARDS_FILE_NAME} file. Shard paths within the 
+	 *  database path are saved relative to it, such that the edition can 
+	 *  be moved. */
+	protected void saveShardPaths() {
+		Properties properties = new Properties();
+		properties.setProperty(SHARD_COUNT_PROPERTY, Integer.toString(shardPaths.size()));
+		for (int i = 0; i < shardPaths.size(); i++) {
+			File shardPath = shardPaths.get(i);
+			boolean isRelative = dbPath.getAbsoluteFile().equals(
+					shardPath.getAbsoluteFile().getParentFile());
+			properties.setProperty(SHARD_PATH_PROPERTY + i, (isRelative 
+					? shardPath.getName() : shardPath.getAbsolutePath()));
+			if (entryIdBases != null)
+				properties.setProperty(SHARD_PATH_PROPERTY + i + ENTRY_ID_BASE_PROPERTY,
+						Long.toString(entryIdBases[i]));
+		}
+		
+		try {
+			OutputStream stream = new FileOutputStream(new File(dbPath, SHARDS_FILE_NAME));
+			try {
+				properties.store(stream, "JWKTL sharded edition");
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to save shards", e);
+		}
+	}
+
+	/** Resuming an aborted import is not supported for sharded editions.
+	 *  @return always -1. */
+	public long getResumePageId() {
+		return -1;
+	}
+
+	public void setLanguage(final ILanguage language) {
+		for (WritableBerkeleyDBWiktionaryEdition shard : writableShards)
+			shard.setLanguage(language);
+	}
+
+	/** Sets the entry ID assignment of all shards. If the entry IDs are 
+	 *  assigned by title, each shard assigns a disjoint range of IDs 
+	 *  (see {@link ShardedWiktionaryEdition#getEntryForId(long)}). */
+	public void setEntryIndexByTitle(boolean entryIndexByTitle) {
+		for (WritableBerkeleyDBWiktionaryEdition shard : writableShards)
+			shard.setEntryIndexByTitle(entryIndexByTitle);
+	}
+
+
+	// -- Close --
+
+	/** Waits for the pending pages and closes the shards.
+	 *  @throws WiktionaryException if one of the pending pages could not 
+	 *    be written. */
+	@Override
+	protected void doClose() {
+		for (ExecutorService writer : writers)
+			writer.shutdown();
+		try {
+			for (ExecutorService writer : writers)
+				writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WiktionaryException("Interrupted while closing the shards", e);
+		} finally {
+			super.doClose();
+		}
+		checkWriteError();
+	}
+
+}
@@ -0,0 +1,501 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.parser.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
+import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryIterator;
+
+/**
+ * File containing the raw text of the article pages of a Wiktionary dump
+ * keyed by their page IDs. The texts are grouped into blocks that are
+ * compressed individually, and a block index at the end of the file
+ * allows for seeking the block of a certain page. Storing the texts
+ * while parsing a dump (see
+ * <code>WiktionaryArticleParser.setTextStore(File)</code>) allows for
+ * parsing them again with an improved entry parser without decompressing
+ * and reading the XML dump (see
+ * <code>WiktionaryTextStoreParser</code>). The blocks can be read
+ * concurrently by multiple threads.
+ */
+public class WiktionaryTextStore {
+
+	private static final Logger logger = Logger.getLogger(WiktionaryTextStore.class.getName());
+
+	/** The default name of the file containing the texts. */
+	public static final String FILE_NAME = "wiktionary.text";
+
+	/** The default number of uncompressed bytes per block. */
+	public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+	protected static final int FORMAT_VERSION = 1;
+
+	/** The raw text of an article page along with the page's meta data. */
+	public static class Record {
+
+		protected long pageId;
+		protected long revision;
+		protected String title;
+		protected String author;
+		protected Date timestamp;
+		protected String text;
+
+		public Record(long pageId, long revision, final String title,
+				final String author, final Date timestamp, final String text) {
+			this.pageId = pageId;
+			this.revision = revision;
+			this.title = title;
+			this.author = author;
+			this.timestamp = timestamp;
+			this.text = text;
+		}
+
+		/** Creates a record for the given page and text. */
+		public Record(final WiktionaryPage page, final String text) {
+			this(page.getId(), page.getRevision(), page.getTitle(),
+					page.getAuthor(), page.getTimestamp(), text);
+		}
+
+		public long getPageId() {
+			return pageId;
+		}
+
+		public long getRevision() {
+			return revision;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public String getAuthor() {
+			return author;
+		}
+
+		public Date getTimestamp() {
+			return timestamp;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		/** Creates an empty page with the meta data of this record that is
+		 *  to be filled by an entry parser. */
+		public WiktionaryPage createPage(final ILanguage entryLanguage) {
+			WiktionaryPage result = new WiktionaryPage();
+			result.setId(pageId);
+			result.setRevision(revision);
+			result.setTitle(title);
+			result.setAuthor(author);
+			result.setTimestamp(timestamp);
+			result.setEntryLanguage(entryLanguage);
+			return result;
+		}
+
+	}
+
+	/** Writes a new text store file. The records need to be added in
+	 *  ascending order of their page IDs, which is the order of the
+	 *  pages within the dump files. */
+	public static class Writer {
+
+		protected DataOutputStream out;
+		protected long position;
+		protected int blockSize;
+		protected ByteArrayOutputStream block;
+		protected DataOutputStream blockOut;
+		protected BlockInfo blockInfo;
+		protected List<BlockInfo> blocks;
+		protected Deflater deflater;
+		protected byte[] buffer;
+		protected long lastPageId;
+
+		/** Creates the given file using the default block size. */
+		public Writer(final File file, final ILanguage language) {
+			this(file, language, DEFAULT_BLOCK_SIZE);
+		}
+
+		/** Creates the given file. Each block is compressed as soon as
+		 *  the uncompressed size of its records exceeds the given block
+		 *  size; larger blocks yield a better compression at the expense
+		 *  of reading a single text. */
+		public Writer(final File file, final ILanguage language, int blockSize) {
+			if (blockSize < 1)
+				throw new IllegalArgumentException("Block size must be positive");
+			this.blockSize = blockSize;
+			block = new ByteArrayOutputStream(blockSize + blockSize / 4);
+			blockOut = new DataOutputStream(block);
+			blocks = new ArrayList<BlockInfo>();
+			deflater = new Deflater();
+			buffer = new byte[8192];
+			lastPageId = -1;
+			try {
+				out = new DataOutputStream(new BufferedOutputStream(
+						new FileOutputStream(file)));
+				out.writeInt(FORMAT_VERSION);
+				writeString(out, language == null ? null : language.getCode());
+				position = out.size();
+			} catch (IOException e) {
+				throw new WiktionaryException("Unable to create text store " + file, e);
+			}
+		}
+
+		/** Adds the given record to the current block.
+		 *  @throws IllegalArgumentException if the page ID is not larger
+		 *    than the ID of the previous record. */
+		public void add(final Record record) {
+			if (record.getPageId() <= lastPageId)
+				throw new IllegalArgumentException("Page IDs must be ascending: "
+						+ record.getPageId() + " after " + lastPageId);
+
+			lastPageId = record.getPageId();
+			try {
+				if (blockInfo == null) {
+					blockInfo = new BlockInfo();
+					blockInfo.firstPageId = record.getPageId();
+				}
+				writeRecord(blockOut, record);
+				blockInfo.lastPageId = record.getPageId();
+				blockInfo.recordCount++;
+				if (block.size() >= blockSize)
+					flushBlock();
+			} catch (IOException e) {
+				throw new WiktionaryException("Unable to write text store", e);
+			}
+		}
+
+		/** Writes the remaining records and the block index and closes
+		 *  the file. */
+		public void close() {
+			try {
+				try {
+					flushBlock();
+					long indexPosition = position;
+					out.writeInt(blocks.size());
+					for (BlockInfo info : blocks) {
+						out.writeLong(info.firstPageId);
+						out.writeLong(info.lastPageId);
+						out.writeLong(info.position);
+						out.writeInt(info.length);
+						out.writeInt(info.recordCount);
+					}
+					out.writeLong(indexPosition);
+				} finally {
+					out.close();
+					deflater.end();
+				}
+			} catch (IOException e) {
+				throw new WiktionaryException("Unable to write text store", e);
+			}
+			logger.info("Wrote " + blocks.size() + " text blocks");
+		}
+
+		protected void flushBlock() throws IOException {
+			if (blockInfo == null)
+				return;
+
+			deflater.reset();
+			deflater.setInput(block.toByteArray());
+			deflater.finish();
+			blockInfo.position = position;
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				out.write(buffer, 0, count);
+				blockInfo.length += count;
+			}
+			position += blockInfo.length;
+			blocks.add(blockInfo);
+			blockInfo = null;
+			block.reset();
+		}
+
+	}
+
+	protected static class BlockInfo {
+
+		protected long firstPageId;
+		protected long lastPageId;
+		protected long position;
+		protected int length;
+		protected int recordCount;
+
+	}
+
+	protected RandomAccessFile file;
+	protected FileChannel channel;
+	protected ILanguage language;
+	protected BlockInfo[] blocks;
+	protected long recordCount;
+
+	protected WiktionaryTextStore() {}
+
+	/** Opens the given text store file for reading. */
+	public static WiktionaryTextStore open(final File file) {
+		WiktionaryTextStore result = new WiktionaryTextStore();
+		try {
+			result.file = new RandomAccessFile(file, "r");
+			try {
+				result.channel = result.file.getChannel();
+				result.readIndex();
+			} catch (IOException e) {
+				result.close();
+				throw e;
+			}
+			return result;
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to open text store " + file, e);
+		}
+	}
+
+	protected void readIndex() throws IOException {
+		file.seek(0);
+		if (file.readInt() != FORMAT_VERSION)
+			throw new WiktionaryException("Unsupported text store format");
+		String languageCode = readString(file);
+		language = (languageCode == null ? null : Language.findByCode(languageCode));
+
+		file.seek(file.length() - 8);
+		file.seek(file.readLong());
+		blocks = new BlockInfo[file.readInt()];
+		for (int i = 0; i < blocks.length; i++) {
+			BlockInfo info = new BlockInfo();
+			info.firstPageId = file.readLong();
+			info.lastPageId = file.readLong();
+			info.position = file.readLong();
+			info.length = file.readInt();
+			info.recordCount = file.readInt();
+			recordCount += info.recordCount;
+			blocks[i] = info;
+		}
+	}
+
+	/** Returns the language of the dump the texts have been taken from. */
+	public ILanguage getLanguage() {
+		return language;
+	}
+
+	/** Returns the number of stored texts. */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/** Returns the number of compressed blocks. */
+	public int getBlockCount() {
+		return blocks.length;
+	}
+
+	/** Returns the record of the page with the given ID or
+	 *  <code>null</code> if there is no such page. Only the block
+	 *  containing the page is read. */
+	public Record getRecord(long pageId) {
+		int low = 0;
+		int high = blocks.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (blocks[mid].lastPageId < pageId)
+				low = mid + 1;
+			else
+			if (blocks[mid].firstPageId > pageId)
+				high = mid - 1;
+			else {
+				for (Record record : readBlock(blocks[mid]))
+					if (record.getPageId() == pageId)
+						return record;
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/** Returns an iterator over all records in the order of their page
+	 *  IDs. */
+	public IWiktionaryIterator<Record> getRecords() {
+		return new BlockIterator(0, blocks.length);
+	}
+
+	/** Splits the records into at most the given number of partitions of
+	 *  consecutive blocks, which can be traversed concurrently (e.g., using
+	 *  a {@link de.tudarmstadt.ukp.jwktl.api.util.WiktionaryPartitionScanner}). */
+	public List<IWiktionaryIterator<Record>> getPartitions(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("Partition count must be positive");
+
+		count = Math.max(1, Math.min(count, blocks.length));
+		List<IWiktionaryIterator<Record>> result = new ArrayList<IWiktionaryIterator<Record>>(count);
+		for (int i = 0; i < count; i++)
+			result.add(new BlockIterator(
+					(int) ((long) blocks.length * i / count),
+					(int) ((long) blocks.length * (i + 1) / count)));
+		return result;
+	}
+
+	/** Closes the file. */
+	public void close() {
+		try {
+			file.close();
+		} catch (IOException e) {
+			logger.warning("Unable to close text store: " + e.getMessage());
+		}
+	}
+
+	protected List<Record> readBlock(final BlockInfo info) {
+		ByteBuffer data = ByteBuffer.allocate(info.length);
+		Inflater inflater = new Inflater();
+		try {
+			// Positional reads do not change the channel's position and
+			// are thus safe for concurrent use.
+			long position = info.position;
+			while (data.hasRemaining()) {
+				int count = channel.read(data, position);
+				if (count < 0)
+					throw new EOFException("Truncated text store");
+				position += count;
+			}
+
+			inflater.setInput(data.array());
+			ByteArrayOutputStream block = new ByteArrayOutputStream(info.length * 4);
+			byte[] buffer = new byte[8192];
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new EOFException("Truncated text block");
+				block.write(buffer, 0, count);
+			}
+
+			DataInputStream in = new DataInputStream(
+					new ByteArrayInputStream(block.toByteArray()));
+			List<Record> result = new ArrayList<Record>(info.recordCount);
+			for (int i = 0; i < info.recordCount; i++)
+				result.add(readRecord(in));
+			return result;
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to read text store", e);
+		} catch (DataFormatException e) {
+			throw new WiktionaryException("Unable to read text store", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	protected class BlockIterator extends WiktionaryIterator<Record> {
+
+		protected int nextBlock;
+		protected int toBlock;
+		protected List<Record> records;
+		protected int nextRecord;
+
+		public BlockIterator(int fromBlock, int toBlock) {
+			this.nextBlock = fromBlock;
+			this.toBlock = toBlock;
+		}
+
+		@Override
+		protected Record fetchNext() {
+			while (records == null || nextRecord >= records.size()) {
+				if (nextBlock >= toBlock)
+					return null;
+
+				records = readBlock(blocks[nextBlock++]);
+				nextRecord = 0;
+			}
+			return records.get(nextRecord++);
+		}
+
+		@Override
+		protected void doClose() {
+			records = null;
+		}
+
+	}
+
+
+	// -- Serialization --
+
+	protected static void writeRecord(final DataOutputStream out,
+			final Record record) throws IOException {
+		out.writeLong(record.getPageId());
+		out.writeLong(record.getRevision());
+		writeString(out, record.getTitle());
+		writeString(out, record.getAuthor());
+		out.writeLong(record.getTimestamp() == null
+				? Long.MIN_VALUE : record.getTimestamp().getTime());
+		writeString(out, record.getText());
+	}
+
+	protected static Record readRecord(final DataInputStream in)
+			throws IOException {
+		long pageId = in.readLong();
+		long revision = in.readLong();
+		String title = readString(in);
+		String author = readString(in);
+		long timestamp = in.readLong();
+		String text = readString(in);
+		return new Record(pageId, revision, title, author,
+				(timestamp == Long.MIN_VALUE ? null : new Date(timestamp)), text);
+	}
+
+	// The texts may exceed the 64K limit of writeUTF.
+	protected static void writeString(final DataOutputStream out,
+			final String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	protected static String readString(final DataInput in)
+			throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+}
@@ -28,14 +28,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
 import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
 import de.tudarmstadt.ukp.jwktl.api.RelationType;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryEntry;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryRelation;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionarySense;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
 import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.parser.IWiktionaryPageParser;
 import de.tudarmstadt.ukp.jwktl.parser.IWritableWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.parser.util.IDumpInfo;
@@ -45,6 +48,12 @@ import static de.tudarmstadt.ukp.jwktl.parser.en.components.ENSemanticRelationHa
 /**
  * (Yet experimental) parser for the Wikisaurus entries (i.e., wiki pages
  * in the Wikisaurus namespace that contain thesaurus-like information). 
+ * By default, each Wikisaurus entry is immediately merged into its 
+ * Wiktionary page, and entries whose page has not yet been imported are
+ * held back until the end of the dump. In the two-phase mode, all entries 
+ * are instead collected by a {@link WikisaurusEntrySorter} and merged 
+ * into the pages in title order after the main import, such that each 
+ * page is loaded and saved only once.
  * @author Yevgen Chebotar
  * @author Christian M. Meyer
  */
@@ -52,15 +61,39 @@ public class WikisaurusArticleParser implements IWiktionaryPageParser {
 
 	protected IWritableWiktionaryEdition wiktionaryDB;
 	protected List<WikisaurusEntry> entryQueue;
+	protected WikisaurusEntrySorter entrySorter;
 	protected String currentTitle;
 	protected String currentNamespace;
+	protected long currentPageId;
+	protected boolean resumedPageSeen;
 
 	protected Map<String, Integer> notFoundRelation;
 	protected Map<String, RelationType> relTypeMap;
 	
-	/** Instanciates the parser for the given database. */
+	/** Instanciates the parser for the given database. Each Wikisaurus 
+	 *  entry is merged into its Wiktionary page as soon as it is parsed. */
 	public WikisaurusArticleParser(final IWritableWiktionaryEdition wiktionaryDB) {
+		this(wiktionaryDB, false);
+	}
+	
+	/** Instanciates the parser for the given database. 
+	 *  @param mergeAfterImport if <code>true</code>, the Wikisaurus entries
+	 *    are sorted by title using an external sort and merged into the 
+	 *    Wiktionary pages in a single pass at the end of the dump. */
+	public WikisaurusArticleParser(final IWritableWiktionaryEdition wiktionaryDB,
+			boolean mergeAfterImport) {
+		this(wiktionaryDB, (mergeAfterImport ? new WikisaurusEntrySorter() : null));
+	}
+	
+	/** Instanciates the parser for the given database, which collects
+	 *  the Wikisaurus entries using the given sorter and merges them 
+	 *  into the Wiktionary pages at the end of the dump. If the sorter
+	 *  is <code>null</code>, each entry is merged as soon as it is 
+	 *  parsed. */
+	public WikisaurusArticleParser(final IWritableWiktionaryEdition wiktionaryDB,
+			final WikisaurusEntrySorter entrySorter) {
 		this.wiktionaryDB = wiktionaryDB;
+		this.entrySorter = entrySorter;
 		entryQueue = new LinkedList<WikisaurusEntry>();
 		
 		notFoundRelation = new HashMap<String, Integer>();
@@ -92,7 +125,11 @@ public class WikisaurusArticleParser implements IWiktionaryPageParser {
 	
 	public void onParserStart(final IDumpInfo dumpInfo) {}
 	public void onSiteInfoComplete(final IDumpInfo dumpInfo) {}
-	public void onClose(final IDumpInfo dumpInfo) {}
+	
+	public void onClose(final IDumpInfo dumpInfo) {
+		if (entrySorter != null)
+			entrySorter.close();
+	}
 	
 	public void onPageStart() {}
 	public void onPageEnd() {}
@@ -100,7 +137,20 @@ public class WikisaurusArticleParser implements IWiktionaryPageParser {
 	public void setAuthor(String author) {}
 	public void setRevision(long revisionId) {}
 	public void setTimestamp(Date timestamp) {}
-	public void setPageId(long pageId) {}
+	public void setPageId(long pageId) {
+		currentPageId = pageId;
+		
+		// The Wikisaurus pages before the checkpoint of a resumed import 
+		// need to be merged again, since their entries might have been 
+		// queued or sorted without being saved.
+		long resumePageId = wiktionaryDB.getResumePageId();
+		if (pageId <= resumePageId)
+			resumedPageSeen = true;
+		else
+		if (resumePageId >= 0 && !resumedPageSeen)
+			throw new WiktionaryException("Unable to resume merging Wikisaurus "
+					+ "entries: the pages up to page " + resumePageId + " have been skipped");
+	}
 
 	public void setTitle(final String title, final String namespace) {
 		currentTitle = title;
@@ -112,7 +162,10 @@ public class WikisaurusArticleParser implements IWiktionaryPageParser {
 			return;
 		
 		for (WikisaurusEntry entry : parseWikisaurusEntries(currentTitle, text))
-			saveWikisaurusEntry(entry, true);
+			if (entrySorter != null)
+				entrySorter.add(entry);
+			else
+				saveWikisaurusEntry(entry, true);
 	}
 
 	protected Set<WikisaurusEntry> parseWikisaurusEntries(final String title, 
@@ -196,12 +249,46 @@ public class WikisaurusArticleParser implements IWiktionaryPageParser {
 	}
 	
 	public void onParserEnd(final IDumpInfo dumpInfo) {
+		if (entrySorter != null) {
+			mergeSortedEntries();
+			entrySorter.close();
+			return;
+		}
+		
 		// Save the remaining entries.
 		for (WikisaurusEntry entry : entryQueue)
 			saveWikisaurusEntry(entry, false);
 		entryQueue.clear();
 	}
 
+	/** Merges the collected Wikisaurus entries into the Wiktionary pages. 
+	 *  Since the entries are sorted by title, the pages are visited in 
+	 *  the order of the title index, and all entries of a page are merged 
+	 *  before the page is saved. */
+	protected void mergeSortedEntries() {
+		WiktionaryIterator<WikisaurusEntry> entries = entrySorter.sortedEntries();
+		try {
+			WiktionaryPage page = null;
+			String pageTitle = null;
+			for (WikisaurusEntry entry : entries) {
+				if (!entry.getTitle().equals(pageTitle)) {
+					if (page != null)
+						wiktionaryDB.savePage(page);
+					pageTitle = entry.getTitle();
+					page = wiktionaryDB.getPageForWord(pageTitle);
+					if (page == null)
+						System.err.println("PAGE NOT FOUND: " + pageTitle);
+				}
+				if (page != null)
+					mergeWikisaurusEntry(page, entry);
+			}
+			if (page != null)
+				wiktionaryDB.savePage(page);
+		} finally {
+			entries.close();
+		}
+	}
+	
 	protected void saveWikisaurusEntry(final WikisaurusEntry wikisaurusEntry,
 			boolean allowCaching) {
 		// Find the Wiktionary page for this Wikisaurus entry.
@@ -214,6 +301,16 @@ public class WikisaurusArticleParser implements IWiktionaryPageParser {
 			return;
 		}
 		
+		mergeWikisaurusEntry(page, wikisaurusEntry);
+		wiktionaryDB.savePage(page);
+	}
+	
+	/** Adds the relations of the given Wikisaurus entry to the matching 
+	 *  word sense of the given page. The page is not saved. When resuming
+	 *  an import, relations that the sense already has are not added 
+	 *  again. */
+	protected void mergeWikisaurusEntry(final WiktionaryPage page,
+			final WikisaurusEntry wikisaurusEntry) {
 		// Find the Wiktionary entry within the Wiktionary page.
 		for (WiktionaryEntry entry : page.entries()) {
 			if (!Language.equals(entry.getWordLanguage(), wikisaurusEntry.getLanguage()))
@@ -227,11 +324,27 @@ public class WikisaurusArticleParser implements IWiktionaryPageParser {
 				continue;
 			}
 			
-			for (WiktionaryRelation relation : wikisaurusEntry.getRelations())							
+			boolean isResumed = (wiktionaryDB.getResumePageId() >= 0);
+			for (WiktionaryRelation relation : wikisaurusEntry.getRelations())
+				if (!isResumed || !hasRelation(sense, relation))
 					sense.addRelation(relation);
 		}
+	}
+	
+	protected static boolean hasRelation(final WiktionarySense sense, 
+			final IWiktionaryRelation relation) {
+		if (sense.getRelations() == null)
+			return false;
 		
-		wiktionaryDB.savePage(page);
+		for (IWiktionaryRelation existing : sense.getRelations())
+			if (existing.getLinkType() == relation.getLinkType()
+					&& existing.getRelationType() == relation.getRelationType()
+					&& existing.getTarget().equals(relation.getTarget())
+					&& (existing.getTargetSense() == null 
+							? relation.getTargetSense() == null 
+							: existing.getTargetSense().equals(relation.getTargetSense())))
+				return true;
+		return false;
 	}
 	
 	/** Extracts sense definition from Wikisaurus line. */
@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.parser.wikisaurus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
+import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
+import de.tudarmstadt.ukp.jwktl.api.RelationType;
+import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryIterator;
+
+/**
+ * External sorter for {@link WikisaurusEntry} objects. The entries are
+ * collected in memory until a configurable run size is reached. Each full
+ * run is then sorted by page title and spilled to a temporary file.
+ * {@link #sortedEntries()} merges the runs and the remaining in-memory
+ * entries, such that all entries are returned in title order while only
+ * one entry per run needs to be held in memory. This bounds the memory
+ * consumption regardless of the order of the Wikisaurus pages within
+ * the dump file.
+ */
+public class WikisaurusEntrySorter {
+
+	private static final Logger logger = Logger.getLogger(WikisaurusEntrySorter.class.getName());
+
+	/** The default number of entries held in memory before a run is
+	 *  written to disk. */
+	public static final int DEFAULT_RUN_SIZE = 50000;
+
+	// Titles are compared using String.compareTo, which corresponds to
+	// the order of the title index of the Berkeley DB.
+	protected static final Comparator<WikisaurusEntry> TITLE_ORDER = new Comparator<WikisaurusEntry>() {
+		public int compare(final WikisaurusEntry e1, final WikisaurusEntry e2) {
+			return e1.getTitle().compareTo(e2.getTitle());
+		}
+	};
+
+	protected File tempDirectory;
+	protected int runSize;
+	protected List<WikisaurusEntry> buffer;
+	protected List<File> runs;
+	protected long entryCount;
+
+	/** Instanciates the sorter using the default run size and the system's
+	 *  temporary directory. */
+	public WikisaurusEntrySorter() {
+		this(null, DEFAULT_RUN_SIZE);
+	}
+
+	/** Instanciates the sorter writing its runs to the given directory.
+	 *  @param tempDirectory the directory for the temporary run files or
+	 *    <code>null</code> to use the system's temporary directory.
+	 *  @param runSize the maximum number of entries held in memory. */
+	public WikisaurusEntrySorter(final File tempDirectory, int runSize) {
+		if (runSize < 1)
+			throw new IllegalArgumentException("Run size must be positive");
+		this.tempDirectory = tempDirectory;
+		this.runSize = runSize;
+		buffer = new ArrayList<WikisaurusEntry>();
+		runs = new ArrayList<File>();
+	}
+
+	/** Adds the given entry to the sorter. The current run is written to
+	 *  disk if it reached the maximum run size.
+	 *  @throws WiktionaryException if the run could not be written. */
+	public void add(final WikisaurusEntry entry) {
+		buffer.add(entry);
+		entryCount++;
+		if (buffer.size() >= runSize)
+			spill();
+	}
+
+	/** Returns the number of entries added to the sorter. */
+	public long getEntryCount() {
+		return entryCount;
+	}
+
+	/** Returns the number of runs written to disk so far. */
+	public int getRunCount() {
+		return runs.size();
+	}
+
+	/** Returns an iterator over all entries added so far sorted by their
+	 *  title. Entries with the same title are returned in the order they
+	 *  were added. The iterator needs to be closed if it is not traversed
+	 *  completely. No entries may be added after calling this method. */
+	public WiktionaryIterator<WikisaurusEntry> sortedEntries() {
+		Collections.sort(buffer, TITLE_ORDER);
+		final PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(
+				runs.size() + 1, new Comparator<RunReader>() {
+			public int compare(final RunReader r1, final RunReader r2) {
+				int result = TITLE_ORDER.compare(r1.current, r2.current);
+				if (result == 0)
+					result = r1.runIndex - r2.runIndex;
+				return result;
+			}
+		});
+		try {
+			for (int i = 0; i < runs.size(); i++) {
+				RunReader reader = new FileRunReader(i, runs.get(i));
+				if (reader.advance())
+					queue.add(reader);
+			}
+			RunReader memoryRun = new MemoryRunReader(runs.size(), buffer.iterator());
+			if (memoryRun.advance())
+				queue.add(memoryRun);
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to read Wikisaurus run", e);
+		}
+
+		return new WiktionaryIterator<WikisaurusEntry>() {
+
+			@Override
+			protected WikisaurusEntry fetchNext() {
+				RunReader reader = queue.poll();
+				if (reader == null)
+					return null;
+
+				WikisaurusEntry result = reader.current;
+				try {
+					if (reader.advance())
+						queue.add(reader);
+				} catch (IOException e) {
+					throw new WiktionaryException("Unable to read Wikisaurus run", e);
+				}
+				return result;
+			}
+
+			@Override
+			protected void doClose() {
+				for (RunReader reader : queue)
+					reader.close();
+				queue.clear();
+			}
+
+		};
+	}
+
+	/** Removes all temporary run files and clears the in-memory buffer. */
+	public void close() {
+		for (File run : runs)
+			if (!run.delete())
+				logger.warning("Unable to delete file: " + run);
+		runs.clear();
+		buffer.clear();
+	}
+
+	/** Sorts the in-memory buffer and writes it as a new run to disk. */
+	protected void spill() {
+		Collections.sort(buffer, TITLE_ORDER);
+		try {
+			File run = File.createTempFile("wikisaurus", ".run", tempDirectory);
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(run)));
+			try {
+				for (WikisaurusEntry entry : buffer)
+					writeEntry(out, entry);
+			} finally {
+				out.close();
+			}
+			runs.add(run);
+			logger.fine("Wrote Wikisaurus run " + run + " with " + buffer.size() + " entries");
+		} catch (IOException e) {
+			throw new WiktionaryException("Unable to write Wikisaurus run", e);
+		}
+		buffer.clear();
+	}
+
+
+	// -- Serialization --
+
+	protected static void writeEntry(final DataOutputStream out,
+			final WikisaurusEntry entry) throws IOException {
+		writeString(out, entry.getTitle());
+		writeString(out, entry.getPartOfSpeech() == null
+				? null : entry.getPartOfSpeech().name());
+		writeString(out, entry.getLanguage() == null
+				? null : entry.getLanguage().getCode());
+		writeString(out, entry.getSenseDefinition());
+		out.writeInt(entry.getRelations().size());
+		for (IWiktionaryRelation relation : entry.getRelations()) {
+			writeString(out, relation.getTarget());
+			writeString(out, relation.getTargetSense());
+			out.writeByte(relation.getRelationType().ordinal());
+		}
+	}
+
+	protected static WikisaurusEntry readEntry(final DataInputStream in)
+			throws IOException {
+		String title = readString(in);
+		String pos = readString(in);
+		String language = readString(in);
+		String senseDefinition = readString(in);
+		WikisaurusEntry result = new WikisaurusEntry(title,
+				(pos == null ? null : PartOfSpeech.valueOf(pos)),
+				(language == null ? null : Language.get(language)),
+				senseDefinition);
+		int relationCount = in.readInt();
+		for (int i = 0; i < relationCount; i++) {
+			String target = readString(in);
+			String targetSense = readString(in);
+			RelationType type = RelationType.values()[in.readByte()];
+			result.addRelation(target, targetSense, type);
+		}
+		return result;
+	}
+
+	// Strings are written as length-prefixed UTF-8 rather than using
+	// writeUTF, which is limited to 65535 bytes.
+	protected static void writeString(final DataOutputStream out,
+			final String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	protected static String readString(final DataInputStream in)
+			throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+
+	// -- Run readers --
+
+	protected static abstract class RunReader {
+
+		protected int runIndex;
+		protected WikisaurusEntry current;
+
+		protected RunReader(int runIndex) {
+			this.runIndex = runIndex;
+		}
+
+		/** Moves to the next entry of the run and returns false if there
+		 *  is no entry left. */
+		public abstract boolean advance() throws IOException;
+
+		public void close() {}
+
+	}
+
+	protected static class MemoryRunReader extends RunReader {
+
+		protected Iterator<WikisaurusEntry> entries;
+
+		public MemoryRunReader(int runIndex, final Iterator<WikisaurusEntry> entries) {
+			super(runIndex);
+			this.entries = entries;
+		}
+
+		@Override
+		public boolean advance() {
+			current = (entries.hasNext() ? entries.next() : null);
+			return (current != null);
+		}
+
+	}
+
+	protected static class FileRunReader extends RunReader {
+
+		protected DataInputStream in;
+
+		public FileRunReader(int runIndex, final File run) throws IOException {
+			super(runIndex);
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+		}
+
+		@Override
+		public boolean advance() throws IOException {
+			try {
+				current = readEntry(in);
+				return true;
+			} catch (EOFException e) {
+				current = null;
+				close();
+				return false;
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				in.close();
+			} catch (IOException e) {
+				logger.warning("Unable to close Wikisaurus run: " + e.getMessage());
+			}
+		}
+
+	}
+
+}
@@ -38,7 +38,7 @@ public abstract class WiktionaryTestCase extends TestCase {
 		workDir = new File("target/test-output/" 
 				+ getClass().getName() + "_" + this.getName());
 		deleteDirectory(workDir);
-		workDir.mkdir();
+		workDir.mkdirs();
 	}
 	
 	@Override
@@ -18,19 +18,30 @@
 package de.tudarmstadt.ukp.jwktl.api.entry;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sleepycat.je.EnvironmentStats;
 
 import de.tudarmstadt.ukp.jwktl.JWKTL;
 import de.tudarmstadt.ukp.jwktl.WiktionaryDataTestCase;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryCollection;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
 import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
 import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.filter.IWiktionaryEntryFilter;
 import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFilter;
 import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.Language;
 
 /**
@@ -65,6 +76,29 @@ public class WiktionaryCollectionTest extends WiktionaryDataTestCase {
 		wkt.close();
 	}
 	
+	/***/
+	public void testSharedCache() {
+		wkt = JWKTL.openCollection(8L * 1024 * 1024, true, 
+				wktDE.getParsedData(), wktEN.getParsedData());
+		assertEntries(wkt.getEntriesForWord("parameter", true), DE_PARAMETER, EN_PARAMETER);
+		long cacheBytes = 0;
+		for (IWiktionaryEdition edition : wkt.getEditions()) {
+			BerkeleyDBWiktionaryEdition berkeleyEdition = (BerkeleyDBWiktionaryEdition) edition;
+			assertTrue(berkeleyEdition.isSharedCache());
+			EnvironmentStats stats = berkeleyEdition.getEnvironmentStats(false);
+			assertEquals(2, stats.getNSharedCacheEnvironments());
+			assertTrue(stats.getCacheTotalBytes() > 0);
+			cacheBytes += stats.getCacheTotalBytes();
+			assertEquals(stats.getSharedCacheTotalBytes(), 
+					berkeleyEdition.getEnvironmentStats(true).getSharedCacheTotalBytes());
+		}
+		
+		// The shared cache is the sum of the editions' parts.
+		BerkeleyDBWiktionaryEdition edition = (BerkeleyDBWiktionaryEdition) 
+				wkt.getEditions().iterator().next();
+		assertEquals(edition.getEnvironmentStats(false).getSharedCacheTotalBytes(), cacheBytes);
+	}
+	
 	/***/
 	public void testGetWordEntry() {
 		// German Language.
@@ -93,6 +127,51 @@ public class WiktionaryCollectionTest extends WiktionaryDataTestCase {
 		assertEquals(0, wkt.getEntriesForWord("foo").size());
 	}
 	
+	/***/
+	public void testConcurrentQueries() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			wkt = new WiktionaryCollection();
+			wkt.addEdition(JWKTL.openEdition(wktEN.getParsedData()));
+			wkt.addEdition(JWKTL.openEdition(wktDE.getParsedData()));
+			wkt.setExecutor(executor);
+			assertEntries(wkt.getEntriesForWord("parameter", true), EN_PARAMETER, DE_PARAMETER);
+			assertEntries(wkt.getEntriesForWord("Platz"), DE_PLATZ);
+			assertEquals(2, wkt.getPagesForWord("parameter", true).size());
+			assertEquals(1, wkt.getPagesForWord("Parameter").size());
+			assertEquals(0, wkt.getSensesForWord("foo", null, false).size());
+			wkt.close();
+			
+			// Slow editions are omitted after the timeout. The stub edition
+			// blocks until the test has checked the result.
+			final CountDownLatch release = new CountDownLatch(1);
+			wkt = new WiktionaryCollection();
+			wkt.addEdition(new BerkeleyDBWiktionaryEdition(wktEN.getParsedData()) {
+				@Override
+				public List<IWiktionaryEntry> getEntriesForWord(final String word,
+						final IWiktionaryEntryFilter filter, boolean normalize) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return Collections.emptyList();
+				}
+			});
+			wkt.addEdition(JWKTL.openEdition(wktDE.getParsedData()));
+			wkt.setExecutor(executor);
+			wkt.setEditionTimeout(200, TimeUnit.MILLISECONDS);
+			try {
+				assertEntries(wkt.getEntriesForWord("parameter", true), DE_PARAMETER);
+			} finally {
+				release.countDown();
+			}
+			assertEquals(2, wkt.getPagesForWord("parameter", true).size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
 	/***/
 	public void testEntryIteration() {
 		// Complete iteration.
@@ -127,6 +206,61 @@ public class WiktionaryCollectionTest extends WiktionaryDataTestCase {
 		assertFalse(actual.hasNext());	
 	}
 	
+	/***/
+	public void testEntryPartitions() {
+		wkt = new WiktionaryCollection();
+		wkt.addEdition(JWKTL.openEdition(wktDE.getParsedData()));
+		wkt.addEdition(JWKTL.openEdition(wktEN.getParsedData()));
+		List<IWiktionaryIterator<IWiktionaryEntry>> partitions 
+				= wkt.getEntryPartitions(null, 4);
+		assertTrue(partitions.size() <= 8);
+		Set<String> keys = new HashSet<String>();
+		for (IWiktionaryIterator<IWiktionaryEntry> partition : partitions)
+			for (IWiktionaryEntry entry : partition)
+				keys.add(entry.getPage().getEntryLanguage() + ":" + entry.getKey());
+		assertEquals(wktDE.getEntries().size() + wktEN.getEntries().size(), keys.size());
+	}
+	
+	/***/
+	public void testPageGroups() {
+		wkt = new WiktionaryCollection();
+		wkt.addEdition(JWKTL.openEdition(wktEN.getParsedData()));
+		wkt.addEdition(JWKTL.openEdition(wktDE.getParsedData()));
+		
+		// Merged title order.
+		String previous = null;
+		int pageCount = 0;
+		for (IWiktionaryPage page : wkt.getAllPages(true, true)) {
+			String title = WiktionaryPage.normalizeTitle(page.getTitle());
+			if (previous != null)
+				assertTrue(previous.compareTo(title) <= 0);
+			previous = title;
+			pageCount++;
+		}
+		
+		// Groups of normalized titles.
+		int groupedPageCount = 0;
+		IWiktionaryIterator<List<IWiktionaryPage>> groups = wkt.getPageGroups(null, true);
+		for (List<IWiktionaryPage> group : groups) {
+			groupedPageCount += group.size();
+			if ("parameter".equals(group.get(0).getTitle())) {
+				assertEquals(2, group.size());
+				assertEquals(Language.ENGLISH, group.get(0).getEntryLanguage());
+				assertEquals("Parameter", group.get(1).getTitle());
+				assertEquals(Language.GERMAN, group.get(1).getEntryLanguage());
+			} else
+				for (IWiktionaryPage page : group)
+					assertEquals(WiktionaryPage.normalizeTitle(group.get(0).getTitle()), 
+							WiktionaryPage.normalizeTitle(page.getTitle()));
+		}
+		assertEquals(pageCount, groupedPageCount);
+		
+		// Exact titles differ in case.
+		groups = wkt.getPageGroups(null, false);
+		for (List<IWiktionaryPage> group : groups)
+			assertEquals(1, group.size());
+	}
+	
 	/***/
 	public void testEntryLanguageFilter() {
 		// Filter.
@@ -18,14 +18,58 @@
 package de.tudarmstadt.ukp.jwktl.api.entry;
 
 import java.io.File;
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.sleepycat.je.PreloadStats;
+import com.sleepycat.persist.EntityCursor;
 import com.sleepycat.persist.EntityStore;
 
 import de.tudarmstadt.ukp.jwktl.WiktionaryDataTestCase;
+import de.tudarmstadt.ukp.jwktl.api.IPronunciation;
+import de.tudarmstadt.ukp.jwktl.api.IPronunciation.PronunciationType;
+import de.tudarmstadt.ukp.jwktl.api.IQuotation;
+import de.tudarmstadt.ukp.jwktl.api.IWikiString;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
 import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionarySense;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryTranslation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryWordForm;
+import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
+import de.tudarmstadt.ukp.jwktl.api.RelationType;
 import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFacet;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFilter;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionarySenseFilter;
+import de.tudarmstadt.ukp.jwktl.api.util.DictionaryCompressor;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalAspect;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalCase;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalDegree;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalGender;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalMood;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalNumber;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalPerson;
+import de.tudarmstadt.ukp.jwktl.api.util.GrammaticalTense;
+import de.tudarmstadt.ukp.jwktl.api.util.ILanguage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.NonFiniteForm;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryPartitionScanner;
+import de.tudarmstadt.ukp.jwktl.parser.WiktionaryArticleParser;
+import de.tudarmstadt.ukp.jwktl.parser.WiktionaryDumpParser;
+import de.tudarmstadt.ukp.jwktl.parser.WritableBerkeleyDBWiktionaryEdition;
 
 /**
  * Test case for {@link BerkeleyDBWiktionaryEdition}.
@@ -177,6 +221,849 @@ public class WiktionaryEditionTest extends WiktionaryDataTestCase {
 		assertFalse(iter.hasNext());
 	}
 	
+	/***/
+	public void testGetEntryForId() {
+		// German Language.
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertEntry(DE_FRANCA1, wkt.getEntryForId(0));
+		assertEntry(DE_FRANCA2, wkt.getEntryForId(1));
+		assertEntry(DE_MOENCH, wkt.getEntryForId(2));
+		assertEntry(DE_PARAMETER, wkt.getEntryForId(3));
+		assertEntry(DE_PLATZ, wkt.getEntryForId(4));
+		assertNull(wkt.getEntryForId(5));
+		assertEquals(2, wkt.getPageForWord("Mönch").getEntries().get(0).getId());
+		wkt.close();
+		
+		// English Language.
+		wkt = new BerkeleyDBWiktionaryEdition(wktEN.getParsedData());
+		assertEntry(EN_PARAMETER, wkt.getEntryForId(0));
+		assertEntry(EN_PLACE1, wkt.getEntryForId(1));
+		assertEntry(EN_PLACE7, wkt.getEntryForId(7));
+		assertNull(wkt.getEntryForId(8));
+		assertEquals(7, wkt.getPageForWord("place").getEntries().get(6).getId());
+		assertTrue(wkt.hasEntryIdOffsets);
+		wkt.close();
+		
+		// Without entry IDs by title, no offsets are looked up.
+		File byIndexDir = new File(workDir, "byIndex");
+		new WiktionaryDumpParser(new WiktionaryArticleParser(
+				new WritableBerkeleyDBWiktionaryEdition(byIndexDir, true)))
+				.parse(wktEN.getDumpFile());
+		wkt = new BerkeleyDBWiktionaryEdition(byIndexDir);
+		assertFalse(wkt.hasEntryIdOffsets);
+		assertEquals(6, wkt.getPageForWord("place").getEntries().get(6).getId());
+		wkt.close();
+	}
+	
+	/***/
+	public void testGetForKey() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktEN.getParsedData());
+		IWiktionaryEntry entry = wkt.getEntryForKey("11094:6");
+		assertEntry(EN_PLACE7, entry);
+		assertEquals("11094:6", entry.getKey());
+		assertNull(wkt.getEntryForKey("11094:7"));
+		assertNull(wkt.getEntryForKey("11093:0"));
+		assertNull(wkt.getEntryForKey("place"));
+		
+		IWiktionarySense sense = wkt.getSenseForKey("11095:0:1");
+		assertEquals("11095:0:1", sense.getKey());
+		assertEquals(1, sense.getIndex());
+		assertEntry(EN_PARAMETER, sense.getEntry());
+		IWiktionarySense unassigned = wkt.getSenseForKey("11095:0:0");
+		assertEquals(wkt.getEntryForKey("11095:0").getUnassignedSense().getKey(), 
+				unassigned.getKey());
+		int senseCount = sense.getEntry().getSenseCount();
+		assertNotNull(wkt.getSenseForKey("11095:0:" + senseCount));
+		assertNull(wkt.getSenseForKey("11095:0:" + (senseCount + 1)));
+		assertNull(wkt.getSenseForKey("11095:0"));
+		wkt.close();
+	}
+	
+	/***/
+	public void testFilteredIteration() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktEN.getParsedData());
+		WiktionaryEntryFilter filter = new WiktionaryEntryFilter();
+		filter.setAllowedWordLanguages(Language.findByName("French"));
+		assertEquals(getKeys(EN_PLACE3, EN_PLACE4), getEntryKeys(filter, false));
+		assertEquals(getKeys(EN_PLACE3, EN_PLACE4), getEntryKeys(filter, true));
+		assertEquals(1, countCandidatePages(filter));
+		
+		filter.setAllowedPartsOfSpeech(PartOfSpeech.NOUN);
+		assertEquals(getFilteredEntryKeys(filter, false), getEntryKeys(filter, false));
+		filter.setAllowedWordLanguages(Language.GERMAN);
+		assertEquals(0, getEntryKeys(filter, false).size());
+		filter.setAllowedWordLanguages();
+		assertEquals(getFilteredEntryKeys(filter, true), getEntryKeys(filter, true));
+		assertEquals(2, countCandidatePages(filter));
+		
+		// Senses.
+		WiktionarySenseFilter senseFilter = new WiktionarySenseFilter();
+		senseFilter.setAllowedWordLanguages(Language.findByName("French"));
+		int senseCount = 0;
+		for (IWiktionarySense sense : wkt.getAllSenses(senseFilter)) {
+			assertEquals(Language.findByName("French"), sense.getEntry().getWordLanguage());
+			senseCount++;
+		}
+		int expectedCount = 0;
+		for (IWiktionarySense sense : wkt.getAllSenses())
+			if (senseFilter.accept(sense))
+				expectedCount++;
+		assertEquals(expectedCount, senseCount);
+		assertTrue(senseCount > 0);
+		wkt.close();
+	}
+	
+	/***/
+	public void testGetEntriesWithFacets() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktEN.getParsedData());
+		assertNotNull(wkt.getFacetIndex());
+		assertEquals(8, wkt.getFacetIndex().getEntryCount());
+		assertFacets(getKeys(EN_PLACE3, EN_PLACE4), 
+				WiktionaryEntryFacet.wordLanguage(Language.findByName("French")));
+		assertFacets(null, WiktionaryEntryFacet.wordLanguage(Language.ENGLISH),
+				WiktionaryEntryFacet.partOfSpeech(PartOfSpeech.NOUN), 
+				WiktionaryEntryFacet.translation(Language.GERMAN));
+		assertFacets(null, WiktionaryEntryFacet.relation(RelationType.SYNONYM),
+				WiktionaryEntryFacet.HAS_PRONUNCIATION);
+		assertFacets(null, WiktionaryEntryFacet.HAS_ETYMOLOGY);
+		assertFacets(new ArrayList<String>(), 
+				WiktionaryEntryFacet.wordLanguage(Language.GERMAN));
+		wkt.close();
+		
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertFacets(null, WiktionaryEntryFacet.gender(GrammaticalGender.MASCULINE),
+				WiktionaryEntryFacet.HAS_WORD_FORMS);
+		assertFacets(null, WiktionaryEntryFacet.partOfSpeech(PartOfSpeech.NOUN),
+				WiktionaryEntryFacet.translation(Language.ENGLISH));
+		assertFacets(null, WiktionaryEntryFacet.relation(RelationType.ANTONYM));
+		wkt.close();
+	}
+	
+	/***/
+	public void testGetTitleIndex() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertTrue(new File(wktDE.getParsedData(), WiktionaryTitleIndex.FILE_NAME).exists());
+		WiktionaryTitleIndex index = wkt.getTitleIndex();
+		assertSame(index, wkt.getTitleIndex());
+		
+		// Compare the index with the title iteration.
+		List<String> titles = new ArrayList<String>();
+		for (IWiktionaryPage page : wkt.getAllPages(true)) {
+			int ordinal = index.findTitle(page.getTitle());
+			assertEquals(titles.size(), ordinal);
+			assertEquals(page.getTitle(), index.getTitle(ordinal));
+			assertEquals(page.getId(), index.getPageId(ordinal));
+			assertEquals(page.getEntryCount(), index.getEntryCount(ordinal));
+			titles.add(page.getTitle());
+		}
+		assertEquals(titles.size(), index.getTitleCount());
+		assertEquals(-1, index.findTitle("Xyz"));
+		assertEquals(-1, index.findTitle(null));
+		
+		int franca = index.findTitle("França");
+		assertEquals(DE_FRANCA1.getPage(), index.getPageId(franca));
+		assertTrue(Arrays.equals(new int[]{franca}, index.findTitles("França", false)));
+		assertTrue(Arrays.equals(new int[]{franca}, index.findTitles("franca", true)));
+		assertEquals(0, index.findTitles("franca", false).length);
+		assertEquals(0, index.findTitles("franc", true).length);
+		assertEquals(Arrays.asList("Parameter", "Platz"), index.getTitlesWithPrefix("P", false, 10));
+		assertEquals(Arrays.asList("Parameter"), index.getTitlesWithPrefix("P", false, 1));
+		assertEquals(Arrays.asList("Platz"), index.getTitlesWithPrefix("pl", true, 10));
+		assertEquals(0, index.getTitlesWithPrefix("pl", false, 10).size());
+		assertEquals(Arrays.asList("França", "Mönch"), index.getTitlesWithPrefix("", true, 2));
+		
+		// França has two entries.
+		int[] top = index.findTopPrefix("", false, 2);
+		assertEquals(2, top.length);
+		assertEquals(franca, top[0]);
+		assertTrue(index.getEntryCount(top[0]) >= index.getEntryCount(top[1]));
+		assertEquals(0, index.findTopPrefix("X", false, 2).length);
+		wkt.close();
+	}
+	
+	/***/
+	public void testTitleFilter() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertTrue(new File(wktDE.getParsedData(), WiktionaryTitleFilter.FILE_NAME).exists());
+		assertNotNull(wkt.getTitleFilter());
+		assertEquals(0, wkt.getTitleFilterRejections());
+		for (IWiktionaryPage page : wkt.getAllPages()) {
+			assertEquals(page.getId(), wkt.getPageForWord(page.getTitle()).getId());
+			assertEquals(1, wkt.getPagesForWord(page.getTitle(), false).size());
+			assertTrue(wkt.getPagesForWord(page.getTitle(), true).size() > 0);
+		}
+		assertEquals(0, wkt.getTitleFilterRejections());
+		assertEquals(0, wkt.getTitleFilterFalsePositives());
+		
+		// Each lookup of a non-existing title is either rejected by the
+		// filter or counted as a false positive.
+		for (int i = 0; i < 100; i++)
+			assertNull(wkt.getPageForWord("Xyz" + i));
+		assertEquals(0, wkt.getPagesForWord("xyz", true).size());
+		assertEquals(101, wkt.getTitleFilterRejections() + wkt.getTitleFilterFalsePositives());
+		assertTrue(wkt.getTitleFilterRejections() > 90);
+		assertEquals(1, wkt.getPagesForWord("franca", true).size());
+		wkt.close();
+	}
+
+	/***/
+	public void testTitleHash() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		WiktionaryTitleHash hash = wkt.getTitleHash();
+		assertNotNull(hash);
+		int pageCount = 0;
+		for (IWiktionaryPage page : wkt.getAllPages()) {
+			assertEquals(page.getId(), hash.getPageId(page.getTitle()));
+			assertEquals(page.getId(), wkt.getPageForWord(page.getTitle()).getId());
+			pageCount++;
+		}
+		assertEquals(pageCount, hash.size());
+		
+		// Non-members are rejected by their fingerprint.
+		for (int i = 0; i < 1000; i++)
+			assertEquals(-1, hash.getPageId("Xyz" + i));
+		assertEquals(-1, hash.getPageId(null));
+		assertNull(wkt.getPageForWord("platz"));
+		assertEquals(49261, wkt.getPageForWord("França").getId());
+		wkt.close();
+		
+		// Closing the edition releases the mapping.
+		assertNull(wkt.getTitleHash());
+		try {
+			hash.getPageId("Platz");
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {}
+	}
+
+	/***/
+	public void testGetPartitions() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		List<Long> expected = new ArrayList<Long>();
+		for (IWiktionaryPage page : wkt.getAllPages())
+			expected.add(page.getId());
+		
+		for (int partitionCount = 1; partitionCount <= 64; partitionCount *= 4) {
+			List<IWiktionaryIterator<IWiktionaryPage>> partitions 
+					= wkt.getPagePartitions(null, partitionCount);
+			assertTrue(partitions.size() <= partitionCount);
+			List<Long> actual = new ArrayList<Long>();
+			for (IWiktionaryIterator<IWiktionaryPage> partition : partitions)
+				for (IWiktionaryPage page : partition)
+					actual.add(page.getId());
+			assertEquals(expected, actual);
+		}
+		
+		// Unused partitions need to be closed.
+		List<IWiktionaryIterator<IWiktionaryEntry>> partitions 
+				= wkt.getEntryPartitions(null, 3);
+		for (IWiktionaryIterator<IWiktionaryEntry> partition : partitions)
+			partition.close();
+		assertEquals(0, wkt.openCursors.size());
+		wkt.close();
+		
+		// The partition of an empty edition opens its cursor lazily.
+		wkt = new WritableBerkeleyDBWiktionaryEdition(new File(workDir, "empty"), true);
+		List<IWiktionaryIterator<IWiktionaryPage>> pagePartitions 
+				= wkt.getPagePartitions(null, 4);
+		assertEquals(1, pagePartitions.size());
+		assertEquals(0, wkt.openCursors.size());
+		assertFalse(pagePartitions.get(0).hasNext());
+		pagePartitions.get(0).close();
+		assertEquals(0, wkt.openCursors.size());
+		wkt.close();
+	}
+
+	/***/
+	public void testScanPartitions() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		final List<IWiktionaryEntry> entries = Collections.synchronizedList(
+				new ArrayList<IWiktionaryEntry>());
+		final AtomicLong senseCount = new AtomicLong();
+		WiktionaryPartitionScanner scanner = new WiktionaryPartitionScanner(3);
+		try {
+			assertEquals(wktDE.getEntries().size(), scanner.scan(
+					wkt.getEntryPartitions(null, 8), 
+					new WiktionaryPartitionScanner.IElementHandler<IWiktionaryEntry>() {
+				public void handle(final IWiktionaryEntry entry) {
+					entries.add(entry);
+				}
+			}));
+			scanner.scan(wkt.getSensePartitions(null, 8), 
+					new WiktionaryPartitionScanner.IElementHandler<IWiktionarySense>() {
+				public void handle(final IWiktionarySense sense) {
+					senseCount.incrementAndGet();
+				}
+			});
+		} finally {
+			scanner.close();
+		}
+		
+		long expectedSenseCount = 0;
+		for (IWiktionarySense sense : wkt.getAllSenses())
+			if (sense != null)
+				expectedSenseCount++;
+		assertEquals(expectedSenseCount, senseCount.get());
+		assertEquals(0, wkt.openCursors.size());
+		
+		Set<String> keys = new HashSet<String>();
+		for (IWiktionaryEntry entry : entries)
+			assertTrue(keys.add(entry.getKey()));
+		for (IWiktionaryEntry entry : wkt.getAllEntries())
+			assertTrue(keys.contains(entry.getKey()));
+		wkt.close();
+	}
+
+	/***/
+	public void testPageDetails() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertNotNull(wkt.pageDetailsById);
+		
+		// The page record does not contain the details.
+		WiktionaryPage record = wkt.pageById.get(DE_PLATZ.getPage());
+		assertNull(record.entries().get(0).wordForms);
+		BerkeleyDBWiktionaryEdition.WiktionaryPageDetails details 
+				= wkt.pageDetailsById.get(DE_PLATZ.getPage());
+		assertFalse(details.isEmpty());
+		
+		// The details are loaded upon their first access.
+		WiktionaryPage page = wkt.getPageForId(DE_PLATZ.getPage());
+		assertNotNull(page.detailsLoader);
+		assertNotNull(page.getEntries().get(0).getSense(1).getGloss());
+		assertNotNull(page.detailsLoader);
+		assertTrue(page.getEntries().get(0).getWordForms().size() > 0);
+		assertNull(page.detailsLoader);
+		assertEquals(details.entries.get(0).wordForms.size(), 
+				page.getEntries().get(0).getWordForms().size());
+		wkt.close();
+		
+		wkt = new BerkeleyDBWiktionaryEdition(wktEN.getParsedData());
+		IWiktionarySense sense = wkt.getPageForId(EN_PLACE1.getPage())
+				.getEntries().get(0).getSense(1);
+		assertTrue(sense.getTranslations(Language.GERMAN).size() > 0);
+		
+		// Details need to be loaded before closing the edition.
+		WiktionaryPage loaded = wkt.getPageForId(EN_PLACE1.getPage());
+		loaded.loadDetails();
+		WiktionaryPage unloaded = wkt.getPageForId(EN_PLACE1.getPage());
+		wkt.close();
+		assertTrue(loaded.getEntries().get(0).getSense(1)
+				.getTranslations(Language.GERMAN).size() > 0);
+		try {
+			unloaded.getEntries().get(0).getSense(1).getTranslations();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {}
+		assertNotNull(unloaded.detailsLoader);
+		
+		// By default, the details are stored within the pages, which 
+		// remain complete after closing the edition.
+		File defaultDir = new File(workDir, "default");
+		new WiktionaryDumpParser(new WiktionaryArticleParser(
+				new WritableBerkeleyDBWiktionaryEdition(defaultDir, true)))
+				.parse(wktEN.getDumpFile());
+		wkt = new BerkeleyDBWiktionaryEdition(defaultDir);
+		assertNull(wkt.pageDetailsById);
+		WiktionaryPage complete = wkt.getPageForId(EN_PLACE1.getPage());
+		assertNull(complete.detailsLoader);
+		wkt.close();
+		assertTrue(complete.getEntries().get(0).getSense(1)
+				.getTranslations(Language.GERMAN).size() > 0);
+	}
+
+	/***/
+	public void testPageDetailsSerialization() {
+		WiktionaryPage page = createDetailedPage();
+		String expected = describeDetails(page);
+		BerkeleyDBWiktionaryEdition.WiktionaryPageDetails details 
+				= BerkeleyDBWiktionaryEdition.WiktionaryPageDetails.detach(page);
+		byte[] data = details.toByteArray();
+		assertEquals(BerkeleyDBWiktionaryEdition.WiktionaryPageDetails.FORMAT_VERSION, data[0]);
+		
+		BerkeleyDBWiktionaryEdition.WiktionaryPageDetails restored 
+				= new BerkeleyDBWiktionaryEdition.WiktionaryPageDetails();
+		restored.entries = BerkeleyDBWiktionaryEdition.WiktionaryPageDetails.readEntries(data);
+		WiktionaryPage restoredPage = createDetailedPage();
+		BerkeleyDBWiktionaryEdition.WiktionaryPageDetails.detach(restoredPage);
+		restored.attach(restoredPage);
+		assertEquals(expected, describeDetails(restoredPage));
+		
+		// Unknown format version.
+		data[0] = (byte) (BerkeleyDBWiktionaryEdition.WiktionaryPageDetails.FORMAT_VERSION + 1);
+		try {
+			BerkeleyDBWiktionaryEdition.WiktionaryPageDetails.readEntries(data);
+			fail("WiktionaryException expected");
+		} catch (WiktionaryException e) {}
+	}
+	
+	/** Creates a page using every field of the page details. The enum 
+	 *  values are set to their last constant to test the ordinals. */
+	protected static WiktionaryPage createDetailedPage() {
+		WiktionaryPage result = new WiktionaryPage();
+		result.setId(42);
+		result.setTitle("détail");
+		WiktionaryEntry entry = result.createEntry();
+		entry.addPronunciation(new Pronunciation(PronunciationType.values()[
+				PronunciationType.values().length - 1], "/deˈtaɪ/", "note"));
+		entry.addPronunciation(new Pronunciation(null, "text", null));
+		WiktionaryWordForm wordForm = new WiktionaryWordForm("détails");
+		wordForm.setNumber(last(GrammaticalNumber.values()));
+		wordForm.setCase(last(GrammaticalCase.values()));
+		wordForm.setPerson(last(GrammaticalPerson.values()));
+		wordForm.setTense(last(GrammaticalTense.values()));
+		wordForm.setMood(last(GrammaticalMood.values()));
+		wordForm.setDegree(last(GrammaticalDegree.values()));
+		wordForm.setAspect(last(GrammaticalAspect.values()));
+		wordForm.setNonFiniteForm(last(NonFiniteForm.values()));
+		entry.addWordForm(wordForm);
+		entry.addWordForm(new WiktionaryWordForm(null));
+		
+		WiktionarySense sense = entry.createSense();
+		Quotation quotation = new Quotation();
+		quotation.setSource(new WikiString("''Source'', 2013"));
+		quotation.addLine(new WikiString("First '''line'''"));
+		quotation.addLine(new WikiString("Second line"));
+		sense.addQuotation(quotation);
+		sense.addQuotation(new Quotation());
+		sense.addReference(new WikiString("[[Reference]]"));
+		WiktionaryTranslation translation = new WiktionaryTranslation(Language.GERMAN, "Detail");
+		translation.setTransliteration("transliteration");
+		translation.setAdditionalInformation("{{n}}");
+		sense.addTranslation(translation);
+		sense.addTranslation(new WiktionaryTranslation(null, "none"));
+		entry.addSense(sense);
+		entry.addSense(entry.createSense()); // without details
+		result.addEntry(entry);
+		result.addEntry(result.createEntry()); // without senses
+		return result;
+	}
+	
+	protected static <T> T last(final T[] values) {
+		return values[values.length - 1];
+	}
+	
+	/** Returns a string representation of every field of the page 
+	 *  details, including the missing values. */
+	protected static String describeDetails(final WiktionaryPage page) {
+		StringBuilder result = new StringBuilder();
+		for (WiktionaryEntry entry : page.entries()) {
+			result.append("entry ").append(entry.getKey()).append('\n');
+			if (entry.getPronunciations() != null)
+				for (IPronunciation pronunciation : entry.getPronunciations())
+					result.append(pronunciation.getType()).append('|')
+							.append(pronunciation.getText()).append('|')
+							.append(pronunciation.getNote()).append('\n');
+			else
+				result.append("no pronunciations\n");
+			if (entry.getWordForms() != null)
+				for (IWiktionaryWordForm wordForm : entry.getWordForms())
+					result.append(wordForm.getWordForm()).append('|')
+							.append(wordForm.getNumber()).append('|')
+							.append(wordForm.getCase()).append('|')
+							.append(wordForm.getPerson()).append('|')
+							.append(wordForm.getTense()).append('|')
+							.append(wordForm.getMood()).append('|')
+							.append(wordForm.getDegree()).append('|')
+							.append(wordForm.getAspect()).append('|')
+							.append(wordForm.getNonFiniteForm()).append('\n');
+			else
+				result.append("no word forms\n");
+			for (WiktionarySense sense : entry.senses()) {
+				result.append("sense ").append(sense.getKey()).append('\n');
+				if (sense.getQuotations() != null)
+					for (IQuotation quotation : sense.getQuotations()) {
+						result.append(quotation.getSource() == null 
+								? null : quotation.getSource().getText()).append('\n');
+						for (IWikiString line : quotation.getLines())
+							result.append(line.getText()).append('\n');
+					}
+				else
+					result.append("no quotations\n");
+				if (sense.getReferences() != null)
+					for (IWikiString reference : sense.getReferences())
+						result.append(reference.getText()).append('\n');
+				else
+					result.append("no references\n");
+				if (sense.getTranslations() != null)
+					for (IWiktionaryTranslation translation : sense.getTranslations())
+						result.append(translation.getLanguage()).append('|')
+								.append(translation.getTranslation()).append('|')
+								.append(translation.getTransliteration()).append('|')
+								.append(translation.getAdditionalInformation()).append('\n');
+				else
+					result.append("no translations\n");
+			}
+		}
+		return result.toString();
+	}
+
+	/***/
+	public void testCompressPageDetails() {
+		for (WiktionaryTestData data : Arrays.asList(wktDE, wktEN)) {
+			File targetDir = new File(workDir, "compressed");
+			WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true);
+			db.setSavePageDetails(true);
+			db.setCompressPageDetails(true);
+			new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(data.getDumpFile());
+			assertTrue(new File(targetDir, BerkeleyDBWiktionaryEdition.PAGE_DETAILS_DICTIONARY_FILE_NAME).exists());
+			
+			File uncompressedDir = new File(workDir, "uncompressed");
+			db = new WritableBerkeleyDBWiktionaryEdition(uncompressedDir, true);
+			db.setSavePageDetails(true);
+			new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(data.getDumpFile());
+			
+			BerkeleyDBWiktionaryEdition uncompressed = new BerkeleyDBWiktionaryEdition(uncompressedDir);
+			wkt = new BerkeleyDBWiktionaryEdition(targetDir);
+			try {
+				DictionaryCompressor compressor = wkt.getDetailsCompressor();
+				assertNotNull(compressor);
+				assertNull(uncompressed.getDetailsCompressor());
+				
+				// Each record is compressed separately.
+				DictionaryCompressor deflate = new DictionaryCompressor(new byte[0]);
+				long size = 0;
+				long deflateSize = 0;
+				long compressedSize = 0;
+				EntityCursor<BerkeleyDBWiktionaryEdition.WiktionaryPageDetails> cursor 
+						= uncompressed.pageDetailsById.entities();
+				try {
+					for (BerkeleyDBWiktionaryEdition.WiktionaryPageDetails details : cursor) {
+						BerkeleyDBWiktionaryEdition.WiktionaryPageDetails compressed 
+								= wkt.pageDetailsById.get(details.getPageId());
+						assertTrue(compressed.isCompressed());
+						byte[] serialized = details.toByteArray();
+						size += serialized.length;
+						deflateSize += deflate.compress(serialized).length;
+						compressedSize += compressed.data.length;
+						compressed.decompress(compressor);
+						assertFalse(compressed.isCompressed());
+						assertTrue(Arrays.equals(serialized, compressed.toByteArray()));
+					}
+				} finally {
+					cursor.close();
+				}
+				assertTrue(compressedSize < deflateSize);
+				
+				assertTrue(deflateSize < size);
+				
+				// The details are decompressed upon their first access.
+				assertEquals(getDetails(uncompressed), getDetails(wkt));
+			} finally {
+				uncompressed.close();
+				wkt.close();
+			}
+			BerkeleyDBWiktionaryEdition.deleteParsedWiktionary(targetDir);
+			BerkeleyDBWiktionaryEdition.deleteParsedWiktionary(uncompressedDir);
+		}
+	}
+	
+	protected static String getDetails(final IWiktionaryEdition wkt) {
+		StringBuilder result = new StringBuilder();
+		for (IWiktionaryEntry entry : wkt.getAllEntries()) {
+			result.append(entry.getKey()).append('\n');
+			if (entry.getPronunciations() != null)
+				for (IPronunciation pronunciation : entry.getPronunciations())
+					result.append(pronunciation.getType()).append(pronunciation.getText())
+							.append(pronunciation.getNote()).append('\n');
+			if (entry.getWordForms() != null)
+				for (IWiktionaryWordForm wordForm : entry.getWordForms())
+					result.append(wordForm.getWordForm()).append(wordForm.getCase())
+							.append(wordForm.getNumber()).append('\n');
+			for (IQuotation quotation : entry.getQuotations())
+				for (IWikiString line : quotation.getLines())
+					result.append(line.getText()).append('\n');
+			for (IWikiString reference : entry.getReferences())
+				result.append(reference.getText()).append('\n');
+			for (IWiktionaryTranslation translation : entry.getTranslations())
+				result.append(translation).append(translation.getTransliteration())
+						.append(translation.getAdditionalInformation()).append('\n');
+		}
+		return result.toString();
+	}
+
+	/***/
+	public void testWarmup() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertEquals(0, wkt.getHotTitles(10).size());
+		wkt.setHotTitleTracking(2);
+		wkt.getPageForWord("Platz");
+		wkt.getPageForWord("Mönch");
+		wkt.getPageForWord("Platz");
+		wkt.getPagesForWord("Platz", false);
+		wkt.getPageForWord("França");
+		assertEquals(Arrays.asList("Platz", "Mönch"), wkt.getHotTitles(10));
+		assertEquals(Arrays.asList("Platz"), wkt.getHotTitles(1));
+		File hotTitles = new File(workDir, "hot.txt");
+		wkt.saveHotTitles(hotTitles, 10);
+		wkt.close();
+		
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		PreloadStats stats = wkt.preload(0);
+		assertTrue(stats.getNBINsLoaded() > 0);
+		assertEquals(2, wkt.loadHotTitles(hotTitles, 0));
+		assertTrue(wkt.getCacheUsage() > 0);
+		assertEquals(0, wkt.getHotTitles(10).size());
+		wkt.close();
+		
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertTrue(wkt.warmup(hotTitles, 10000) >= 0);
+		assertTrue(wkt.warmup(null, 0) >= 0);
+		assertEquals("Platz", wkt.getPageForWord("Platz").getTitle());
+	}
+
+	/***/
+	public void testGetEntriesForWordForm() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		// The word forms of this dump are encoded along with their articles.
+		List<IWiktionaryEntry> entries = wkt.getEntriesForWordForm("die Plätze");
+		assertEquals(1, entries.size());
+		assertEntry(DE_PLATZ, entries.get(0));
+		assertEquals(1, wkt.getEntriesForWordForm("Parameter").size());
+		assertEquals(0, wkt.getEntriesForWordForm("die plätze").size());
+		assertEquals(0, wkt.getEntriesForWordForm(null).size());
+		
+		List<BerkeleyDBWiktionaryEdition.WiktionaryWordFormProxy> proxies 
+				= wkt.getWordFormProxies("die Plätze");
+		assertEquals(2, proxies.size());
+		for (BerkeleyDBWiktionaryEdition.WiktionaryWordFormProxy proxy : proxies) {
+			assertEquals(entries.get(0).getKey(), proxy.getEntryKey());
+			assertEquals("die Plätze", proxy.getWordForm().getWordForm());
+			assertEquals(GrammaticalNumber.PLURAL, proxy.getWordForm().getNumber());
+		}
+		
+		// Compare the indexed batch result with a scan over all entries.
+		List<String> wordForms = new ArrayList<String>();
+		for (IWiktionaryEntry entry : wkt.getAllEntries())
+			if (entry.getWordForms() != null)
+				for (IWiktionaryWordForm wordForm : entry.getWordForms())
+					wordForms.add(wordForm.getWordForm());
+		wordForms.add("Xyz");
+		assertTrue(wordForms.size() > 10);
+		Map<String, List<IWiktionaryEntry>> batch = wkt.getEntriesForWordForms(wordForms);
+		assertEquals(new ArrayList<String>(new LinkedHashSet<String>(wordForms)), 
+				new ArrayList<String>(batch.keySet()));
+		for (String wordForm : wordForms) {
+			List<String> scanned = new ArrayList<String>();
+			for (IWiktionaryEntry entry : wkt.getAllEntries())
+				if (entry.getWordForms() != null)
+					for (IWiktionaryWordForm form : entry.getWordForms())
+						if (form.getWordForm().equals(wordForm)) {
+							scanned.add(entry.getKey());
+							break;
+						}
+			List<String> actual = new ArrayList<String>();
+			for (IWiktionaryEntry entry : batch.get(wordForm))
+				actual.add(entry.getKey());
+			assertEquals(wordForm, scanned, actual);
+		}
+		wkt.close();
+	}
+
+	/***/
+	public void testGetSensesForTranslation() {
+		assertEquals("rontgen", WiktionaryTranslation.normalizeTranslation(" Röntgen"));
+		assertEquals("место", WiktionaryTranslation.normalizeTranslation("Ме́сто"));
+		assertEquals("ελλαδα", WiktionaryTranslation.normalizeTranslation("Ελλάδα"));
+		
+		// The combining marks of other scripts distinguish words.
+		assertEquals("が", WiktionaryTranslation.normalizeTranslation("が"));
+		assertEquals("が", WiktionaryTranslation.normalizeTranslation("\u304b\u3099"));
+		assertFalse(WiktionaryTranslation.normalizeTranslation("かき").equals(
+				WiktionaryTranslation.normalizeTranslation("がき")));
+		assertEquals("हिन्दी", WiktionaryTranslation.normalizeTranslation("हिन्दी"));
+		assertFalse(WiktionaryTranslation.normalizeTranslation("कम").equals(
+				WiktionaryTranslation.normalizeTranslation("काम")));
+		String shalom = Normalizer.normalize("שָׁלוֹם", Form.NFC);
+		assertEquals(shalom, WiktionaryTranslation.normalizeTranslation(shalom));
+		assertFalse("שלום".equals(WiktionaryTranslation.normalizeTranslation(shalom)));
+		
+		wkt = new BerkeleyDBWiktionaryEdition(wktEN.getParsedData());
+		assertNotNull(wkt.translationIndex);
+		List<String> senses = assertTranslation(Language.GERMAN, "Platz");
+		assertTrue(senses.size() > 1);
+		for (String sense : senses)
+			assertTrue(sense.startsWith(EN_PLACE1.getPage() + ":"));
+		assertEquals(senses, assertTranslation(Language.GERMAN, "platz"));
+		assertEquals(1, assertTranslation(Language.GERMAN, "Ort").size());
+		assertEquals(0, assertTranslation(Language.ENGLISH, "Platz").size());
+		assertEquals(0, assertTranslation(Language.GERMAN, "Xyz").size());
+		assertEquals(0, assertTranslation(null, "Platz").size());
+		wkt.close();
+		
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertTrue(assertTranslation(Language.ENGLISH, "place").size() > 0);
+		assertTrue(assertTranslation(Language.findByName("French"), "place").size() > 0);
+		wkt.close();
+	}
+	
+	protected List<String> assertTranslation(final ILanguage language, 
+			final String translation) {
+		// Compare the indexed result with a scan over all senses.
+		List<String> scanned = new ArrayList<String>();
+		String normalized = WiktionaryTranslation.normalizeTranslation(translation);
+		for (IWiktionaryEntry entry : wkt.getAllEntries())
+			for (int i = 0; i <= entry.getSenseCount(); i++)
+				for (IWiktionaryTranslation trans : entry.getSense(i).getTranslations(language))
+					if (language != null && normalized.equals(
+							WiktionaryTranslation.normalizeTranslation(trans.getTranslation()))) {
+						scanned.add(entry.getSense(i).getKey());
+						break;
+					}
+		List<String> actual = new ArrayList<String>();
+		for (IWiktionarySense sense : wkt.getSensesForTranslation(language, translation))
+			actual.add(sense.getKey());
+		assertEquals(scanned, actual);
+		return actual;
+	}
+	
+	/***/
+	public void testGetRelationGraph() {
+		wkt = new BerkeleyDBWiktionaryEdition(wktEN.getParsedData());
+		WiktionaryRelationGraph graph = wkt.getRelationGraph();
+		assertSame(graph, wkt.getRelationGraph());
+		assertRelationGraph(graph);
+		
+		int place = graph.getNode("place");
+		assertEquals("place", graph.getTitle(place));
+		assertEquals(EN_PLACE1.getPage(), graph.getPageId(place));
+		assertEquals(-1, graph.getNode("Xyz"));
+		int[] synonyms = graph.getTargets(place, RelationType.SYNONYM);
+		assertTrue(synonyms.length > 0);
+		for (int synonym : synonyms) {
+			assertEquals(-1, graph.getPageId(synonym));
+			assertEquals(1, graph.getSourceCount(synonym, RelationType.SYNONYM));
+			assertEquals(place, graph.getSource(synonym, RelationType.SYNONYM, 0));
+			assertEquals(place, graph.traverse(synonym, RelationType.SYNONYM, true, 1)[0]);
+		}
+		assertTrue(Arrays.equals(synonyms, 
+				graph.traverse(place, RelationType.SYNONYM, false, 1)));
+		assertTrue(Arrays.equals(synonyms, 
+				graph.getTransitiveClosure(place, RelationType.SYNONYM)));
+		assertEquals(0, graph.traverse(place, RelationType.SYNONYM, false, 0).length);
+		wkt.close();
+		
+		// Compare the saved graph with a newly created one.
+		wkt = new BerkeleyDBWiktionaryEdition(wktDE.getParsedData());
+		assertTrue(new File(wktDE.getParsedData(), WiktionaryRelationGraph.FILE_NAME).exists());
+		graph = wkt.getRelationGraph();
+		WiktionaryRelationGraph built = WiktionaryRelationGraph.build(wkt);
+		assertTrue(Arrays.equals(graph.titles, built.titles));
+		for (RelationType relationType : RelationType.values())
+			assertEquals(built.getEdgeCount(relationType), graph.getEdgeCount(relationType));
+		assertRelationGraph(graph);
+		wkt.close();
+	}
+	
+	/***/
+	public void testRelationGraphTraversal() {
+		// a -> b -> c -> a, b -> d, e -> d
+		WiktionaryRelationGraph graph = new WiktionaryRelationGraph();
+		graph.titles = new String[]{"a", "b", "c", "d", "e"};
+		graph.pageIds = new long[]{1, 2, 3, 4, -1};
+		for (RelationType relationType : RelationType.values())
+			graph.setEdges(relationType.ordinal(), new long[0], 5);
+		graph.setEdges(RelationType.HYPERNYM.ordinal(), new long[]{
+				(0L << 32) | 1, (1L << 32) | 2, (2L << 32) | 0, 
+				(1L << 32) | 3, (4L << 32) | 3, (4L << 32) | 3}, 5);
+		assertEquals(5, graph.getEdgeCount(RelationType.HYPERNYM));
+		assertTrue(Arrays.equals(new int[]{2, 3}, graph.getTargets(1, RelationType.HYPERNYM)));
+		assertTrue(Arrays.equals(new int[]{1, 4}, graph.getSources(3, RelationType.HYPERNYM)));
+		assertTrue(Arrays.equals(new int[]{1}, graph.traverse(0, RelationType.HYPERNYM, false, 1)));
+		assertTrue(Arrays.equals(new int[]{1, 2, 3}, graph.traverse(0, RelationType.HYPERNYM, false, 2)));
+		assertTrue(Arrays.equals(new int[]{1, 2, 3, 0}, graph.getTransitiveClosure(0, RelationType.HYPERNYM)));
+		assertTrue(Arrays.equals(new int[]{1, 4, 0, 2}, graph.traverse(3, RelationType.HYPERNYM, true, -1)));
+		assertEquals(0, graph.getTransitiveClosure(3, RelationType.HYPERNYM).length);
+		assertEquals(0, graph.getTransitiveClosure(0, RelationType.SYNONYM).length);
+		
+		// Chain of many nodes with a cycle back to the second node.
+		final int NODE_COUNT = 1000;
+		graph.titles = new String[NODE_COUNT];
+		graph.pageIds = new long[NODE_COUNT];
+		long[] edges = new long[NODE_COUNT];
+		for (int i = 0; i < NODE_COUNT; i++) {
+			graph.titles[i] = String.format("t%04d", i);
+			edges[i] = ((long) i << 32) | (i + 1 < NODE_COUNT ? i + 1 : 1);
+		}
+		graph.setEdges(RelationType.HYPERNYM.ordinal(), edges, NODE_COUNT);
+		int[] closure = graph.getTransitiveClosure(0, RelationType.HYPERNYM);
+		assertEquals(NODE_COUNT - 1, closure.length);
+		for (int i = 0; i < closure.length; i++)
+			assertEquals(i + 1, closure[i]);
+		assertEquals(10, graph.traverse(0, RelationType.HYPERNYM, false, 10).length);
+	}
+	
+	protected void assertRelationGraph(final WiktionaryRelationGraph graph) {
+		// Each relation needs to be represented by a forward and a reverse edge.
+		int[] edgeCounts = new int[RelationType.values().length];
+		for (IWiktionaryPage page : wkt.getAllPages()) {
+			int source = graph.getNode(page.getTitle());
+			assertEquals(page.getId(), graph.getPageId(source));
+			for (IWiktionaryEntry entry : page.getEntries())
+				for (IWiktionaryRelation relation : entry.getRelations()) {
+					int target = graph.getNode(relation.getTarget());
+					RelationType relationType = relation.getRelationType();
+					assertTrue(Arrays.binarySearch(graph.getTargets(source, relationType), target) >= 0);
+					assertTrue(Arrays.binarySearch(graph.getSources(target, relationType), source) >= 0);
+					edgeCounts[relationType.ordinal()]++;
+				}
+		}
+		for (RelationType relationType : RelationType.values())
+			assertTrue(graph.getEdgeCount(relationType) <= edgeCounts[relationType.ordinal()]);
+	}
+	
+	protected void assertFacets(final List<String> expected, 
+			final WiktionaryEntryFacet... facets) {
+		// Compare the indexed result with a scan over all entries.
+		List<String> scanned = new ArrayList<String>();
+		for (IWiktionaryEntry entry : wkt.getAllEntries()) {
+			boolean accept = true;
+			for (WiktionaryEntryFacet facet : facets)
+				if (!facet.accept(entry))
+					accept = false;
+			if (accept)
+				scanned.add(entry.getKey());
+		}
+		List<String> actual = new ArrayList<String>();
+		for (IWiktionaryEntry entry : wkt.getEntriesWithFacets(facets))
+			actual.add(entry.getKey());
+		if (expected != null)
+			assertEquals(expected, actual);
+		assertEquals(scanned, actual);
+		assertEquals(scanned.size(), wkt.getFacetIndex().count(facets));
+	}
+	
+	protected List<String> getEntryKeys(final WiktionaryEntryFilter filter,
+			boolean sortByTitle) {
+		List<String> result = new ArrayList<String>();
+		for (IWiktionaryEntry entry : wkt.getAllEntries(filter, sortByTitle))
+			result.add(entry.getKey());
+		return result;
+	}
+	
+	protected List<String> getFilteredEntryKeys(final WiktionaryEntryFilter filter,
+			boolean sortByTitle) {
+		List<String> result = new ArrayList<String>();
+		for (IWiktionaryEntry entry : wkt.getAllEntries(sortByTitle))
+			if (filter.accept(entry))
+				result.add(entry.getKey());
+		return result;
+	}
+	
+	protected int countCandidatePages(final WiktionaryEntryFilter filter) {
+		int result = 0;
+		IWiktionaryIterator<IWiktionaryPage> iter = wkt.getCandidatePages(filter, false, false);
+		while (iter.hasNext()) {
+			iter.next();
+			result++;
+		}
+		return result;
+	}
+	
+	protected static List<String> getKeys(final DumpEntry... entries) {
+		List<String> result = new ArrayList<String>();
+		for (DumpEntry entry : entries)
+			result.add(entry.getPage() + ":" + (entry.getId() - 1));
+		return result;
+	}
+	
 	/***/
 	public void testClose() {
 		// Multiple close.
@@ -216,4 +1103,11 @@ public class WiktionaryEditionTest extends WiktionaryDataTestCase {
 		} catch (WiktionaryException e) {}
 	}
 
+	protected static void assertEntry(final DumpEntry expected,
+			final IWiktionaryEntry actual) {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getWord(), actual.getWord());
+		assertEquals(expected.getPage(), actual.getPageId());
+	}
+
 }
@@ -17,12 +17,15 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.jwktl.api.entry;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 
 import junit.framework.TestCase;
+import de.tudarmstadt.ukp.jwktl.api.util.HierarchicalWiktionaryIterator;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryIterator;
 
 /**
@@ -141,4 +144,23 @@ public class WiktionaryIteratorTest extends TestCase {
 		iter.close();
 	}
 	
+	/***/
+	public void testHierarchicalIterator() {
+		// Empty inner iterators are skipped.
+		WiktionaryIterator<String> iter = new HierarchicalWiktionaryIterator<String, String>(
+				Arrays.asList("", "a", "", "", "bc", "").iterator()) {
+			protected IWiktionaryIterator<String> getInnerIterator(final String outer) {
+				queue.clear(); wasClosed = false;
+				for (char c : outer.toCharArray())
+					queue.offer(String.valueOf(c));
+				return new MyWiktionaryIterator();
+			}
+		};
+		assertEquals("a", iter.next());
+		assertEquals("b", iter.next());
+		assertEquals("c", iter.next());
+		assertFalse(iter.hasNext()); assertTrue(iter.isClosed());
+		assertTrue(wasClosed);
+	}
+	
 }
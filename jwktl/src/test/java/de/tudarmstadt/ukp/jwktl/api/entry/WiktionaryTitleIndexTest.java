@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.entry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link WiktionaryTitleIndex}.
+ */
+public class WiktionaryTitleIndexTest extends TestCase {
+
+	/***/
+	public void testFindSimilar() {
+		WiktionaryTitleIndex index = createIndex(new String[]{
+				"receive", "Receive", "recipe", "deceive", "receiver", 
+				"relieve", "recede", "réceive", "r", ""}, 
+				new int[]{1, 3, 1, 1, 1, 1, 1, 1, 1, 1});
+		assertEquals(Arrays.asList("receive", "relieve"), 
+				index.getSimilarTitles("recieve", 1, false, 10));
+		assertEquals(Arrays.asList("receive", "relieve", "Receive", "deceive", "recede", "receiver", "recipe", "réceive"), 
+				index.getSimilarTitles("recieve", 2, false, 10));
+		assertEquals(Arrays.asList("receive", "relieve"), 
+				index.getSimilarTitles("recieve", 2, false, 2));
+		assertEquals(Arrays.asList("Receive", "receive", "réceive"), 
+				index.getSimilarTitles("receive", 0, true, 10));
+		assertEquals(Arrays.asList("", "r"), index.getSimilarTitles("x", 1, false, 10));
+		assertEquals(0, index.findSimilar("recieve", 0, false, 10).length);
+		assertEquals(0, index.findSimilar("recieve", -1, false, 10).length);
+		assertEquals(0, index.findSimilar(null, 1, false, 10).length);
+		
+		assertEquals(1, WiktionaryTitleIndex.getEditDistance("recieve", "receive"));
+		assertEquals(3, WiktionaryTitleIndex.getEditDistance("kitten", "sitting"));
+		// Optimal string alignment does not edit a substring twice.
+		assertEquals(3, WiktionaryTitleIndex.getEditDistance("ca", "abc"));
+		assertEquals(4, WiktionaryTitleIndex.getEditDistance("", "abcd"));
+	}
+	
+	/***/
+	public void testFindSimilarRandom() {
+		Random random = new Random(42);
+		List<String> titles = createTitles(random, 20000);
+		int[] entryCounts = new int[titles.size()];
+		for (int i = 0; i < entryCounts.length; i++)
+			entryCounts[i] = 1 + random.nextInt(3);
+		WiktionaryTitleIndex index = createIndex(
+				titles.toArray(new String[titles.size()]), entryCounts);
+		List<String> sorted = getTitles(index);
+		for (int i = 0; i < 20; i++) {
+			String word = (i % 2 == 0 ? titles.get(random.nextInt(titles.size())) 
+					: createTitle(random));
+			for (int maxDistance = 0; maxDistance <= 2; maxDistance++)
+				assertEquals(word + "/" + maxDistance, 
+						findSimilar(index, sorted, word, maxDistance, 20), 
+						toList(index.findSimilar(word, maxDistance, false, 20)));
+		}
+	}
+	
+	/***/
+	public void testFindSimilarLarge() {
+		// Many titles share long prefixes, which are pruned as a whole.
+		Random random = new Random(4711);
+		List<String> titles = createTitles(random, 100000);
+		WiktionaryTitleIndex index = createIndex(
+				titles.toArray(new String[titles.size()]), new int[titles.size()]);
+		List<String> sorted = getTitles(index);
+		for (int i = 0; i < 20; i++) {
+			String word = createTitle(random);
+			assertEquals(word, findSimilar(index, sorted, word, 2, 10),
+					toList(index.findSimilar(word, 2, false, 10)));
+		}
+	}
+	
+	protected static List<String> createTitles(final Random random, int count) {
+		List<String> result = new ArrayList<String>();
+		for (int i = 0; i < count; i++)
+			result.add(createTitle(random));
+		return result;
+	}
+	
+	protected static String createTitle(final Random random) {
+		StringBuilder result = new StringBuilder();
+		int length = 3 + random.nextInt(8);
+		for (int i = 0; i < length; i++)
+			result.append((char) ('a' + random.nextInt(8)));
+		return result.toString();
+	}
+	
+	protected static WiktionaryTitleIndex createIndex(final String[] titles, 
+			final int[] entryCounts) {
+		// Titles are unique within an edition.
+		List<String> titleList = new ArrayList<String>();
+		List<Long> pageIds = new ArrayList<Long>();
+		List<Integer> entryCountList = new ArrayList<Integer>();
+		for (int i = 0; i < titles.length; i++)
+			if (titles.length > 100 || !titleList.contains(titles[i])) {
+				titleList.add(titles[i]);
+				pageIds.add((long) i);
+				entryCountList.add(entryCounts[i]);
+			}
+		return WiktionaryTitleIndex.create(titleList, pageIds, entryCountList);
+	}
+	
+	protected static List<String> getTitles(final WiktionaryTitleIndex index) {
+		List<String> result = new ArrayList<String>();
+		for (int i = 0; i < index.getTitleCount(); i++)
+			result.add(index.getTitle(i));
+		return result;
+	}
+	
+	protected static List<Integer> findSimilar(final WiktionaryTitleIndex index,
+			final List<String> titles, final String word, int maxDistance, int limit) {
+		// Brute force search over all titles.
+		final List<int[]> matches = new ArrayList<int[]>();
+		for (int i = 0; i < titles.size(); i++) {
+			int distance = WiktionaryTitleIndex.getEditDistance(word, titles.get(i));
+			if (distance <= maxDistance)
+				matches.add(new int[]{i, distance});
+		}
+		final Comparator<Integer> ranking = index.getRanking();
+		Collections.sort(matches, new Comparator<int[]>() {
+			public int compare(final int[] m1, final int[] m2) {
+				int result = m1[1] - m2[1];
+				return (result != 0 ? result : ranking.compare(m1[0], m2[0]));
+			}
+		});
+		List<Integer> result = new ArrayList<Integer>();
+		for (int i = 0; i < Math.min(limit, matches.size()); i++)
+			result.add(matches.get(i)[0]);
+		return result;
+	}
+	
+	protected static List<Integer> toList(final int[] values) {
+		List<Integer> result = new ArrayList<Integer>();
+		for (int value : values)
+			result.add(value);
+		return result;
+	}
+	
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link BloomFilter}.
+ */
+public class BloomFilterTest extends TestCase {
+
+	/***/
+	public void testMightContain() throws IOException {
+		BloomFilter filter = new BloomFilter(10000, 0.01);
+		assertEquals(7, filter.getHashCount());
+		assertTrue(filter.getSizeInBytes() < 10000 * 10 / 8 + 8);
+		assertFalse(filter.mightContain("place"));
+		for (int i = 0; i < 10000; i++)
+			filter.add("title" + i);
+		filter.add("");
+		filter.add("Mönch");
+		assertEquals(10002, filter.getElementCount());
+		assertFilter(filter);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		filter.write(new DataOutputStream(bytes));
+		assertFilter(BloomFilter.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))));
+		
+		try {
+			new BloomFilter(10, 1.0);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	protected static void assertFilter(final BloomFilter filter) {
+		// No false negatives.
+		for (int i = 0; i < 10000; i++)
+			assertTrue(filter.mightContain("title" + i));
+		assertTrue(filter.mightContain(""));
+		assertTrue(filter.mightContain("Mönch"));
+		
+		// The false positive rate should be close to 1%.
+		int falsePositives = 0;
+		for (int i = 0; i < 10000; i++)
+			if (filter.mightContain("word" + i))
+				falsePositives++;
+		assertTrue(falsePositives + " false positives", falsePositives < 200);
+	}
+	
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link CompositeKey}.
+ */
+public class CompositeKeyTest extends TestCase {
+
+	/***/
+	public void testPack() {
+		long key = CompositeKey.pack(11094, 6, 3);
+		assertEquals(11094, CompositeKey.getPageId(key));
+		assertEquals(6, CompositeKey.getEntryIndex(key));
+		assertEquals(3, CompositeKey.getSenseIndex(key));
+		assertEquals("11094:6", CompositeKey.toEntryKey(key));
+		assertEquals("11094:6:3", CompositeKey.toSenseKey(key));
+		
+		key = CompositeKey.pack(CompositeKey.MAX_PAGE_ID, 
+				CompositeKey.MAX_ENTRY_INDEX, CompositeKey.MAX_SENSE_INDEX);
+		assertEquals(CompositeKey.MAX_PAGE_ID, CompositeKey.getPageId(key));
+		assertEquals(CompositeKey.MAX_ENTRY_INDEX, CompositeKey.getEntryIndex(key));
+		assertEquals(CompositeKey.MAX_SENSE_INDEX, CompositeKey.getSenseIndex(key));
+		assertTrue(key > 0);
+		
+		// Packed keys are ordered by page, entry, and sense.
+		assertTrue(CompositeKey.pack(1, 2, 3) < CompositeKey.pack(1, 2, 4));
+		assertTrue(CompositeKey.pack(1, 2, 3) < CompositeKey.pack(1, 3, 0));
+		assertTrue(CompositeKey.pack(1, 4095, 4095) < CompositeKey.pack(2, 0, 0));
+		
+		try {
+			CompositeKey.pack(-1, 0, 0);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+		try {
+			CompositeKey.pack(1, CompositeKey.MAX_ENTRY_INDEX + 1);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	/***/
+	public void testParse() {
+		assertEquals(CompositeKey.pack(11094, 6), CompositeKey.parseEntryKey("11094:6"));
+		assertEquals(CompositeKey.pack(11094, 6, 3), CompositeKey.parseSenseKey("11094:6:3"));
+		assertEquals(CompositeKey.pack(0, 0, 0), CompositeKey.parseSenseKey("0:0:0"));
+		
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseEntryKey(null));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseEntryKey(""));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseEntryKey("11094"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseEntryKey("11094:6:3"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey("11094:6"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey("11094::3"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey(":6:3"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey("11094:6:"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey("-1:6:3"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey("a:6:3"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey("1:4096:3"));
+		assertEquals(CompositeKey.INVALID, CompositeKey.parseSenseKey("99999999999999999999:1:1"));
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link CompressedBitmap}.
+ */
+public class CompressedBitmapTest extends TestCase {
+
+	/***/
+	public void testAdd() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		assertTrue(bitmap.isEmpty());
+		bitmap.add(5);
+		bitmap.add(1);
+		bitmap.add(70000);
+		bitmap.add(5);
+		assertEquals(3, bitmap.getCardinality());
+		assertTrue(bitmap.contains(1));
+		assertTrue(bitmap.contains(5));
+		assertTrue(bitmap.contains(70000));
+		assertFalse(bitmap.contains(2));
+		assertFalse(bitmap.contains(-1));
+		assertTrue(Arrays.equals(new int[]{1, 5, 70000}, bitmap.toArray()));
+		
+		try {
+			bitmap.add(-1);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	/***/
+	public void testDense() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (int i = 0; i < 100000; i += 2)
+			bitmap.add(i);
+		assertEquals(50000, bitmap.getCardinality());
+		assertTrue(bitmap.contains(65536));
+		assertFalse(bitmap.contains(65537));
+		assertTrue(bitmap.getSizeInBytes() < 50000 * 2);
+	}
+	
+	/***/
+	public void testAndOr() throws IOException {
+		Random random = new Random(42);
+		BitSet expected1 = new BitSet();
+		BitSet expected2 = new BitSet();
+		CompressedBitmap bitmap1 = new CompressedBitmap();
+		CompressedBitmap bitmap2 = new CompressedBitmap();
+		for (int i = 0; i < 300000; i++) {
+			// Dense in the first chunks, sparse afterwards.
+			int value = random.nextInt(i < 200000 ? 131072 : 1000000);
+			if (random.nextBoolean()) {
+				bitmap1.add(value);
+				expected1.set(value);
+			} else {
+				bitmap2.add(value);
+				expected2.set(value);
+			}
+		}
+		assertBitmap(expected1, bitmap1);
+		assertBitmap(expected2, bitmap2);
+		
+		BitSet and = (BitSet) expected1.clone();
+		and.and(expected2);
+		assertBitmap(and, bitmap1.and(bitmap2));
+		assertBitmap(and, bitmap2.and(bitmap1));
+		
+		BitSet or = (BitSet) expected1.clone();
+		or.or(expected2);
+		assertBitmap(or, bitmap1.or(bitmap2));
+		assertBitmap(or, bitmap2.or(bitmap1));
+		assertBitmap(expected1, bitmap1.or(new CompressedBitmap()));
+		assertTrue(bitmap1.and(new CompressedBitmap()).isEmpty());
+		
+		// Serialization.
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		bitmap1.and(bitmap2).write(out);
+		bitmap1.write(out);
+		out.close();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertBitmap(and, CompressedBitmap.read(in));
+		assertBitmap(expected1, CompressedBitmap.read(in));
+	}
+	
+	protected static void assertBitmap(final BitSet expected, 
+			final CompressedBitmap actual) {
+		assertEquals(expected.cardinality(), actual.getCardinality());
+		int[] values = actual.toArray();
+		int idx = 0;
+		for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1))
+			assertEquals(i, values[idx++]);
+	}
+
+}
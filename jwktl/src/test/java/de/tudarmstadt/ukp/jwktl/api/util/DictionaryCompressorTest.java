@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link DictionaryCompressor}.
+ */
+public class DictionaryCompressorTest extends TestCase {
+
+	/***/
+	public void testCompress() throws IOException {
+		List<byte[]> records = createRecords(2000);
+		byte[] dictionary = DictionaryCompressor.train(
+				records.subList(0, 500), DictionaryCompressor.MAX_DICTIONARY_SIZE);
+		assertTrue(dictionary.length > 0);
+		assertTrue(dictionary.length <= DictionaryCompressor.MAX_DICTIONARY_SIZE);
+		DictionaryCompressor compressor = new DictionaryCompressor(dictionary);
+		DictionaryCompressor deflate = new DictionaryCompressor(new byte[0]);
+
+		// Records not used for training compress considerably better 
+		// than with plain deflate.
+		long rawSize = 0;
+		long deflateSize = 0;
+		long compressedSize = 0;
+		for (byte[] record : records.subList(500, records.size())) {
+			byte[] compressed = compressor.compress(record);
+			assertTrue(Arrays.equals(record, compressor.decompress(compressed)));
+			assertTrue(Arrays.equals(record, deflate.decompress(deflate.compress(record))));
+			rawSize += record.length;
+			deflateSize += deflate.compress(record).length;
+			compressedSize += compressed.length;
+		}
+		assertTrue(deflateSize < rawSize);
+		assertTrue(compressedSize * 2 < deflateSize);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		compressor.write(new DataOutputStream(bytes));
+		DictionaryCompressor read = DictionaryCompressor.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())));
+		assertTrue(Arrays.equals(dictionary, read.getDictionary()));
+		byte[] record = records.get(1000);
+		assertTrue(Arrays.equals(record, read.decompress(compressor.compress(record))));
+	}
+
+	/***/
+	public void testEmptyRecord() {
+		DictionaryCompressor compressor = new DictionaryCompressor(
+				DictionaryCompressor.train(createRecords(10), 1024));
+		byte[] compressed = compressor.compress(new byte[0]);
+		assertEquals(0, compressor.decompress(compressed).length);
+	}
+
+	/***/
+	public void testTrain() {
+		// Samples without common sequences yield an empty dictionary.
+		Random random = new Random(42);
+		List<byte[]> samples = new ArrayList<byte[]>();
+		for (int i = 0; i < 10; i++) {
+			byte[] sample = new byte[100];
+			random.nextBytes(sample);
+			samples.add(sample);
+		}
+		assertEquals(0, DictionaryCompressor.train(samples, 1024).length);
+		assertEquals(0, DictionaryCompressor.train(new ArrayList<byte[]>(), 1024).length);
+
+		// The dictionary does not exceed the given size.
+		assertTrue(DictionaryCompressor.train(createRecords(100), 100).length <= 100);
+		try {
+			DictionaryCompressor.train(samples, DictionaryCompressor.MAX_DICTIONARY_SIZE + 1);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+	}
+
+	/***/
+	public void testTruncatedRecord() {
+		List<byte[]> records = createRecords(100);
+		DictionaryCompressor compressor = new DictionaryCompressor(
+				DictionaryCompressor.train(records, 4096));
+		byte[] compressed = compressor.compress(records.get(0));
+		try {
+			compressor.decompress(Arrays.copyOf(compressed, compressed.length / 2));
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+	}
+
+	/** Creates records resembling the serialized details of Wiktionary 
+	 *  pages, which share language names, templates, and quotation 
+	 *  sources. */
+	protected static List<byte[]> createRecords(int count) {
+		String[] languages = {"English", "German", "French", "Spanish", "Italian", "Russian"};
+		String[] sources = {"{{quote-book|author=Charles Dickens|title=Bleak House|year=1853}}",
+				"{{quote-journal|journal=The Times|date=12 March 1912}}",
+				"{{RQ:Shakespeare Hamlet|act=III|scene=i}}"};
+		Random random = new Random(42);
+		List<byte[]> result = new ArrayList<byte[]>();
+		for (int i = 0; i < count; i++) {
+			StringBuilder record = new StringBuilder();
+			record.append("{{IPA|/w").append(i).append("/|lang=en}}");
+			for (int j = 0; j < 5; j++) {
+				String language = languages[random.nextInt(languages.length)];
+				record.append("{{t+|").append(language.substring(0, 2).toLowerCase())
+						.append("|word").append(random.nextInt(100000))
+						.append("}} ").append(language).append(';');
+			}
+			record.append(sources[random.nextInt(sources.length)]);
+			record.append("{{plural of|word").append(i).append("|lang=en}}");
+			try {
+				result.add(record.toString().getBytes("UTF-8"));
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link MergingWiktionaryIterator}.
+ */
+public class MergingWiktionaryIteratorTest extends TestCase {
+
+	/***/
+	public void testMerge() {
+		List<ListIterator> sources = createSources();
+		MergingWiktionaryIterator<String> merged = createIterator(sources);
+		List<String> actual = new ArrayList<String>();
+		for (String element : merged)
+			actual.add(element);
+		assertEquals(Arrays.asList("a:0", "a:2", "b:1", "c:0", "c:0", "c:1", 
+				"c:2", "d:1"), actual);
+		for (ListIterator source : sources)
+			assertTrue(source.isClosed());
+		
+		// Manual termination closes all sources.
+		sources = createSources();
+		merged = createIterator(sources);
+		assertEquals("a:0", merged.next());
+		merged.close();
+		for (ListIterator source : sources)
+			assertTrue(source.isClosed());
+		
+		// No sources.
+		assertFalse(createIterator(new ArrayList<ListIterator>()).hasNext());
+	}
+
+	/***/
+	public void testGroups() {
+		IWiktionaryIterator<List<String>> groups = createIterator(createSources()).groups();
+		assertEquals(Arrays.asList("a:0", "a:2"), groups.next());
+		assertEquals(Arrays.asList("b:1"), groups.next());
+		assertEquals(Arrays.asList("c:0", "c:0", "c:1", "c:2"), groups.next());
+		assertEquals(Arrays.asList("d:1"), groups.next());
+		assertFalse(groups.hasNext());
+	}
+
+	protected static List<ListIterator> createSources() {
+		List<ListIterator> result = new ArrayList<ListIterator>();
+		result.add(new ListIterator("a:0", "c:0", "c:0"));
+		result.add(new ListIterator("b:1", "c:1", "d:1"));
+		result.add(new ListIterator("a:2", "c:2"));
+		result.add(new ListIterator());
+		return result;
+	}
+
+	protected static MergingWiktionaryIterator<String> createIterator(
+			final List<ListIterator> sources) {
+		return new MergingWiktionaryIterator<String>(sources) {
+			@Override
+			protected String getSortKey(final String element) {
+				return element.substring(0, element.indexOf(':'));
+			}
+		};
+	}
+
+	protected static class ListIterator extends WiktionaryIterator<String> {
+
+		protected Iterator<String> elements;
+
+		public ListIterator(final String... elements) {
+			this.elements = Arrays.asList(elements).iterator();
+		}
+
+		@Override
+		protected String fetchNext() {
+			return (elements.hasNext() ? elements.next() : null);
+		}
+
+		@Override
+		protected void doClose() {}
+
+	}
+
+}
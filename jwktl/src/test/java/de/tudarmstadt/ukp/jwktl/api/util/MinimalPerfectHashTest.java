@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link MinimalPerfectHash}.
+ */
+public class MinimalPerfectHashTest extends TestCase {
+
+	/***/
+	public void testGet() throws IOException {
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < 20000; i++)
+			keys.add("title" + i);
+		keys.add("");
+		keys.add("Mönch");
+		MinimalPerfectHash hash = MinimalPerfectHash.build(keys);
+		assertEquals(keys.size(), hash.size());
+		assertBijective(hash, keys);
+		// About three bits per key plus the rank directory.
+		assertTrue(hash.getSizeInBytes() + " bytes", hash.getSizeInBytes() < keys.size());
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(42);
+		hash.write(out);
+		out.writeInt(43);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		assertEquals(42, buffer.getInt());
+		MinimalPerfectHash read = MinimalPerfectHash.read(buffer);
+		assertEquals(43, buffer.getInt());
+		assertEquals(hash.size(), read.size());
+		assertBijective(read, keys);
+		for (String key : keys)
+			assertEquals(hash.get(key), read.get(key));
+	}
+
+	/***/
+	public void testEmpty() {
+		MinimalPerfectHash hash = MinimalPerfectHash.build(new ArrayList<String>());
+		assertEquals(0, hash.size());
+		assertEquals(-1, hash.get("place"));
+	}
+
+	/***/
+	public void testDuplicateKeys() {
+		try {
+			MinimalPerfectHash.build(Arrays.asList("place", "Platz", "place"));
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+	}
+
+	/***/
+	public void testSeed() throws IOException {
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++)
+			keys.add("title" + i);
+		long seed = 42;
+		long[] hashes = new long[keys.size()];
+		for (int i = 0; i < keys.size(); i++)
+			hashes[i] = BloomFilter.hash(keys.get(i), seed);
+		assertFalse(MinimalPerfectHash.hasEqualHashes(hashes));
+		assertTrue(MinimalPerfectHash.hasEqualHashes(new long[]{3, 1, 3}));
+		assertEquals(BloomFilter.hash("title1"), BloomFilter.hash("title1", 0));
+		assertTrue(BloomFilter.hash("title1") != BloomFilter.hash("title1", seed));
+		
+		// A function built with another seed (as done upon a collision of 
+		// two distinct keys) keeps its seed when being read.
+		MinimalPerfectHash hash = MinimalPerfectHash.build(keys.size(), hashes, seed);
+		assertBijective(hash, keys);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		hash.write(new DataOutputStream(bytes));
+		assertBijective(MinimalPerfectHash.read(ByteBuffer.wrap(bytes.toByteArray())), keys);
+	}
+
+	protected static void assertBijective(final MinimalPerfectHash hash,
+			final List<String> keys) {
+		boolean[] used = new boolean[keys.size()];
+		for (String key : keys) {
+			int idx = hash.get(key);
+			assertTrue(key, idx >= 0 && idx < keys.size());
+			assertFalse(key, used[idx]);
+			used[idx] = true;
+		}
+	}
+	
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link SortedStringTable}.
+ */
+public class SortedStringTableTest extends TestCase {
+
+	/***/
+	public void testAdd() {
+		SortedStringTable table = new SortedStringTable();
+		assertEquals(0, table.size());
+		assertEquals(0, table.lowerBound("a"));
+		assertEquals(-1, table.indexOf("a"));
+		table.add("");
+		table.add("Platz");
+		table.add("place");
+		table.add("place");
+		table.add("placebo");
+		table.add("plant");
+		assertEquals(6, table.size());
+		assertEquals("", table.get(0));
+		assertEquals("placebo", table.get(4));
+		assertEquals("plant", table.get(5));
+		assertEquals(1, table.indexOf("Platz"));
+		assertEquals(2, table.indexOf("place"));
+		assertEquals(-1, table.indexOf("plac"));
+		assertEquals(0, table.lowerBound(""));
+		assertEquals(1, table.lowerBound("Place"));
+		assertEquals(4, table.lowerBound("placea"));
+		assertEquals(5, table.prefixEnd("place"));
+		
+		try {
+			table.add("Mönch");
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+		try {
+			table.get(6);
+			fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException e) {}
+	}
+	
+	/***/
+	public void testPrefix() throws IOException {
+		List<String> values = new ArrayList<String>();
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder value = new StringBuilder();
+			int length = random.nextInt(6);
+			for (int j = 0; j < length; j++)
+				value.append((char) ('a' + random.nextInt(4)));
+			values.add(value.toString());
+		}
+		values.add("￿");
+		values.add("a￿");
+		Collections.sort(values);
+		SortedStringTable table = new SortedStringTable();
+		for (String value : values)
+			table.add(value);
+		assertTable(values, table);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		table.write(new DataOutputStream(bytes));
+		SortedStringTable read = SortedStringTable.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())));
+		assertTable(values, read);
+		read.add("￿￿");
+		assertEquals(values.size() + 1, read.size());
+		assertTrue(table.getSizeInBytes() < 2 * 6 * values.size());
+	}
+	
+	protected static void assertTable(final List<String> expected,
+			final SortedStringTable table) {
+		assertEquals(expected.size(), table.size());
+		SortedStringTable.Reader reader = table.new Reader();
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue(reader.next());
+			assertEquals(i, reader.getIndex());
+			assertEquals(expected.get(i), reader.toString());
+			assertEquals(expected.get(i), table.get(i));
+		}
+		assertFalse(reader.next());
+		
+		for (String key : new String[]{"", "a", "ab", "abc", "b", "dddd", "e", "￿", "a￿"}) {
+			int from = 0;
+			while (from < expected.size() && expected.get(from).compareTo(key) < 0)
+				from++;
+			int to = from;
+			while (to < expected.size() && expected.get(to).startsWith(key))
+				to++;
+			assertEquals(key, from, table.lowerBound(key));
+			assertEquals(key, to, table.prefixEnd(key));
+			assertEquals(key, (from < to && expected.get(from).equals(key) ? from : -1), 
+					table.indexOf(key));
+		}
+	}
+	
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for {@link WiktionaryPartitionScanner}.
+ */
+public class WiktionaryPartitionScannerTest extends TestCase {
+
+	/***/
+	public void testScan() {
+		List<RangeIterator> partitions = new ArrayList<RangeIterator>();
+		for (int i = 0; i < 10; i++)
+			partitions.add(new RangeIterator(i * 1000, (i + 1) * 1000));
+		
+		final AtomicLong sum = new AtomicLong();
+		WiktionaryPartitionScanner scanner = new WiktionaryPartitionScanner(4);
+		try {
+			assertEquals(10000, scanner.scan(partitions, 
+					new WiktionaryPartitionScanner.IElementHandler<Integer>() {
+				public void handle(final Integer element) {
+					sum.addAndGet(element);
+				}
+			}));
+		} finally {
+			scanner.close();
+		}
+		assertEquals(9999L * 10000 / 2, sum.get());
+		for (RangeIterator partition : partitions)
+			assertTrue(partition.isClosed());
+	}
+
+	/***/
+	public void testScanFailure() {
+		List<RangeIterator> partitions = new ArrayList<RangeIterator>();
+		for (int i = 0; i < 100; i++)
+			partitions.add(new RangeIterator(i * 1000, (i + 1) * 1000));
+		
+		// A single thread makes the number of skipped partitions 
+		// independent of the scheduling.
+		WiktionaryPartitionScanner scanner = new WiktionaryPartitionScanner(1);
+		try {
+			scanner.scan(partitions, 
+					new WiktionaryPartitionScanner.IElementHandler<Integer>() {
+				public void handle(final Integer element) {
+					if (element == 1500)
+						throw new IllegalStateException("test");
+				}
+			});
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			assertEquals("test", e.getMessage());
+		} finally {
+			scanner.close();
+		}
+		
+		// All partitions are closed, but most of them have been skipped.
+		int skipped = 0;
+		for (RangeIterator partition : partitions) {
+			assertTrue(partition.isClosed());
+			if (partition.next == partition.from)
+				skipped++;
+		}
+		assertEquals(98, skipped);
+	}
+
+	protected static class RangeIterator extends WiktionaryIterator<Integer> {
+
+		protected int from;
+		protected int to;
+		protected int next;
+
+		public RangeIterator(int from, int to) {
+			this.from = from;
+			this.to = to;
+			next = from;
+		}
+
+		@Override
+		protected Integer fetchNext() {
+			return (next < to ? next++ : null);
+		}
+
+		@Override
+		protected void doClose() {}
+
+	}
+
+}
@@ -18,20 +18,57 @@
 package de.tudarmstadt.ukp.jwktl.parser;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sleepycat.je.DatabaseException;
 
 import de.tudarmstadt.ukp.jwktl.WiktionaryTestCase;
+import de.tudarmstadt.ukp.jwktl.JWKTL;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryEntry;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionarySense;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation.LinkType;
+import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
+import de.tudarmstadt.ukp.jwktl.api.RelationType;
 import de.tudarmstadt.ukp.jwktl.api.WiktionaryException;
+import de.tudarmstadt.ukp.jwktl.api.entry.BerkeleyDBWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.entry.ShardedWiktionaryEdition;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryFacetIndex;
 import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryRelationGraph;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTitleFilter;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTitleHash;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryTitleIndex;
+import de.tudarmstadt.ukp.jwktl.api.filter.WiktionaryEntryFilter;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
 import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryPartitionScanner;
+import de.tudarmstadt.ukp.jwktl.parser.en.ENWiktionaryEntryParser;
 import de.tudarmstadt.ukp.jwktl.parser.util.IDumpInfo;
+import de.tudarmstadt.ukp.jwktl.parser.util.WiktionaryTextStore;
+import de.tudarmstadt.ukp.jwktl.parser.wikisaurus.WikisaurusArticleParser;
+import de.tudarmstadt.ukp.jwktl.parser.wikisaurus.WikisaurusEntrySorter;
 
 /**
  * Test case for {@link WiktionaryArticleParser}.
@@ -164,6 +201,876 @@ public class WiktionaryArticleParserTest extends WiktionaryTestCase {
 		assertEquals(30000, parser.getPages().size());
 	}
 		
+	/***/
+	public void testEntryIndexByTitleLargeDump() throws IOException {
+		final int PAGE_COUNT = 10000;
+		File dumpFile = new File(workDir, "large.xml");
+		writeLargeDump(dumpFile, PAGE_COUNT);
+		
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(
+				new File(workDir, "byIndex"), true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(dumpFile);
+
+		db = new WritableBerkeleyDBWiktionaryEdition(new File(workDir, "byTitle"), true);
+		db.setEntryIndexByTitle(true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(dumpFile);
+		
+		// Both modes yield the same entries; the entry IDs assigned by 
+		// title refer to the same entries as in the page.
+		IWiktionaryEdition byIndex = JWKTL.openEdition(new File(workDir, "byIndex"));
+		IWiktionaryEdition wkt = JWKTL.openEdition(new File(workDir, "byTitle"));
+		try {
+			int count = 0;
+			for (IWiktionaryEntry entry : byIndex.getAllEntries()) {
+				IWiktionaryEntry byTitle = wkt.getEntryForKey(entry.getKey());
+				assertEquals(entry.getKey(), wkt.getEntryForId(byTitle.getId()).getKey());
+				assertEquals(entry.getIndex(), entry.getId());
+				count++;
+			}
+			assertEquals(2 * PAGE_COUNT, count);
+			
+			// Entry ids are assigned in alphabetical order of the page titles,
+			// which is the reverse order of the page ids.
+			for (int i = 1; i <= PAGE_COUNT; i += 997) {
+				long entryId = 2L * (PAGE_COUNT - i);
+				IWiktionaryEntry entry = wkt.getEntryForId(entryId);
+				assertEquals(i, entry.getPageId());
+				assertEquals(0, entry.getIndex());
+				assertEquals(entryId, entry.getId());
+				entry = wkt.getEntryForId(entryId + 1);
+				assertEquals(i, entry.getPageId());
+				assertEquals(1, entry.getIndex());
+				assertEquals(entryId + 1, wkt.getPageForId(i).getEntries().get(1).getId());
+			}
+			assertNull(wkt.getEntryForId(2L * PAGE_COUNT));
+		} finally {
+			byIndex.close();
+			wkt.close();
+		}
+	}
+	
+	/***/
+	public void testPageLayoutByTitleLargeDump() throws IOException {
+		final int PAGE_COUNT = 10000;
+		File dumpFile = new File(workDir, "large.xml");
+		writeLargeDump(dumpFile, PAGE_COUNT);
+		
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(
+				new File(workDir, "byId"), true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(dumpFile);
+		db = new WritableBerkeleyDBWiktionaryEdition(new File(workDir, "byTitle"), true);
+		db.setPageLayoutByTitle(true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(dumpFile);
+		
+		BerkeleyDBWiktionaryEdition byId = new BerkeleyDBWiktionaryEdition(new File(workDir, "byId"));
+		BerkeleyDBWiktionaryEdition byTitle = new BerkeleyDBWiktionaryEdition(new File(workDir, "byTitle"));
+		try {
+			assertFalse(byId.isLayoutByTitle());
+			assertTrue(byTitle.isLayoutByTitle());
+			
+			assertEquals(PAGE_COUNT, assertSortedByTitle(byId.getAllPages(true), null));
+			assertEquals(PAGE_COUNT, assertSortedByTitle(byTitle.getAllPages(true), null));
+			
+			// The partitions are consecutive title ranges.
+			List<IWiktionaryIterator<IWiktionaryPage>> partitions 
+					= byTitle.getPagePartitions(null, 4);
+			assertEquals(4, partitions.size());
+			int count = 0;
+			String lastTitle = null;
+			for (IWiktionaryIterator<IWiktionaryPage> partition : partitions) {
+				int partitionCount = assertSortedByTitle(partition, lastTitle);
+				assertEquals(PAGE_COUNT / 4, partitionCount);
+				count += partitionCount;
+				lastTitle = String.format("word%06d", count - 1);
+			}
+			assertEquals(PAGE_COUNT, count);
+			assertEquals(8, byTitle.getPagePartitions(null, 8).size());
+			
+			// Lookups are not affected.
+			assertEquals("word009999", byTitle.getPageForId(1).getTitle());
+			assertEquals(1, byTitle.getPageForWord("word009999").getId());
+		} finally {
+			byId.close();
+			byTitle.close();
+		}
+	}
+	
+	protected static int assertSortedByTitle(
+			final IWiktionaryIterator<IWiktionaryPage> pages, String lastTitle) {
+		int result = 0;
+		for (IWiktionaryPage page : pages) {
+			if (lastTitle != null)
+				assertTrue(lastTitle.compareTo(page.getTitle()) < 0);
+			lastTitle = page.getTitle();
+			result++;
+		}
+		return result;
+	}
+	
+	/***/
+	public void testUpdate() throws IOException {
+		File targetDir = new File(workDir, "update");
+		File baseDump = new File(workDir, "base.xml");
+		writeDump(baseDump, 
+				dumpPage(1, 10, "alpha", "===Noun===\n# A noun.\n\n===Verb===\n# A verb.\n"),
+				dumpPage(2, 20, "beta", "===Noun===\n# A noun.\n"),
+				dumpPage(3, 30, "gamma", "===Noun===\n# A noun.\n"));
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(baseDump);
+		
+		File deltaDump = new File(workDir, "delta.xml");
+		writeDump(deltaDump, 
+				dumpPage(1, 11, "alpha", "===Noun===\n# A noun.\n"),
+				dumpPage(2, 21, "delta", "===Noun===\n# A noun.\n"),
+				dumpPage(3, 29, "gamma", "===Noun===\n# A noun.\n\n===Verb===\n# A verb.\n"),
+				dumpPage(4, 40, "epsilon", "===Verb===\n# A verb.\n"));
+		db = WritableBerkeleyDBWiktionaryEdition.openForUpdate(targetDir);
+		assertTrue(db.isUpdate());
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(deltaDump);
+		assertEquals(2, db.getUpdatedPageCount());
+		assertEquals(1, db.getSkippedPageCount());
+		
+		Properties properties = new Properties();
+		FileInputStream stream = new FileInputStream(new File(targetDir, 
+				BerkeleyDBWiktionaryEdition.PROPERTY_FILE_NAME));
+		try {
+			properties.load(stream);
+		} finally {
+			stream.close();
+		}
+		assertEquals("4", properties.getProperty("database.pages"));
+		assertEquals("4", properties.getProperty("database.entries"));
+		assertEquals(baseDump.toString(), properties.getProperty("wiktionary.dumpfile"));
+		assertEquals(deltaDump.toString(), properties.getProperty("wiktionary.update_dumpfile"));
+		
+		IWiktionaryEdition wkt = JWKTL.openEdition(targetDir);
+		try {
+			int count = 0;
+			for (IWiktionaryPage page : wkt.getAllPages()) {
+				assertNotNull(page);
+				count++;
+			}
+			assertEquals(4, count);
+			
+			// Changed page.
+			assertEquals(11, wkt.getPageForId(1).getRevision());
+			assertEquals(1, wkt.getPageForId(1).getEntryCount());
+			assertEquals("1:0", wkt.getEntryForKey("1:0").getKey());
+			assertNull(wkt.getEntryForKey("1:1"));
+			assertNull(wkt.getSenseForKey("1:1:1"));
+			
+			// Renamed page.
+			assertNull(wkt.getPageForWord("beta"));
+			assertEquals(2, wkt.getPageForWord("delta").getId());
+			
+			// Skipped page having a newer stored revision.
+			assertEquals(30, wkt.getPageForId(3).getRevision());
+			assertEquals(1, wkt.getPageForWord("gamma").getEntryCount());
+			
+			// Added page.
+			assertEquals(4, wkt.getPageForWord("epsilon").getId());
+			assertEquals("4:0", wkt.getEntryForKey("4:0").getKey());
+		} finally {
+			wkt.close();
+		}
+		
+		try {
+			WritableBerkeleyDBWiktionaryEdition.openForUpdate(new File(workDir, "missing"));
+			fail("WiktionaryException expected");
+		} catch (WiktionaryException e) {}
+	}
+	
+	/***/
+	public void testUpdatePreviousVersion() throws IOException {
+		// Simulate a database of a previous version, which neither saved 
+		// page summaries nor the settings of its indexes.
+		File targetDir = new File(workDir, "previous");
+		File baseDump = new File(workDir, "base.xml");
+		writeDump(baseDump, 
+				dumpPage(1, 10, "alpha", "===Noun===\n# A noun.\n"),
+				dumpPage(2, 20, "beta", "===Noun===\n# A noun.\n"),
+				dumpPage(3, 30, "gamma", "===Verb===\n# A verb.\n"));
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true) {
+			@Override
+			public void savePage(final WiktionaryPage page) throws DatabaseException {
+				super.savePage(page);
+				pageSummaryById.delete(page.getId());
+			}
+		};
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(baseDump);
+		File propertyFile = new File(targetDir, BerkeleyDBWiktionaryEdition.PROPERTY_FILE_NAME);
+		Properties properties = loadProperties(targetDir);
+		for (String key : new String[]{BerkeleyDBWiktionaryEdition.PAGE_SUMMARIES_PROPERTY,
+				BerkeleyDBWiktionaryEdition.WORD_FORM_INDEX_PROPERTY,
+				BerkeleyDBWiktionaryEdition.TRANSLATION_INDEX_PROPERTY,
+				BerkeleyDBWiktionaryEdition.PAGE_DETAILS_PROPERTY,
+				BerkeleyDBWiktionaryEdition.PROXIES_PROPERTY})
+			properties.remove(key);
+		FileOutputStream stream = new FileOutputStream(propertyFile);
+		try {
+			properties.store(stream, null);
+		} finally {
+			stream.close();
+		}
+		
+		File deltaDump = new File(workDir, "delta.xml");
+		writeDump(deltaDump, 
+				dumpPage(2, 21, "beta", "===Noun===\n# A noun.\n\n===Verb===\n# A verb.\n"),
+				dumpPage(4, 40, "delta", "===Noun===\n# A noun.\n"));
+		db = WritableBerkeleyDBWiktionaryEdition.openForUpdate(targetDir);
+		assertFalse(db.getSaveWordFormIndex());
+		assertFalse(db.getSaveTranslationIndex());
+		assertFalse(db.getSavePageDetails());
+		assertTrue(db.getSaveProxies());
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(deltaDump);
+		properties = loadProperties(targetDir);
+		assertEquals("false", properties.getProperty(BerkeleyDBWiktionaryEdition.PAGE_SUMMARIES_PROPERTY));
+		assertEquals("false", properties.getProperty(BerkeleyDBWiktionaryEdition.WORD_FORM_INDEX_PROPERTY));
+		
+		// Filtered iteration includes the unchanged pages.
+		IWiktionaryEdition wkt = JWKTL.openEdition(targetDir);
+		try {
+			WiktionaryEntryFilter filter = new WiktionaryEntryFilter();
+			filter.setAllowedPartsOfSpeech(PartOfSpeech.NOUN);
+			Set<String> titles = new TreeSet<String>();
+			for (IWiktionaryEntry entry : wkt.getAllEntries(filter))
+				titles.add(entry.getWord());
+			assertEquals("[alpha, beta, delta]", titles.toString());
+			
+			filter.setAllowedPartsOfSpeech(PartOfSpeech.VERB);
+			titles.clear();
+			for (IWiktionaryEntry entry : wkt.getAllEntries(filter))
+				titles.add(entry.getWord());
+			assertEquals("[beta, gamma]", titles.toString());
+		} finally {
+			wkt.close();
+		}
+	}
+	
+	/***/
+	public void testOptionalIndexes() throws IOException {
+		File dumpFile = new File(workDir, "base.xml");
+		writeDump(dumpFile, 
+				dumpPage(1, 10, "alpha", "===Noun===\n# A noun.\n"),
+				dumpPage(2, 20, "beta", "===Noun===\n# A noun.\n"));
+		String[] fileNames = {WiktionaryFacetIndex.FILE_NAME, 
+				WiktionaryRelationGraph.FILE_NAME, WiktionaryTitleIndex.FILE_NAME,
+				WiktionaryTitleFilter.FILE_NAME, WiktionaryTitleHash.FILE_NAME};
+		
+		// No optional index is created by default.
+		File defaultDir = new File(workDir, "default");
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(defaultDir, true);
+		assertFalse(db.getSaveProxies());
+		assertFalse(db.getSaveWordFormIndex());
+		assertFalse(db.getSaveTranslationIndex());
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(dumpFile);
+		for (String fileName : fileNames)
+			assertFalse(fileName, new File(defaultDir, fileName).exists());
+		Properties properties = loadProperties(defaultDir);
+		assertEquals("false", properties.getProperty(BerkeleyDBWiktionaryEdition.PROXIES_PROPERTY));
+		assertEquals("false", properties.getProperty("database.facet_index"));
+		assertEquals("false", properties.getProperty("database.title_hash"));
+		
+		// An update keeps the settings of the database.
+		File targetDir = new File(workDir, "indexed");
+		db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true);
+		db.setBuildFacetIndex(true);
+		db.setBuildTitleFilter(true);
+		db.setBuildTitleHash(true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(dumpFile);
+		File facetFile = new File(targetDir, WiktionaryFacetIndex.FILE_NAME);
+		assertTrue(facetFile.exists());
+		assertTrue(facetFile.delete());
+		
+		File deltaDump = new File(workDir, "delta.xml");
+		writeDump(deltaDump, dumpPage(3, 30, "gamma", "===Noun===\n# A noun.\n"));
+		db = WritableBerkeleyDBWiktionaryEdition.openForUpdate(targetDir);
+		assertTrue(db.getBuildFacetIndex());
+		assertTrue(db.getBuildTitleFilter());
+		assertFalse(db.getBuildRelationGraph());
+		assertFalse(db.getBuildTitleIndex());
+		assertTrue(db.getBuildTitleHash());
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(deltaDump);
+		assertTrue(facetFile.exists());
+		assertTrue(new File(targetDir, WiktionaryTitleFilter.FILE_NAME).exists());
+		BerkeleyDBWiktionaryEdition wkt = new BerkeleyDBWiktionaryEdition(targetDir);
+		try {
+			assertEquals(3, wkt.getTitleHash().size());
+			assertEquals(3, wkt.getPageForWord("gamma").getId());
+		} finally {
+			wkt.close();
+		}
+		assertFalse(new File(targetDir, WiktionaryRelationGraph.FILE_NAME).exists());
+		assertFalse(new File(targetDir, WiktionaryTitleIndex.FILE_NAME).exists());
+		assertEquals("true", loadProperties(targetDir).getProperty("database.facet_index"));
+	}
+	
+	protected static Properties loadProperties(final File dbPath) throws IOException {
+		Properties result = new Properties();
+		FileInputStream stream = new FileInputStream(new File(dbPath, 
+				BerkeleyDBWiktionaryEdition.PROPERTY_FILE_NAME));
+		try {
+			result.load(stream);
+		} finally {
+			stream.close();
+		}
+		return result;
+	}
+	
+	/***/
+	public void testReusePages() throws IOException {
+		File previousDir = new File(workDir, "previous");
+		File dumpFile = new File(workDir, "previous.xml");
+		writeDump(dumpFile, 
+				dumpPage(1, 10, "alpha", "===Noun===\n# A noun.\n\n===Verb===\n# A verb.\n"),
+				dumpPage(2, 20, "beta", "===Noun===\n# A noun.\n"));
+		new WiktionaryDumpParser(new WiktionaryArticleParser(
+				new WritableBerkeleyDBWiktionaryEdition(previousDir, true))).parse(dumpFile);
+		
+		// The text of alpha differs from the parsed page to identify reused 
+		// pages; beta has a new revision.
+		dumpFile = new File(workDir, "current.xml");
+		writeDump(dumpFile, 
+				dumpPage(1, 10, "alpha", "===Noun===\n# A noun.\n"),
+				dumpPage(2, 21, "beta", "===Noun===\n# A noun.\n\n===Verb===\n# A verb.\n"),
+				dumpPage(3, 30, "gamma", "===Noun===\n# A noun.\n"));
+		File targetDir = new File(workDir, "current");
+		BerkeleyDBWiktionaryEdition previous = new BerkeleyDBWiktionaryEdition(previousDir);
+		WiktionaryArticleParser parser;
+		try {
+			parser = new WiktionaryArticleParser(
+					new WritableBerkeleyDBWiktionaryEdition(targetDir, true));
+			parser.setPreviousEdition(previous);
+			new WiktionaryDumpParser(parser).parse(dumpFile);
+		} finally {
+			previous.close();
+		}
+		assertEquals(1, parser.getReusedPageCount());
+		
+		IWiktionaryEdition wkt = JWKTL.openEdition(targetDir);
+		try {
+			assertEquals(2, wkt.getPageForId(1).getEntryCount());
+			assertEquals("1:1", wkt.getEntryForKey("1:1").getKey());
+			assertEquals(2, wkt.getPageForId(2).getEntryCount());
+			assertEquals(1, wkt.getPageForId(3).getEntryCount());
+		} finally {
+			wkt.close();
+		}
+		
+		// A different parser configuration invalidates the previous edition.
+		PrintWriter writer = new PrintWriter(new FileOutputStream(new File(
+				previousDir, BerkeleyDBWiktionaryEdition.PROPERTY_FILE_NAME), true));
+		try {
+			writer.println("jwktl.parser_2=" + WiktionaryArticleParser.class.getName());
+		} finally {
+			writer.close();
+		}
+		previous = new BerkeleyDBWiktionaryEdition(previousDir);
+		try {
+			parser = new WiktionaryArticleParser(
+					new WritableBerkeleyDBWiktionaryEdition(targetDir, true));
+			parser.setPreviousEdition(previous);
+			new WiktionaryDumpParser(parser).parse(dumpFile);
+		} finally {
+			previous.close();
+		}
+		assertEquals(0, parser.getReusedPageCount());
+		wkt = JWKTL.openEdition(targetDir);
+		try {
+			assertEquals(1, wkt.getPageForId(1).getEntryCount());
+		} finally {
+			wkt.close();
+		}
+	}
+	
+	/***/
+	public void testTextStore() {
+		File parsedDir = new File(workDir, "parsed");
+		File textStoreFile = new File(workDir, WiktionaryTextStore.FILE_NAME);
+		WiktionaryArticleParser parser = new WiktionaryArticleParser(
+				new WritableBerkeleyDBWiktionaryEdition(parsedDir, true));
+		parser.setTextStore(textStoreFile);
+		new WiktionaryDumpParser(parser).parse(
+				new File(RESOURCE_PATH, "WiktionaryTestData_en_20080613.xml"));
+		
+		File reparsedDir = new File(workDir, "reparsed");
+		new WiktionaryTextStoreParser(4).parse(textStoreFile, 
+				new WritableBerkeleyDBWiktionaryEdition(reparsedDir, true));
+		
+		IWiktionaryEdition parsed = JWKTL.openEdition(parsedDir);
+		IWiktionaryEdition reparsed = JWKTL.openEdition(reparsedDir);
+		try {
+			int count = 0;
+			for (IWiktionaryPage page : parsed.getAllPages()) {
+				IWiktionaryPage other = reparsed.getPageForId(page.getId());
+				assertEquals(page.getTitle(), other.getTitle());
+				assertEquals(page.getRevision(), other.getRevision());
+				assertEquals(page.getEntryCount(), other.getEntryCount());
+				for (int i = 0; i < page.getEntryCount(); i++)
+					assertEquals(page.getEntry(i).getSenseCount(), 
+							other.getEntry(i).getSenseCount());
+				count++;
+			}
+			assertTrue(count > 0);
+			assertEquals("11094:6", reparsed.getEntryForKey("11094:6").getKey());
+			assertEquals(11095, reparsed.getPageForWord("parameter").getId());
+		} finally {
+			parsed.close();
+			reparsed.close();
+		}
+		
+		// Any entry parser can be used.
+		final AtomicInteger pageCount = new AtomicInteger();
+		assertEquals(count(textStoreFile), new WiktionaryTextStoreParser(2, 
+				MyWiktionaryDumpParser.class).parse(textStoreFile, 
+						new WiktionaryPartitionScanner.IElementHandler<WiktionaryPage>() {
+			public void handle(final WiktionaryPage page) {
+				assertEquals(0, page.getEntryCount());
+				pageCount.incrementAndGet();
+			}
+		}));
+		assertEquals(count(textStoreFile), pageCount.get());
+	}
+	
+	protected static long count(final File textStoreFile) {
+		WiktionaryTextStore textStore = WiktionaryTextStore.open(textStoreFile);
+		try {
+			return textStore.getRecordCount();
+		} finally {
+			textStore.close();
+		}
+	}
+	
+	/***/
+	public void testResume() throws IOException {
+		final int PAGE_COUNT = 1000;
+		File dumpFile = new File(workDir, "large.xml");
+		writeLargeDump(dumpFile, PAGE_COUNT);
+		File targetDir = new File(workDir, "resumed");
+		
+		// Abort the import at page 550.
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true);
+		WiktionaryArticleParser parser = createAbortingParser(db, 550);
+		parser.setCommitInterval(100);
+		try {
+			new WiktionaryDumpParser(parser).parse(dumpFile);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {}
+		db.close(); // Pages after the checkpoint are stored as well.
+		assertTrue(new File(targetDir, BerkeleyDBWiktionaryEdition.CHECKPOINT_FILE_NAME).exists());
+		assertFalse(new File(targetDir, BerkeleyDBWiktionaryEdition.PROPERTY_FILE_NAME).exists());
+		
+		db = WritableBerkeleyDBWiktionaryEdition.openForResume(targetDir);
+		long resumePageId = db.getResumePageId();
+		assertTrue(resumePageId >= 500 && resumePageId < 550);
+		assertEquals(String.format("word%06d", PAGE_COUNT - resumePageId),
+				db.getPageForId(resumePageId).getTitle());
+		assertNull(db.getPageForId(resumePageId + 1));
+		parser = new WiktionaryArticleParser(db);
+		parser.setCommitInterval(100);
+		new WiktionaryDumpParser(parser).parse(dumpFile);
+		assertFalse(new File(targetDir, BerkeleyDBWiktionaryEdition.CHECKPOINT_FILE_NAME).exists());
+		
+		Properties properties = new Properties();
+		FileInputStream stream = new FileInputStream(new File(targetDir, 
+				BerkeleyDBWiktionaryEdition.PROPERTY_FILE_NAME));
+		try {
+			properties.load(stream);
+		} finally {
+			stream.close();
+		}
+		assertEquals(Integer.toString(PAGE_COUNT), properties.getProperty("database.pages"));
+		assertEquals(Integer.toString(2 * PAGE_COUNT), properties.getProperty("database.entries"));
+		
+		IWiktionaryEdition wkt = JWKTL.openEdition(targetDir);
+		try {
+			assertEquals(PAGE_COUNT, assertSortedByTitle(wkt.getAllPages(true), null));
+			assertEquals(550, wkt.getPageForWord("word000450").getId());
+			assertEquals("550:1", wkt.getEntryForKey("550:1").getKey());
+			assertNull(wkt.getEntryForKey("550:2"));
+		} finally {
+			wkt.close();
+		}
+		
+		try {
+			WritableBerkeleyDBWiktionaryEdition.openForResume(targetDir);
+			fail("WiktionaryException expected");
+		} catch (WiktionaryException e) {}
+		assertTrue(new MultistreamFilter.AfterPageId(500).accept(501, "word"));
+		assertFalse(new MultistreamFilter.AfterPageId(500).accept(500, "word"));
+	}
+	
+	/***/
+	public void testResumeTextStore() throws IOException {
+		final int PAGE_COUNT = 1000;
+		File dumpFile = new File(workDir, "large.xml");
+		writeLargeDump(dumpFile, PAGE_COUNT);
+		File targetDir = new File(workDir, "resumed");
+		File textStoreFile = new File(workDir, WiktionaryTextStore.FILE_NAME);
+		
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true);
+		WiktionaryArticleParser parser = createAbortingParser(db, 550);
+		parser.setCommitInterval(100);
+		parser.setTextStore(textStoreFile);
+		try {
+			new WiktionaryDumpParser(parser).parse(dumpFile);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {}
+		db.close();
+		
+		// The pages before the checkpoint are required.
+		db = WritableBerkeleyDBWiktionaryEdition.openForResume(targetDir);
+		long resumePageId = db.getResumePageId();
+		File partialDumpFile = new File(workDir, "partial.xml");
+		writeDump(partialDumpFile, dumpPage(resumePageId + 1, 1, "word", "===Noun===\n# A noun.\n"));
+		parser = new WiktionaryArticleParser(db);
+		parser.setTextStore(textStoreFile);
+		try {
+			new WiktionaryDumpParser(parser).parse(partialDumpFile);
+			fail("WiktionaryException expected");
+		} catch (WiktionaryException e) {}
+		db.close();
+		
+		db = WritableBerkeleyDBWiktionaryEdition.openForResume(targetDir);
+		parser = new WiktionaryArticleParser(db);
+		parser.setTextStore(textStoreFile);
+		new WiktionaryDumpParser(parser).parse(dumpFile);
+		assertEquals(PAGE_COUNT, count(textStoreFile));
+		WiktionaryTextStore textStore = WiktionaryTextStore.open(textStoreFile);
+		try {
+			for (long pageId : new long[]{1, resumePageId, resumePageId + 1, PAGE_COUNT})
+				assertEquals(String.format("word%06d", PAGE_COUNT - pageId),
+						textStore.getRecord(pageId).getTitle());
+		} finally {
+			textStore.close();
+		}
+	}
+	
+	/***/
+	public void testMergeWikisaurus() throws IOException {
+		// Wikisaurus pages before and after their Wiktionary pages, and
+		// a Wikisaurus page without a Wiktionary page.
+		File dumpFile = new File(workDir, "wikisaurus.xml");
+		writeDump(dumpFile, 
+				dumpPage(1, 1, "Wikisaurus:beta", wikisaurusText("b1", "b2")),
+				dumpPage(2, 2, "alpha", "===Noun===\n# A noun.\n"),
+				dumpPage(3, 3, "beta", "===Noun===\n# A noun.\n"),
+				dumpPage(4, 4, "Wikisaurus:alpha", wikisaurusText("a1")
+						+ "=====Antonyms=====\n{{ws beginlist}}\n{{ws|a2}}\n{{ws endlist}}\n"),
+				dumpPage(5, 5, "Wikisaurus:missing", wikisaurusText("m1")),
+				dumpPage(6, 6, "gamma", "===Noun===\n# A noun.\n"),
+				dumpPage(7, 7, "Wikisaurus:gamma", wikisaurusText("g1")));
+		
+		// Immediate merging as reference.
+		File immediateDir = new File(workDir, "immediate");
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(immediateDir, true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db), 
+				new WikisaurusArticleParser(db, false)).parse(dumpFile);
+		
+		// Sorted merging with a run for each entry.
+		File sortedDir = new File(workDir, "sorted");
+		final File runDir = new File(workDir, "runs");
+		runDir.mkdirs();
+		final AtomicInteger spillCount = new AtomicInteger();
+		WikisaurusEntrySorter sorter = new WikisaurusEntrySorter(runDir, 1) {
+			@Override
+			protected void spill() {
+				spillCount.incrementAndGet();
+				super.spill();
+			}
+		};
+		db = new WritableBerkeleyDBWiktionaryEdition(sortedDir, true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db), 
+				new WikisaurusArticleParser(db, sorter)).parse(dumpFile);
+		assertEquals(4, sorter.getEntryCount());
+		assertTrue(spillCount.get() > 0);
+		assertEquals(0, runDir.list().length);
+		
+		// Sorted merging using the default settings.
+		File defaultDir = new File(workDir, "default");
+		JWKTL.parseWiktionaryDump(dumpFile, defaultDir, true, true);
+		
+		for (File targetDir : new File[]{immediateDir, sortedDir, defaultDir}) {
+			IWiktionaryEdition wkt = JWKTL.openEdition(targetDir);
+			try {
+				assertEquals(Arrays.asList("ANTONYM:a2", "SYNONYM:a1"), 
+						describeWikisaurusRelations(wkt.getPageForWord("alpha")));
+				assertEquals(Arrays.asList("SYNONYM:b1", "SYNONYM:b2"), 
+						describeWikisaurusRelations(wkt.getPageForWord("beta")));
+				assertEquals(Arrays.asList("SYNONYM:g1"), 
+						describeWikisaurusRelations(wkt.getPageForWord("gamma")));
+				assertNull(wkt.getPageForWord("missing"));
+				int pageCount = 0;
+				for (IWiktionaryPage page : wkt.getAllPages())
+					if (page.getTitle().startsWith("Wikisaurus:"))
+						fail(page.getTitle());
+					else
+						pageCount++;
+				assertEquals(3, pageCount);
+			} finally {
+				wkt.close();
+			}
+		}
+	}
+	
+	protected static List<String> describeWikisaurusRelations(final IWiktionaryPage page) {
+		List<String> result = new ArrayList<String>();
+		for (IWiktionaryEntry entry : page.getEntries())
+			for (IWiktionarySense sense : entry.getSenses())
+				for (IWiktionaryRelation relation : sense.getRelations())
+					if (relation.getLinkType() == LinkType.WIKISAURUS)
+						result.add(relation.getRelationType() + ":" + relation.getTarget());
+		Collections.sort(result);
+		return result;
+	}
+	
+	/***/
+	public void testResumeWikisaurus() throws IOException {
+		assertResumeWikisaurus(false);
+		assertResumeWikisaurus(true);
+	}
+	
+	protected void assertResumeWikisaurus(boolean mergeAfterImport) 
+			throws IOException {
+		// The Wikisaurus page 120 refers to a page after the checkpoint, 
+		// the Wikisaurus page 150 to a page before the checkpoint.
+		final int PAGE_COUNT = 300;
+		String[] pages = new String[PAGE_COUNT];
+		for (int i = 1; i <= PAGE_COUNT; i++)
+			pages[i - 1] = dumpPage(i, i, String.format("word%06d", i), "===Noun===\n# A noun.\n");
+		pages[119] = dumpPage(120, 120, "Wikisaurus:word000230", wikisaurusText("synonym120"));
+		pages[149] = dumpPage(150, 150, "Wikisaurus:word000010", wikisaurusText("synonym150"));
+		File dumpFile = new File(workDir, "wikisaurus.xml");
+		writeDump(dumpFile, pages);
+		File targetDir = new File(workDir, "resumed" + mergeAfterImport);
+		
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true);
+		WiktionaryArticleParser parser = createAbortingParser(db, 250);
+		parser.setCommitInterval(50);
+		try {
+			new WiktionaryDumpParser(parser, new WikisaurusArticleParser(db, mergeAfterImport)).parse(dumpFile);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {}
+		db.close();
+		
+		// The Wikisaurus pages before the checkpoint are required.
+		db = WritableBerkeleyDBWiktionaryEdition.openForResume(targetDir);
+		long resumePageId = db.getResumePageId();
+		assertTrue(resumePageId >= 150 && resumePageId < 250);
+		File partialDumpFile = new File(workDir, "partial.xml");
+		writeDump(partialDumpFile, dumpPage(resumePageId + 1, 1, "word", "===Noun===\n# A noun.\n"));
+		try {
+			new WiktionaryDumpParser(new WiktionaryArticleParser(db), 
+					new WikisaurusArticleParser(db, mergeAfterImport)).parse(partialDumpFile);
+			fail("WiktionaryException expected");
+		} catch (WiktionaryException e) {}
+		db.close();
+		
+		db = WritableBerkeleyDBWiktionaryEdition.openForResume(targetDir);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db), 
+				new WikisaurusArticleParser(db, mergeAfterImport)).parse(dumpFile);
+		IWiktionaryEdition wkt = JWKTL.openEdition(targetDir);
+		try {
+			for (String[] relation : new String[][]{
+					{"word000230", "synonym120"}, {"word000010", "synonym150"}}) {
+				List<IWiktionaryRelation> relations = wkt.getPageForWord(relation[0])
+						.getEntry(0).getSense(1).getRelations();
+				assertEquals(1, relations.size());
+				assertEquals(relation[1], relations.get(0).getTarget());
+				assertEquals(RelationType.SYNONYM, relations.get(0).getRelationType());
+				assertEquals(LinkType.WIKISAURUS, relations.get(0).getLinkType());
+			}
+		} finally {
+			wkt.close();
+		}
+	}
+	
+	protected static String wikisaurusText(final String... synonyms) {
+		StringBuilder result = new StringBuilder();
+		result.append("===Noun===\n===={{ws sense|a noun}}====\n=====Synonyms=====\n");
+		result.append("{{ws beginlist}}\n");
+		for (String synonym : synonyms)
+			result.append("{{ws|").append(synonym).append("}}\n");
+		result.append("{{ws endlist}}\n");
+		return result.toString();
+	}
+	
+	/** Creates a parser that throws an exception when reaching the 
+	 *  given page ID. */
+	protected static WiktionaryArticleParser createAbortingParser(
+			final IWritableWiktionaryEdition db, final long abortPageId) {
+		return new WiktionaryArticleParser(db, new ENWiktionaryEntryParser() {
+			@Override
+			public void parse(final WiktionaryPage page, final String text) {
+				if (page.getId() == abortPageId)
+					throw new IllegalStateException("Aborted");
+				super.parse(page, text);
+			}
+		});
+	}
+	
+	/***/
+	public void testShardedEdition() throws IOException {
+		File dumpFile = new File(RESOURCE_PATH, "WiktionaryTestData_en_20080613.xml");
+		File parsedDir = new File(workDir, "parsed");
+		new WiktionaryDumpParser(new WiktionaryArticleParser(
+				new WritableBerkeleyDBWiktionaryEdition(parsedDir, true))).parse(dumpFile);
+		
+		// One of the shards is located outside of the edition's directory.
+		File shardedDir = new File(workDir, "sharded");
+		List<File> shardPaths = Arrays.asList(new File(shardedDir, "shard0"),
+				new File(shardedDir, "shard1"), new File(workDir, "shard2"));
+		new WiktionaryDumpParser(new WiktionaryArticleParser(
+				new WritableShardedWiktionaryEdition(shardedDir, shardPaths, true, null)))
+				.parse(dumpFile);
+		List<File> loadedPaths = ShardedWiktionaryEdition.loadShardPaths(shardedDir);
+		assertEquals(3, loadedPaths.size());
+		for (int i = 0; i < 3; i++)
+			assertEquals(shardPaths.get(i).getAbsoluteFile(), loadedPaths.get(i).getAbsoluteFile());
+		assertTrue(loadedPaths.get(2).isAbsolute());
+		
+		IWiktionaryEdition parsed = JWKTL.openEdition(parsedDir);
+		IWiktionaryEdition opened = JWKTL.openEdition(shardedDir);
+		try {
+			assertTrue(opened instanceof ShardedWiktionaryEdition);
+			ShardedWiktionaryEdition sharded = (ShardedWiktionaryEdition) opened;
+			assertEquals(3, sharded.getShardCount());
+			assertEquals(Language.ENGLISH, sharded.getLanguage());
+			
+			int pageCount = 0;
+			int entryCount = 0;
+			int[] shardPageCounts = new int[3];
+			for (IWiktionaryPage page : parsed.getAllPages()) {
+				int shardIdx = sharded.getShardIndex(page.getTitle());
+				assertNotNull(sharded.getShards().get(shardIdx).getPageForId(page.getId()));
+				shardPageCounts[shardIdx]++;
+				assertEquals(page.getTitle(), sharded.getPageForId(page.getId()).getTitle());
+				assertEquals(page.getId(), sharded.getPageForWord(page.getTitle()).getId());
+				assertEquals(page.getEntryCount(), sharded.getPageForWord(page.getTitle()).getEntryCount());
+				assertEquals(parsed.getPagesForWord(page.getTitle(), true).size(),
+						sharded.getPagesForWord(page.getTitle(), true).size());
+				entryCount += page.getEntryCount();
+				pageCount++;
+			}
+			assertEquals(pageCount, shardPageCounts[0] + shardPageCounts[1] + shardPageCounts[2]);
+			assertEquals("11094:6", sharded.getEntryForKey("11094:6").getKey());
+			assertNull(sharded.getPageForWord("nonexistent word"));
+			int count = 0;
+			for (IWiktionaryEntry entry : sharded.getAllEntries()) {
+				assertNotNull(entry);
+				count++;
+			}
+			assertEquals(entryCount, count);
+		} finally {
+			parsed.close();
+			opened.close();
+		}
+		
+		// Merged iteration and partitions.
+		final int PAGE_COUNT = 300;
+		File largeDumpFile = new File(workDir, "large.xml");
+		writeLargeDump(largeDumpFile, PAGE_COUNT);
+		File largeDir = new File(workDir, "large");
+		new WiktionaryDumpParser(new WiktionaryArticleParser(
+				new WritableShardedWiktionaryEdition(largeDir, 4, true)))
+				.parse(largeDumpFile);
+		ShardedWiktionaryEdition sharded = new ShardedWiktionaryEdition(largeDir);
+		try {
+			for (IWiktionaryEdition shard : sharded.getShards()) {
+				int shardPageCount = 0;
+				for (IWiktionaryPage page : shard.getAllPages()) {
+					assertSame(shard, sharded.getShards().get(
+							sharded.getShardIndex(page.getTitle())));
+					shardPageCount++;
+				}
+				assertTrue(shardPageCount > 0);
+			}
+			assertEquals(PAGE_COUNT, assertSortedByTitle(sharded.getAllPages(true), null));
+			assertEquals(PAGE_COUNT - 7, sharded.getPageForWord("word000007").getId());
+			assertEquals("word000007", sharded.getPageForId(PAGE_COUNT - 7).getTitle());
+			
+			// Fewer partitions than shards and more partitions than shards.
+			WiktionaryPartitionScanner scanner = new WiktionaryPartitionScanner(4);
+			try {
+				List<IWiktionaryIterator<IWiktionaryPage>> pagePartitions 
+						= sharded.getPagePartitions(null, 2);
+				assertEquals(2, pagePartitions.size());
+				assertEquals(PAGE_COUNT, scanner.scan(pagePartitions,
+						new WiktionaryPartitionScanner.IElementHandler<IWiktionaryPage>() {
+					public void handle(final IWiktionaryPage page) {}
+				}));
+				
+				List<IWiktionaryIterator<IWiktionaryEntry>> entryPartitions 
+						= sharded.getEntryPartitions(null, 10);
+				assertTrue(entryPartitions.size() >= 4 && entryPartitions.size() <= 10);
+				assertEquals(2 * PAGE_COUNT, scanner.scan(entryPartitions,
+						new WiktionaryPartitionScanner.IElementHandler<IWiktionaryEntry>() {
+					public void handle(final IWiktionaryEntry entry) {}
+				}));
+			} finally {
+				scanner.close();
+			}
+		} finally {
+			sharded.close();
+		}
+	}
+	
+	/***/
+	public void testShardedEntryIds() throws IOException {
+		// Both shards assign their entry IDs by title, which yields the 
+		// same local IDs unless each shard uses its own range.
+		final int PAGE_COUNT = 300;
+		File largeDumpFile = new File(workDir, "large.xml");
+		writeLargeDump(largeDumpFile, PAGE_COUNT);
+		File shardedDir = new File(workDir, "sharded");
+		WritableShardedWiktionaryEdition db = new WritableShardedWiktionaryEdition(shardedDir, 2, true);
+		db.setEntryIndexByTitle(true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(largeDumpFile);
+		
+		ShardedWiktionaryEdition sharded = new ShardedWiktionaryEdition(shardedDir);
+		try {
+			int shard0EntryCount = 0;
+			for (IWiktionaryEntry entry : sharded.getShards().get(0).getAllEntries()) {
+				assertTrue(entry.getId() < 2 * PAGE_COUNT);
+				shard0EntryCount++;
+			}
+			assertTrue(shard0EntryCount > 0 && shard0EntryCount < 2 * PAGE_COUNT);
+			for (IWiktionaryEntry entry : sharded.getShards().get(1).getAllEntries())
+				assertTrue(entry.getId() >= shard0EntryCount);
+			
+			Set<Long> entryIds = new TreeSet<Long>();
+			for (IWiktionaryEntry entry : sharded.getAllEntries()) {
+				assertTrue(entryIds.add(entry.getId()));
+				assertEquals(entry.getKey(), sharded.getEntryForId(entry.getId()).getKey());
+			}
+			assertEquals(2 * PAGE_COUNT, entryIds.size());
+			assertEquals(0L, entryIds.iterator().next().longValue());
+			assertNull(sharded.getEntryForId(2 * PAGE_COUNT));
+			assertNull(sharded.getEntryForId(-1));
+		} finally {
+			sharded.close();
+		}
+	}
+	
+	/***/
+	public void testSkipProxies() {
+		File targetDir = new File(workDir, "noProxies");
+		WritableBerkeleyDBWiktionaryEdition db = new WritableBerkeleyDBWiktionaryEdition(targetDir, true);
+		db.setSaveProxies(false);
+		db.setEntryIndexByTitle(true);
+		new WiktionaryDumpParser(new WiktionaryArticleParser(db)).parse(
+				new File(RESOURCE_PATH, "WiktionaryTestData_en_20080613.xml"));
+		
+		IWiktionaryEdition wkt = JWKTL.openEdition(targetDir);
+		try {
+			assertEquals("11094:6", wkt.getEntryForKey("11094:6").getKey());
+			assertEquals("11094:6", wkt.getEntryForId(7).getKey());
+			assertEquals("11095:0:1", wkt.getSenseForKey("11095:0:1").getKey());
+		} finally {
+			wkt.close();
+		}
+	}
+	
 	/***/
 	public void testResolveLanguage() {
 		assertEquals(Language.ENGLISH, WiktionaryDumpParser.resolveLanguage(
@@ -184,6 +1091,52 @@ public class WiktionaryArticleParserTest extends WiktionaryTestCase {
 		assertTrue(new File(parsedData, "wiktionary.properties").exists());
 	}
 
+	protected static void writeLargeDump(final File dumpFile, int pageCount)
+			throws IOException {
+		PrintWriter writer = new PrintWriter(dumpFile, "UTF-8");
+		try {
+			writer.println("<mediawiki xmlns=\"http://www.mediawiki.org/xml/export-0.3/\" version=\"0.3\" xml:lang=\"en\">");
+			writer.println("  <siteinfo>");
+			writer.println("    <base>http://en.wiktionary.org/wiki/Wiktionary:Main_Page</base>");
+			writer.println("    <namespaces><namespace key=\"0\" /></namespaces>");
+			writer.println("  </siteinfo>");
+			for (int i = 1; i <= pageCount; i++)
+				writer.println("  <page><id>" + i + "</id><title>" 
+						+ String.format("word%06d", pageCount - i) 
+						+ "</title><revision><text>==English==\n"
+						+ "===Noun===\n# A noun.\n\n===Verb===\n# A verb.\n"
+						+ "</text></revision></page>");
+			writer.println("</mediawiki>");
+		} finally {
+			writer.close();
+		}
+	}
+
+	protected static String dumpPage(long id, long revision, 
+			final String title, final String text) {
+		return "  <page><id>" + id + "</id><title>" + title 
+				+ "</title><revision><id>" + revision + "</id><text>==English==\n" 
+				+ text + "</text></revision></page>";
+	}
+	
+	protected static void writeDump(final File dumpFile, final String... pages)
+			throws IOException {
+		PrintWriter writer = new PrintWriter(dumpFile, "UTF-8");
+		try {
+			writer.println("<mediawiki xmlns=\"http://www.mediawiki.org/xml/export-0.3/\" version=\"0.3\" xml:lang=\"en\">");
+			writer.println("  <siteinfo>");
+			writer.println("    <base>http://en.wiktionary.org/wiki/Wiktionary:Main_Page</base>");
+			writer.println("    <namespaces><namespace key=\"0\" />"
+					+ "<namespace key=\"110\">Wikisaurus</namespace></namespaces>");
+			writer.println("  </siteinfo>");
+			for (String page : pages)
+				writer.println(page);
+			writer.println("</mediawiki>");
+		} finally {
+			writer.close();
+		}
+	}
+
 	protected static String format8601(Date date) {
 		final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
 		dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.parser.util;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+
+import de.tudarmstadt.ukp.jwktl.WiktionaryTestCase;
+import de.tudarmstadt.ukp.jwktl.api.entry.WiktionaryPage;
+import de.tudarmstadt.ukp.jwktl.api.util.IWiktionaryIterator;
+import de.tudarmstadt.ukp.jwktl.api.util.Language;
+
+/**
+ * Test case for {@link WiktionaryTextStore}.
+ */
+public class WiktionaryTextStoreTest extends WiktionaryTestCase {
+
+	/***/
+	public void testTextStore() {
+		File file = new File(workDir, WiktionaryTextStore.FILE_NAME);
+		WiktionaryTextStore.Writer writer = new WiktionaryTextStore.Writer(
+				file, Language.ENGLISH, 4096);
+		for (int i = 1; i <= 1000; i++)
+			writer.add(new WiktionaryTextStore.Record(i * 2, i + 100, "word" + i, 
+					(i % 2 == 0 ? "author" : null), (i % 3 == 0 ? null : new Date(i)), 
+					"==English==\n===Noun===\n# Noun number " + i + ".\n"));
+		try {
+			writer.add(new WiktionaryTextStore.Record(2000, 1, "word", null, null, ""));
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {}
+		writer.close();
+		
+		WiktionaryTextStore textStore = WiktionaryTextStore.open(file);
+		try {
+			assertEquals(Language.ENGLISH, textStore.getLanguage());
+			assertEquals(1000, textStore.getRecordCount());
+			assertTrue(textStore.getBlockCount() > 1);
+			
+			WiktionaryTextStore.Record record = textStore.getRecord(1000);
+			assertEquals(1000, record.getPageId());
+			assertEquals(600, record.getRevision());
+			assertEquals("word500", record.getTitle());
+			assertEquals("author", record.getAuthor());
+			assertEquals(new Date(500), record.getTimestamp());
+			assertEquals("==English==\n===Noun===\n# Noun number 500.\n", record.getText());
+			assertNull(textStore.getRecord(6).getTimestamp());
+			assertNull(textStore.getRecord(2).getAuthor());
+			assertNull(textStore.getRecord(1));
+			assertNull(textStore.getRecord(1001));
+			assertNull(textStore.getRecord(2002));
+			
+			WiktionaryPage page = record.createPage(Language.ENGLISH);
+			assertEquals(1000, page.getId());
+			assertEquals("word500", page.getTitle());
+			assertEquals(600, page.getRevision());
+			
+			// The partitions contain all records in the order of their IDs.
+			List<IWiktionaryIterator<WiktionaryTextStore.Record>> partitions 
+					= textStore.getPartitions(4);
+			assertEquals(4, partitions.size());
+			long lastPageId = 0;
+			for (IWiktionaryIterator<WiktionaryTextStore.Record> partition : partitions)
+				for (WiktionaryTextStore.Record r : partition) {
+					assertEquals(lastPageId + 2, r.getPageId());
+					lastPageId = r.getPageId();
+				}
+			assertEquals(2000, lastPageId);
+			assertEquals(textStore.getBlockCount(), 
+					textStore.getPartitions(textStore.getBlockCount() + 10).size());
+		} finally {
+			textStore.close();
+		}
+	}
+	
+	/***/
+	public void testLargeText() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 20000; i++)
+			text.append("Straße ").append(i).append('\n');
+		File file = new File(workDir, WiktionaryTextStore.FILE_NAME);
+		WiktionaryTextStore.Writer writer = new WiktionaryTextStore.Writer(file, null);
+		writer.add(new WiktionaryTextStore.Record(1, 1, "large", null, null, text.toString()));
+		writer.add(new WiktionaryTextStore.Record(2, 1, "empty", null, null, ""));
+		writer.close();
+		
+		WiktionaryTextStore textStore = WiktionaryTextStore.open(file);
+		try {
+			assertNull(textStore.getLanguage());
+			assertEquals(text.toString(), textStore.getRecord(1).getText());
+			assertEquals("", textStore.getRecord(2).getText());
+			assertTrue(file.length() < text.length() / 2);
+		} finally {
+			textStore.close();
+		}
+		
+		writer = new WiktionaryTextStore.Writer(file, Language.GERMAN);
+		writer.close();
+		textStore = WiktionaryTextStore.open(file);
+		try {
+			assertEquals(0, textStore.getRecordCount());
+			assertNull(textStore.getRecord(1));
+			assertFalse(textStore.getRecords().hasNext());
+			assertEquals(1, textStore.getPartitions(4).size());
+		} finally {
+			textStore.close();
+		}
+	}
+	
+}
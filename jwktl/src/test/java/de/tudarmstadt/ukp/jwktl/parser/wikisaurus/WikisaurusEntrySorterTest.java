@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright 2013
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.jwktl.parser.wikisaurus;
+
+import java.util.Iterator;
+
+import de.tudarmstadt.ukp.jwktl.WiktionaryTestCase;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation;
+import de.tudarmstadt.ukp.jwktl.api.PartOfSpeech;
+import de.tudarmstadt.ukp.jwktl.api.RelationType;
+import de.tudarmstadt.ukp.jwktl.api.IWiktionaryRelation.LinkType;
+import de.tudarmstadt.ukp.jwktl.api.util.Language;
+import de.tudarmstadt.ukp.jwktl.api.util.WiktionaryIterator;
+
+/**
+ * Test case for the {@link WikisaurusEntrySorter}.
+ */
+public class WikisaurusEntrySorterTest extends WiktionaryTestCase {
+
+	/***/
+	public void testInMemorySort() {
+		WikisaurusEntrySorter sorter = new WikisaurusEntrySorter(workDir, 100);
+		sorter.add(new WikisaurusEntry("tree", PartOfSpeech.NOUN, Language.ENGLISH, "plant"));
+		sorter.add(new WikisaurusEntry("apple", PartOfSpeech.NOUN, Language.ENGLISH, "fruit"));
+		sorter.add(new WikisaurusEntry("house", PartOfSpeech.NOUN, Language.ENGLISH, null));
+		assertEquals(0, sorter.getRunCount());
+		
+		Iterator<WikisaurusEntry> iter = sorter.sortedEntries();
+		assertEquals("apple", iter.next().getTitle());
+		assertEquals("house", iter.next().getTitle());
+		assertEquals("tree", iter.next().getTitle());
+		assertFalse(iter.hasNext());
+		sorter.close();
+	}
+	
+	/***/
+	public void testExternalSort() {
+		WikisaurusEntrySorter sorter = new WikisaurusEntrySorter(workDir, 3);
+		String[] titles = {"pear", "apple", "tree", "apple", "Zebra", "house", 
+				"apple", "car", "ähnlich", "tree"};
+		for (int i = 0; i < titles.length; i++) {
+			WikisaurusEntry entry = new WikisaurusEntry(titles[i], 
+					PartOfSpeech.NOUN, Language.ENGLISH, "sense " + i);
+			entry.addRelation("target" + i, null, RelationType.SYNONYM);
+			sorter.add(entry);
+		}
+		assertEquals(10, sorter.getEntryCount());
+		assertEquals(3, sorter.getRunCount());
+		assertEquals(3, workDir.listFiles().length);
+		
+		WiktionaryIterator<WikisaurusEntry> iter = sorter.sortedEntries();
+		String[] expected = {"Zebra", "apple", "apple", "apple", "car", 
+				"house", "pear", "tree", "tree", "ähnlich"};
+		String[] expectedSenses = {"sense 4", "sense 1", "sense 3", "sense 6", 
+				"sense 7", "sense 5", "sense 0", "sense 2", "sense 9", "sense 8"};
+		for (int i = 0; i < expected.length; i++) {
+			assertTrue(iter.hasNext());
+			WikisaurusEntry entry = iter.next();
+			assertEquals(expected[i], entry.getTitle());
+			assertEquals(expectedSenses[i], entry.getSenseDefinition());
+			assertEquals(PartOfSpeech.NOUN, entry.getPartOfSpeech());
+			assertEquals(Language.ENGLISH, entry.getLanguage());
+			assertEquals(1, entry.getRelations().size());
+			IWiktionaryRelation relation = entry.getRelations().iterator().next();
+			assertEquals("target" + entry.getSenseDefinition().substring(6), relation.getTarget());
+			assertEquals(RelationType.SYNONYM, relation.getRelationType());
+			assertEquals(LinkType.WIKISAURUS, relation.getLinkType());
+		}
+		assertFalse(iter.hasNext());
+		assertTrue(iter.isClosed());
+		
+		sorter.close();
+		assertEquals(0, sorter.getRunCount());
+		assertEquals(0, workDir.listFiles().length);
+	}
+	
+	/***/
+	public void testLongStrings() {
+		StringBuilder definition = new StringBuilder();
+		while (definition.length() < 70000)
+			definition.append("sense ähnlich ");
+		WikisaurusEntrySorter sorter = new WikisaurusEntrySorter(workDir, 1);
+		WikisaurusEntry entry = new WikisaurusEntry("tree", null, null, definition.toString());
+		entry.addRelation("plant", null, RelationType.HYPERNYM);
+		sorter.add(entry);
+		sorter.add(new WikisaurusEntry("apple", PartOfSpeech.NOUN, Language.ENGLISH, null));
+		assertEquals(2, sorter.getRunCount());
+		
+		WiktionaryIterator<WikisaurusEntry> iter = sorter.sortedEntries();
+		assertNull(iter.next().getSenseDefinition());
+		entry = iter.next();
+		assertEquals("tree", entry.getTitle());
+		assertEquals(definition.toString(), entry.getSenseDefinition());
+		assertNull(entry.getPartOfSpeech());
+		assertNull(entry.getLanguage());
+		assertEquals("plant", entry.getRelations().iterator().next().getTarget());
+		assertFalse(iter.hasNext());
+		sorter.close();
+	}
+	
+	/***/
+	public void testEmpty() {
+		WikisaurusEntrySorter sorter = new WikisaurusEntrySorter(workDir, 3);
+		assertFalse(sorter.sortedEntries().hasNext());
+		sorter.close();
+	}
+	
+}